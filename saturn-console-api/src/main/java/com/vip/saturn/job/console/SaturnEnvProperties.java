@@ -25,6 +25,24 @@ public final class SaturnEnvProperties {
 			System.getenv("VIP_SATURN_DCOS_REST_URI"));
 	public static String VIP_SATURN_DCOS_REGISTRY_URI = System.getProperty("VIP_SATURN_DCOS_REGISTRY_URI",
 			System.getenv("VIP_SATURN_DCOS_REGISTRY_URI"));
+	/**
+	 * 是否开启作业配置快照，开启后每个域用TreeCache维护所有作业配置的本地快照，读取作业配置优先读快照
+	 */
+	public static String NAME_VIP_SATURN_CONSOLE_JOB_CONFIG_CACHE = "VIP_SATURN_CONSOLE_JOB_CONFIG_CACHE";
+	public static boolean VIP_SATURN_CONSOLE_JOB_CONFIG_CACHE = Boolean.parseBoolean(System.getProperty(
+			NAME_VIP_SATURN_CONSOLE_JOB_CONFIG_CACHE, System.getenv(NAME_VIP_SATURN_CONSOLE_JOB_CONFIG_CACHE)));
+	/**
+	 * 是否开启作业总览视图，开启后每个域用TreeCache维护所有作业的运行状态、已分配的executor，作业总览优先读视图
+	 */
+	public static String NAME_VIP_SATURN_CONSOLE_JOB_OVERVIEW_CACHE = "VIP_SATURN_CONSOLE_JOB_OVERVIEW_CACHE";
+	public static boolean VIP_SATURN_CONSOLE_JOB_OVERVIEW_CACHE = Boolean.parseBoolean(System.getProperty(
+			NAME_VIP_SATURN_CONSOLE_JOB_OVERVIEW_CACHE, System.getenv(NAME_VIP_SATURN_CONSOLE_JOB_OVERVIEW_CACHE)));
+	/**
+	 * 是否共享zk连接，开启后同一zk集群的所有域复用集群的zk连接（按域使用命名空间视图），不再为每个域单独建立连接
+	 */
+	public static String NAME_VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT = "VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT";
+	public static boolean VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT = Boolean.parseBoolean(System.getProperty(
+			NAME_VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT, System.getenv(NAME_VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT)));
 	public static String NAME_VIP_SATURN_EXECUTOR_CLEAN = "VIP_SATURN_EXECUTOR_CLEAN";
 	public static String NAME_VIP_SATURN_DCOS_TASK = "VIP_SATURN_DCOS_TASK";
 	protected static Logger log = LoggerFactory.getLogger(SaturnEnvProperties.class);
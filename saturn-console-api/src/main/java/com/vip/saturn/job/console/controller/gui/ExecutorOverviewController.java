@@ -1,6 +1,5 @@
 package com.vip.saturn.job.console.controller.gui;
 
-import com.google.common.collect.Lists;
 import com.vip.saturn.job.console.aop.annotation.Audit;
 import com.vip.saturn.job.console.aop.annotation.AuditParam;
 import com.vip.saturn.job.console.controller.SuccessResponseEntity;
@@ -102,25 +101,13 @@ public class ExecutorOverviewController extends AbstractGUIController {
 			@AuditParam("executorNames") @RequestParam List<String> executorNames,
 			@AuditParam("operation") @RequestParam String operation) throws SaturnJobConsoleException {
 		assertIsPermitted(Permissions.executorBatchExtractOrRecoverTraffic, namespace);
-		List<String> success2ExtractOrRecoverTrafficExecutors = Lists.newArrayList();
-		List<String> fail2ExtractOrRecoverTrafficExecutors = Lists.newArrayList();
-		for (String executorName : executorNames) {
-			try {
-				extractOrRecoverTraffic(namespace, executorName, operation);
-				success2ExtractOrRecoverTrafficExecutors.add(executorName);
-			} catch (Exception e) {
-				log.warn("exception happens during extract or recover traffic of executor:" + executorName, e);
-				fail2ExtractOrRecoverTrafficExecutors.add(executorName);
-			}
-		}
-
-		if (!fail2ExtractOrRecoverTrafficExecutors.isEmpty()) {
-			StringBuilder message = new StringBuilder();
-			message.append("操作成功的executor:").append(success2ExtractOrRecoverTrafficExecutors).append("，")
-					.append("操作失败的executor:").append(fail2ExtractOrRecoverTrafficExecutors);
-			throw new SaturnJobConsoleGUIException(message.toString());
+		if (TRAFFIC_OPERATION_EXTRACT.equals(operation)) {
+			executorService.batchExtractTraffic(namespace, executorNames);
+		} else if (TRAFFIC_OPERATION_RECOVER.equals(operation)) {
+			executorService.batchRecoverTraffic(namespace, executorNames);
+		} else {
+			throw new SaturnJobConsoleGUIException("operation " + operation + "不支持");
 		}
-
 		return new SuccessResponseEntity();
 	}
 
@@ -152,7 +139,8 @@ public class ExecutorOverviewController extends AbstractGUIController {
 	}
 
 	/**
-	 * 批量移除executor
+	 * 批量移除executor。先校验所有executor，任一executor不存在或者在线，则都不移除，返回所有不满足条件的executor的原因；
+	 * 不再像之前那样移除满足条件的executor、只返回失败的executor名
 	 */
 	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
 	@Audit
@@ -161,26 +149,7 @@ public class ExecutorOverviewController extends AbstractGUIController {
 			@AuditParam("namespace") @PathVariable String namespace,
 			@AuditParam("executorNames") @RequestParam List<String> executorNames) throws SaturnJobConsoleException {
 		assertIsPermitted(Permissions.executorBatchRemove, namespace);
-		// check executor is existed and online.
-		List<String> success2RemoveExecutors = Lists.newArrayList();
-		List<String> fail2RemoveExecutors = Lists.newArrayList();
-		for (String executorName : executorNames) {
-			try {
-				checkExecutorStatus(namespace, executorName, ServerStatus.OFFLINE, "Executor在线，不能移除");
-				executorService.removeExecutor(namespace, executorName);
-				success2RemoveExecutors.add(executorName);
-			} catch (Exception e) {
-				log.warn("exception happens during remove executor:" + executorName, e);
-				fail2RemoveExecutors.add(executorName);
-			}
-		}
-		if (!fail2RemoveExecutors.isEmpty()) {
-			StringBuilder message = new StringBuilder();
-			message.append("删除成功的executor:").append(success2RemoveExecutors).append("，").append("删除失败的executor:")
-					.append(fail2RemoveExecutors);
-			throw new SaturnJobConsoleGUIException(message.toString());
-		}
-
+		executorService.batchRemoveExecutors(namespace, executorNames);
 		return new SuccessResponseEntity();
 	}
 
@@ -21,6 +21,8 @@ import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -40,25 +42,66 @@ public class JobOverviewController extends AbstractGUIController {
 	@Resource
 	private AlarmStatisticsService alarmStatisticsService;
 
+	/**
+	 * 获取作业总览，支持按分组、作业名关键字、状态过滤，以及分页（pageNum从1开始）；不传参数时返回所有作业。
+	 * <p>
+	 * 列出所有作业时，totalNumber、enabledNumber与原来一样统计成功列出的作业；过滤或分页时没有获取所有作业的详情，统计的是域下所有非系统作业的配置。
+	 */
 	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
 	@GetMapping
-	public SuccessResponseEntity getJobs(final HttpServletRequest request, @PathVariable String namespace)
-			throws SaturnJobConsoleException {
-		return new SuccessResponseEntity(getJobOverviewVo(namespace));
+	public SuccessResponseEntity getJobs(final HttpServletRequest request, @PathVariable String namespace,
+			@RequestParam(required = false) String groups, @RequestParam(required = false) String keyword,
+			@RequestParam(required = false) JobStatus status, @RequestParam(required = false) Integer pageNum,
+			@RequestParam(required = false) Integer pageSize) throws SaturnJobConsoleException {
+		return new SuccessResponseEntity(getJobOverviewVo(namespace, groups, keyword, status, pageNum, pageSize));
 	}
 
 	public JobOverviewVo getJobOverviewVo(String namespace) throws SaturnJobConsoleException {
+		return getJobOverviewVo(namespace, null, null, null, null, null);
+	}
+
+	public JobOverviewVo getJobOverviewVo(String namespace, String groups, String keyword, JobStatus status,
+			Integer pageNum, Integer pageSize) throws SaturnJobConsoleException {
 		JobOverviewVo jobOverviewVo = new JobOverviewVo();
 		try {
-			List<JobOverviewJobVo> jobList = new ArrayList<>();
-			int enabledNumber = 0;
 			List<JobConfig> unSystemJobs = jobService.getUnSystemJobs(namespace);
-			if (unSystemJobs != null) {
-				enabledNumber = updateJobOverviewDetail(namespace, jobList, enabledNumber, unSystemJobs);
+			if (unSystemJobs == null) {
+				unSystemJobs = new ArrayList<>();
+			}
+			int enabledNumber = 0;
+			List<JobConfig> filteredJobs = new ArrayList<>();
+			for (JobConfig jobConfig : unSystemJobs) {
+				jobConfig.setDefaultValues();
+				if (Boolean.TRUE.equals(jobConfig.getEnabled())) {
+					enabledNumber++;
+				}
+				if (matchGroups(jobConfig, groups) && matchKeyword(jobConfig, keyword)) {
+					filteredJobs.add(jobConfig);
+				}
 			}
-			jobOverviewVo.setJobs(jobList);
 			jobOverviewVo.setEnabledNumber(enabledNumber);
-			jobOverviewVo.setTotalNumber(jobList.size());
+			jobOverviewVo.setTotalNumber(unSystemJobs.size());
+
+			// 按状态过滤需要先获取所有作业的状态；否则先分页，只获取当前页作业的状态、已分配的executor
+			List<JobOverviewJobVo> jobList;
+			if (status != null) {
+				jobList = new ArrayList<>();
+				for (JobOverviewJobVo jobOverviewJobVo : getJobOverviewDetail(namespace, filteredJobs)) {
+					if (status.equals(jobOverviewJobVo.getStatus())) {
+						jobList.add(jobOverviewJobVo);
+					}
+				}
+				jobOverviewVo.setFilteredNumber(jobList.size());
+				jobList = getPage(jobList, pageNum, pageSize);
+			} else {
+				jobOverviewVo.setFilteredNumber(filteredJobs.size());
+				jobList = getJobOverviewDetail(namespace, getPage(filteredJobs, pageNum, pageSize));
+				if (filteredJobs.size() == unSystemJobs.size() && !isPaging(pageNum, pageSize)) {
+					// 列出了所有作业，与原来一样只统计成功列出的作业
+					updateNumbersByListedJobs(jobOverviewVo, jobList);
+				}
+			}
+			jobOverviewVo.setJobs(jobList);
 
 			// 获取该域下的异常作业数量，捕获所有异常，打日志，不抛到前台
 			updateAbnormalJobSizeInOverview(namespace, jobOverviewVo);
@@ -71,6 +114,48 @@ public class JobOverviewController extends AbstractGUIController {
 		return jobOverviewVo;
 	}
 
+	private boolean matchGroups(JobConfig jobConfig, String groups) {
+		if (StringUtils.isBlank(groups)) {
+			return true;
+		}
+		String jobGroups = jobConfig.getGroups();
+		if (StringUtils.isBlank(jobGroups)) {
+			jobGroups = SaturnConstants.NO_GROUPS_LABEL;
+		}
+		return groups.equals(jobGroups);
+	}
+
+	private boolean matchKeyword(JobConfig jobConfig, String keyword) {
+		return StringUtils.isBlank(keyword) || StringUtils.containsIgnoreCase(jobConfig.getJobName(), keyword.trim());
+	}
+
+	private void updateNumbersByListedJobs(JobOverviewVo jobOverviewVo, List<JobOverviewJobVo> jobList) {
+		int enabledNumber = 0;
+		for (JobOverviewJobVo jobOverviewJobVo : jobList) {
+			if (Boolean.TRUE.equals(jobOverviewJobVo.getEnabled())) {
+				enabledNumber++;
+			}
+		}
+		jobOverviewVo.setEnabledNumber(enabledNumber);
+		jobOverviewVo.setTotalNumber(jobList.size());
+		jobOverviewVo.setFilteredNumber(jobList.size());
+	}
+
+	private boolean isPaging(Integer pageNum, Integer pageSize) {
+		return pageNum != null && pageSize != null && pageNum >= 1 && pageSize >= 1;
+	}
+
+	private <T> List<T> getPage(List<T> list, Integer pageNum, Integer pageSize) {
+		if (!isPaging(pageNum, pageSize)) {
+			return list;
+		}
+		long from = (long) (pageNum - 1) * pageSize;
+		if (from >= list.size()) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(list.subList((int) from, (int) Math.min(from + pageSize, list.size())));
+	}
+
 	private void updateAbnormalJobSizeInOverview(String namespace, JobOverviewVo jobOverviewVo) {
 		try {
 			List<AbnormalJob> abnormalJobList = alarmStatisticsService.getAbnormalJobListByNamespace(namespace);
@@ -80,12 +165,10 @@ public class JobOverviewController extends AbstractGUIController {
 		}
 	}
 
-	private int updateJobOverviewDetail(String namespace, List<JobOverviewJobVo> jobList, int enabledNumber,
-			List<JobConfig> unSystemJobs) {
-		for (JobConfig jobConfig : unSystemJobs) {
+	private List<JobOverviewJobVo> getJobOverviewDetail(String namespace, List<JobConfig> jobConfigs) {
+		List<JobOverviewJobVo> jobList = new ArrayList<>();
+		for (JobConfig jobConfig : jobConfigs) {
 			try {
-				jobConfig.setDefaultValues();
-
 				JobOverviewJobVo jobOverviewJobVo = new JobOverviewJobVo();
 				SaturnBeanUtils.copyProperties(jobConfig, jobOverviewJobVo);
 
@@ -95,22 +178,19 @@ public class JobOverviewController extends AbstractGUIController {
 					jobOverviewJobVo.setGroups(SaturnConstants.NO_GROUPS_LABEL);
 				}
 
-				JobStatus jobStatus = jobService.getJobStatus(namespace, jobConfig.getJobName());
+				JobStatus jobStatus = jobService.getJobStatus(namespace, jobConfig);
 				jobOverviewJobVo.setStatus(jobStatus);
 
 				if (!JobStatus.STOPPED.equals(jobStatus)) {// 作业如果是STOPPED状态，不需要显示已分配的executor
 					updateShardingListInOverview(namespace, jobConfig, jobOverviewJobVo);
 				}
 
-				if (jobOverviewJobVo.getEnabled()) {
-					enabledNumber++;
-				}
 				jobList.add(jobOverviewJobVo);
 			} catch (Exception e) {
 				log.error("list job " + jobConfig.getJobName() + " error", e);
 			}
 		}
-		return enabledNumber;
+		return jobList;
 	}
 
 	private void updateJobTypesInOverview(JobConfig jobConfig, JobOverviewJobVo jobOverviewJobVo) {
@@ -147,16 +227,28 @@ public class JobOverviewController extends AbstractGUIController {
 	}
 
 	/**
-	 * 获取该作业依赖的所有作业
+	 * 获取该作业依赖的所有作业，transitive为true时包括间接依赖的作业
 	 */
 	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
 	@GetMapping(value = "/{jobName}/dependency")
 	public SuccessResponseEntity getDependingJobs(final HttpServletRequest request, @PathVariable String namespace,
-			@PathVariable String jobName) throws SaturnJobConsoleException {
-		List<DependencyJob> dependencyJobs = jobService.getDependingJobs(namespace, jobName);
+			@PathVariable String jobName, @RequestParam(required = false, defaultValue = "false") boolean transitive)
+			throws SaturnJobConsoleException {
+		List<DependencyJob> dependencyJobs = transitive ? jobService.getAllDependingJobs(namespace, jobName)
+				: jobService.getDependingJobs(namespace, jobName);
 		return new SuccessResponseEntity(dependencyJobs);
 	}
 
+	/**
+	 * 检测经过该作业的循环依赖，返回环上的作业，不存在循环依赖时为空
+	 */
+	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
+	@GetMapping(value = "/{jobName}/dependencyCycle")
+	public SuccessResponseEntity getDependencyCycle(final HttpServletRequest request, @PathVariable String namespace,
+			@PathVariable String jobName) throws SaturnJobConsoleException {
+		return new SuccessResponseEntity(jobService.getDependencyCycle(namespace, jobName));
+	}
+
 	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
 	@GetMapping(value = "/dependency")
 	public SuccessResponseEntity batchGetDependingJob(final HttpServletRequest request, @PathVariable String namespace,
@@ -170,13 +262,15 @@ public class JobOverviewController extends AbstractGUIController {
 	}
 
 	/**
-	 * 获取依赖该作业的所有作业
+	 * 获取依赖该作业的所有作业，transitive为true时包括间接依赖该作业的作业
 	 */
 	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
 	@GetMapping(value = "/{jobName}/beDependedJobs")
 	public SuccessResponseEntity getDependedJobs(final HttpServletRequest request, @PathVariable String namespace,
-			@PathVariable String jobName) throws SaturnJobConsoleException {
-		List<DependencyJob> dependedJobs = jobService.getDependedJobs(namespace, jobName);
+			@PathVariable String jobName, @RequestParam(required = false, defaultValue = "false") boolean transitive)
+			throws SaturnJobConsoleException {
+		List<DependencyJob> dependedJobs = transitive ? jobService.getAllDependedJobs(namespace, jobName)
+				: jobService.getDependedJobs(namespace, jobName);
 		return new SuccessResponseEntity(dependedJobs);
 	}
 
@@ -210,10 +304,7 @@ public class JobOverviewController extends AbstractGUIController {
 			@AuditParam("namespace") @PathVariable String namespace,
 			@AuditParam("jobNames") @RequestParam List<String> jobNames) throws SaturnJobConsoleException {
 		assertIsPermitted(Permissions.jobBatchEnable, namespace);
-		String userName = getCurrentLoginUserName();
-		for (String jobName : jobNames) {
-			jobService.enableJob(namespace, jobName, userName);
-		}
+		jobService.batchEnableJob(namespace, jobNames, getCurrentLoginUserName());
 		return new SuccessResponseEntity();
 	}
 
@@ -235,10 +326,7 @@ public class JobOverviewController extends AbstractGUIController {
 			@AuditParam("namespace") @PathVariable String namespace,
 			@AuditParam("jobNames") @RequestParam List<String> jobNames) throws SaturnJobConsoleException {
 		assertIsPermitted(Permissions.jobBatchDisable, namespace);
-		String userName = getCurrentLoginUserName();
-		for (String jobName : jobNames) {
-			jobService.disableJob(namespace, jobName, userName);
-		}
+		jobService.batchDisableJob(namespace, jobNames, getCurrentLoginUserName());
 		return new SuccessResponseEntity();
 	}
 
@@ -253,6 +341,10 @@ public class JobOverviewController extends AbstractGUIController {
 		return new SuccessResponseEntity();
 	}
 
+	/**
+	 * 批量删除作业。先校验所有作业，任一作业不存在、不处于STOPPED状态或者创建不久，则都不删除，返回所有不满足条件的作业的原因；
+	 * 不再像之前那样删除满足条件的作业、只返回失败的作业名
+	 */
 	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
 	@Audit
 	@DeleteMapping
@@ -260,22 +352,7 @@ public class JobOverviewController extends AbstractGUIController {
 			@AuditParam("namespace") @PathVariable String namespace,
 			@AuditParam("jobNames") @RequestParam List<String> jobNames) throws SaturnJobConsoleException {
 		assertIsPermitted(Permissions.jobBatchRemove, namespace);
-		List<String> successJobNames = new ArrayList<>();
-		List<String> failJobNames = new ArrayList<>();
-		for (String jobName : jobNames) {
-			try {
-				jobService.removeJob(namespace, jobName);
-				successJobNames.add(jobName);
-			} catch (Exception e) {
-				failJobNames.add(jobName);
-				log.info("remove job failed, cause of {}", e);
-			}
-		}
-		if (!failJobNames.isEmpty()) {
-			StringBuilder message = new StringBuilder();
-			message.append("删除成功的作业:").append(successJobNames).append("，").append("删除失败的作业:").append(failJobNames);
-			throw new SaturnJobConsoleGUIException(message.toString());
-		}
+		jobService.batchRemoveJob(namespace, jobNames);
 		return new SuccessResponseEntity();
 	}
 
@@ -290,10 +367,7 @@ public class JobOverviewController extends AbstractGUIController {
 			@AuditParam("jobNames") @RequestParam List<String> jobNames,
 			@AuditParam("preferList") @RequestParam String preferList) throws SaturnJobConsoleException {
 		assertIsPermitted(Permissions.jobBatchSetPreferExecutors, namespace);
-		String userName = getCurrentLoginUserName();
-		for (String jobName : jobNames) {
-			jobService.setPreferList(namespace, jobName, preferList, userName);
-		}
+		jobService.batchSetPreferList(namespace, jobNames, preferList, getCurrentLoginUserName());
 		return new SuccessResponseEntity();
 	}
 
@@ -350,6 +424,55 @@ public class JobOverviewController extends AbstractGUIController {
 		SaturnConsoleUtils.exportExcelFile(response, exportJobFile, exportFileName, true);
 	}
 
+	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
+	@Audit
+	@PostMapping(value = "/import/csv")
+	public SuccessResponseEntity importJobsFromCsv(final HttpServletRequest request,
+			@AuditParam("namespace") @PathVariable String namespace, @RequestParam("file") MultipartFile file)
+			throws SaturnJobConsoleException {
+		assertIsPermitted(Permissions.jobImport, namespace);
+		if (file.isEmpty()) {
+			throw new SaturnJobConsoleGUIException("请上传一个有内容的文件");
+		}
+		String originalFilename = file.getOriginalFilename();
+		if (originalFilename == null || !originalFilename.endsWith(".csv")) {
+			throw new SaturnJobConsoleGUIException("仅支持.csv文件导入");
+		}
+		AuditInfoContext.put("originalFilename", originalFilename);
+		try (InputStream inputStream = file.getInputStream()) {
+			return new SuccessResponseEntity(
+					jobService.importJobsFromCsv(namespace, inputStream, getCurrentLoginUserName()));
+		} catch (IOException e) {
+			throw new SaturnJobConsoleException(e);
+		}
+	}
+
+	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
+	@GetMapping(value = "/import/progress")
+	public SuccessResponseEntity getImportJobProgress(final HttpServletRequest request,
+			@PathVariable String namespace) throws SaturnJobConsoleException {
+		return new SuccessResponseEntity(jobService.getImportJobProgress(namespace));
+	}
+
+	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
+	@Audit
+	@GetMapping(value = "/export/csv")
+	public void exportJobsAsCsv(final HttpServletRequest request,
+			@AuditParam("namespace") @PathVariable String namespace, final HttpServletResponse response)
+			throws SaturnJobConsoleException {
+		assertIsPermitted(Permissions.jobExport, namespace);
+		String currentTime = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+		String exportFileName = namespace + "_allJobs_" + currentTime + ".csv";
+		try {
+			response.setContentType("text/csv;charset=UTF-8");
+			response.setHeader("Content-disposition",
+					"attachment; filename=" + new String(exportFileName.getBytes("UTF-8"), "ISO8859-1"));
+			jobService.exportJobsAsCsv(namespace, response.getOutputStream());
+		} catch (IOException e) {
+			throw new SaturnJobConsoleException(e);
+		}
+	}
+
 	/**
 	 * 获取该作业可选择的优先Executor
 	 */
@@ -67,6 +67,15 @@ public class RegistryCenterController extends AbstractGUIController {
 		return new SuccessResponseEntity(namespaceInfoList);
 	}
 
+	/**
+	 * 获取域在本控制台的就绪状态
+	 */
+	@ApiResponses(value = {@ApiResponse(code = 200, message = "Success/Fail", response = RequestResult.class)})
+	@GetMapping(value = "/namespaces/readiness")
+	public SuccessResponseEntity getNamespaceReadiness(@RequestParam String namespace) {
+		return new SuccessResponseEntity(registryCenterService.getNamespaceReadiness(namespace));
+	}
+
 	/**
 	 * 导出指定的namespce
 	 */
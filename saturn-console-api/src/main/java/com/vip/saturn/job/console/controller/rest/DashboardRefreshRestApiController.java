@@ -48,4 +48,13 @@ public class DashboardRefreshRestApiController extends AbstractController {
 		}
 	}
 
+	/**
+	 * 获取各个ZK集群最近一次刷新dashboard的耗时(ms)
+	 */
+	@RequestMapping(value = "/dashboard/refreshCost", method = RequestMethod.GET,
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+	public ResponseEntity<Object> dashboardRefreshCost(HttpServletRequest request) throws SaturnJobConsoleException {
+		return new ResponseEntity<Object>(statisticsRefreshService.getLastRefreshCostMs(), HttpStatus.OK);
+	}
+
 }
@@ -10,6 +10,7 @@
 package com.vip.saturn.job.console.controller.rest;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
@@ -17,14 +18,19 @@ import javax.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.google.common.collect.Maps;
 import com.vip.saturn.job.console.aop.annotation.Audit;
 import com.vip.saturn.job.console.aop.annotation.AuditType;
 import com.vip.saturn.job.console.controller.AbstractController;
 import com.vip.saturn.job.console.domain.JobDiffInfo;
+import com.vip.saturn.job.console.domain.ZkDBDiffProgress;
+import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
 import com.vip.saturn.job.console.exception.SaturnJobConsoleHttpException;
 import com.vip.saturn.job.console.service.ZkDBDiffService;
 
@@ -49,4 +55,37 @@ public class ZkDbDiffRestApiController extends AbstractController {
 		}
 	}
 
+	@Audit(type = AuditType.REST)
+	@RequestMapping(value = "/diff/async", method = RequestMethod.POST,
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+	@ResponseBody
+	public ResponseEntity<Object> diffAsync(String zkcluster, HttpServletRequest request)
+			throws SaturnJobConsoleException {
+		try {
+			checkMissingParameter("zkcluster", zkcluster);
+
+			Map<String, String> result = Maps.newHashMap();
+			result.put("taskId", zkDBDiffService.diffByClusterAsync(zkcluster));
+			return new ResponseEntity<Object>(result, HttpStatus.OK);
+		} catch (SaturnJobConsoleException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SaturnJobConsoleHttpException(HttpStatus.INTERNAL_SERVER_ERROR.value(), e.getMessage(), e);
+		}
+	}
+
+	@RequestMapping(value = "/diff/async/{taskId}", method = RequestMethod.GET,
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+	@ResponseBody
+	public ResponseEntity<Object> getDiffProgress(@PathVariable("taskId") String taskId,
+			@RequestParam(required = false, defaultValue = "0") int offset,
+			@RequestParam(required = false, defaultValue = "500") int limit) throws SaturnJobConsoleException {
+		ZkDBDiffProgress progress = zkDBDiffService.getDiffProgress(taskId, offset, limit);
+		if (progress == null) {
+			throw new SaturnJobConsoleHttpException(HttpStatus.NOT_FOUND.value(),
+					String.format("The diff task {%s} does not exist or has expired.", taskId));
+		}
+		return new ResponseEntity<Object>(progress, HttpStatus.OK);
+	}
+
 }
@@ -0,0 +1,63 @@
+package com.vip.saturn.job.console.domain;
+
+/**
+ * 流式导入作业的进度，导入时逐批更新
+ */
+public class ImportJobProgress {
+
+	private boolean finished;
+	private int processedNum;
+	private int successNum;
+	private int failNum;
+	private long startTime;
+	private long finishTime;
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public void setFinished(boolean finished) {
+		this.finished = finished;
+	}
+
+	public int getProcessedNum() {
+		return processedNum;
+	}
+
+	public void setProcessedNum(int processedNum) {
+		this.processedNum = processedNum;
+	}
+
+	public int getSuccessNum() {
+		return successNum;
+	}
+
+	public void setSuccessNum(int successNum) {
+		this.successNum = successNum;
+	}
+
+	public int getFailNum() {
+		return failNum;
+	}
+
+	public void setFailNum(int failNum) {
+		this.failNum = failNum;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public void setStartTime(long startTime) {
+		this.startTime = startTime;
+	}
+
+	public long getFinishTime() {
+		return finishTime;
+	}
+
+	public void setFinishTime(long finishTime) {
+		this.finishTime = finishTime;
+	}
+
+}
@@ -10,7 +10,14 @@ public class JobOverviewVo {
 
 	private List<JobOverviewJobVo> jobs = new ArrayList<>();
 	private int enabledNumber;
+	/**
+	 * 列出所有作业时为列出的作业数；过滤或分页时为域下所有非系统作业数
+	 */
 	private int totalNumber;
+	/**
+	 * 满足过滤条件的作业数，分页时jobs只是其中一页
+	 */
+	private int filteredNumber;
 	private int abnormalNumber;
 
 	public List<JobOverviewJobVo> getJobs() {
@@ -37,6 +44,14 @@ public class JobOverviewVo {
 		this.totalNumber = totalNumber;
 	}
 
+	public int getFilteredNumber() {
+		return filteredNumber;
+	}
+
+	public void setFilteredNumber(int filteredNumber) {
+		this.filteredNumber = filteredNumber;
+	}
+
 	public int getAbnormalNumber() {
 		return abnormalNumber;
 	}
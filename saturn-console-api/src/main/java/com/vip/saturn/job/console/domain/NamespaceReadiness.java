@@ -0,0 +1,21 @@
+package com.vip.saturn.job.console.domain;
+
+/**
+ * 域在本控制台的就绪状态，注册中心刷新时逐个域推进
+ */
+public enum NamespaceReadiness {
+
+	/**
+	 * 域不在本控制台的任何zk集群中，或者还没有完成初始化
+	 */
+	NOT_REGISTERED,
+	/**
+	 * 已经初始化zk节点、加入zk集群的域列表，可以查询和操作，但本控制台负责的分片服务还没有启动
+	 */
+	REGISTERED,
+	/**
+	 * 已经就绪：本控制台负责分片的，分片服务已经启动
+	 */
+	READY
+
+}
@@ -30,6 +30,12 @@ public final class RegistryCenterClient implements Serializable {
 
 	private boolean connected;
 
+	/**
+	 * curatorClient是否为zk集群共享连接的命名空间视图，是则不能关闭
+	 */
+	@JsonIgnore
+	private transient boolean shared;
+
 	private String zkAddr;
 
 	public RegistryCenterClient() {
@@ -72,9 +78,19 @@ public final class RegistryCenterClient implements Serializable {
 		this.connected = connected;
 	}
 
+	public boolean isShared() {
+		return shared;
+	}
+
+	public void setShared(boolean shared) {
+		this.shared = shared;
+	}
+
 	public void close() throws Exception {
 		if (curatorClient != null) {
-			curatorClient.close();
+			if (!shared) {
+				curatorClient.close();
+			}
 			curatorClient = null;
 			connected = false;
 		}
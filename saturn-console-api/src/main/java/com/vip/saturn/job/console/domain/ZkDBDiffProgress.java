@@ -0,0 +1,101 @@
+package com.vip.saturn.job.console.domain;
+
+import java.util.List;
+
+/**
+ * 异步对比zk集群与db配置的进度，每对比完一个域就追加该域的差异，按offset分页获取已产生的差异
+ */
+public class ZkDBDiffProgress {
+
+	private String taskId;
+	private String zkClusterKey;
+	private boolean finished;
+	private int totalNamespaceNum;
+	private int diffedNamespaceNum;
+	private List<String> failedNamespaces;
+	private int totalResultNum;
+	private int offset;
+	private List<JobDiffInfo> results;
+	private long startTime;
+
+	public String getTaskId() {
+		return taskId;
+	}
+
+	public void setTaskId(String taskId) {
+		this.taskId = taskId;
+	}
+
+	public String getZkClusterKey() {
+		return zkClusterKey;
+	}
+
+	public void setZkClusterKey(String zkClusterKey) {
+		this.zkClusterKey = zkClusterKey;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public void setFinished(boolean finished) {
+		this.finished = finished;
+	}
+
+	public int getTotalNamespaceNum() {
+		return totalNamespaceNum;
+	}
+
+	public void setTotalNamespaceNum(int totalNamespaceNum) {
+		this.totalNamespaceNum = totalNamespaceNum;
+	}
+
+	public int getDiffedNamespaceNum() {
+		return diffedNamespaceNum;
+	}
+
+	public void setDiffedNamespaceNum(int diffedNamespaceNum) {
+		this.diffedNamespaceNum = diffedNamespaceNum;
+	}
+
+	public List<String> getFailedNamespaces() {
+		return failedNamespaces;
+	}
+
+	public void setFailedNamespaces(List<String> failedNamespaces) {
+		this.failedNamespaces = failedNamespaces;
+	}
+
+	public int getTotalResultNum() {
+		return totalResultNum;
+	}
+
+	public void setTotalResultNum(int totalResultNum) {
+		this.totalResultNum = totalResultNum;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public void setOffset(int offset) {
+		this.offset = offset;
+	}
+
+	public List<JobDiffInfo> getResults() {
+		return results;
+	}
+
+	public void setResults(List<JobDiffInfo> results) {
+		this.results = results;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public void setStartTime(long startTime) {
+		this.startTime = startTime;
+	}
+
+}
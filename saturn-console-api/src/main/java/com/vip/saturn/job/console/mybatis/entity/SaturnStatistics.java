@@ -10,6 +10,8 @@ public class SaturnStatistics implements Serializable {
 	private String name;
 	private String zklist;
 	private String result;
+	private Long version;
+	private Long readVersion;
 
 	public SaturnStatistics() {
 	}
@@ -57,9 +59,26 @@ public class SaturnStatistics implements Serializable {
 		this.result = result;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public Long getReadVersion() {
+		return readVersion;
+	}
+
+	public void setReadVersion(Long readVersion) {
+		this.readVersion = readVersion;
+	}
+
 	@Override
 	public String toString() {
-		return "SaturnStatistics [id=" + id + ", name=" + name + ", zklist=" + zklist + ", result=" + result + "]";
+		return "SaturnStatistics [id=" + id + ", name=" + name + ", zklist=" + zklist + ", result=" + result
+				+ ", version=" + version + ", readVersion=" + readVersion + "]";
 	}
 
 }
@@ -1,6 +1,7 @@
 package com.vip.saturn.job.console.mybatis.repository;
 
 import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
+import java.util.Collection;
 import java.util.List;
 import org.apache.ibatis.annotations.Param;
 import org.springframework.data.domain.Pageable;
@@ -25,6 +26,24 @@ public interface SaturnStatisticsRepository {
 
 	SaturnStatistics findStatisticsByNameAndZkList(@Param("name") String name, @Param("zklist") String zklist);
 
+	SaturnStatistics findStatisticsVersionByNameAndZkList(@Param("name") String name,
+			@Param("zklist") String zklist);
+
+	List<SaturnStatistics> findStatisticsByZkList(@Param("zklist") String zklist);
+
+	int batchInsert(List<SaturnStatistics> saturnStatisticsList);
+
+	int batchUpdateResult(List<SaturnStatistics> saturnStatisticsList);
+
+	int increaseReadVersion(Integer id);
+
+	List<String> findReadUuids(@Param("name") String name, @Param("zklist") String zklist);
+
+	int insertRead(@Param("name") String name, @Param("zklist") String zklist, @Param("uuid") String uuid);
+
+	int deleteReadUuids(@Param("name") String name, @Param("zklist") String zklist,
+			@Param("uuids") Collection<String> uuids);
+
 	List<SaturnStatistics> selectPage(@Param("saturnStatistics") SaturnStatistics saturnStatistics,
 			@Param("pageable") Pageable pageable);
 
@@ -24,6 +24,12 @@ public interface CurrentJobConfigService {
 
 	void batchUpdatePreferList(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException;
 
+	void batchCreate(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException;
+
+	void batchUpdate(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException;
+
+	void batchDelete(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException;
+
 	List<JobConfig4DB> findConfigsByNamespace(String namespace);
 
 	JobConfig4DB findConfigByNamespaceAndJobName(String namespace, String jobName);
@@ -33,5 +39,8 @@ public interface CurrentJobConfigService {
 	void updateNewAndSaveOld2History(final JobConfig4DB newJobConfig, final JobConfig4DB oldJobConfig,
 			final String userName) throws Exception;
 
+	void batchUpdateNewAndSaveOld2History(List<JobConfig4DB> newJobConfigs, List<JobConfig4DB> oldJobConfigs,
+			String userName) throws SaturnJobConsoleException;
+
 	int deleteAll(int limitNum);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.vip.saturn.job.console.mybatis.service;
 
 import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
+import java.util.Collection;
+import java.util.List;
 
 public interface SaturnStatisticsService {
 
@@ -18,6 +20,33 @@ public interface SaturnStatisticsService {
 
 	SaturnStatistics findStatisticsByNameAndZkList(String name, String zkConnectionString);
 
+	/**
+	 * 只查询统计结果和已读标记的版本，不查询result，用于判断缓存的统计结果是否过时
+	 */
+	SaturnStatistics findStatisticsVersionByNameAndZkList(String name, String zkConnectionString);
+
+	List<SaturnStatistics> findStatisticsByZkList(String zkConnectionString);
+
+	/**
+	 * 在一个事务中批量插入、批量更新统计结果，按result的总长度分批，每批一条语句，避免超过max_allowed_packet
+	 */
+	void batchCreateOrUpdate(List<SaturnStatistics> toCreateList, List<SaturnStatistics> toUpdateList);
+
 	int selectCount(SaturnStatistics SaturnStatistics);
 
+	/**
+	 * 查询告警作业的已读标记，还没有被统计刷新合并到result中的已读标记单独存储，每个uuid一行
+	 */
+	List<String> findReadUuids(String name, String zkConnectionString);
+
+	/**
+	 * 标记告警作业已读，只插入一行已读标记并增加已读标记的版本，不重写result
+	 */
+	void markRead(Integer id, String name, String zkConnectionString, String uuid);
+
+	/**
+	 * 删除已经合并到result中的已读标记
+	 */
+	void deleteReadUuids(String name, String zkConnectionString, Collection<String> uuids);
+
 }
\ No newline at end of file
@@ -3,12 +3,14 @@ package com.vip.saturn.job.console.mybatis.service.impl;
 import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
 import com.vip.saturn.job.console.mybatis.entity.JobConfig4DB;
 import com.vip.saturn.job.console.mybatis.repository.CurrentJobConfigRepository;
+import com.vip.saturn.job.console.mybatis.repository.HistoryJobConfigRepository;
 import com.vip.saturn.job.console.mybatis.service.CurrentJobConfigService;
 import com.vip.saturn.job.console.mybatis.service.HistoryJobConfigService;
 import org.apache.commons.io.IOUtils;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -88,6 +90,55 @@ public class CurrentJobConfigServiceImpl implements CurrentJobConfigService {
 		}
 	}
 
+	@Override
+	public void batchCreate(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+		SqlSession batchSqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
+		try {
+			for (JobConfig4DB currentJobConfig : jobConfigs) {
+				batchSqlSession.getMapper(CurrentJobConfigRepository.class).insert(currentJobConfig);
+			}
+			batchSqlSession.commit();
+		} catch (Exception e) {
+			batchSqlSession.rollback();
+			throw new SaturnJobConsoleException("error when batchCreate", e);
+		} finally {
+			IOUtils.closeQuietly(batchSqlSession);
+		}
+	}
+
+	@Override
+	public void batchUpdate(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+		SqlSession batchSqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
+		try {
+			for (JobConfig4DB currentJobConfig : jobConfigs) {
+				batchSqlSession.getMapper(CurrentJobConfigRepository.class).updateByPrimaryKey(currentJobConfig);
+			}
+			batchSqlSession.commit();
+		} catch (Exception e) {
+			batchSqlSession.rollback();
+			throw new SaturnJobConsoleException("error when batchUpdate", e);
+		} finally {
+			IOUtils.closeQuietly(batchSqlSession);
+		}
+	}
+
+	@Override
+	public void batchDelete(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+		SqlSession batchSqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
+		try {
+			for (JobConfig4DB currentJobConfig : jobConfigs) {
+				batchSqlSession.getMapper(CurrentJobConfigRepository.class)
+						.deleteByPrimaryKey(currentJobConfig.getId());
+			}
+			batchSqlSession.commit();
+		} catch (Exception e) {
+			batchSqlSession.rollback();
+			throw new SaturnJobConsoleException("error when batchDelete", e);
+		} finally {
+			IOUtils.closeQuietly(batchSqlSession);
+		}
+	}
+
 	@Override
 	public List<JobConfig4DB> selectPage(JobConfig4DB currentJobConfig, Pageable pageable) throws Exception {
 		return currentJobConfigRepo.selectPage(currentJobConfig, pageable);
@@ -114,6 +165,38 @@ public class CurrentJobConfigServiceImpl implements CurrentJobConfigService {
 		historyJobConfigService.create(oldJobConfig);
 	}
 
+	@Override
+	public void batchUpdateNewAndSaveOld2History(List<JobConfig4DB> newJobConfigs, List<JobConfig4DB> oldJobConfigs,
+			String userName) throws SaturnJobConsoleException {
+		SqlSession batchSqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
+		try {
+			Date now = new Date();
+			CurrentJobConfigRepository currentJobConfigMapper = batchSqlSession
+					.getMapper(CurrentJobConfigRepository.class);
+			for (JobConfig4DB newJobConfig : newJobConfigs) {
+				if (userName != null) {
+					newJobConfig.setLastUpdateBy(userName);
+				}
+				newJobConfig.setLastUpdateTime(now);
+				currentJobConfigMapper.updateByPrimaryKey(newJobConfig);
+			}
+			HistoryJobConfigRepository historyJobConfigMapper = batchSqlSession
+					.getMapper(HistoryJobConfigRepository.class);
+			for (JobConfig4DB oldJobConfig : oldJobConfigs) {
+				JobConfig4DB historyJobConfig = new JobConfig4DB();
+				BeanUtils.copyProperties(oldJobConfig, historyJobConfig);
+				historyJobConfig.setId(null);
+				historyJobConfigMapper.insert(historyJobConfig);
+			}
+			batchSqlSession.commit();
+		} catch (Exception e) {
+			batchSqlSession.rollback();
+			throw new SaturnJobConsoleException("error when batchUpdateNewAndSaveOld2History", e);
+		} finally {
+			IOUtils.closeQuietly(batchSqlSession);
+		}
+	}
+
 	@Transactional(readOnly = true)
 	@Override
 	public List<JobConfig4DB> findConfigsByNamespace(String namespace) {
@@ -3,13 +3,24 @@ package com.vip.saturn.job.console.mybatis.service.impl;
 import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
 import com.vip.saturn.job.console.mybatis.repository.SaturnStatisticsRepository;
 import com.vip.saturn.job.console.mybatis.service.SaturnStatisticsService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
 
 @Service
 public class SaturnStatisticsServiceImpl implements SaturnStatisticsService {
 
+	/**
+	 * 批量插入、更新的一条sql中result的总长度上限（字符数）。一个字符最多4个字节，sql不超过2MB左右，
+	 * 在MySQL默认的max_allowed_packet（4MB）以内；单个result超过上限时单独一条sql
+	 */
+	static final int MAX_BATCH_RESULT_LENGTH = 512 * 1024;
+
 	@Autowired
 	private SaturnStatisticsRepository saturnStatisticsRepo;
 
@@ -96,4 +107,80 @@ public class SaturnStatisticsServiceImpl implements SaturnStatisticsService {
 		return saturnStatisticsRepo.findStatisticsByNameAndZkList(name, zklist);
 	}
 
+	@Transactional(readOnly = true)
+	@Override
+	public SaturnStatistics findStatisticsVersionByNameAndZkList(String name, String zklist) {
+		return saturnStatisticsRepo.findStatisticsVersionByNameAndZkList(name, zklist);
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public List<SaturnStatistics> findStatisticsByZkList(String zklist) {
+		return saturnStatisticsRepo.findStatisticsByZkList(zklist);
+	}
+
+	@Transactional
+	@Override
+	public void batchCreateOrUpdate(List<SaturnStatistics> toCreateList, List<SaturnStatistics> toUpdateList) {
+		if (!CollectionUtils.isEmpty(toCreateList)) {
+			for (List<SaturnStatistics> batch : splitByResultLength(toCreateList)) {
+				saturnStatisticsRepo.batchInsert(batch);
+			}
+		}
+		if (!CollectionUtils.isEmpty(toUpdateList)) {
+			for (List<SaturnStatistics> batch : splitByResultLength(toUpdateList)) {
+				saturnStatisticsRepo.batchUpdateResult(batch);
+			}
+		}
+	}
+
+	/**
+	 * 按result的总长度分批，每批不超过MAX_BATCH_RESULT_LENGTH，保持原有顺序
+	 */
+	static List<List<SaturnStatistics>> splitByResultLength(List<SaturnStatistics> saturnStatisticsList) {
+		List<List<SaturnStatistics>> batches = new ArrayList<>();
+		List<SaturnStatistics> batch = new ArrayList<>();
+		long batchLength = 0;
+		for (SaturnStatistics saturnStatistics : saturnStatisticsList) {
+			int length = saturnStatistics.getResult() == null ? 0 : saturnStatistics.getResult().length();
+			if (!batch.isEmpty() && batchLength + length > MAX_BATCH_RESULT_LENGTH) {
+				batches.add(batch);
+				batch = new ArrayList<>();
+				batchLength = 0;
+			}
+			batch.add(saturnStatistics);
+			batchLength += length;
+		}
+		if (!batch.isEmpty()) {
+			batches.add(batch);
+		}
+		return batches;
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public List<String> findReadUuids(String name, String zklist) {
+		return saturnStatisticsRepo.findReadUuids(name, zklist);
+	}
+
+	@Transactional
+	@Override
+	public void markRead(Integer id, String name, String zklist, String uuid) {
+		try {
+			saturnStatisticsRepo.insertRead(name, zklist, uuid);
+		} catch (DuplicateKeyException e) { // NOSONAR
+			// 已经被标记过
+			return;
+		}
+		saturnStatisticsRepo.increaseReadVersion(id);
+	}
+
+	@Transactional
+	@Override
+	public void deleteReadUuids(String name, String zklist, Collection<String> uuids) {
+		if (!CollectionUtils.isEmpty(uuids)) {
+			saturnStatisticsRepo.deleteReadUuids(name, zklist, uuids);
+		}
+	}
+
 }
@@ -12,6 +12,7 @@ package com.vip.saturn.job.console.repository.zookeeper;
 import com.vip.saturn.job.console.utils.BooleanWrapper;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
 import org.apache.zookeeper.data.Stat;
@@ -32,6 +33,20 @@ public interface CuratorRepository {
 
 		List<String> getChildren(String znode);
 
+		/**
+		 * 批量读取节点数据，请求一次全部发出，不需要每个节点等待一次往返
+		 *
+		 * @return 节点路径到数据的映射，不存在的节点不在结果中
+		 */
+		Map<String, String> getDataInBatch(Collection<String> znodes);
+
+		/**
+		 * 批量获取子节点，请求一次全部发出，不需要每个节点等待一次往返
+		 *
+		 * @return 节点路径到子节点的映射，不存在的节点不在结果中
+		 */
+		Map<String, List<String>> getChildrenInBatch(Collection<String> znodes);
+
 		void create(String znode);
 
 		void create(final String znode, Object value);
@@ -62,6 +77,8 @@ public interface CuratorRepository {
 
 			CuratorTransactionOp create(String znode) throws Exception;
 
+			CuratorTransactionOp create(String znode, Object value) throws Exception;
+
 			CuratorTransactionOp delete(String znode) throws Exception;
 
 			Collection<CuratorTransactionResult> commit() throws Exception;
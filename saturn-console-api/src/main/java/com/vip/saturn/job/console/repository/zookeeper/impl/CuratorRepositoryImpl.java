@@ -19,10 +19,14 @@ import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.CuratorFrameworkFactory.Builder;
 import org.apache.curator.framework.api.ACLProvider;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
 import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
 import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.apache.curator.utils.CloseableUtils;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.Code;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.apache.zookeeper.ZooDefs;
@@ -33,9 +37,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Repository
 public class CuratorRepositoryImpl implements CuratorRepository {
@@ -154,6 +166,78 @@ public class CuratorRepositoryImpl implements CuratorRepository {
 			}
 		}
 
+		@Override
+		public Map<String, String> getDataInBatch(Collection<String> znodes) {
+			Map<String, String> result = new HashMap<>();
+			for (CuratorEvent event : readInBackground(znodes, false)) {
+				byte[] data = event.getData();
+				result.put((String) event.getContext(),
+						data == null ? null : new String(data, Charset.forName("UTF-8")));
+			}
+			return result;
+		}
+
+		@Override
+		public Map<String, List<String>> getChildrenInBatch(Collection<String> znodes) {
+			Map<String, List<String>> result = new HashMap<>();
+			for (CuratorEvent event : readInBackground(znodes, true)) {
+				result.put((String) event.getContext(), event.getChildren());
+			}
+			return result;
+		}
+
+		/**
+		 * 以后台方式一次发出所有读取请求，请求在同一个连接上依次执行，只等待一次全部响应
+		 *
+		 * @return 存在的节点的响应，节点路径在响应的context中
+		 */
+		private List<CuratorEvent> readInBackground(Collection<String> znodes, boolean children) {
+			Set<String> distinctZnodes = new LinkedHashSet<>(znodes);
+			final List<CuratorEvent> events = Collections.synchronizedList(new ArrayList<CuratorEvent>());
+			final CountDownLatch latch = new CountDownLatch(distinctZnodes.size());
+			BackgroundCallback callback = new BackgroundCallback() {
+				@Override
+				public void processResult(CuratorFramework client, CuratorEvent event) {
+					events.add(event);
+					latch.countDown();
+				}
+			};
+			try {
+				for (String znode : distinctZnodes) {
+					if (children) {
+						curatorFramework.getChildren().inBackground(callback, znode).forPath(znode);
+					} else {
+						curatorFramework.getData().inBackground(callback, znode).forPath(znode);
+					}
+				}
+				if (!latch.await(SESSION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					throw new JobConsoleException(new TimeoutException(
+							"read " + distinctZnodes.size() + " nodes in background timeout"));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JobConsoleException(e);
+			} catch (JobConsoleException e) {
+				throw e;
+				// CHECKSTYLE:OFF
+			} catch (final Exception ex) {
+				// CHECKSTYLE:ON
+				throw new JobConsoleException(ex);
+			}
+			List<CuratorEvent> result = new ArrayList<>();
+			synchronized (events) {
+				for (CuratorEvent event : events) {
+					Code code = Code.get(event.getResultCode());
+					if (code == Code.OK) {
+						result.add(event);
+					} else if (code != Code.NONODE) {
+						throw new JobConsoleException(KeeperException.create(code, (String) event.getContext()));
+					}
+				}
+			}
+			return result;
+		}
+
 		@Override
 		public void create(final String znode) {
 			create(znode, "");
@@ -366,6 +450,11 @@ public class CuratorRepositoryImpl implements CuratorRepository {
 				return this;
 			}
 
+			@Override
+			public CuratorTransactionOpImpl create(String znode, Object value) throws Exception {
+				return create(znode, toData(value));
+			}
+
 			@Override
 			public CuratorTransactionOp delete(String znode) throws Exception {
 				curatorTransactionFinal = curatorTransactionFinal.delete().forPath(znode).and();
@@ -72,6 +72,30 @@ public interface ExecutorService {
 	 */
 	void recoverTraffic(String namespace, String executorName) throws SaturnJobConsoleException;
 
+	/**
+	 * 批量移除离线的executor，任一executor不存在或者在线则都不移除
+	 *
+	 * @param namespace 域
+	 * @param executorNames 目标executor
+	 */
+	void batchRemoveExecutors(String namespace, List<String> executorNames) throws SaturnJobConsoleException;
+
+	/**
+	 * 批量摘取流量，任一executor不存在则都不摘取，zk按批在事务中修改
+	 *
+	 * @param namespace 域
+	 * @param executorNames 目标executor
+	 */
+	void batchExtractTraffic(String namespace, List<String> executorNames) throws SaturnJobConsoleException;
+
+	/**
+	 * 批量恢复流量，任一executor不存在则都不恢复，zk按批在事务中修改
+	 *
+	 * @param namespace 域
+	 * @param executorNames 目标executor
+	 */
+	void batchRecoverTraffic(String namespace, List<String> executorNames) throws SaturnJobConsoleException;
+
 	/**
 	 * 重shard域下所有作业分片
 	 *
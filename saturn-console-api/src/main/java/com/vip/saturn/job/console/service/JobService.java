@@ -9,6 +9,9 @@ import com.vip.saturn.job.console.vo.UpdateJobConfigVo;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -23,12 +26,44 @@ public interface JobService {
 
 	List<DependencyJob> getDependedJobs(String namespace, String jobName) throws SaturnJobConsoleException;
 
+	/**
+	 * 获取该作业直接或者间接依赖的所有作业
+	 */
+	List<DependencyJob> getAllDependingJobs(String namespace, String jobName) throws SaturnJobConsoleException;
+
+	/**
+	 * 获取直接或者间接依赖该作业的所有作业
+	 */
+	List<DependencyJob> getAllDependedJobs(String namespace, String jobName) throws SaturnJobConsoleException;
+
+	/**
+	 * 检测经过该作业的循环依赖
+	 *
+	 * @return 环上的作业，首尾都是该作业；不存在循环依赖返回空列表
+	 */
+	List<String> getDependencyCycle(String namespace, String jobName) throws SaturnJobConsoleException;
+
 	void enableJob(String namespace, String jobName, String updatedBy) throws SaturnJobConsoleException;
 
 	void disableJob(String namespace, String jobName, String updatedBy) throws SaturnJobConsoleException;
 
 	void removeJob(String namespace, String jobName) throws SaturnJobConsoleException;
 
+	/**
+	 * 批量启用作业，先校验所有作业，任一作业不满足条件则都不启用；数据库批量更新，zk按批在事务中修改
+	 */
+	void batchEnableJob(String namespace, List<String> jobNames, String updatedBy) throws SaturnJobConsoleException;
+
+	/**
+	 * 批量禁用作业，先校验所有作业，任一作业不满足条件则都不禁用；数据库批量更新，zk按批在事务中修改
+	 */
+	void batchDisableJob(String namespace, List<String> jobNames, String updatedBy) throws SaturnJobConsoleException;
+
+	/**
+	 * 批量删除作业，先校验所有作业，任一作业不满足条件则都不删除；数据库批量删除，zk按批在事务中添加toDelete节点
+	 */
+	void batchRemoveJob(String namespace, List<String> jobNames) throws SaturnJobConsoleException;
+
 	/**
 	 * 获取该作业可选择的优先Executor
 	 */
@@ -36,6 +71,12 @@ public interface JobService {
 
 	void setPreferList(String namespace, String jobName, String preferList, String updatedBy) throws SaturnJobConsoleException;
 
+	/**
+	 * 批量设置作业的优先Executor，数据库批量更新，zk按批在事务中修改
+	 */
+	void batchSetPreferList(String namespace, List<String> jobNames, String preferList, String updatedBy)
+			throws SaturnJobConsoleException;
+
 	void addJob(String namespace, JobConfig jobConfig, String createdBy) throws SaturnJobConsoleException;
 
 	void copyJob(String namespace, JobConfig jobConfig, String copyingJobName, String createdBy) throws SaturnJobConsoleException;
@@ -62,12 +103,46 @@ public interface JobService {
 
 	File exportJobs(String namespace) throws SaturnJobConsoleException;
 
+	/**
+	 * 从CSV流式导入作业，逐行检测格式、分批添加，不需要把整个文件加载到内存；格式有误的行记为导入失败，不影响其他行
+	 */
+	List<ImportJobResult> importJobsFromCsv(String namespace, InputStream inputStream, String createdBy)
+			throws SaturnJobConsoleException;
+
+	/**
+	 * 获取该域最近一次CSV导入的进度，没有导入过返回null
+	 */
+	ImportJobProgress getImportJobProgress(String namespace);
+
+	/**
+	 * 以CSV格式把作业逐批写到输出流，列与Excel导出一致
+	 */
+	void exportJobsAsCsv(String namespace, OutputStream outputStream) throws SaturnJobConsoleException;
+
 	JobConfig getJobConfigFromZK(String namespace, String jobName) throws SaturnJobConsoleException;
 
+	/**
+	 * 不经过作业配置快照，直接读zk获取作业配置
+	 */
+	JobConfig getJobConfigFromZKDirectly(String namespace, String jobName) throws SaturnJobConsoleException;
+
+	/**
+	 * 不经过作业配置快照，批量直接读zk获取多个作业的配置，所有作业的配置节点的读取请求一次发出
+	 *
+	 * @return 作业名到作业配置的映射，zk中不存在的作业不在结果中
+	 */
+	Map<String, JobConfig> getJobConfigsFromZKDirectly(String namespace, Collection<String> jobNames)
+			throws SaturnJobConsoleException;
+
 	JobConfig getJobConfig(String namespace, String jobName) throws SaturnJobConsoleException;
 
 	JobStatus getJobStatus(String namespace, String jobName) throws SaturnJobConsoleException;
 
+	/**
+	 * 获取作业的状态，用于展示：启用状态取自传入的作业配置，开启作业总览视图时运行状态从视图读取，可能稍落后于zk
+	 */
+	JobStatus getJobStatus(String namespace, JobConfig jobConfig) throws SaturnJobConsoleException;
+
 	List<String> getJobShardingAllocatedExecutorList(String namespace, String jobName) throws SaturnJobConsoleException;
 
 	GetJobConfigVo getJobConfigVo(String namespace, String jobName) throws SaturnJobConsoleException;
@@ -9,12 +9,15 @@
 package com.vip.saturn.job.console.service;
 
 import com.vip.saturn.job.console.domain.NamespaceDomainInfo;
+import com.vip.saturn.job.console.domain.NamespaceReadiness;
 import com.vip.saturn.job.console.domain.RegistryCenterClient;
 import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
 import com.vip.saturn.job.console.domain.ZkCluster;
 import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
 import com.vip.saturn.job.console.exception.SaturnJobConsoleHttpException;
 import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
+import com.vip.saturn.job.console.service.cache.NamespaceJobConfigCache;
+import com.vip.saturn.job.console.service.cache.NamespaceJobOverviewCache;
 import java.io.File;
 import org.apache.curator.framework.CuratorFramework;
 
@@ -37,6 +40,11 @@ public interface RegistryCenterService {
 
 	RegistryCenterConfiguration findConfigByNamespace(String namespace);
 
+	/**
+	 * 获取域在本控制台的就绪状态
+	 */
+	NamespaceReadiness getNamespaceReadiness(String namespace);
+
 	CuratorRepository.CuratorFrameworkOp connectOnly(String zkAddr, String namespace) throws SaturnJobConsoleException;
 
 	boolean isDashboardLeader(String key);
@@ -79,4 +87,19 @@ public interface RegistryCenterService {
 
 	CuratorRepository.CuratorFrameworkOp getCuratorFrameworkOp(String namespace) throws SaturnJobConsoleException;
 
+	/**
+	 * 获取域的作业配置快照，第一次获取时创建；没有开启作业配置快照时返回null
+	 */
+	NamespaceJobConfigCache getJobConfigCache(String namespace) throws SaturnJobConsoleException;
+
+	/**
+	 * 获取域已经创建并且可用的作业配置快照，不会创建快照；没有时返回null
+	 */
+	NamespaceJobConfigCache peekJobConfigCache(String namespace);
+
+	/**
+	 * 获取域的作业总览视图，第一次获取时创建；没有开启作业总览视图时返回null
+	 */
+	NamespaceJobOverviewCache getJobOverviewCache(String namespace) throws SaturnJobConsoleException;
+
 }
@@ -1,6 +1,7 @@
 package com.vip.saturn.job.console.service;
 
 import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
+import java.util.Map;
 
 /**
  * @author timmy.hu
@@ -9,4 +10,11 @@ public interface StatisticsRefreshService {
 
 	void refresh(String zkClusterKey, boolean isForce) throws SaturnJobConsoleException;
 
+	/**
+	 * 获取各个zk集群最近一次刷新统计的耗时
+	 *
+	 * @return zkClusterKey到耗时(ms)的映射，还没有刷新完成过的集群为-1
+	 */
+	Map<String, Long> getLastRefreshCostMs();
+
 }
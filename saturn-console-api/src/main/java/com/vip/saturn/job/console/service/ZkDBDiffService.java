@@ -1,6 +1,7 @@
 package com.vip.saturn.job.console.service;
 
 import com.vip.saturn.job.console.domain.JobDiffInfo;
+import com.vip.saturn.job.console.domain.ZkDBDiffProgress;
 import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
 import java.util.List;
 
@@ -27,4 +28,22 @@ public interface ZkDBDiffService {
 	 * @return The different info organized by job. If no difference, return null;
 	 */
 	JobDiffInfo diffByJob(String namespace, String jobName) throws SaturnJobConsoleException;
+
+	/**
+	 * Diff the config data in zk and db of the same zk cluster asynchronously, the namespaces are diffed with a
+	 * limited concurrency and the differences are appended as soon as a namespace is diffed.
+	 *
+	 * @param clusterKey zk cluster key.
+	 * @return The id of the diff task. If the zk cluster is being diffed, return the id of the unfinished task.
+	 */
+	String diffByClusterAsync(String clusterKey) throws SaturnJobConsoleException;
+
+	/**
+	 * Get the progress and the differences produced so far of the diff task.
+	 *
+	 * @param offset the index of the first difference to return.
+	 * @param limit the max number of differences to return.
+	 * @return The progress. If the task does not exist or has expired, return null.
+	 */
+	ZkDBDiffProgress getDiffProgress(String taskId, int offset, int limit);
 }
@@ -0,0 +1,214 @@
+package com.vip.saturn.job.console.service.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.vip.saturn.job.console.domain.AbstractAlarmJob;
+import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个zk集群的一类告警作业（saturn_statistics中的一行）解析后的索引，按uuid、域、域和作业名查找都不需要再解析、遍历整个列表。
+ * <p>
+ * 索引记录了构建时统计结果的版本和已读标记的版本：统计结果的版本变化了（统计刷新）才需要重新读取、解析result；
+ * 只有已读标记的版本变化了（其他控制台标记已读），只需要重新读取已读标记，与已解析的告警作业合并。
+ * <p>
+ * 索引被多个请求共享，构建后不再修改，查询返回的都是合并了已读标记的告警作业的副本。
+ */
+public class AlarmJobIndex<T extends AbstractAlarmJob> {
+
+	private final Integer id;
+
+	private final Long version;
+
+	private final Long readVersion;
+
+	private final Class<T> type;
+
+	private final List<T> jobs;
+
+	private final Map<String, T> uuidMap;
+
+	private final Map<String, List<T>> namespaceMap;
+
+	private final Map<String, T> namespaceAndJobNameMap;
+
+	private final Set<String> readUuids;
+
+	private volatile long checkTime = System.currentTimeMillis();
+
+	/**
+	 * @param saturnStatistics 统计结果，不存在时为null，只使用其中的id和版本
+	 * @param jobs 告警作业，构建后由索引持有，调用方不能再修改其中的告警作业
+	 * @param readUuids 单独存储的已读标记
+	 */
+	public AlarmJobIndex(SaturnStatistics saturnStatistics, List<T> jobs, Collection<String> readUuids,
+			Class<T> type) {
+		this.id = saturnStatistics == null ? null : saturnStatistics.getId();
+		this.version = saturnStatistics == null ? null : saturnStatistics.getVersion();
+		this.readVersion = saturnStatistics == null ? null : saturnStatistics.getReadVersion();
+		this.type = type;
+		this.jobs = jobs == null ? new ArrayList<T>() : new ArrayList<>(jobs);
+		this.uuidMap = new HashMap<>();
+		this.namespaceMap = new HashMap<>();
+		this.namespaceAndJobNameMap = new HashMap<>();
+		this.readUuids = toSet(readUuids);
+		for (T job : this.jobs) {
+			if (job.getUuid() != null) {
+				uuidMap.put(job.getUuid(), job);
+			}
+			List<T> jobsOfNamespace = namespaceMap.get(job.getDomainName());
+			if (jobsOfNamespace == null) {
+				jobsOfNamespace = new ArrayList<>();
+				namespaceMap.put(job.getDomainName(), jobsOfNamespace);
+			}
+			jobsOfNamespace.add(job);
+			String key = getKey(job.getDomainName(), job.getJobName());
+			if (!namespaceAndJobNameMap.containsKey(key)) {
+				namespaceAndJobNameMap.put(key, job);
+			}
+		}
+	}
+
+	/**
+	 * 与index共享已解析的告警作业，只替换已读标记
+	 */
+	private AlarmJobIndex(AlarmJobIndex<T> index, Long readVersion, Collection<String> readUuids) {
+		this.id = index.id;
+		this.version = index.version;
+		this.readVersion = readVersion;
+		this.type = index.type;
+		this.jobs = index.jobs;
+		this.uuidMap = index.uuidMap;
+		this.namespaceMap = index.namespaceMap;
+		this.namespaceAndJobNameMap = index.namespaceAndJobNameMap;
+		this.readUuids = toSet(readUuids);
+	}
+
+	public static <T extends AbstractAlarmJob> AlarmJobIndex<T> parse(SaturnStatistics saturnStatistics,
+			Collection<String> readUuids, Class<T> t) {
+		String result = saturnStatistics == null ? null : saturnStatistics.getResult();
+		return new AlarmJobIndex<>(saturnStatistics, JSON.parseArray(result, t), readUuids, t);
+	}
+
+	private static Set<String> toSet(Collection<String> readUuids) {
+		return readUuids == null || readUuids.isEmpty() ? Collections.<String>emptySet()
+				: Collections.unmodifiableSet(new HashSet<>(readUuids));
+	}
+
+	private static String getKey(String namespace, String jobName) {
+		return namespace + "/" + jobName;
+	}
+
+	private static boolean equals(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	/**
+	 * 索引的告警作业是否由该版本的统计结果解析，是则不需要重新读取、解析result
+	 *
+	 * @param saturnStatistics 只包含id和版本的统计结果，不存在时为null
+	 */
+	public boolean isResultOf(SaturnStatistics saturnStatistics) {
+		if (saturnStatistics == null) {
+			return id == null;
+		}
+		return equals(id, saturnStatistics.getId()) && equals(version, saturnStatistics.getVersion());
+	}
+
+	/**
+	 * 索引的已读标记是否是该版本
+	 */
+	public boolean isReadOf(SaturnStatistics saturnStatistics) {
+		return saturnStatistics == null || equals(readVersion, saturnStatistics.getReadVersion());
+	}
+
+	/**
+	 * @return 替换了已读标记的新索引
+	 */
+	public AlarmJobIndex<T> withReadUuids(Long readVersion, Collection<String> readUuids) {
+		return new AlarmJobIndex<>(this, readVersion, readUuids);
+	}
+
+	/**
+	 * @return 增加了一个已读标记的新索引，已读标记的版本不变，下次检查时仍然会从数据库重新读取
+	 */
+	public AlarmJobIndex<T> withReadUuid(String uuid) {
+		Set<String> newReadUuids = new HashSet<>(readUuids);
+		newReadUuids.add(uuid);
+		return new AlarmJobIndex<>(this, readVersion, newReadUuids);
+	}
+
+	/**
+	 * @return 统计结果的id，不存在时为null
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * 最近一次确认索引与数据库一致的时间
+	 */
+	public long getCheckTime() {
+		return checkTime;
+	}
+
+	public void touch() {
+		checkTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return 所有告警作业的副本
+	 */
+	public List<T> getJobs() {
+		return copy(jobs);
+	}
+
+	public T getJobByUuid(String uuid) {
+		return copy(uuidMap.get(uuid));
+	}
+
+	public List<T> getJobsByNamespace(String namespace) {
+		List<T> jobsOfNamespace = namespaceMap.get(namespace);
+		return jobsOfNamespace == null ? new ArrayList<T>() : copy(jobsOfNamespace);
+	}
+
+	public T getJob(String namespace, String jobName) {
+		return copy(namespaceAndJobNameMap.get(getKey(namespace, jobName)));
+	}
+
+	/**
+	 * 告警作业来自result的json，同样通过json复制，再合并已读标记
+	 */
+	private T copy(T job) {
+		if (job == null) {
+			return null;
+		}
+		T result = JSON.parseObject(JSON.toJSONString(job), type);
+		markRead(result);
+		return result;
+	}
+
+	private List<T> copy(List<T> jobs) {
+		List<T> result = JSON.parseArray(JSON.toJSONString(jobs), type);
+		if (result == null) {
+			return new ArrayList<>();
+		}
+		for (T job : result) {
+			markRead(job);
+		}
+		return result;
+	}
+
+	private void markRead(T job) {
+		if (job.getUuid() != null && readUuids.contains(job.getUuid())) {
+			job.setRead(true);
+		}
+	}
+
+}
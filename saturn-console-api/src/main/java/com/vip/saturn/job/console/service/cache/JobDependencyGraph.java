@@ -0,0 +1,227 @@
+package com.vip.saturn.job.console.service.cache;
+
+import com.vip.saturn.job.console.domain.DependencyJob;
+import com.vip.saturn.job.console.domain.JobConfig;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 域下作业依赖关系的内存索引，同时维护正向（作业依赖的作业）和反向（依赖该作业的作业）邻接表，查询直接依赖只需O(度数)，不需要每次遍历所有作业解析dependencies。
+ * <p>
+ * 依赖的作业可能还不存在，边仍然保留，查询时只返回存在的作业，这样依赖的作业后续被添加时不需要重建反向邻接表。作业的添加、修改、删除、启用禁用时增量更新。
+ */
+public class JobDependencyGraph {
+
+	/**
+	 * 存在的作业及其是否启用
+	 */
+	private final Map<String, Boolean> jobs = new LinkedHashMap<>();
+
+	private final Map<String, Set<String>> dependingMap = new HashMap<>();
+
+	private final Map<String, Set<String>> dependedMap = new HashMap<>();
+
+	/**
+	 * 重建后仍然不存在的作业，在索引的有效期内查询这些作业不再触发重建
+	 */
+	private final Set<String> missingJobs = new HashSet<>();
+
+	private final long buildTime = System.currentTimeMillis();
+
+	public JobDependencyGraph(List<JobConfig> jobConfigs) {
+		if (jobConfigs != null) {
+			for (JobConfig jobConfig : jobConfigs) {
+				putJob(jobConfig.getJobName(), jobConfig.getDependencies(),
+						Boolean.TRUE.equals(jobConfig.getEnabled()));
+			}
+		}
+	}
+
+	public long getBuildTime() {
+		return buildTime;
+	}
+
+	/**
+	 * 添加作业，或者更新已有作业的依赖和启用状态
+	 */
+	public synchronized void putJob(String jobName, String dependencies, boolean enabled) {
+		missingJobs.remove(jobName);
+		removeDependingEdges(jobName);
+		jobs.put(jobName, enabled);
+		Set<String> dependingJobs = parseDependencies(jobName, dependencies);
+		if (!dependingJobs.isEmpty()) {
+			dependingMap.put(jobName, dependingJobs);
+			for (String dependingJob : dependingJobs) {
+				Set<String> dependedJobs = dependedMap.get(dependingJob);
+				if (dependedJobs == null) {
+					dependedJobs = new LinkedHashSet<>();
+					dependedMap.put(dependingJob, dependedJobs);
+				}
+				dependedJobs.add(jobName);
+			}
+		}
+	}
+
+	/**
+	 * 删除作业，其他作业对它的依赖仍然保留
+	 */
+	public synchronized void removeJob(String jobName) {
+		removeDependingEdges(jobName);
+		jobs.remove(jobName);
+	}
+
+	public synchronized boolean containsJob(String jobName) {
+		return jobs.containsKey(jobName);
+	}
+
+	/**
+	 * 记录索引刚从数据库构建、仍然不包含的作业
+	 */
+	public synchronized void markMissing(String jobName) {
+		if (!jobs.containsKey(jobName)) {
+			missingJobs.add(jobName);
+		}
+	}
+
+	public synchronized boolean isMissing(String jobName) {
+		return missingJobs.contains(jobName);
+	}
+
+	private void removeDependingEdges(String jobName) {
+		Set<String> dependingJobs = dependingMap.remove(jobName);
+		if (dependingJobs != null) {
+			for (String dependingJob : dependingJobs) {
+				Set<String> dependedJobs = dependedMap.get(dependingJob);
+				if (dependedJobs != null) {
+					dependedJobs.remove(jobName);
+					if (dependedJobs.isEmpty()) {
+						dependedMap.remove(dependingJob);
+					}
+				}
+			}
+		}
+	}
+
+	private static Set<String> parseDependencies(String jobName, String dependencies) {
+		Set<String> dependingJobs = new LinkedHashSet<>();
+		if (StringUtils.isNotBlank(dependencies)) {
+			String[] split = dependencies.split(",");
+			for (String tmp : split) {
+				String dependingJob = tmp.trim();
+				if (!dependingJob.isEmpty() && !dependingJob.equals(jobName)) {
+					dependingJobs.add(dependingJob);
+				}
+			}
+		}
+		return dependingJobs;
+	}
+
+	/**
+	 * 获取该作业直接依赖的作业
+	 */
+	public synchronized List<DependencyJob> getDependingJobs(String jobName) {
+		return toDependencyJobs(dependingMap.get(jobName));
+	}
+
+	/**
+	 * 获取直接依赖该作业的作业
+	 */
+	public synchronized List<DependencyJob> getDependedJobs(String jobName) {
+		return toDependencyJobs(dependedMap.get(jobName));
+	}
+
+	/**
+	 * 获取该作业直接或者间接依赖的所有作业，按距离由近到远排列
+	 */
+	public synchronized List<DependencyJob> getAllDependingJobs(String jobName) {
+		return toDependencyJobs(traverse(jobName, dependingMap));
+	}
+
+	/**
+	 * 获取直接或者间接依赖该作业的所有作业，按距离由近到远排列
+	 */
+	public synchronized List<DependencyJob> getAllDependedJobs(String jobName) {
+		return toDependencyJobs(traverse(jobName, dependedMap));
+	}
+
+	private static Set<String> traverse(String jobName, Map<String, Set<String>> adjacency) {
+		Set<String> visited = new LinkedHashSet<>();
+		Deque<String> queue = new ArrayDeque<>();
+		queue.add(jobName);
+		while (!queue.isEmpty()) {
+			Set<String> nextJobs = adjacency.get(queue.poll());
+			if (nextJobs != null) {
+				for (String nextJob : nextJobs) {
+					if (!nextJob.equals(jobName) && visited.add(nextJob)) {
+						queue.add(nextJob);
+					}
+				}
+			}
+		}
+		return visited;
+	}
+
+	/**
+	 * 查找经过该作业的依赖环
+	 *
+	 * @return 环上的作业，首尾都是该作业，如[A, B, C, A]表示A依赖B、B依赖C、C依赖A；不存在环返回空列表
+	 */
+	public synchronized List<String> findCycle(String jobName) {
+		// 从该作业沿正向边深度优先遍历，回到该作业即找到环，栈中保存当前路径
+		Set<String> visited = new HashSet<>();
+		Deque<Iterator<String>> stack = new ArrayDeque<>();
+		List<String> path = new ArrayList<>();
+		path.add(jobName);
+		stack.push(getDependingIterator(jobName));
+		while (!stack.isEmpty()) {
+			Iterator<String> iterator = stack.peek();
+			if (!iterator.hasNext()) {
+				stack.pop();
+				path.remove(path.size() - 1);
+				continue;
+			}
+			String next = iterator.next();
+			if (next.equals(jobName)) {
+				path.add(jobName);
+				return path;
+			}
+			if (jobs.containsKey(next) && visited.add(next)) {
+				path.add(next);
+				stack.push(getDependingIterator(next));
+			}
+		}
+		return new ArrayList<>();
+	}
+
+	private Iterator<String> getDependingIterator(String jobName) {
+		Set<String> dependingJobs = dependingMap.get(jobName);
+		return dependingJobs == null ? new HashSet<String>().iterator() : dependingJobs.iterator();
+	}
+
+	private List<DependencyJob> toDependencyJobs(Set<String> jobNames) {
+		List<DependencyJob> dependencyJobs = new ArrayList<>();
+		if (jobNames != null) {
+			for (String jobName : jobNames) {
+				Boolean enabled = jobs.get(jobName);
+				if (enabled != null) {
+					DependencyJob dependencyJob = new DependencyJob();
+					dependencyJob.setJobName(jobName);
+					dependencyJob.setEnabled(enabled);
+					dependencyJobs.add(dependencyJob);
+				}
+			}
+		}
+		return dependencyJobs;
+	}
+
+}
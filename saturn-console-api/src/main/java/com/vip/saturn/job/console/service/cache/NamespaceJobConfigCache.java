@@ -0,0 +1,195 @@
+package com.vip.saturn.job.console.service.cache;
+
+import com.vip.saturn.job.console.utils.ConsoleThreadFactory;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.framework.recipes.cache.TreeCacheSelector;
+import org.apache.curator.utils.ZKPaths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 域下所有作业的配置（$Jobs/jobName/config/*）在控制台本地的快照，由TreeCache监听zk维护，读取作业配置不需要逐个节点查询zk。
+ * <p>
+ * TreeCache逐个节点应用zk的变更，读取的是各配置项在快照中的当前值：同时修改的多个配置项可能只读到其中一部分的新值，与逐个节点查询zk相同。
+ * 快照不可用（未初始化完成、与zk断开）时返回null，由调用方回退到直接读zk。
+ * <p>
+ * 版本号在TreeCache应用每个变更之后递增，只用于发现变更：读取版本号之后发生的变更，一定会使之后读取的版本号不同。
+ */
+public class NamespaceJobConfigCache {
+
+	private static final Logger log = LoggerFactory.getLogger(NamespaceJobConfigCache.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String JOBS_NODE_PATH = JobNodePath.get$JobsNodePath();
+
+	private final String nns;
+	private final CuratorFramework curatorFramework;
+
+	private TreeCache treeCache;
+	private ExecutorService executorService;
+
+	private final AtomicLong version = new AtomicLong();
+	private volatile boolean initialized;
+	private volatile boolean connected = true;
+	/**
+	 * 最近一次确认快照与zk同步的时间，断开期间不再更新
+	 */
+	private volatile long lastSyncTime;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	public NamespaceJobConfigCache(String nns, CuratorFramework curatorFramework) {
+		this.nns = nns;
+		this.curatorFramework = curatorFramework;
+	}
+
+	public void start() throws Exception {
+		executorService = Executors
+				.newSingleThreadExecutor(new ConsoleThreadFactory("treeCache-for-jobConfig-" + nns, false));
+		// 只缓存$Jobs/jobName/config/*，不缓存servers、execution等其他节点
+		treeCache = TreeCache.newBuilder(curatorFramework, JOBS_NODE_PATH).setMaxDepth(3)
+				.setSelector(new JobConfigSelector()).setExecutor(executorService).build();
+		treeCache.getListenable().addListener(new TreeCacheListener() {
+			@Override
+			public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+				handleEvent(event);
+			}
+		});
+		treeCache.start();
+	}
+
+	void handleEvent(TreeCacheEvent event) {
+		switch (event.getType()) {
+			case INITIALIZED:
+				initialized = true;
+				lastSyncTime = System.currentTimeMillis();
+				break;
+			case CONNECTION_SUSPENDED:
+			case CONNECTION_LOST:
+				connected = false;
+				version.incrementAndGet();
+				break;
+			case CONNECTION_RECONNECTED:
+				connected = true;
+				version.incrementAndGet();
+				lastSyncTime = System.currentTimeMillis();
+				break;
+			default:
+				version.incrementAndGet();
+				if (connected) {
+					lastSyncTime = System.currentTimeMillis();
+				}
+		}
+	}
+
+	public void shutdown() {
+		try {
+			if (treeCache != null) {
+				treeCache.close();
+			}
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+		}
+		if (executorService != null) {
+			executorService.shutdownNow();
+		}
+		initialized = false;
+	}
+
+	public boolean isAvailable() {
+		return initialized && connected;
+	}
+
+	/**
+	 * 获取作业的所有配置项
+	 *
+	 * @return 配置项名到值的映射；快照不可用或者作业不存在时返回null
+	 */
+	public Map<String, String> getJobConfig(String jobName) {
+		Map<String, String> configs = isAvailable() ? readJobConfig(jobName) : null;
+		if (configs == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return configs;
+	}
+
+	Map<String, String> readJobConfig(String jobName) {
+		Map<String, ChildData> children = treeCache.getCurrentChildren(JobNodePath.getConfigNodePath(jobName));
+		if (children == null) {
+			return null;
+		}
+		Map<String, String> configs = new HashMap<>();
+		for (Map.Entry<String, ChildData> entry : children.entrySet()) {
+			byte[] data = entry.getValue().getData();
+			configs.put(entry.getKey(), data == null ? null : new String(data, UTF8));
+		}
+		return configs;
+	}
+
+	public long getVersion() {
+		return version.get();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return 快照落后zk的最长可能时间，与zk保持连接时为0
+	 */
+	public long getStalenessMs() {
+		if (!initialized) {
+			return -1;
+		}
+		return connected ? 0 : System.currentTimeMillis() - lastSyncTime;
+	}
+
+	static class JobConfigSelector implements TreeCacheSelector {
+
+		@Override
+		public boolean traverseChildren(String fullPath) {
+			// $Jobs、$Jobs/jobName、$Jobs/jobName/config
+			return JOBS_NODE_PATH.equals(fullPath) || !isJobChildNotConfig(fullPath);
+		}
+
+		@Override
+		public boolean acceptChild(String fullPath) {
+			return !isJobChildNotConfig(fullPath);
+		}
+
+		/**
+		 * 是否是$Jobs/jobName下除config以外的节点，如servers、execution
+		 */
+		private static boolean isJobChildNotConfig(String fullPath) {
+			String parent = ZKPaths.getPathAndNode(fullPath).getPath();
+			if (JOBS_NODE_PATH.equals(parent) || JOBS_NODE_PATH.equals(fullPath)) {
+				return false;
+			}
+			String grandParent = ZKPaths.getPathAndNode(parent).getPath();
+			if (JOBS_NODE_PATH.equals(grandParent)) {
+				return !fullPath.equals(JobNodePath.getConfigNodePath(ZKPaths.getNodeFromPath(parent)));
+			}
+			return false;
+		}
+	}
+
+}
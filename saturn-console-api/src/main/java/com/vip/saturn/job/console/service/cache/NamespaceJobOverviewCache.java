@@ -0,0 +1,255 @@
+package com.vip.saturn.job.console.service.cache;
+
+import com.vip.saturn.job.console.utils.ConsoleThreadFactory;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.framework.recipes.cache.TreeCacheSelector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 域下所有作业运行时状态的物化视图，由TreeCache监听zk维护，作业总览不需要逐个作业查询execution、servers节点。
+ * <p>
+ * 只监听$Jobs/jobName/servers/executorName/sharding和$Jobs/jobName/execution/item/{running,completed}，每个事件只增量更新对应作业的状态。
+ * 视图不可用（未初始化完成、与zk断开）时查询返回null，由调用方回退到直接读zk。
+ */
+public class NamespaceJobOverviewCache {
+
+	private static final Logger log = LoggerFactory.getLogger(NamespaceJobOverviewCache.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String JOBS_NODE_PATH = JobNodePath.get$JobsNodePath();
+
+	private static final String SERVERS = "servers";
+	private static final String EXECUTION = "execution";
+	private static final String SHARDING = "sharding";
+	private static final String RUNNING = "running";
+	private static final String COMPLETED = "completed";
+
+	private final String nns;
+	private final CuratorFramework curatorFramework;
+
+	private TreeCache treeCache;
+	private ExecutorService executorService;
+
+	/**
+	 * 只在TreeCache的事件线程中修改，查询线程并发读取
+	 */
+	private final ConcurrentHashMap<String, JobRuntime> jobRuntimeMap = new ConcurrentHashMap<>();
+
+	private volatile boolean initialized;
+	private volatile boolean connected = true;
+
+	public NamespaceJobOverviewCache(String nns, CuratorFramework curatorFramework) {
+		this.nns = nns;
+		this.curatorFramework = curatorFramework;
+	}
+
+	public void start() throws Exception {
+		executorService = Executors
+				.newSingleThreadExecutor(new ConsoleThreadFactory("treeCache-for-jobOverview-" + nns, false));
+		treeCache = TreeCache.newBuilder(curatorFramework, JOBS_NODE_PATH).setMaxDepth(4)
+				.setSelector(new JobRuntimeSelector()).setExecutor(executorService).build();
+		treeCache.getListenable().addListener(new TreeCacheListener() {
+			@Override
+			public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+				handleEvent(event);
+			}
+		});
+		treeCache.start();
+	}
+
+	void handleEvent(TreeCacheEvent event) {
+		switch (event.getType()) {
+			case INITIALIZED:
+				initialized = true;
+				break;
+			case CONNECTION_SUSPENDED:
+			case CONNECTION_LOST:
+				connected = false;
+				break;
+			case CONNECTION_RECONNECTED:
+				connected = true;
+				break;
+			case NODE_ADDED:
+			case NODE_UPDATED:
+				handleNodeEvent(event.getData(), false);
+				break;
+			case NODE_REMOVED:
+				handleNodeEvent(event.getData(), true);
+				break;
+			default:
+		}
+	}
+
+	private void handleNodeEvent(ChildData childData, boolean removed) {
+		if (childData == null) {
+			return;
+		}
+		String[] nodes = splitPath(childData.getPath());
+		if (nodes == null) {
+			return;
+		}
+		String jobName = nodes[0];
+		if (nodes.length == 1) {
+			if (removed) {
+				jobRuntimeMap.remove(jobName);
+			}
+			return;
+		}
+		if (nodes.length != 4) {
+			return;
+		}
+		JobRuntime jobRuntime = jobRuntimeMap.get(jobName);
+		if (jobRuntime == null) {
+			if (removed) {
+				return;
+			}
+			jobRuntime = new JobRuntime();
+			jobRuntimeMap.put(jobName, jobRuntime);
+		}
+		if (SERVERS.equals(nodes[1]) && SHARDING.equals(nodes[3])) {
+			byte[] data = childData.getData();
+			if (!removed && data != null && !new String(data, UTF8).trim().isEmpty()) {
+				jobRuntime.shardingExecutors.add(nodes[2]);
+			} else {
+				jobRuntime.shardingExecutors.remove(nodes[2]);
+			}
+		} else if (EXECUTION.equals(nodes[1]) && RUNNING.equals(nodes[3])) {
+			updateItems(jobRuntime.runningItems, nodes[2], removed);
+		} else if (EXECUTION.equals(nodes[1]) && COMPLETED.equals(nodes[3])) {
+			updateItems(jobRuntime.completedItems, nodes[2], removed);
+		}
+	}
+
+	private static void updateItems(Set<String> items, String item, boolean removed) {
+		if (removed) {
+			items.remove(item);
+		} else {
+			items.add(item);
+		}
+	}
+
+	/**
+	 * @return $Jobs下的相对路径的各级节点名，不是$Jobs下的节点返回null
+	 */
+	private static String[] splitPath(String fullPath) {
+		if (fullPath == null || !fullPath.startsWith(JOBS_NODE_PATH + "/")) {
+			return null;
+		}
+		return fullPath.substring(JOBS_NODE_PATH.length() + 1).split("/");
+	}
+
+	public void shutdown() {
+		try {
+			if (treeCache != null) {
+				treeCache.close();
+			}
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+		}
+		if (executorService != null) {
+			executorService.shutdownNow();
+		}
+		initialized = false;
+		jobRuntimeMap.clear();
+	}
+
+	public boolean isAvailable() {
+		return initialized && connected;
+	}
+
+	/**
+	 * 作业的所有分片是否都已执行完成，即不存在有running节点但没有completed节点的分片
+	 *
+	 * @return 视图不可用时返回null
+	 */
+	public Boolean isAllShardsFinished(String jobName) {
+		if (!isAvailable()) {
+			return null;
+		}
+		JobRuntime jobRuntime = jobRuntimeMap.get(jobName);
+		if (jobRuntime != null) {
+			for (String item : jobRuntime.runningItems) {
+				if (!jobRuntime.completedItems.contains(item)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 获取分配到作业分片的executor
+	 *
+	 * @return 视图不可用时返回null
+	 */
+	public List<String> getShardingAllocatedExecutors(String jobName) {
+		if (!isAvailable()) {
+			return null;
+		}
+		JobRuntime jobRuntime = jobRuntimeMap.get(jobName);
+		if (jobRuntime == null) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(jobRuntime.shardingExecutors);
+	}
+
+	private static class JobRuntime {
+
+		private final Set<String> shardingExecutors = new ConcurrentSkipListSet<>();
+		private final Set<String> runningItems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		private final Set<String> completedItems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	}
+
+	static class JobRuntimeSelector implements TreeCacheSelector {
+
+		@Override
+		public boolean traverseChildren(String fullPath) {
+			if (JOBS_NODE_PATH.equals(fullPath)) {
+				return true;
+			}
+			String[] nodes = splitPath(fullPath);
+			if (nodes == null) {
+				return false;
+			}
+			// $Jobs/jobName、$Jobs/jobName/{servers,execution}、$Jobs/jobName/{servers,execution}/*
+			return nodes.length == 1 || nodes.length <= 3 && (SERVERS.equals(nodes[1]) || EXECUTION.equals(nodes[1]));
+		}
+
+		@Override
+		public boolean acceptChild(String fullPath) {
+			String[] nodes = splitPath(fullPath);
+			if (nodes == null) {
+				return false;
+			}
+			switch (nodes.length) {
+				case 1:
+					return true;
+				case 2:
+				case 3:
+					return SERVERS.equals(nodes[1]) || EXECUTION.equals(nodes[1]);
+				case 4:
+					return SERVERS.equals(nodes[1]) ? SHARDING.equals(nodes[3])
+							: EXECUTION.equals(nodes[1]) && (RUNNING.equals(nodes[3]) || COMPLETED.equals(nodes[3]));
+				default:
+					return false;
+			}
+		}
+	}
+
+}
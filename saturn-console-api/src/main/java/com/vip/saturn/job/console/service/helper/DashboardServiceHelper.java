@@ -4,11 +4,15 @@
 package com.vip.saturn.job.console.service.helper;
 
 import com.vip.saturn.job.console.domain.AbnormalJob;
+import com.vip.saturn.job.console.domain.AbstractAlarmJob;
 import com.vip.saturn.job.console.domain.DomainStatistics;
 import com.vip.saturn.job.console.domain.ExecutorStatistics;
 import com.vip.saturn.job.console.domain.JobStatistics;
 import com.vip.saturn.job.console.domain.Timeout4AlarmJob;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Comparator;
 import java.util.List;
 import org.springframework.util.CollectionUtils;
@@ -127,4 +131,19 @@ public class DashboardServiceHelper {
 		return null;
 	}
 
+	/**
+	 * 把单独存储的已读标记合并到告警作业中
+	 */
+	public static void mergeReadUuids(List<? extends AbstractAlarmJob> alarmJobList, Collection<String> readUuids) {
+		if (CollectionUtils.isEmpty(alarmJobList) || CollectionUtils.isEmpty(readUuids)) {
+			return;
+		}
+		Set<String> readUuidSet = new HashSet<>(readUuids);
+		for (AbstractAlarmJob alarmJob : alarmJobList) {
+			if (alarmJob.getUuid() != null && readUuidSet.contains(alarmJob.getUuid())) {
+				alarmJob.setRead(true);
+			}
+		}
+	}
+
 }
@@ -24,4 +24,6 @@ public class SystemConfigProperties {
 	public static final String REFRESH_REGISTRY_CENTER_UUID = "REFRESH_REGISTRY_CENTER_UUID";
 
 	public static final String AUTHORIZATION_ENABLED = "AUTHORIZATION_ENABLED";
+
+	public static final String ZK_DB_DIFF_CONCURRENCY_PER_ZK_CLUSTER = "ZK_DB_DIFF_CONCURRENCY_PER_ZK_CLUSTER";
 }
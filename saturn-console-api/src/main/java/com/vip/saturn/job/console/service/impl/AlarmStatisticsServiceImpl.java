@@ -7,6 +7,7 @@ import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
 import com.vip.saturn.job.console.mybatis.service.SaturnStatisticsService;
 import com.vip.saturn.job.console.service.AlarmStatisticsService;
 import com.vip.saturn.job.console.service.RegistryCenterService;
+import com.vip.saturn.job.console.service.cache.AlarmJobIndex;
 import com.vip.saturn.job.console.service.helper.DashboardServiceHelper;
 import com.vip.saturn.job.console.utils.StatisticsTableKeyConstant;
 import org.apache.commons.lang3.StringUtils;
@@ -15,18 +16,27 @@ import javax.annotation.Resource;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author hebelala
  */
 public class AlarmStatisticsServiceImpl implements AlarmStatisticsService {
 
+	/**
+	 * 告警作业索引在该时间内直接使用，不查询数据库确认是否变化，避免一次页面加载的多次查询都查询数据库
+	 */
+	private static final long ALARM_JOB_INDEX_CHECK_INTERVAL_MS = 3000L;
+
 	@Resource
 	private RegistryCenterService registryCenterService;
 
 	@Resource
 	private SaturnStatisticsService saturnStatisticsService;
 
+	private final ConcurrentHashMap<String, AlarmJobIndex<? extends AbstractAlarmJob>> alarmJobIndexMap =
+			new ConcurrentHashMap<>();
+
 	@Override
 	public String getAbnormalJobsString() throws SaturnJobConsoleException {
 		List<AbnormalJob> abnormalJobList = getAbnormalJobList();
@@ -87,75 +97,111 @@ public class AlarmStatisticsServiceImpl implements AlarmStatisticsService {
 	}
 
 	public List<AbnormalJob> getAbnormalJobList() throws SaturnJobConsoleException {
-		List<AbnormalJob> abnormalJobList = new ArrayList<>();
-		Collection<ZkCluster> zkClusterList = registryCenterService.getZkClusterList();
-		for (ZkCluster zkCluster : zkClusterList) {
-			String result = getAbnormalJobsStringByZKCluster(zkCluster.getZkClusterKey());
-			List<AbnormalJob> tempList = JSON.parseArray(result, AbnormalJob.class);
-			if (tempList != null) {
-				abnormalJobList.addAll(tempList);
-			}
-		}
-		return abnormalJobList;
+		return getAlarmJobList(StatisticsTableKeyConstant.UNNORMAL_JOB, AbnormalJob.class);
 	}
 
 	public List<AbnormalJob> getUnableFailoverJobList() throws SaturnJobConsoleException {
-		List<AbnormalJob> abnormalJobList = new ArrayList<>();
+		return getAlarmJobList(StatisticsTableKeyConstant.UNABLE_FAILOVER_JOB, AbnormalJob.class);
+	}
+
+	public List<Timeout4AlarmJob> getTimeout4AlarmJobList() throws SaturnJobConsoleException {
+		return getAlarmJobList(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB, Timeout4AlarmJob.class);
+	}
+
+	private <T extends AbstractAlarmJob> List<T> getAlarmJobList(String alarmJobType, Class<T> t) {
+		List<T> alarmJobList = new ArrayList<>();
 		Collection<ZkCluster> zkClusterList = registryCenterService.getZkClusterList();
 		for (ZkCluster zkCluster : zkClusterList) {
-			String result = getUnableFailoverJobsStringByZKCluster(zkCluster.getZkClusterKey());
-			List<AbnormalJob> tempList = JSON.parseArray(result, AbnormalJob.class);
-			if (tempList != null) {
-				abnormalJobList.addAll(tempList);
-			}
+			alarmJobList.addAll(getAlarmJobIndex(alarmJobType, zkCluster.getZkAddr(), t).getJobs());
+		}
+		return alarmJobList;
+	}
+
+	/**
+	 * 获取zk集群的告警作业索引，超过检查间隔时查询数据库中的版本确认是否变化
+	 */
+	private <T extends AbstractAlarmJob> AlarmJobIndex<T> getAlarmJobIndex(String alarmJobType, String zkAddr,
+			Class<T> t) {
+		AlarmJobIndex<T> index = getCachedAlarmJobIndex(alarmJobType, zkAddr);
+		if (index != null && System.currentTimeMillis() - index.getCheckTime() < ALARM_JOB_INDEX_CHECK_INTERVAL_MS) {
+			return index;
+		}
+		return refreshAlarmJobIndex(alarmJobType, zkAddr, t);
+	}
+
+	private static String getAlarmJobIndexKey(String alarmJobType, String zkAddr) {
+		return alarmJobType + "|" + zkAddr;
+	}
 
+	@SuppressWarnings("unchecked")
+	private <T extends AbstractAlarmJob> AlarmJobIndex<T> getCachedAlarmJobIndex(String alarmJobType, String zkAddr) {
+		return (AlarmJobIndex<T>) alarmJobIndexMap.get(getAlarmJobIndexKey(alarmJobType, zkAddr));
+	}
+
+	/**
+	 * 只查询版本：统计结果的版本变化了才读取、解析result；只有已读标记的版本变化了，只重新读取已读标记
+	 */
+	private <T extends AbstractAlarmJob> AlarmJobIndex<T> refreshAlarmJobIndex(String alarmJobType, String zkAddr,
+			Class<T> t) {
+		AlarmJobIndex<T> index = getCachedAlarmJobIndex(alarmJobType, zkAddr);
+		SaturnStatistics versions = saturnStatisticsService.findStatisticsVersionByNameAndZkList(alarmJobType,
+				zkAddr);
+		if (index == null || !index.isResultOf(versions)) {
+			SaturnStatistics saturnStatistics = versions == null ? null
+					: saturnStatisticsService.findStatisticsByNameAndZkList(alarmJobType, zkAddr);
+			index = AlarmJobIndex.parse(saturnStatistics, findReadUuids(saturnStatistics, alarmJobType, zkAddr), t);
+		} else if (!index.isReadOf(versions)) {
+			index = index.withReadUuids(versions.getReadVersion(), findReadUuids(versions, alarmJobType, zkAddr));
+		} else {
+			index.touch();
+			return index;
 		}
-		return abnormalJobList;
+		alarmJobIndexMap.put(getAlarmJobIndexKey(alarmJobType, zkAddr), index);
+		return index;
 	}
 
-	public List<Timeout4AlarmJob> getTimeout4AlarmJobList() throws SaturnJobConsoleException {
-		List<Timeout4AlarmJob> timeout4AlarmJobList = new ArrayList<>();
-		Collection<ZkCluster> zkClusterList = registryCenterService.getZkClusterList();
-		for (ZkCluster zkCluster : zkClusterList) {
-			String result = getTimeout4AlarmJobsStringByZKCluster(zkCluster.getZkClusterKey());
-			List<Timeout4AlarmJob> tempList = JSON.parseArray(result, Timeout4AlarmJob.class);
-			if (tempList != null) {
-				timeout4AlarmJobList.addAll(tempList);
-			}
+	private List<String> findReadUuids(SaturnStatistics saturnStatistics, String alarmJobType, String zkAddr) {
+		if (saturnStatistics == null) {
+			return new ArrayList<>();
 		}
-		return timeout4AlarmJobList;
+		return saturnStatisticsService.findReadUuids(alarmJobType, zkAddr);
 	}
 
 	private <T extends AbstractAlarmJob> void setAlarmJobMonitorStatusToRead(String uuid, String alarmJobType,
 			Class<T> t) throws SaturnJobConsoleException {
-		Collection<ZkCluster> zkClusterList = registryCenterService.getZkClusterList();
-		for (ZkCluster zkCluster : zkClusterList) {
-			SaturnStatistics saturnStatistics = saturnStatisticsService.findStatisticsByNameAndZkList(alarmJobType,
-					zkCluster.getZkAddr());
-			if (null == saturnStatistics) {
-				continue;
+		// 优先在已有的索引中找到该uuid所在的zk集群，只需检查该集群的记录
+		List<ZkCluster> zkClusterList = new ArrayList<>(registryCenterService.getZkClusterList());
+		for (int i = 0; i < zkClusterList.size(); i++) {
+			AlarmJobIndex<T> index = getCachedAlarmJobIndex(alarmJobType, zkClusterList.get(i).getZkAddr());
+			if (index != null && index.getJobByUuid(uuid) != null) {
+				zkClusterList.add(0, zkClusterList.remove(i));
+				break;
 			}
-			String result = saturnStatistics.getResult();
-			List<T> jobs = JSON.parseArray(result, t);
-			if (jobs != null) {
-				boolean find = false;
-				for (T job : jobs) {
-					if (uuid.equals(job.getUuid())) {
-						job.setRead(true);
-						find = true;
-						break;
-					}
-				}
-				if (find) {
-					saturnStatistics.setResult(JSON.toJSONString(jobs));
-					saturnStatisticsService.updateByPrimaryKeySelective(saturnStatistics);
-					return;
+		}
+		for (ZkCluster zkCluster : zkClusterList) {
+			String zkAddr = zkCluster.getZkAddr();
+			AlarmJobIndex<T> index = refreshAlarmJobIndex(alarmJobType, zkAddr, t);
+			T job = index.getJobByUuid(uuid);
+			if (job != null) {
+				if (!job.isRead()) {
+					// 只插入一行已读标记，不重写result；数据库更新成功后才替换共享的索引
+					saturnStatisticsService.markRead(index.getId(), alarmJobType, zkAddr, uuid);
+					alarmJobIndexMap.put(getAlarmJobIndexKey(alarmJobType, zkAddr), index.withReadUuid(uuid));
 				}
+				return;
 			}
 		}
 		throw new SaturnJobConsoleException(String.format("该uuid(%s)不存在", uuid));
 	}
 
+	/**
+	 * @return 合并了已读标记的告警作业，统计结果不存在时为null
+	 */
+	private <T extends AbstractAlarmJob> String getAlarmJobsString(String alarmJobType, String zkAddr, Class<T> t) {
+		AlarmJobIndex<T> index = getAlarmJobIndex(alarmJobType, zkAddr, t);
+		return index.getId() == null ? null : JSON.toJSONString(index.getJobs());
+	}
+
 	private ZkCluster validateAndGetZKCluster(String zkClusterKey) throws SaturnJobConsoleException {
 		ZkCluster zkCluster = registryCenterService.getZkCluster(zkClusterKey);
 		if (zkCluster == null) {
@@ -166,9 +212,7 @@ public class AlarmStatisticsServiceImpl implements AlarmStatisticsService {
 
 	public String getAbnormalJobsStringByZKCluster(String zkClusterKey) throws SaturnJobConsoleException {
 		ZkCluster zkCluster = validateAndGetZKCluster(zkClusterKey);
-		SaturnStatistics saturnStatistics = saturnStatisticsService
-				.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.UNNORMAL_JOB, zkCluster.getZkAddr());
-		return saturnStatistics != null ? saturnStatistics.getResult() : null;
+		return getAlarmJobsString(StatisticsTableKeyConstant.UNNORMAL_JOB, zkCluster.getZkAddr(), AbnormalJob.class);
 	}
 
 	@Override
@@ -182,9 +226,8 @@ public class AlarmStatisticsServiceImpl implements AlarmStatisticsService {
 	@Override
 	public String getTimeout4AlarmJobsStringByZKCluster(String zkClusterKey) throws SaturnJobConsoleException {
 		ZkCluster zkCluster = validateAndGetZKCluster(zkClusterKey);
-		SaturnStatistics saturnStatistics = saturnStatisticsService
-				.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB, zkCluster.getZkAddr());
-		return saturnStatistics != null ? saturnStatistics.getResult() : null;
+		return getAlarmJobsString(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB, zkCluster.getZkAddr(),
+				Timeout4AlarmJob.class);
 	}
 
 	@Override
@@ -203,51 +246,43 @@ public class AlarmStatisticsServiceImpl implements AlarmStatisticsService {
 		return conf;
 	}
 
+	private <T extends AbstractAlarmJob> AlarmJobIndex<T> getAlarmJobIndexByNamespace(String namespace,
+			String alarmJobType, Class<T> t) throws SaturnJobConsoleException {
+		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
+		ZkCluster zkCluster = validateAndGetZKCluster(conf.getZkClusterKey());
+		return getAlarmJobIndex(alarmJobType, zkCluster.getZkAddr(), t);
+	}
+
 	@Override
 	public List<AbnormalJob> getAbnormalJobListByNamespace(String namespace) throws SaturnJobConsoleException {
-		List<AbnormalJob> abnormalJobList = new ArrayList<>();
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getAbnormalJobsStringByZKCluster(conf.getZkClusterKey());
-		abnormalJobList.addAll(getAlarmJobListFilterByNamespace(namespace, result, AbnormalJob.class));
-		return abnormalJobList;
+		return getAlarmJobIndexByNamespace(namespace, StatisticsTableKeyConstant.UNNORMAL_JOB, AbnormalJob.class)
+				.getJobsByNamespace(namespace);
 	}
 
 	@Override
 	public String getAbnormalJobsStringByNamespace(String namespace) throws SaturnJobConsoleException {
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getAbnormalJobsStringByZKCluster(conf.getZkClusterKey());
-		return JSON.toJSONString(getAlarmJobListFilterByNamespace(namespace, result, AbnormalJob.class));
+		return JSON.toJSONString(getAbnormalJobListByNamespace(namespace));
 	}
 
 	public List<AbnormalJob> getUnableFailoverListByNamespace(String namespace) throws SaturnJobConsoleException {
-		List<AbnormalJob> abnormalJobList = new ArrayList<>();
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getUnableFailoverJobsStringByZKCluster(conf.getZkClusterKey());
-		abnormalJobList.addAll(getAlarmJobListFilterByNamespace(namespace, result, AbnormalJob.class));
-		return abnormalJobList;
+		return getAlarmJobIndexByNamespace(namespace, StatisticsTableKeyConstant.UNABLE_FAILOVER_JOB,
+				AbnormalJob.class).getJobsByNamespace(namespace);
 	}
 
 	@Override
 	public String getUnableFailoverJobsStringByNamespace(String namespace) throws SaturnJobConsoleException {
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getUnableFailoverJobsStringByZKCluster(conf.getZkClusterKey());
-		return JSON.toJSONString(getAlarmJobListFilterByNamespace(namespace, result, AbnormalJob.class));
+		return JSON.toJSONString(getUnableFailoverListByNamespace(namespace));
 	}
 
 	public List<Timeout4AlarmJob> getTimeout4AlarmJobListByNamespace(String namespace)
 			throws SaturnJobConsoleException {
-		List<Timeout4AlarmJob> timeout4AlarmJobs = new ArrayList<>();
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getTimeout4AlarmJobsStringByZKCluster(conf.getZkClusterKey());
-		timeout4AlarmJobs.addAll(getAlarmJobListFilterByNamespace(namespace, result, Timeout4AlarmJob.class));
-		return timeout4AlarmJobs;
+		return getAlarmJobIndexByNamespace(namespace, StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB,
+				Timeout4AlarmJob.class).getJobsByNamespace(namespace);
 	}
 
 	@Override
 	public String getTimeout4AlarmJobsStringByNamespace(String namespace) throws SaturnJobConsoleException {
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getTimeout4AlarmJobsStringByZKCluster(conf.getZkClusterKey());
-		return JSON.toJSONString(getAlarmJobListFilterByNamespace(namespace, result, Timeout4AlarmJob.class));
+		return JSON.toJSONString(getTimeout4AlarmJobListByNamespace(namespace));
 	}
 
 	@Override
@@ -280,49 +315,19 @@ public class AlarmStatisticsServiceImpl implements AlarmStatisticsService {
 
 	@Override
 	public AbnormalJob isAbnormalJob(String namespace, String jobName) throws SaturnJobConsoleException {
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getAbnormalJobsStringByZKCluster(conf.getZkClusterKey());
-		return getAlarmJobFilterByNamespaceAndJobName(namespace, jobName, result, AbnormalJob.class);
+		return getAlarmJobIndexByNamespace(namespace, StatisticsTableKeyConstant.UNNORMAL_JOB, AbnormalJob.class)
+				.getJob(namespace, jobName);
 	}
 
 	@Override
 	public AbnormalJob isUnableFailoverJob(String namespace, String jobName) throws SaturnJobConsoleException {
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getUnableFailoverJobsStringByZKCluster(conf.getZkClusterKey());
-		return getAlarmJobFilterByNamespaceAndJobName(namespace, jobName, result, AbnormalJob.class);
+		return getAlarmJobIndexByNamespace(namespace, StatisticsTableKeyConstant.UNABLE_FAILOVER_JOB,
+				AbnormalJob.class).getJob(namespace, jobName);
 	}
 
 	@Override
 	public Timeout4AlarmJob isTimeout4AlarmJob(String namespace, String jobName) throws SaturnJobConsoleException {
-		RegistryCenterConfiguration conf = validateAndGetConf(namespace);
-		String result = getTimeout4AlarmJobsStringByZKCluster(conf.getZkClusterKey());
-		return getAlarmJobFilterByNamespaceAndJobName(namespace, jobName, result, Timeout4AlarmJob.class);
-	}
-
-	private <T extends AbstractAlarmJob> List<T> getAlarmJobListFilterByNamespace(String namespace, String result,
-			Class<T> t) {
-		List<T> jobsByNamespace = new ArrayList<>();
-		List<T> jobs = JSON.parseArray(result, t);
-		if (jobs != null) {
-			for (T job : jobs) {
-				if (namespace.equals(job.getDomainName())) {
-					jobsByNamespace.add(job);
-				}
-			}
-		}
-		return jobsByNamespace;
-	}
-
-	private <T extends AbstractAlarmJob> T getAlarmJobFilterByNamespaceAndJobName(String namespace, String jobName,
-			String result, Class<T> t) {
-		List<T> jobs = JSON.parseArray(result, t);
-		if (jobs != null) {
-			for (T job : jobs) {
-				if (namespace.equals(job.getDomainName()) && jobName.equals(job.getJobName())) {
-					return job;
-				}
-			}
-		}
-		return null;
+		return getAlarmJobIndexByNamespace(namespace, StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB,
+				Timeout4AlarmJob.class).getJob(namespace, jobName);
 	}
 }
@@ -18,10 +18,14 @@ import com.vip.saturn.job.console.utils.ExecutorNodePath;
 import com.vip.saturn.job.console.utils.JobNodePath;
 import com.vip.saturn.job.console.utils.SaturnConsoleUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.util.CollectionUtils;
 
 import javax.annotation.Resource;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Default implementation of ExecutorService.
@@ -31,8 +35,15 @@ import java.util.List;
  */
 public class ExecutorServiceImpl implements ExecutorService {
 
+	private static final Logger log = LoggerFactory.getLogger(ExecutorServiceImpl.class);
+
 	private static final int DEFAULT_MAX_SECONDS_FORCE_KILL_EXECUTOR = 300;
 
+	/**
+	 * 批量摘取、恢复流量时每个zk事务包含的executor数
+	 */
+	private static final int BATCH_ZK_TRANSACTION_SIZE = 100;
+
 	@Resource
 	private CuratorRepository curatorRepository;
 
@@ -199,6 +210,100 @@ public class ExecutorServiceImpl implements ExecutorService {
 		}
 	}
 
+	@Override
+	public void batchRemoveExecutors(String namespace, List<String> executorNames)
+			throws SaturnJobConsoleException {
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = getCuratorFrameworkOp(namespace);
+		Set<String> removingExecutors = new LinkedHashSet<>(executorNames);
+		List<String> failMessages = Lists.newArrayList();
+		for (String executorName : removingExecutors) {
+			if (!curatorFrameworkOp.checkExists(ExecutorNodePath.getExecutorNodePath(executorName))) {
+				failMessages.add("Executor(" + executorName + ")不存在");
+			} else if (StringUtils
+					.isNotBlank(curatorFrameworkOp.getData(ExecutorNodePath.getExecutorIpNodePath(executorName)))) {
+				failMessages.add("Executor(" + executorName + ")在线，不能移除");
+			}
+		}
+		throwIfBatchValidateFailed(failMessages);
+
+		for (String executorName : removingExecutors) {
+			curatorFrameworkOp.deleteRecursive(ExecutorNodePath.getExecutorNodePath(executorName));
+		}
+		// 每个作业只查询一次servers下的executor，只删除存在的节点
+		List<String> jobNames = jobService.getAllJobNamesFromZK(namespace);
+		for (String jobName : jobNames) {
+			List<String> jobExecutors = curatorFrameworkOp.getChildren(JobNodePath.getServerNodePath(jobName));
+			if (jobExecutors == null) {
+				continue;
+			}
+			for (String executorName : jobExecutors) {
+				if (removingExecutors.contains(executorName)) {
+					curatorFrameworkOp.deleteRecursive(JobNodePath.getServerNodePath(jobName, executorName));
+				}
+			}
+		}
+	}
+
+	@Override
+	public void batchExtractTraffic(String namespace, List<String> executorNames) throws SaturnJobConsoleException {
+		batchExtractOrRecoverTraffic(namespace, executorNames, true);
+	}
+
+	@Override
+	public void batchRecoverTraffic(String namespace, List<String> executorNames) throws SaturnJobConsoleException {
+		batchExtractOrRecoverTraffic(namespace, executorNames, false);
+	}
+
+	private void batchExtractOrRecoverTraffic(String namespace, List<String> executorNames, boolean extract)
+			throws SaturnJobConsoleException {
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = getCuratorFrameworkOp(namespace);
+		List<String> failMessages = Lists.newArrayList();
+		// 已经处于目标状态的executor不需要修改
+		List<String> changingExecutors = Lists.newArrayList();
+		for (String executorName : new LinkedHashSet<>(executorNames)) {
+			if (!curatorFrameworkOp.checkExists(ExecutorNodePath.getExecutorNodePath(executorName))) {
+				failMessages.add("The executorName(" + executorName + ") is not existed.");
+			} else if (curatorFrameworkOp.checkExists(ExecutorNodePath.getExecutorNoTrafficNodePath(executorName))
+					!= extract) {
+				changingExecutors.add(executorName);
+			}
+		}
+		throwIfBatchValidateFailed(failMessages);
+
+		for (int from = 0; from < changingExecutors.size(); from += BATCH_ZK_TRANSACTION_SIZE) {
+			List<String> batch = changingExecutors
+					.subList(from, Math.min(from + BATCH_ZK_TRANSACTION_SIZE, changingExecutors.size()));
+			if (changingExecutors.size() > 1) {
+				SaturnConsoleUtils.requestShardingCoalescing(curatorFrameworkOp);
+			}
+			try {
+				CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp transactionOp = curatorFrameworkOp
+						.inTransaction();
+				for (String executorName : batch) {
+					String noTrafficNodePath = ExecutorNodePath.getExecutorNoTrafficNodePath(executorName);
+					if (extract) {
+						transactionOp.create(noTrafficNodePath);
+					} else {
+						transactionOp.delete(noTrafficNodePath);
+					}
+				}
+				transactionOp.commit();
+			} catch (Exception e) {
+				log.error("batch extract or recover traffic failed", e);
+				throw new SaturnJobConsoleException(
+						"操作成功的executor:" + changingExecutors.subList(0, from) + "，操作失败的executor:"
+								+ changingExecutors.subList(from, changingExecutors.size()) + "，原因:" + e.getMessage(),
+						e);
+			}
+		}
+	}
+
+	private void throwIfBatchValidateFailed(List<String> failMessages) throws SaturnJobConsoleException {
+		if (!failMessages.isEmpty()) {
+			throw new SaturnJobConsoleException(StringUtils.join(failMessages, "；"));
+		}
+	}
+
 	@Override
 	public void shardAll(String namespace) throws SaturnJobConsoleException {
 		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = getCuratorFrameworkOp(namespace);
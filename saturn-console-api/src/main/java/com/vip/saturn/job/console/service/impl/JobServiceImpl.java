@@ -14,6 +14,9 @@ import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.Curator
 import com.vip.saturn.job.console.service.JobService;
 import com.vip.saturn.job.console.service.RegistryCenterService;
 import com.vip.saturn.job.console.service.SystemConfigService;
+import com.vip.saturn.job.console.service.cache.JobDependencyGraph;
+import com.vip.saturn.job.console.service.cache.NamespaceJobConfigCache;
+import com.vip.saturn.job.console.service.cache.NamespaceJobOverviewCache;
 import com.vip.saturn.job.console.service.helper.SystemConfigProperties;
 import com.vip.saturn.job.console.utils.*;
 import com.vip.saturn.job.console.vo.GetJobConfigVo;
@@ -38,10 +41,18 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.Boolean;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author hebelala
@@ -82,6 +93,37 @@ public class JobServiceImpl implements JobService {
 	private static final int DEFAULT_MAX_JOB_NUM = 100;
 	private static final int DEFAULT_INTERVAL_TIME_OF_ENABLED_REPORT = 5;
 	private static final String ERR_MSG_PENDING_STATUS = "job:[{}] item:[{}] on executor:[{}] execution status is PENDING as {}";
+	/**
+	 * 流式导入导出时每批处理的作业数
+	 */
+	private static final int IMPORT_EXPORT_BATCH_SIZE = 200;
+	/**
+	 * 作业依赖关系索引的重建间隔。本控制台的修改会增量更新索引，定期重建是为了同步其他控制台、RESTful API等途径的修改
+	 */
+	private static final long DEPENDENCY_GRAPH_REBUILD_INTERVAL_MS = 60 * 1000L;
+	/**
+	 * 批量操作时每个zk事务包含的作业数
+	 */
+	private static final int BATCH_ZK_TRANSACTION_SIZE = 100;
+	/**
+	 * 导入作业时每个zk事务包含的作业数。每个作业有30多个配置节点，控制事务的大小不超过zk的jute.maxbuffer
+	 */
+	private static final int IMPORT_ZK_TRANSACTION_SIZE = 20;
+	/**
+	 * 导入完成后保留进度的时间，供页面查询最终结果
+	 */
+	private static final long IMPORT_JOB_PROGRESS_RETENTION_MS = 10 * 60 * 1000L;
+	/**
+	 * 删除作业时等待executor删除作业节点的最大轮数，每轮间隔200ms
+	 */
+	private static final int REMOVE_JOB_MAX_RETRY_TIMES = 20;
+	/**
+	 * 导入导出文件的列，与Excel表头一致
+	 */
+	private static final String[] JOB_COLUMN_NAMES = {"作业名称", "作业类型", "作业实现类", "cron表达式", "作业描述", "本地模式",
+			"分片数", "超时（Kill线程/进程）时间", "自定义参数", "分片序列号/参数对照表", "Queue名", "执行结果发送的Channel",
+			"优先Executor", "只使用优先Executor", "统计处理数据量的间隔秒数", "负荷", "显示控制台输出日志", "暂停日期段", "暂停时间段",
+			"串行消费", "作业重要等级", "上报运行状态", "作业模式", "依赖的作业", "所属分组", "超时（告警）时间", "时区"};
 	@Resource
 	private RegistryCenterService registryCenterService;
 
@@ -93,6 +135,15 @@ public class JobServiceImpl implements JobService {
 
 	private Random random = new Random();
 
+	private final Map<String, ImportJobProgress> importJobProgressMap = new ConcurrentHashMap<>();
+
+	private final Map<String, JobDependencyGraph> dependencyGraphMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 每个域的依赖关系索引锁：重建与增量更新互斥，避免重建过程中的增量更新落在被替换的旧索引上而丢失；不同域之间互不阻塞
+	 */
+	private final ConcurrentHashMap<String, Object> dependencyGraphLocks = new ConcurrentHashMap<>();
+
 	private MapType customContextType = TypeFactory.defaultInstance()
 			.constructMapType(HashMap.class, String.class, String.class);
 
@@ -151,72 +202,116 @@ public class JobServiceImpl implements JobService {
 		return groups;
 	}
 
-	@Override
-	public List<DependencyJob> getDependingJobs(String namespace, String jobName) throws SaturnJobConsoleException {
-		JobConfig4DB currentJobConfig = currentJobConfigService.findConfigByNamespaceAndJobName(namespace, jobName);
-		if (currentJobConfig == null) {
-			throw new SaturnJobConsoleException("不能获取该作业（" + jobName + "）依赖的所有作业，因为该作业不存在");
+	/**
+	 * 获取域的作业依赖关系索引，超过重建间隔则从数据库重建
+	 */
+	private JobDependencyGraph getDependencyGraph(String namespace) {
+		JobDependencyGraph graph = dependencyGraphMap.get(namespace);
+		if (graph == null || System.currentTimeMillis() - graph.getBuildTime() > DEPENDENCY_GRAPH_REBUILD_INTERVAL_MS) {
+			graph = rebuildDependencyGraph(namespace, graph);
 		}
-		List<DependencyJob> dependencyJobs = new ArrayList<>();
-		List<JobConfig> unSystemJobs = getUnSystemJobs(namespace);
-		if (unSystemJobs != null) {
-			String dependencies = currentJobConfig.getDependencies();
-			List<String> dependencyList = new ArrayList<>();
-			if (StringUtils.isNotBlank(dependencies)) {
-				String[] split = dependencies.split(",");
-				for (String tmp : split) {
-					if (StringUtils.isNotBlank(tmp)) {
-						dependencyList.add(tmp.trim());
-					}
-				}
-			}
-			if (!dependencyList.isEmpty()) {
-				for (JobConfig jobConfig : unSystemJobs) {
-					if (jobConfig.getJobName().equals(jobName)) {
-						continue;
-					}
-					if (dependencyList.contains(jobConfig.getJobName())) {
-						DependencyJob dependencyJob = new DependencyJob();
-						dependencyJob.setJobName(jobConfig.getJobName());
-						dependencyJob.setEnabled(jobConfig.getEnabled());
-						dependencyJobs.add(dependencyJob);
-					}
-				}
+		return graph;
+	}
+
+	/**
+	 * 重建域的依赖关系索引；加锁后如果索引已经不是staleGraph，说明其他线程已经重建，直接使用
+	 */
+	private JobDependencyGraph rebuildDependencyGraph(String namespace, JobDependencyGraph staleGraph) {
+		synchronized (getDependencyGraphLock(namespace)) {
+			JobDependencyGraph graph = dependencyGraphMap.get(namespace);
+			if (graph != null && graph != staleGraph) {
+				return graph;
 			}
+			graph = new JobDependencyGraph(getUnSystemJobs(namespace));
+			dependencyGraphMap.put(namespace, graph);
+			return graph;
 		}
-		return dependencyJobs;
 	}
 
-	@Override
-	public List<DependencyJob> getDependedJobs(String namespace, String jobName) throws SaturnJobConsoleException {
-		JobConfig4DB currentJobConfig = currentJobConfigService.findConfigByNamespaceAndJobName(namespace, jobName);
-		if (currentJobConfig == null) {
-			throw new SaturnJobConsoleException("不能获取依赖该作业（" + jobName + "）的所有作业，因为该作业不存在");
+	private Object getDependencyGraphLock(String namespace) {
+		Object lock = dependencyGraphLocks.get(namespace);
+		if (lock == null) {
+			lock = new Object();
+			Object pre = dependencyGraphLocks.putIfAbsent(namespace, lock);
+			if (pre != null) {
+				lock = pre;
+			}
 		}
-		List<DependencyJob> dependencyJobs = new ArrayList<>();
-		List<JobConfig> unSystemJobs = getUnSystemJobs(namespace);
-		if (unSystemJobs == null) {
-			return dependencyJobs;
+		return lock;
+	}
+
+	/**
+	 * 获取包含该作业的依赖关系索引；索引中没有该作业时，可能是其他途径新增的，重建一次再确认。
+	 * 重建后仍然没有的作业记录在新索引中，直到索引下次重建前都不再因为该作业重建
+	 */
+	private JobDependencyGraph getDependencyGraph(String namespace, String jobName, String errorMessage)
+			throws SaturnJobConsoleException {
+		JobDependencyGraph graph = getDependencyGraph(namespace);
+		if (!graph.containsJob(jobName)) {
+			if (graph.isMissing(jobName)) {
+				throw new SaturnJobConsoleException(errorMessage);
+			}
+			graph = rebuildDependencyGraph(namespace, graph);
+			if (!graph.containsJob(jobName)) {
+				graph.markMissing(jobName);
+				throw new SaturnJobConsoleException(errorMessage);
+			}
 		}
+		return graph;
+	}
 
-		for (JobConfig jobConfig : unSystemJobs) {
-			if (jobConfig.getJobName().equals(jobName)) {
-				continue;
+	private void updateDependencyGraph(String namespace, JobConfig jobConfig) {
+		String jobMode = jobConfig.getJobMode();
+		if (StringUtils.isNotBlank(jobMode) && jobMode.startsWith(JobMode.SYSTEM_PREFIX)) {
+			return;
+		}
+		synchronized (getDependencyGraphLock(namespace)) {
+			JobDependencyGraph graph = dependencyGraphMap.get(namespace);
+			if (graph != null) {
+				graph.putJob(jobConfig.getJobName(), jobConfig.getDependencies(),
+						Boolean.TRUE.equals(jobConfig.getEnabled()));
 			}
-			String dependencies = jobConfig.getDependencies();
-			if (StringUtils.isNotBlank(dependencies)) {
-				String[] split = dependencies.split(",");
-				for (String tmp : split) {
-					if (jobName.equals(tmp.trim())) {
-						DependencyJob dependencyJob = new DependencyJob();
-						dependencyJob.setJobName(jobConfig.getJobName());
-						dependencyJob.setEnabled(jobConfig.getEnabled());
-						dependencyJobs.add(dependencyJob);
-					}
-				}
+		}
+	}
+
+	private void removeFromDependencyGraph(String namespace, String jobName) {
+		synchronized (getDependencyGraphLock(namespace)) {
+			JobDependencyGraph graph = dependencyGraphMap.get(namespace);
+			if (graph != null) {
+				graph.removeJob(jobName);
 			}
 		}
-		return dependencyJobs;
+	}
+
+	@Override
+	public List<DependencyJob> getDependingJobs(String namespace, String jobName) throws SaturnJobConsoleException {
+		return getDependencyGraph(namespace, jobName, "不能获取该作业（" + jobName + "）依赖的所有作业，因为该作业不存在")
+				.getDependingJobs(jobName);
+	}
+
+	@Override
+	public List<DependencyJob> getDependedJobs(String namespace, String jobName) throws SaturnJobConsoleException {
+		return getDependencyGraph(namespace, jobName, "不能获取依赖该作业（" + jobName + "）的所有作业，因为该作业不存在")
+				.getDependedJobs(jobName);
+	}
+
+	@Override
+	public List<DependencyJob> getAllDependingJobs(String namespace, String jobName)
+			throws SaturnJobConsoleException {
+		return getDependencyGraph(namespace, jobName, "不能获取该作业（" + jobName + "）依赖的所有作业，因为该作业不存在")
+				.getAllDependingJobs(jobName);
+	}
+
+	@Override
+	public List<DependencyJob> getAllDependedJobs(String namespace, String jobName) throws SaturnJobConsoleException {
+		return getDependencyGraph(namespace, jobName, "不能获取依赖该作业（" + jobName + "）的所有作业，因为该作业不存在")
+				.getAllDependedJobs(jobName);
+	}
+
+	@Override
+	public List<String> getDependencyCycle(String namespace, String jobName) throws SaturnJobConsoleException {
+		return getDependencyGraph(namespace, jobName, "不能检测该作业（" + jobName + "）的循环依赖，因为该作业不存在")
+				.findCycle(jobName);
 	}
 
 	@Transactional
@@ -244,6 +339,7 @@ public class JobServiceImpl implements JobService {
 			throw new SaturnJobConsoleException(e);
 		}
 		curatorFrameworkOp.update(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_ENABLED), true);
+		updateDependencyGraph(namespace, jobConfig);
 	}
 
 	@Transactional
@@ -267,6 +363,7 @@ public class JobServiceImpl implements JobService {
 		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
 				.getCuratorFrameworkOp(namespace);
 		curatorFrameworkOp.update(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_ENABLED), false);
+		updateDependencyGraph(namespace, jobConfig);
 	}
 
 	@Transactional
@@ -306,32 +403,24 @@ public class JobServiceImpl implements JobService {
 		}
 		curatorFrameworkOp.create(toDeleteNodePath);
 
-		for (int i = 0; i < 20; i++) {
-			// 2.作业的executor全offline的情况，或有几个online，几个offline的情况
-			String jobServerPath = JobNodePath.getServerNodePath(jobName);
-			if (!curatorFrameworkOp.checkExists(jobServerPath)) {
-				// (1)如果不存在$Job/JobName/servers节点，说明该作业没有任何executor接管，可直接删除作业节点
-				curatorFrameworkOp.deleteRecursive(JobNodePath.getJobNodePath(jobName));
-				return;
-			}
-			// (2)如果该作业servers下没有任何executor，可直接删除作业节点
-			List<String> executors = curatorFrameworkOp.getChildren(jobServerPath);
-			if (CollectionUtils.isEmpty(executors)) {
-				curatorFrameworkOp.deleteRecursive(JobNodePath.getJobNodePath(jobName));
-				return;
-			}
-			// (3)只要该作业没有一个能运行的该作业的executor在线，那么直接删除作业节点
-			boolean hasOnlineExecutor = false;
-			for (String executor : executors) {
-				if (curatorFrameworkOp.checkExists(ExecutorNodePath.getExecutorNodePath(executor, "ip"))
-						&& curatorFrameworkOp.checkExists(JobNodePath.getServerStatus(jobName, executor))) {
-					hasOnlineExecutor = true;
-				} else {
-					curatorFrameworkOp.deleteRecursive(JobNodePath.getServerNodePath(jobName, executor));
+		removeJobsFromZk(Collections.singletonList(jobName), curatorFrameworkOp);
+		removeFromDependencyGraph(namespace, jobName);
+	}
+
+	/**
+	 * 等待executor删除作业节点，每轮检查所有还没删除的作业，最多等待REMOVE_JOB_MAX_RETRY_TIMES轮
+	 */
+	private void removeJobsFromZk(List<String> jobNames, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp)
+			throws SaturnJobConsoleException {
+		List<String> remainJobNames = new ArrayList<>(jobNames);
+		for (int i = 0; i < REMOVE_JOB_MAX_RETRY_TIMES; i++) {
+			Iterator<String> iterator = remainJobNames.iterator();
+			while (iterator.hasNext()) {
+				if (tryRemoveJobFromZk(iterator.next(), curatorFrameworkOp)) {
+					iterator.remove();
 				}
 			}
-			if (!hasOnlineExecutor) {
-				curatorFrameworkOp.deleteRecursive(JobNodePath.getJobNodePath(jobName));
+			if (remainJobNames.isEmpty()) {
 				return;
 			}
 			try {
@@ -342,6 +431,181 @@ public class JobServiceImpl implements JobService {
 		}
 	}
 
+	/**
+	 * @return 作业节点是否已删除
+	 */
+	private boolean tryRemoveJobFromZk(String jobName, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
+		// 2.作业的executor全offline的情况，或有几个online，几个offline的情况
+		String jobServerPath = JobNodePath.getServerNodePath(jobName);
+		if (!curatorFrameworkOp.checkExists(jobServerPath)) {
+			// (1)如果不存在$Job/JobName/servers节点，说明该作业没有任何executor接管，可直接删除作业节点
+			curatorFrameworkOp.deleteRecursive(JobNodePath.getJobNodePath(jobName));
+			return true;
+		}
+		// (2)如果该作业servers下没有任何executor，可直接删除作业节点
+		List<String> executors = curatorFrameworkOp.getChildren(jobServerPath);
+		if (CollectionUtils.isEmpty(executors)) {
+			curatorFrameworkOp.deleteRecursive(JobNodePath.getJobNodePath(jobName));
+			return true;
+		}
+		// (3)只要该作业没有一个能运行的该作业的executor在线，那么直接删除作业节点
+		boolean hasOnlineExecutor = false;
+		for (String executor : executors) {
+			if (curatorFrameworkOp.checkExists(ExecutorNodePath.getExecutorNodePath(executor, "ip"))
+					&& curatorFrameworkOp.checkExists(JobNodePath.getServerStatus(jobName, executor))) {
+				hasOnlineExecutor = true;
+			} else {
+				curatorFrameworkOp.deleteRecursive(JobNodePath.getServerNodePath(jobName, executor));
+			}
+		}
+		if (!hasOnlineExecutor) {
+			curatorFrameworkOp.deleteRecursive(JobNodePath.getJobNodePath(jobName));
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void batchEnableJob(String namespace, List<String> jobNames, String updatedBy)
+			throws SaturnJobConsoleException {
+		batchSetJobEnabled(namespace, jobNames, true, updatedBy);
+	}
+
+	@Override
+	public void batchDisableJob(String namespace, List<String> jobNames, String updatedBy)
+			throws SaturnJobConsoleException {
+		batchSetJobEnabled(namespace, jobNames, false, updatedBy);
+	}
+
+	private void batchSetJobEnabled(final String namespace, List<String> jobNames, final boolean enabled,
+			final String updatedBy) throws SaturnJobConsoleException {
+		String operation = enabled ? "启用" : "禁用";
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
+				.getCuratorFrameworkOp(namespace);
+		List<String> failMessages = new ArrayList<>();
+		List<JobConfig4DB> jobConfigs = new ArrayList<>();
+		for (Map.Entry<String, JobConfig4DB> entry : findJobConfigs(namespace, jobNames).entrySet()) {
+			String jobName = entry.getKey();
+			JobConfig4DB jobConfig = entry.getValue();
+			if (jobConfig == null) {
+				failMessages.add("不能" + operation + "该作业（" + jobName + "），因为该作业不存在");
+			} else if (jobConfig.getEnabled() == enabled) {
+				failMessages.add("该作业（" + jobName + "）已经处于" + operation + "状态");
+			} else if (enabled && !isAllShardsFinished(jobName, curatorFrameworkOp)) {
+				failMessages.add("不能启用该作业（" + jobName + "），因为该作业不处于STOPPED状态");
+			} else {
+				jobConfigs.add(jobConfig);
+			}
+		}
+		throwIfBatchValidateFailed(failMessages);
+
+		executeInBatches(namespace, jobConfigs, new BatchJobOperation() {
+			@Override
+			public void updateDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+				Date now = new Date();
+				List<JobConfig4DB> newJobConfigs = new ArrayList<>();
+				for (JobConfig4DB jobConfig : jobConfigs) {
+					JobConfig4DB newJobConfig = new JobConfig4DB();
+					BeanUtils.copyProperties(jobConfig, newJobConfig);
+					newJobConfig.setEnabled(enabled);
+					newJobConfig.setLastUpdateTime(now);
+					newJobConfig.setLastUpdateBy(updatedBy);
+					newJobConfigs.add(newJobConfig);
+				}
+				currentJobConfigService.batchUpdate(newJobConfigs);
+			}
+
+			@Override
+			public void restoreDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+				currentJobConfigService.batchUpdate(jobConfigs);
+			}
+
+			@Override
+			public void addZkOperation(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+					CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp transactionOp, JobConfig4DB jobConfig)
+					throws Exception {
+				transactionOp
+						.replaceIfchanged(JobNodePath.getConfigNodePath(jobConfig.getJobName(), CONFIG_ITEM_ENABLED),
+								enabled);
+			}
+
+			@Override
+			public void afterCommit(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+					List<JobConfig4DB> jobConfigs) {
+				for (JobConfig4DB jobConfig : jobConfigs) {
+					jobConfig.setEnabled(enabled);
+					updateDependencyGraph(namespace, jobConfig);
+				}
+			}
+		});
+	}
+
+	@Override
+	public void batchRemoveJob(final String namespace, List<String> jobNames) throws SaturnJobConsoleException {
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
+				.getCuratorFrameworkOp(namespace);
+		List<String> failMessages = new ArrayList<>();
+		List<JobConfig4DB> jobConfigs = new ArrayList<>();
+		for (Map.Entry<String, JobConfig4DB> entry : findJobConfigs(namespace, jobNames).entrySet()) {
+			String jobName = entry.getKey();
+			JobConfig4DB jobConfig = entry.getValue();
+			if (jobConfig == null) {
+				failMessages.add("不能删除该作业（" + jobName + "），因为该作业不存在");
+				continue;
+			}
+			if (JobStatus.STOPPED != getJobStatus(jobName, curatorFrameworkOp, jobConfig.getEnabled())) {
+				failMessages.add(String.format("不能删除该作业(%s)，因为该作业不处于STOPPED状态", jobName));
+				continue;
+			}
+			Stat stat = curatorFrameworkOp.getStat(JobNodePath.getJobNodePath(jobName));
+			if (stat != null
+					&& System.currentTimeMillis() - stat.getCtime() < SaturnConstants.JOB_CAN_BE_DELETE_TIME_LIMIT) {
+				failMessages.add(String.format("不能删除该作业(%s)，因为该作业创建时间距离现在不超过%d分钟", jobName,
+						SaturnConstants.JOB_CAN_BE_DELETE_TIME_LIMIT / 60000));
+				continue;
+			}
+			jobConfigs.add(jobConfig);
+		}
+		throwIfBatchValidateFailed(failMessages);
+
+		executeInBatches(namespace, jobConfigs, new BatchJobOperation() {
+			@Override
+			public void updateDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+				currentJobConfigService.batchDelete(jobConfigs);
+			}
+
+			@Override
+			public void restoreDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+				currentJobConfigService.batchCreate(jobConfigs);
+			}
+
+			@Override
+			public void addZkOperation(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+					CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp transactionOp, JobConfig4DB jobConfig)
+					throws Exception {
+				// 添加toDelete节点，触发executor的监听器删除作业；已存在的toDelete节点在同一事务中先删除再创建
+				String toDeleteNodePath = JobNodePath.getConfigNodePath(jobConfig.getJobName(), "toDelete");
+				if (curatorFrameworkOp.checkExists(toDeleteNodePath)) {
+					transactionOp.delete(toDeleteNodePath);
+				}
+				transactionOp.create(toDeleteNodePath);
+			}
+
+			@Override
+			public void afterCommit(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+					List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+				List<String> removedJobNames = new ArrayList<>();
+				for (JobConfig4DB jobConfig : jobConfigs) {
+					removedJobNames.add(jobConfig.getJobName());
+				}
+				removeJobsFromZk(removedJobNames, curatorFrameworkOp);
+				for (String removedJobName : removedJobNames) {
+					removeFromDependencyGraph(namespace, removedJobName);
+				}
+			}
+		});
+	}
+
 	@Override
 	public List<ExecutorProvided> getCandidateExecutors(String namespace, String jobName)
 			throws SaturnJobConsoleException {
@@ -523,6 +787,138 @@ public class JobServiceImpl implements JobService {
 		curatorFrameworkOp.create(jobConfigForceShardNodePath);
 	}
 
+	@Override
+	public void batchSetPreferList(String namespace, List<String> jobNames, final String preferList,
+			final String updatedBy) throws SaturnJobConsoleException {
+		List<String> failMessages = new ArrayList<>();
+		List<JobConfig4DB> jobConfigs = new ArrayList<>();
+		for (Map.Entry<String, JobConfig4DB> entry : findJobConfigs(namespace, jobNames).entrySet()) {
+			if (entry.getValue() == null) {
+				failMessages.add("设置该作业（" + entry.getKey() + "）优先Executor失败，因为该作业不存在");
+			} else {
+				jobConfigs.add(entry.getValue());
+			}
+		}
+		throwIfBatchValidateFailed(failMessages);
+
+		executeInBatches(namespace, jobConfigs, new BatchJobOperation() {
+			@Override
+			public void updateDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+				List<JobConfig4DB> newJobConfigs = new ArrayList<>();
+				for (JobConfig4DB jobConfig : jobConfigs) {
+					JobConfig4DB newJobConfig = new JobConfig4DB();
+					BeanUtils.copyProperties(jobConfig, newJobConfig);
+					newJobConfig.setPreferList(preferList);
+					newJobConfigs.add(newJobConfig);
+				}
+				currentJobConfigService.batchUpdateNewAndSaveOld2History(newJobConfigs, jobConfigs, updatedBy);
+			}
+
+			@Override
+			public void restoreDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+				currentJobConfigService.batchUpdate(jobConfigs);
+			}
+
+			@Override
+			public void addZkOperation(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+					CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp transactionOp, JobConfig4DB jobConfig)
+					throws Exception {
+				String jobName = jobConfig.getJobName();
+				transactionOp.replaceIfchanged(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName), preferList);
+				// 与单个设置一致，在同一事务中删除并重新创建forceShard节点
+				String jobConfigForceShardNodePath = SaturnExecutorsNode.getJobConfigForceShardNodePath(jobName);
+				if (curatorFrameworkOp.checkExists(jobConfigForceShardNodePath)) {
+					transactionOp.delete(jobConfigForceShardNodePath);
+				}
+				transactionOp.create(jobConfigForceShardNodePath);
+			}
+		});
+	}
+
+	/**
+	 * 批量查找作业配置，只查询一次数据库
+	 *
+	 * @return 按jobNames的顺序（去重），不存在的作业对应null
+	 */
+	private Map<String, JobConfig4DB> findJobConfigs(String namespace, List<String> jobNames) {
+		Map<String, JobConfig4DB> allJobConfigMap = new HashMap<>();
+		List<JobConfig4DB> allJobConfigs = currentJobConfigService.findConfigsByNamespace(namespace);
+		if (allJobConfigs != null) {
+			for (JobConfig4DB jobConfig : allJobConfigs) {
+				allJobConfigMap.put(jobConfig.getJobName(), jobConfig);
+			}
+		}
+		Map<String, JobConfig4DB> jobConfigMap = new LinkedHashMap<>();
+		for (String jobName : jobNames) {
+			jobConfigMap.put(jobName, allJobConfigMap.get(jobName));
+		}
+		return jobConfigMap;
+	}
+
+	private void throwIfBatchValidateFailed(List<String> failMessages) throws SaturnJobConsoleException {
+		if (!failMessages.isEmpty()) {
+			throw new SaturnJobConsoleException(StringUtils.join(failMessages, "；"));
+		}
+	}
+
+	/**
+	 * 按BATCH_ZK_TRANSACTION_SIZE个作业一批执行批量操作：先批量修改数据库，再在一个zk事务中提交该批所有作业的修改。
+	 * zk事务失败时恢复该批的数据库记录并停止，之前的批次已生效，不回滚。
+	 * 多个作业时，每批提交前请求分片leader合并分片事件，各作业的修改触发的分片合并为一次。
+	 */
+	private void executeInBatches(String namespace, List<JobConfig4DB> jobConfigs, BatchJobOperation operation)
+			throws SaturnJobConsoleException {
+		if (jobConfigs.isEmpty()) {
+			return;
+		}
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
+				.getCuratorFrameworkOp(namespace);
+		for (int from = 0; from < jobConfigs.size(); from += BATCH_ZK_TRANSACTION_SIZE) {
+			List<JobConfig4DB> batch = jobConfigs.subList(from,
+					Math.min(from + BATCH_ZK_TRANSACTION_SIZE, jobConfigs.size()));
+			try {
+				operation.updateDB(batch);
+			} catch (Exception e) {
+				throw newBatchFailedException(jobConfigs, from, e);
+			}
+			if (jobConfigs.size() > 1) {
+				SaturnConsoleUtils.requestShardingCoalescing(curatorFrameworkOp);
+			}
+			try {
+				CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp transactionOp = curatorFrameworkOp
+						.inTransaction();
+				for (JobConfig4DB jobConfig : batch) {
+					operation.addZkOperation(curatorFrameworkOp, transactionOp, jobConfig);
+				}
+				transactionOp.commit();
+			} catch (Exception e) {
+				try {
+					operation.restoreDB(batch);
+				} catch (Exception e2) {
+					log.error("restore job configs in db failed", e2);
+				}
+				throw newBatchFailedException(jobConfigs, from, e);
+			}
+			operation.afterCommit(curatorFrameworkOp, batch);
+		}
+	}
+
+	private SaturnJobConsoleException newBatchFailedException(List<JobConfig4DB> jobConfigs, int failFrom,
+			Exception cause) {
+		log.error("batch operation failed", cause);
+		List<String> successJobNames = new ArrayList<>();
+		List<String> failJobNames = new ArrayList<>();
+		for (int i = 0; i < jobConfigs.size(); i++) {
+			if (i < failFrom) {
+				successJobNames.add(jobConfigs.get(i).getJobName());
+			} else {
+				failJobNames.add(jobConfigs.get(i).getJobName());
+			}
+		}
+		return new SaturnJobConsoleException(
+				"操作成功的作业:" + successJobNames + "，操作失败的作业:" + failJobNames + "，原因:" + cause.getMessage(), cause);
+	}
+
 	private void validateJobConfig(JobConfig jobConfig) throws SaturnJobConsoleException {
 		// 作业名必填
 		if (jobConfig.getJobName() == null || jobConfig.getJobName().trim().isEmpty()) {
@@ -656,6 +1052,7 @@ public class JobServiceImpl implements JobService {
 		correctConfigValueIfNeeded(jobConfig);
 		saveJobConfigToDb(namespace, jobConfig, createdBy);
 		saveJobConfigToZk(jobConfig, curatorFrameworkOp);
+		updateDependencyGraph(namespace, jobConfig);
 	}
 
 	@Override
@@ -789,88 +1186,84 @@ public class JobServiceImpl implements JobService {
 				throw new SaturnJobConsoleException("创建作业时，数据库存在已经存在该作业的相关配置！并且清理该配置的时候失败", e);
 			}
 		}
+		try {
+			currentJobConfigService.create(newJobConfig4DB(namespace, jobConfig, createdBy, new Date()));
+		} catch (Exception e) {
+			log.error("exception is thrown during creating job config in db", e);
+			throw new SaturnJobConsoleException(e);
+		}
+	}
+
+	private JobConfig4DB newJobConfig4DB(String namespace, JobConfig jobConfig, String createdBy, Date now) {
 		JobConfig4DB currentJobConfig = new JobConfig4DB();
 		SaturnBeanUtils.copyProperties(jobConfig, currentJobConfig);
-		Date now = new Date();
 		currentJobConfig.setCreateTime(now);
 		currentJobConfig.setLastUpdateTime(now);
 		currentJobConfig.setCreateBy(createdBy);
 		currentJobConfig.setLastUpdateBy(createdBy);
 		currentJobConfig.setNamespace(namespace);
-		try {
-			currentJobConfigService.create(currentJobConfig);
-		} catch (Exception e) {
-			log.error("exception is thrown during creating job config in db", e);
-			throw new SaturnJobConsoleException(e);
-		}
+		return currentJobConfig;
 	}
 
 	private void saveJobConfigToZk(JobConfig jobConfig, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
 		String jobName = jobConfig.getJobName();
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_ENABLED),
-				jobConfig.getEnabled());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_DESCRIPTION),
-				jobConfig.getDescription());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_CUSTOM_CONTEXT),
-				jobConfig.getCustomContext());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_TYPE),
-				jobConfig.getJobType());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_MODE),
-				jobConfig.getJobMode());
-		curatorFrameworkOp
-				.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHARDING_ITEM_PARAMETERS),
-						jobConfig.getShardingItemParameters());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_PARAMETER),
-				jobConfig.getJobParameter());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_QUEUE_NAME),
-				jobConfig.getQueueName());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_CHANNEL_NAME),
-				jobConfig.getChannelName());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_FAILOVER),
-				jobConfig.getFailover());
-		curatorFrameworkOp
-				.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_MONITOR_EXECUTION), "true");
-		curatorFrameworkOp
-				.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIMEOUT_4_ALARM_SECONDS),
-						jobConfig.getTimeout4AlarmSeconds());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIMEOUT_SECONDS),
-				jobConfig.getTimeoutSeconds());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIME_ZONE),
-				jobConfig.getTimeZone());
-		curatorFrameworkOp
-				.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_CRON), jobConfig.getCron());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PAUSE_PERIOD_DATE),
-				jobConfig.getPausePeriodDate());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PAUSE_PERIOD_TIME),
-				jobConfig.getPausePeriodTime());
-		curatorFrameworkOp.fillJobNodeIfNotExist(
-				JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PROCESS_COUNT_INTERVAL_SECONDS),
-				jobConfig.getProcessCountIntervalSeconds());
-		curatorFrameworkOp
-				.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHARDING_TOTAL_COUNT),
-						jobConfig.getShardingTotalCount());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHOW_NORMAL_LOG),
-				jobConfig.getShowNormalLog());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_LOAD_LEVEL),
-				jobConfig.getLoadLevel());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_DEGREE),
-				jobConfig.getJobDegree());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_ENABLED_REPORT),
-				jobConfig.getEnabledReport());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PREFER_LIST),
-				jobConfig.getPreferList());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_USE_DISPREFER_LIST),
-				jobConfig.getUseDispreferList());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_LOCAL_MODE),
-				jobConfig.getLocalMode());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_USE_SERIAL),
-				jobConfig.getUseSerial());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_DEPENDENCIES),
-				jobConfig.getDependencies());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_GROUPS),
-				jobConfig.getGroups());
-		curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_CLASS),
-				jobConfig.getJobClass());
+		for (Map.Entry<String, Object> entry : getConfigNodeValues(jobConfig).entrySet()) {
+			curatorFrameworkOp.fillJobNodeIfNotExist(JobNodePath.getConfigNodePath(jobName, entry.getKey()),
+					entry.getValue());
+		}
+	}
+
+	/**
+	 * 在zk事务中创建作业节点和所有配置节点，作业节点不能已经存在
+	 */
+	private void addJobConfigToZkTransaction(CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp transactionOp,
+			JobConfig jobConfig) throws Exception {
+		String jobName = jobConfig.getJobName();
+		transactionOp.create(JobNodePath.getJobNodePath(jobName));
+		transactionOp.create(JobNodePath.getConfigNodePath(jobName));
+		for (Map.Entry<String, Object> entry : getConfigNodeValues(jobConfig).entrySet()) {
+			if (entry.getValue() != null) {
+				transactionOp.create(JobNodePath.getConfigNodePath(jobName, entry.getKey()), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @return 作业在zk中的配置项及其值，按创建顺序；值为null的配置项不创建节点
+	 */
+	private Map<String, Object> getConfigNodeValues(JobConfig jobConfig) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put(CONFIG_ITEM_ENABLED, jobConfig.getEnabled());
+		values.put(CONFIG_ITEM_DESCRIPTION, jobConfig.getDescription());
+		values.put(CONFIG_ITEM_CUSTOM_CONTEXT, jobConfig.getCustomContext());
+		values.put(CONFIG_ITEM_JOB_TYPE, jobConfig.getJobType());
+		values.put(CONFIG_ITEM_JOB_MODE, jobConfig.getJobMode());
+		values.put(CONFIG_ITEM_SHARDING_ITEM_PARAMETERS, jobConfig.getShardingItemParameters());
+		values.put(CONFIG_ITEM_JOB_PARAMETER, jobConfig.getJobParameter());
+		values.put(CONFIG_ITEM_QUEUE_NAME, jobConfig.getQueueName());
+		values.put(CONFIG_ITEM_CHANNEL_NAME, jobConfig.getChannelName());
+		values.put(CONFIG_ITEM_FAILOVER, jobConfig.getFailover());
+		values.put(CONFIG_ITEM_MONITOR_EXECUTION, "true");
+		values.put(CONFIG_ITEM_TIMEOUT_4_ALARM_SECONDS, jobConfig.getTimeout4AlarmSeconds());
+		values.put(CONFIG_ITEM_TIMEOUT_SECONDS, jobConfig.getTimeoutSeconds());
+		values.put(CONFIG_ITEM_TIME_ZONE, jobConfig.getTimeZone());
+		values.put(CONFIG_ITEM_CRON, jobConfig.getCron());
+		values.put(CONFIG_ITEM_PAUSE_PERIOD_DATE, jobConfig.getPausePeriodDate());
+		values.put(CONFIG_ITEM_PAUSE_PERIOD_TIME, jobConfig.getPausePeriodTime());
+		values.put(CONFIG_ITEM_PROCESS_COUNT_INTERVAL_SECONDS, jobConfig.getProcessCountIntervalSeconds());
+		values.put(CONFIG_ITEM_SHARDING_TOTAL_COUNT, jobConfig.getShardingTotalCount());
+		values.put(CONFIG_ITEM_SHOW_NORMAL_LOG, jobConfig.getShowNormalLog());
+		values.put(CONFIG_ITEM_LOAD_LEVEL, jobConfig.getLoadLevel());
+		values.put(CONFIG_ITEM_JOB_DEGREE, jobConfig.getJobDegree());
+		values.put(CONFIG_ITEM_ENABLED_REPORT, jobConfig.getEnabledReport());
+		values.put(CONFIG_ITEM_PREFER_LIST, jobConfig.getPreferList());
+		values.put(CONFIG_ITEM_USE_DISPREFER_LIST, jobConfig.getUseDispreferList());
+		values.put(CONFIG_ITEM_LOCAL_MODE, jobConfig.getLocalMode());
+		values.put(CONFIG_ITEM_USE_SERIAL, jobConfig.getUseSerial());
+		values.put(CONFIG_ITEM_DEPENDENCIES, jobConfig.getDependencies());
+		values.put(CONFIG_ITEM_GROUPS, jobConfig.getGroups());
+		values.put(CONFIG_ITEM_JOB_CLASS, jobConfig.getJobClass());
+		return values;
 	}
 
 	@Override
@@ -890,7 +1283,7 @@ public class JobServiceImpl implements JobService {
 					Cell[] rowCells = sheet.getRow(row);
 					// 如果这一行的表格全为空，则跳过这一行。
 					if (!isBlankRow(rowCells)) {
-						jobConfigList.add(convertJobConfig(i + 1, row + 1, rowCells));
+						jobConfigList.add(convertJobConfig(i + 1, row + 1, getContents(rowCells)));
 					}
 				}
 			}
@@ -934,7 +1327,7 @@ public class JobServiceImpl implements JobService {
 		return true;
 	}
 
-	private JobConfig convertJobConfig(int sheetNumber, int rowNumber, Cell[] rowCells)
+	private JobConfig convertJobConfig(int sheetNumber, int rowNumber, String[] rowCells)
 			throws SaturnJobConsoleException {
 
 		String jobName = getContents(rowCells, 0);
@@ -1139,9 +1532,17 @@ public class JobServiceImpl implements JobService {
 		return jobConfig;
 	}
 
-	private String getContents(Cell[] rowCell, int column) {
-		if (rowCell.length > column) {
-			return rowCell[column].getContents();
+	private String[] getContents(Cell[] rowCells) {
+		String[] contents = new String[rowCells.length];
+		for (int i = 0; i < rowCells.length; i++) {
+			contents[i] = rowCells[i].getContents();
+		}
+		return contents;
+	}
+
+	private String getContents(String[] rowCells, int column) {
+		if (rowCells.length > column) {
+			return rowCells[column];
 		}
 		return null;
 	}
@@ -1150,6 +1551,281 @@ public class JobServiceImpl implements JobService {
 		return "内容格式有误，错误发生在表格页:" + sheetNumber + "，行号:" + rowNumber + "，列号:" + columnNumber + "，错误信息：" + message;
 	}
 
+	@Override
+	public List<ImportJobResult> importJobsFromCsv(String namespace, InputStream inputStream, String createdBy)
+			throws SaturnJobConsoleException {
+		removeExpiredImportJobProgress();
+		ImportJobProgress progress = new ImportJobProgress();
+		progress.setStartTime(System.currentTimeMillis());
+		importJobProgressMap.put(namespace, progress);
+		List<ImportJobResult> results = new ArrayList<>();
+		try (CsvUtils.CsvReader csvReader = new CsvUtils.CsvReader(
+				new BufferedReader(new InputStreamReader(inputStream, "UTF-8")))) {
+			// 第一行为配置项提示，从第二行开始为作业配置信息，逐行检测内容格式的正确性，每满一批就添加
+			csvReader.readRecord();
+			int maxJobNum = getMaxJobNum();
+			List<JobConfig> jobConfigList = new ArrayList<>(IMPORT_EXPORT_BATCH_SIZE);
+			int rowNumber = 1;
+			String[] rowCells;
+			while ((rowCells = csvReader.readRecord()) != null) {
+				rowNumber++;
+				if (isBlankRow(rowCells)) {
+					continue;
+				}
+				try {
+					jobConfigList.add(convertJobConfig(1, rowNumber, rowCells));
+				} catch (SaturnJobConsoleException e) {
+					results.add(createFailImportJobResult(rowCells[0], e.getMessage()));
+				}
+				if (jobConfigList.size() >= IMPORT_EXPORT_BATCH_SIZE) {
+					importJobsInBatch(namespace, jobConfigList, maxJobNum, createdBy, results, progress);
+					jobConfigList.clear();
+				}
+			}
+			importJobsInBatch(namespace, jobConfigList, maxJobNum, createdBy, results, progress);
+			return results;
+		} catch (Exception e) {
+			throw new SaturnJobConsoleException(e);
+		} finally {
+			progress.setFinishTime(System.currentTimeMillis());
+			progress.setFinished(true);
+			log.info("import jobs of namespace {} finished, {} processed, {} succeeded, {} failed, cost {}ms",
+					namespace, progress.getProcessedNum(), progress.getSuccessNum(), progress.getFailNum(),
+					System.currentTimeMillis() - progress.getStartTime());
+		}
+	}
+
+	/**
+	 * 移除导入完成超过保留时间的进度
+	 */
+	private void removeExpiredImportJobProgress() {
+		long now = System.currentTimeMillis();
+		Iterator<ImportJobProgress> iterator = importJobProgressMap.values().iterator();
+		while (iterator.hasNext()) {
+			ImportJobProgress progress = iterator.next();
+			if (progress.isFinished() && now - progress.getFinishTime() > IMPORT_JOB_PROGRESS_RETENTION_MS) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * 添加一批作业，总作业数超过最大限制时这一批都导入失败；格式有误的行已经在results中，一并计入进度
+	 */
+	private void importJobsInBatch(String namespace, List<JobConfig> jobConfigList, int maxJobNum,
+			String createdBy, List<ImportJobResult> results, ImportJobProgress progress) {
+		if (!jobConfigList.isEmpty()) {
+			String exceedsMessage = null;
+			try {
+				if (jobIncExceeds(namespace, maxJobNum, jobConfigList.size())) {
+					exceedsMessage = String.format("总作业数超过最大限制(%d)，导入失败", maxJobNum);
+				}
+			} catch (SaturnJobConsoleException e) {
+				exceedsMessage = e.getMessage();
+			}
+			if (exceedsMessage != null) {
+				for (JobConfig jobConfig : jobConfigList) {
+					results.add(createFailImportJobResult(jobConfig.getJobName(), exceedsMessage));
+				}
+			} else {
+				results.addAll(importJobsInTransactions(namespace, jobConfigList, createdBy));
+			}
+		}
+		int successNum = progress.getSuccessNum();
+		for (int i = progress.getProcessedNum(); i < results.size(); i++) {
+			if (results.get(i).isSuccess()) {
+				successNum++;
+			}
+		}
+		progress.setSuccessNum(successNum);
+		progress.setFailNum(results.size() - successNum);
+		progress.setProcessedNum(results.size());
+		log.info("import jobs of namespace {}, {} processed, {} succeeded, {} failed", namespace,
+				progress.getProcessedNum(), progress.getSuccessNum(), progress.getFailNum());
+	}
+
+	/**
+	 * 逐个校验作业后，每IMPORT_ZK_TRANSACTION_SIZE个作业一批：批量写入数据库，在一个zk事务中创建所有节点，与批量操作相同，见executeInBatches。
+	 * 一批失败时该批的数据库记录已恢复，再逐个添加，只有出错的作业导入失败。
+	 *
+	 * @return 按jobConfigList顺序的导入结果
+	 */
+	private List<ImportJobResult> importJobsInTransactions(final String namespace, List<JobConfig> jobConfigList,
+			String createdBy) {
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp;
+		Set<String> existingJobNames = new HashSet<>();
+		List<String> zkJobNames;
+		try {
+			curatorFrameworkOp = registryCenterService.getCuratorFrameworkOp(namespace);
+			List<JobConfig4DB> existingJobConfigs = currentJobConfigService.findConfigsByNamespace(namespace);
+			if (existingJobConfigs != null) {
+				for (JobConfig4DB jobConfig : existingJobConfigs) {
+					existingJobNames.add(jobConfig.getJobName());
+				}
+			}
+			if (!curatorFrameworkOp.checkExists(JobNodePath.get$JobsNodePath())) {
+				curatorFrameworkOp.create(JobNodePath.get$JobsNodePath());
+			}
+			zkJobNames = curatorFrameworkOp.getChildren(JobNodePath.get$JobsNodePath());
+		} catch (Exception e) {
+			log.warn("prepare to import jobs in batch failed, import them one by one", e);
+			List<ImportJobResult> results = new ArrayList<>();
+			for (JobConfig jobConfig : jobConfigList) {
+				results.add(importJob(namespace, jobConfig, createdBy));
+			}
+			return results;
+		}
+
+		Map<String, ImportJobResult> resultMap = new LinkedHashMap<>();
+		List<ImportJobResult> results = new ArrayList<>();
+		List<JobConfig4DB> jobConfigs = new ArrayList<>();
+		Date now = new Date();
+		for (JobConfig jobConfig : jobConfigList) {
+			ImportJobResult importJobResult = createFailImportJobResult(jobConfig.getJobName(), null);
+			results.add(importJobResult);
+			try {
+				validateJobConfig(jobConfig);
+				String jobName = jobConfig.getJobName();
+				if (!existingJobNames.add(jobName)) {
+					throw new SaturnJobConsoleException(String.format("该作业(%s)已经存在", jobName));
+				}
+				if (zkJobNames != null && zkJobNames.contains(jobName)) {
+					curatorFrameworkOp.deleteRecursive(JobNodePath.getJobNodePath(jobName));
+				}
+				correctConfigValueIfNeeded(jobConfig);
+				jobConfigs.add(newJobConfig4DB(namespace, jobConfig, createdBy, now));
+				resultMap.put(jobName, importJobResult);
+			} catch (Exception e) {
+				importJobResult.setMessage(e instanceof SaturnJobConsoleException ? e.getMessage() : e.toString());
+				log.warn("exception: {}", e);
+			}
+		}
+
+		for (int from = 0; from < jobConfigs.size(); from += IMPORT_ZK_TRANSACTION_SIZE) {
+			List<JobConfig4DB> batch = jobConfigs.subList(from,
+					Math.min(from + IMPORT_ZK_TRANSACTION_SIZE, jobConfigs.size()));
+			try {
+				executeInBatches(namespace, batch, new BatchJobOperation() {
+					@Override
+					public void updateDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+						currentJobConfigService.batchCreate(jobConfigs);
+					}
+
+					@Override
+					public void restoreDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+						// 批量插入不回填id，按作业名查出新建的记录再删除
+						Set<String> jobNames = new HashSet<>();
+						for (JobConfig4DB jobConfig : jobConfigs) {
+							jobNames.add(jobConfig.getJobName());
+						}
+						List<JobConfig4DB> createdJobConfigs = new ArrayList<>();
+						for (JobConfig4DB jobConfig : currentJobConfigService.findConfigsByNamespace(namespace)) {
+							if (jobNames.contains(jobConfig.getJobName())) {
+								createdJobConfigs.add(jobConfig);
+							}
+						}
+						currentJobConfigService.batchDelete(createdJobConfigs);
+					}
+
+					@Override
+					public void addZkOperation(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+							CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp transactionOp,
+							JobConfig4DB jobConfig) throws Exception {
+						addJobConfigToZkTransaction(transactionOp, jobConfig);
+					}
+
+					@Override
+					public void afterCommit(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+							List<JobConfig4DB> jobConfigs) {
+						for (JobConfig4DB jobConfig : jobConfigs) {
+							updateDependencyGraph(namespace, jobConfig);
+						}
+					}
+				});
+				for (JobConfig4DB jobConfig : batch) {
+					resultMap.get(jobConfig.getJobName()).setSuccess(true);
+				}
+			} catch (SaturnJobConsoleException e) {
+				log.warn("import jobs in batch failed, import them one by one", e);
+				for (JobConfig4DB jobConfig : batch) {
+					ImportJobResult importJobResult = importJob(namespace, jobConfig, createdBy);
+					resultMap.get(jobConfig.getJobName()).setSuccess(importJobResult.isSuccess());
+					resultMap.get(jobConfig.getJobName()).setMessage(importJobResult.getMessage());
+				}
+			}
+		}
+		return results;
+	}
+
+	private ImportJobResult importJob(String namespace, JobConfig jobConfig, String createdBy) {
+		ImportJobResult importJobResult = new ImportJobResult();
+		importJobResult.setJobName(jobConfig.getJobName());
+		try {
+			addJob(namespace, jobConfig, createdBy);
+			importJobResult.setSuccess(true);
+		} catch (SaturnJobConsoleException e) {
+			importJobResult.setSuccess(false);
+			importJobResult.setMessage(e.getMessage());
+			log.warn("exception: {}", e);
+		} catch (Exception e) {
+			importJobResult.setSuccess(false);
+			importJobResult.setMessage(e.toString());
+			log.warn("exception: {}", e);
+		}
+		return importJobResult;
+	}
+
+	private ImportJobResult createFailImportJobResult(String jobName, String message) {
+		ImportJobResult importJobResult = new ImportJobResult();
+		importJobResult.setJobName(jobName);
+		importJobResult.setSuccess(false);
+		importJobResult.setMessage(message);
+		return importJobResult;
+	}
+
+	private boolean isBlankRow(String[] rowCells) {
+		for (String rowCell : rowCells) {
+			if (rowCell != null && !rowCell.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public ImportJobProgress getImportJobProgress(String namespace) {
+		removeExpiredImportJobProgress();
+		return importJobProgressMap.get(namespace);
+	}
+
+	@Override
+	public void exportJobsAsCsv(String namespace, OutputStream outputStream) throws SaturnJobConsoleException {
+		try {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"));
+			CsvUtils.writeBom(writer);
+			CsvUtils.writeRecord(writer, JOB_COLUMN_NAMES);
+			List<JobConfig> unSystemJobs = getUnSystemJobs(namespace);
+			if (unSystemJobs != null && !unSystemJobs.isEmpty()) {
+				CuratorFrameworkOp curatorFrameworkOp = registryCenterService.getCuratorFrameworkOp(namespace);
+				NamespaceJobConfigCache jobConfigCache = registryCenterService.getJobConfigCache(namespace);
+				for (int i = 0; i < unSystemJobs.size(); i++) {
+					String jobName = unSystemJobs.get(i).getJobName();
+					Map<String, String> configs = getJobConfigValues(jobConfigCache, curatorFrameworkOp, jobName);
+					CsvUtils.writeRecord(writer, getJobColumns(jobName, configs));
+					// 每满一批就输出，不在内存中堆积整个文件
+					if ((i + 1) % IMPORT_EXPORT_BATCH_SIZE == 0) {
+						writer.flush();
+					}
+				}
+			}
+			writer.flush();
+		} catch (SaturnJobConsoleException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SaturnJobConsoleException(e);
+		}
+	}
+
 	@Override
 	public File exportJobs(String namespace) throws SaturnJobConsoleException {
 		try {
@@ -1178,69 +1854,41 @@ public class JobServiceImpl implements JobService {
 			throws SaturnJobConsoleException, WriteException {
 		if (unSystemJobs != null && !unSystemJobs.isEmpty()) {
 			CuratorFrameworkOp curatorFrameworkOp = registryCenterService.getCuratorFrameworkOp(namespace);
+			NamespaceJobConfigCache jobConfigCache = registryCenterService.getJobConfigCache(namespace);
 			for (int i = 0; i < unSystemJobs.size(); i++) {
 				String jobName = unSystemJobs.get(i).getJobName();
-				sheet1.addCell(new Label(0, i + 1, jobName));
-				sheet1.addCell(new Label(1, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_TYPE))));
-				sheet1.addCell(new Label(2, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_CLASS))));
-				sheet1.addCell(new Label(3, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_CRON))));
-				sheet1.addCell(new Label(4, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_DESCRIPTION))));
-				sheet1.addCell(new Label(5, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_LOCAL_MODE))));
-				sheet1.addCell(new Label(6, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHARDING_TOTAL_COUNT))));
-				sheet1.addCell(new Label(7, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIMEOUT_SECONDS))));
-				sheet1.addCell(new Label(8, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_PARAMETER))));
-				sheet1.addCell(new Label(9, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHARDING_ITEM_PARAMETERS))));
-				sheet1.addCell(new Label(10, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_QUEUE_NAME))));
-				sheet1.addCell(new Label(11, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_CHANNEL_NAME))));
-				sheet1.addCell(new Label(12, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PREFER_LIST))));
-				String useDispreferList = curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_USE_DISPREFER_LIST));
-				if (useDispreferList != null) {
-					useDispreferList = String.valueOf(!Boolean.parseBoolean(useDispreferList));
+				Map<String, String> configs = getJobConfigValues(jobConfigCache, curatorFrameworkOp, jobName);
+				String[] columns = getJobColumns(jobName, configs);
+				for (int j = 0; j < columns.length; j++) {
+					sheet1.addCell(new Label(j, i + 1, columns[j]));
 				}
-				sheet1.addCell(new Label(13, i + 1, useDispreferList));
-				sheet1.addCell(new Label(14, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PROCESS_COUNT_INTERVAL_SECONDS))));
-				sheet1.addCell(new Label(15, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_LOAD_LEVEL))));
-				sheet1.addCell(new Label(16, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHOW_NORMAL_LOG))));
-				sheet1.addCell(new Label(17, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PAUSE_PERIOD_DATE))));
-				sheet1.addCell(new Label(18, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PAUSE_PERIOD_TIME))));
-				sheet1.addCell(new Label(19, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, JobServiceImpl.CONFIG_ITEM_USE_SERIAL))));
-				sheet1.addCell(new Label(20, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_DEGREE))));
-				sheet1.addCell(new Label(21, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_ENABLED_REPORT))));
-				sheet1.addCell(new Label(22, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_MODE))));
-				sheet1.addCell(new Label(23, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_DEPENDENCIES))));
-				sheet1.addCell(new Label(24, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_GROUPS))));
-				sheet1.addCell(new Label(25, i + 1, curatorFrameworkOp
-						.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIMEOUT_4_ALARM_SECONDS))));
-				sheet1.addCell(new Label(26, i + 1,
-						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIME_ZONE))));
 			}
 		}
 	}
 
+	/**
+	 * 导出的一行作业配置，与JOB_COLUMN_NAMES的列对应
+	 */
+	private String[] getJobColumns(String jobName, Map<String, String> configs) {
+		String useDispreferList = configs.get(CONFIG_ITEM_USE_DISPREFER_LIST);
+		if (useDispreferList != null) {
+			useDispreferList = String.valueOf(!Boolean.parseBoolean(useDispreferList));
+		}
+		return new String[] {jobName, configs.get(CONFIG_ITEM_JOB_TYPE), configs.get(CONFIG_ITEM_JOB_CLASS),
+				configs.get(CONFIG_ITEM_CRON), configs.get(CONFIG_ITEM_DESCRIPTION), configs.get(CONFIG_ITEM_LOCAL_MODE),
+				configs.get(CONFIG_ITEM_SHARDING_TOTAL_COUNT), configs.get(CONFIG_ITEM_TIMEOUT_SECONDS),
+				configs.get(CONFIG_ITEM_JOB_PARAMETER), configs.get(CONFIG_ITEM_SHARDING_ITEM_PARAMETERS),
+				configs.get(CONFIG_ITEM_QUEUE_NAME), configs.get(CONFIG_ITEM_CHANNEL_NAME),
+				configs.get(CONFIG_ITEM_PREFER_LIST), useDispreferList,
+				configs.get(CONFIG_ITEM_PROCESS_COUNT_INTERVAL_SECONDS), configs.get(CONFIG_ITEM_LOAD_LEVEL),
+				configs.get(CONFIG_ITEM_SHOW_NORMAL_LOG), configs.get(CONFIG_ITEM_PAUSE_PERIOD_DATE),
+				configs.get(CONFIG_ITEM_PAUSE_PERIOD_TIME), configs.get(CONFIG_ITEM_USE_SERIAL),
+				configs.get(CONFIG_ITEM_JOB_DEGREE), configs.get(CONFIG_ITEM_ENABLED_REPORT),
+				configs.get(CONFIG_ITEM_JOB_MODE), configs.get(CONFIG_ITEM_DEPENDENCIES),
+				configs.get(CONFIG_ITEM_GROUPS), configs.get(CONFIG_ITEM_TIMEOUT_4_ALARM_SECONDS),
+				configs.get(CONFIG_ITEM_TIME_ZONE)};
+	}
+
 	protected void setExcelHeader(WritableSheet sheet1) throws WriteException {
 		sheet1.addCell(new Label(0, 0, "作业名称"));
 		sheet1.addCell(new Label(1, 0, "作业类型"));
@@ -1320,12 +1968,68 @@ public class JobServiceImpl implements JobService {
 
 	@Override
 	public JobConfig getJobConfigFromZK(String namespace, String jobName) throws SaturnJobConsoleException {
+		return getJobConfigFromZK(namespace, jobName, registryCenterService.getJobConfigCache(namespace));
+	}
+
+	@Override
+	public JobConfig getJobConfigFromZKDirectly(String namespace, String jobName) throws SaturnJobConsoleException {
+		return getJobConfigFromZK(namespace, jobName, null);
+	}
+
+	@Override
+	public Map<String, JobConfig> getJobConfigsFromZKDirectly(String namespace, Collection<String> jobNames)
+			throws SaturnJobConsoleException {
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
+				.getCuratorFrameworkOp(namespace);
+		List<String> configNodePaths = new ArrayList<>();
+		for (String jobName : jobNames) {
+			configNodePaths.add(JobNodePath.getConfigNodePath(jobName));
+		}
+		// 先批量获取所有作业的配置项，再批量读取所有配置项的值
+		Map<String, List<String>> configItemsMap = curatorFrameworkOp.getChildrenInBatch(configNodePaths);
+		List<String> configItemPaths = new ArrayList<>();
+		for (String jobName : jobNames) {
+			List<String> configItems = configItemsMap.get(JobNodePath.getConfigNodePath(jobName));
+			if (configItems != null) {
+				for (String configItem : configItems) {
+					configItemPaths.add(JobNodePath.getConfigNodePath(jobName, configItem));
+				}
+			}
+		}
+		Map<String, String> configValues = curatorFrameworkOp.getDataInBatch(configItemPaths);
+		Map<String, JobConfig> result = new HashMap<>();
+		for (String jobName : jobNames) {
+			List<String> configItems = configItemsMap.get(JobNodePath.getConfigNodePath(jobName));
+			if (configItems == null) {
+				continue;
+			}
+			Map<String, String> configs = new HashMap<>();
+			for (String configItem : configItems) {
+				String configItemPath = JobNodePath.getConfigNodePath(jobName, configItem);
+				// 读取期间被删除的配置项不存在
+				if (configValues.containsKey(configItemPath)) {
+					configs.put(configItem, configValues.get(configItemPath));
+				}
+			}
+			result.put(jobName, toJobConfig(curatorFrameworkOp, jobName, configs));
+		}
+		return result;
+	}
+
+	private JobConfig getJobConfigFromZK(String namespace, String jobName, NamespaceJobConfigCache jobConfigCache)
+			throws SaturnJobConsoleException {
 		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
 				.getCuratorFrameworkOp(namespace);
+		Map<String, String> configs = getJobConfigValues(jobConfigCache, curatorFrameworkOp, jobName);
+		return toJobConfig(curatorFrameworkOp, jobName, configs);
+	}
+
+	private JobConfig toJobConfig(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp, String jobName,
+			Map<String, String> configs) {
 		JobConfig result = new JobConfig();
 		result.setJobName(jobName);
-		result.setJobType(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_TYPE)));
-		result.setJobClass(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_CLASS)));
+		result.setJobType(configs.get(CONFIG_ITEM_JOB_TYPE));
+		result.setJobClass(configs.get(CONFIG_ITEM_JOB_CLASS));
 		// 兼容旧版没有msg_job。
 		if (StringUtils.isBlank(result.getJobType())) {
 			if (result.getJobClass().indexOf("script") >= 0) {
@@ -1334,87 +2038,90 @@ public class JobServiceImpl implements JobService {
 				result.setJobType(JobType.JAVA_JOB.name());
 			}
 		}
-		result.setShardingTotalCount(Integer.valueOf(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHARDING_TOTAL_COUNT))));
-		String timeZone = curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIME_ZONE));
+		result.setShardingTotalCount(Integer.valueOf(configs.get(CONFIG_ITEM_SHARDING_TOTAL_COUNT)));
+		String timeZone = configs.get(CONFIG_ITEM_TIME_ZONE);
 		if (Strings.isNullOrEmpty(timeZone)) {
 			result.setTimeZone(SaturnConstants.TIME_ZONE_ID_DEFAULT);
 		} else {
 			result.setTimeZone(timeZone);
 		}
-		result.setCron(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_CRON)));
-		result.setPausePeriodDate(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PAUSE_PERIOD_DATE)));
-		result.setPausePeriodTime(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PAUSE_PERIOD_TIME)));
-		result.setShardingItemParameters(curatorFrameworkOp
-				.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHARDING_ITEM_PARAMETERS)));
-		result.setJobParameter(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_PARAMETER)));
-		result.setProcessCountIntervalSeconds(Integer.valueOf(curatorFrameworkOp
-				.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PROCESS_COUNT_INTERVAL_SECONDS))));
-		String timeout4AlarmSecondsStr = curatorFrameworkOp
-				.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIMEOUT_4_ALARM_SECONDS));
+		result.setCron(configs.get(CONFIG_ITEM_CRON));
+		result.setPausePeriodDate(configs.get(CONFIG_ITEM_PAUSE_PERIOD_DATE));
+		result.setPausePeriodTime(configs.get(CONFIG_ITEM_PAUSE_PERIOD_TIME));
+		result.setShardingItemParameters(configs.get(CONFIG_ITEM_SHARDING_ITEM_PARAMETERS));
+		result.setJobParameter(configs.get(CONFIG_ITEM_JOB_PARAMETER));
+		result.setProcessCountIntervalSeconds(Integer.valueOf(configs.get(CONFIG_ITEM_PROCESS_COUNT_INTERVAL_SECONDS)));
+		String timeout4AlarmSecondsStr = configs.get(CONFIG_ITEM_TIMEOUT_4_ALARM_SECONDS);
 		if (Strings.isNullOrEmpty(timeout4AlarmSecondsStr)) {
 			result.setTimeout4AlarmSeconds(0);
 		} else {
 			result.setTimeout4AlarmSeconds(Integer.valueOf(timeout4AlarmSecondsStr));
 		}
-		result.setTimeoutSeconds(Integer.valueOf(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_TIMEOUT_SECONDS))));
-		String lv = curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_LOAD_LEVEL));
+		result.setTimeoutSeconds(Integer.valueOf(configs.get(CONFIG_ITEM_TIMEOUT_SECONDS)));
+		String lv = configs.get(CONFIG_ITEM_LOAD_LEVEL);
 		if (Strings.isNullOrEmpty(lv)) {
 			result.setLoadLevel(1);
 		} else {
 			result.setLoadLevel(Integer.valueOf(lv));
 		}
-		String jobDegree = curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_JOB_DEGREE));
+		String jobDegree = configs.get(CONFIG_ITEM_JOB_DEGREE);
 		if (Strings.isNullOrEmpty(jobDegree)) {
 			result.setJobDegree(0);
 		} else {
 			result.setJobDegree(Integer.valueOf(jobDegree));
 		}
-		result.setEnabled(Boolean.valueOf(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_ENABLED))));// 默认是禁用的
-		result.setPreferList(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_PREFER_LIST)));
-		String useDispreferList = curatorFrameworkOp
-				.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_USE_DISPREFER_LIST));
+		result.setEnabled(Boolean.valueOf(configs.get(CONFIG_ITEM_ENABLED)));// 默认是禁用的
+		result.setPreferList(configs.get(CONFIG_ITEM_PREFER_LIST));
+		String useDispreferList = configs.get(CONFIG_ITEM_USE_DISPREFER_LIST);
 		if (Strings.isNullOrEmpty(useDispreferList)) {
 			result.setUseDispreferList(null);
 		} else {
 			result.setUseDispreferList(Boolean.valueOf(useDispreferList));
 		}
-		result.setLocalMode(Boolean.valueOf(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_LOCAL_MODE))));
-		result.setDependencies(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_DEPENDENCIES)));
-		result.setGroups(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_GROUPS)));
-		result.setDescription(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_DESCRIPTION)));
-		result.setJobMode(curatorFrameworkOp
-				.getData(JobNodePath.getConfigNodePath(jobName, JobServiceImpl.CONFIG_ITEM_JOB_MODE)));
-		result.setUseSerial(Boolean.valueOf(curatorFrameworkOp
-				.getData(JobNodePath.getConfigNodePath(jobName, JobServiceImpl.CONFIG_ITEM_USE_SERIAL))));
-		result.setQueueName(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_QUEUE_NAME)));
-		result.setChannelName(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_CHANNEL_NAME)));
-		if (!curatorFrameworkOp
+		result.setLocalMode(Boolean.valueOf(configs.get(CONFIG_ITEM_LOCAL_MODE)));
+		result.setDependencies(configs.get(CONFIG_ITEM_DEPENDENCIES));
+		result.setGroups(configs.get(CONFIG_ITEM_GROUPS));
+		result.setDescription(configs.get(CONFIG_ITEM_DESCRIPTION));
+		result.setJobMode(configs.get(CONFIG_ITEM_JOB_MODE));
+		result.setUseSerial(Boolean.valueOf(configs.get(CONFIG_ITEM_USE_SERIAL)));
+		result.setQueueName(configs.get(CONFIG_ITEM_QUEUE_NAME));
+		result.setChannelName(configs.get(CONFIG_ITEM_CHANNEL_NAME));
+		if (!configs.containsKey(CONFIG_ITEM_SHOW_NORMAL_LOG) && !curatorFrameworkOp
 				.checkExists(JobNodePath.getConfigNodePath(jobName, JobServiceImpl.CONFIG_ITEM_SHOW_NORMAL_LOG))) {
 			curatorFrameworkOp.create(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHOW_NORMAL_LOG));
 		}
-		String enabledReport = curatorFrameworkOp
-				.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_ENABLED_REPORT));
+		String enabledReport = configs.get(CONFIG_ITEM_ENABLED_REPORT);
 		Boolean enabledReportValue = Boolean.valueOf(enabledReport);
 		if (Strings.isNullOrEmpty(enabledReport)) {
 			enabledReportValue = true;
 		}
 		result.setEnabledReport(enabledReportValue);
-		result.setShowNormalLog(Boolean.valueOf(
-				curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, CONFIG_ITEM_SHOW_NORMAL_LOG))));
+		result.setShowNormalLog(Boolean.valueOf(configs.get(CONFIG_ITEM_SHOW_NORMAL_LOG)));
 		return result;
 	}
 
+	/**
+	 * 获取作业的所有配置项，优先读取作业配置快照，快照不可用时直接读zk
+	 */
+	private Map<String, String> getJobConfigValues(NamespaceJobConfigCache jobConfigCache,
+			CuratorRepository.CuratorFrameworkOp curatorFrameworkOp, String jobName) {
+		if (jobConfigCache != null) {
+			Map<String, String> configs = jobConfigCache.getJobConfig(jobName);
+			if (configs != null) {
+				return configs;
+			}
+		}
+		Map<String, String> configs = new HashMap<>();
+		List<String> configItems = curatorFrameworkOp.getChildren(JobNodePath.getConfigNodePath(jobName));
+		if (configItems != null) {
+			for (String configItem : configItems) {
+				configs.put(configItem,
+						curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, configItem)));
+			}
+		}
+		return configs;
+	}
+
 	@Override
 	public JobConfig getJobConfig(String namespace, String jobName) throws SaturnJobConsoleException {
 		JobConfig4DB jobConfig4DB = currentJobConfigService.findConfigByNamespaceAndJobName(namespace, jobName);
@@ -1437,9 +2144,32 @@ public class JobServiceImpl implements JobService {
 		return getJobStatus(jobName, curatorFrameworkOp, jobConfig.getEnabled());
 	}
 
+	@Override
+	public JobStatus getJobStatus(String namespace, JobConfig jobConfig) throws SaturnJobConsoleException {
+		NamespaceJobOverviewCache jobOverviewCache = registryCenterService.getJobOverviewCache(namespace);
+		Boolean isAllShardsFinished =
+				jobOverviewCache == null ? null : jobOverviewCache.isAllShardsFinished(jobConfig.getJobName());
+		if (isAllShardsFinished == null) {
+			CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
+					.getCuratorFrameworkOp(namespace);
+			return getJobStatus(jobConfig.getJobName(), curatorFrameworkOp, jobConfig.getEnabled());
+		}
+		if (jobConfig.getEnabled()) {
+			return isAllShardsFinished ? JobStatus.READY : JobStatus.RUNNING;
+		}
+		return isAllShardsFinished ? JobStatus.STOPPED : JobStatus.STOPPING;
+	}
+
 	@Override
 	public List<String> getJobShardingAllocatedExecutorList(String namespace, String jobName)
 			throws SaturnJobConsoleException {
+		NamespaceJobOverviewCache jobOverviewCache = registryCenterService.getJobOverviewCache(namespace);
+		if (jobOverviewCache != null) {
+			List<String> shardingList = jobOverviewCache.getShardingAllocatedExecutors(jobName);
+			if (shardingList != null) {
+				return shardingList;
+			}
+		}
 		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
 				.getCuratorFrameworkOp(namespace);
 		String executorsPath = JobNodePath.getServerNodePath(jobName);
@@ -1567,10 +2297,11 @@ public class JobServiceImpl implements JobService {
 			log.error("update settings to zk failed: {}", e);
 			throw new SaturnJobConsoleException(e);
 		}
+		JobConfig4DB newJobConfig4DB = null;
 		try {
 			// config changed, update current config and save a copy to history config.
 			if (bw.isValue()) {
-				JobConfig4DB newJobConfig4DB = new JobConfig4DB();
+				newJobConfig4DB = new JobConfig4DB();
 				SaturnBeanUtils.copyProperties(jobConfig4DB, newJobConfig4DB);
 				SaturnBeanUtils.copyPropertiesIgnoreNull(jobConfig, newJobConfig4DB);
 				currentJobConfigService.updateNewAndSaveOld2History(newJobConfig4DB, jobConfig4DB, updatedBy);
@@ -1582,6 +2313,9 @@ public class JobServiceImpl implements JobService {
 			log.error("update settings to db failed: {}", e);
 			throw new SaturnJobConsoleException(e);
 		}
+		if (newJobConfig4DB != null) {
+			updateDependencyGraph(namespace, newJobConfig4DB);
+		}
 	}
 
 	@Override
@@ -2039,4 +2773,25 @@ public class JobServiceImpl implements JobService {
 		}
 	}
 
+	/**
+	 * 批量操作中每批作业的数据库和zk修改
+	 */
+	private abstract static class BatchJobOperation {
+
+		public abstract void updateDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException;
+
+		/**
+		 * zk事务提交失败时，恢复updateDB修改的数据库记录
+		 */
+		public abstract void restoreDB(List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException;
+
+		public abstract void addZkOperation(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+				CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp transactionOp, JobConfig4DB jobConfig)
+				throws Exception;
+
+		public void afterCommit(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+				List<JobConfig4DB> jobConfigs) throws SaturnJobConsoleException {
+		}
+	}
+
 }
@@ -18,6 +18,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.vip.saturn.job.console.SaturnEnvProperties;
 import com.vip.saturn.job.console.domain.NamespaceDomainInfo;
+import com.vip.saturn.job.console.domain.NamespaceReadiness;
 import com.vip.saturn.job.console.domain.RegistryCenterClient;
 import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
 import com.vip.saturn.job.console.domain.ZkCluster;
@@ -34,6 +35,8 @@ import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
 import com.vip.saturn.job.console.service.RegistryCenterService;
 import com.vip.saturn.job.console.service.SystemConfigService;
 import com.vip.saturn.job.console.service.cache.DashboardLeaderHandler;
+import com.vip.saturn.job.console.service.cache.NamespaceJobConfigCache;
+import com.vip.saturn.job.console.service.cache.NamespaceJobOverviewCache;
 import com.vip.saturn.job.console.service.helper.SystemConfigProperties;
 import com.vip.saturn.job.console.service.helper.ZkClusterMappingUtils;
 import com.vip.saturn.job.console.utils.*;
@@ -60,8 +63,11 @@ import java.io.File;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class RegistryCenterServiceImpl implements RegistryCenterService {
 
@@ -77,6 +83,11 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 
 	private static final Logger log = LoggerFactory.getLogger(RegistryCenterServiceImpl.class);
 
+	/**
+	 * 刷新注册中心时，每个zk集群同时启动的NamespaceShardingManager数量
+	 */
+	private static final int REFRESH_CONCURRENCY_PER_ZK_CLUSTER = 8;
+
 	@Resource
 	private CuratorRepository curatorRepository;
 
@@ -114,8 +125,23 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 	private ConcurrentHashMap<String /** nns **/
 			, NamespaceShardingManager> namespaceShardingListenerManagerMap = new ConcurrentHashMap<>();
 
+	// 使用zk集群共享连接的NamespaceShardingManager，停止时不能关闭连接
+	private Set<NamespaceShardingManager> sharedZkClientShardingManagers = Collections
+			.newSetFromMap(new ConcurrentHashMap<NamespaceShardingManager, Boolean>());
+
+	// namespace is unique in all zkClusters
+	private ConcurrentHashMap<String /** nns **/
+			, NamespaceJobConfigCache> jobConfigCacheMap = new ConcurrentHashMap<>();
+
+	// namespace is unique in all zkClusters
+	private ConcurrentHashMap<String /** nns **/
+			, NamespaceJobOverviewCache> jobOverviewCacheMap = new ConcurrentHashMap<>();
+
 	private List<String> allOnlineNamespaces = new ArrayList<>();
 
+	// 各zk集群最近一次刷新成功的在线域，刷新失败的zk集群沿用上一次的结果
+	private Map<String /** zkClusterKey **/, List<String>> clusterOnlineNamespacesMap = new HashMap<>();
+
 	private String consoleClusterId;
 
 	private Set<String> restrictComputeZkClusterKeys = Sets.newHashSet();
@@ -126,11 +152,16 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 
 	private ExecutorService localRefreshThreadPool = null;
 
+	/**
+	 * 刷新注册中心时并行处理各个zk集群、各个域
+	 */
+	private ExecutorService localRefreshWorkerThreadPool = null;
+
 	@PostConstruct
 	public void init() {
 		getConsoleClusterId();
-		localRefresh();
 		initLocalRefreshThreadPool();
+		localRefresh();
 		startLocalRefreshTimer();
 		startLocalRefreshIfNecessaryTimer();
 	}
@@ -160,11 +191,32 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 		if (localRefreshThreadPool != null) {
 			localRefreshThreadPool.shutdownNow();
 		}
+		if (localRefreshWorkerThreadPool != null) {
+			localRefreshWorkerThreadPool.shutdownNow();
+		}
 	}
 
 	private void initLocalRefreshThreadPool() {
 		localRefreshThreadPool = Executors
 				.newSingleThreadExecutor(new ConsoleThreadFactory("refresh-RegCenter-thread", false));
+		localRefreshWorkerThreadPool = Executors
+				.newCachedThreadPool(new ConsoleThreadFactory("refresh-RegCenter-worker-thread", true));
+	}
+
+	/**
+	 * 等待并行的刷新任务全部结束，单个任务失败不影响其他任务
+	 */
+	private void waitRefreshDone(List<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				log.error(e.getMessage(), e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
 	}
 
 	private void startLocalRefreshTimer() {
@@ -227,6 +279,7 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 	private synchronized void localRefresh() {
 		try {
 			log.info("Start refresh RegCenter");
+			long startTime = System.currentTimeMillis();
 			refreshRestrictComputeZkClusters();
 			if (restrictComputeZkClusterKeys.isEmpty()) {
 				log.warn("根据Console的集群ID:" + consoleClusterId + ",找不到配置可以参与Sharding和Dashboard计算的zk集群");
@@ -235,13 +288,42 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 			refreshRegistryCenter();
 			refreshDashboardLeaderTreeCache();
 			refreshNamespaceShardingListenerManagerMap();
-			long startTime = System.currentTimeMillis();
+			logJobConfigCacheStats();
 			log.info("End refresh RegCenter, cost {}ms", System.currentTimeMillis() - startTime);
 		} catch (Exception e) {
 			log.error("refresh RegCenter error", e);
 		}
 	}
 
+	/**
+	 * 汇总各域作业配置快照的命中情况，随每次刷新打印
+	 */
+	private void logJobConfigCacheStats() {
+		if (jobConfigCacheMap.isEmpty()) {
+			return;
+		}
+		int availableCount = 0;
+		long hitCount = 0;
+		long missCount = 0;
+		long maxStalenessMs = 0;
+		String maxStalenessNns = null;
+		for (Map.Entry<String, NamespaceJobConfigCache> entry : jobConfigCacheMap.entrySet()) {
+			NamespaceJobConfigCache jobConfigCache = entry.getValue();
+			if (jobConfigCache.isAvailable()) {
+				availableCount++;
+			}
+			hitCount += jobConfigCache.getHitCount();
+			missCount += jobConfigCache.getMissCount();
+			long stalenessMs = jobConfigCache.getStalenessMs();
+			if (stalenessMs > maxStalenessMs) {
+				maxStalenessMs = stalenessMs;
+				maxStalenessNns = entry.getKey();
+			}
+		}
+		log.info("job config cache stats: caches={}, available={}, hits={}, misses={}, maxStalenessMs={} ({})",
+				jobConfigCacheMap.size(), availableCount, hitCount, missCount, maxStalenessMs, maxStalenessNns);
+	}
+
 	/**
 	 * 解析Console集群和zk的映射关系 数据库中配置的例子如下： CONSOLE-1:/saturn,/forVdos;CONSOLE-2:/zk3; 如果不存在此配置项，则可以计算所有zk集群；
 	 */
@@ -299,41 +381,104 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 	}
 
 	/**
-	 * 创建或者移除namespaceShardingManager.
+	 * 创建或者移除namespaceShardingManager. 只处理新增、不再计算的域，各个zk集群并行创建，每个集群最多同时创建REFRESH_CONCURRENCY_PER_ZK_CLUSTER个
 	 */
 	private void refreshNamespaceShardingListenerManagerMap() {
+		List<Future<?>> futures = new ArrayList<>();
 		Iterator<Entry<String, ZkCluster>> iterator = zkClusterMap.entrySet().iterator();
 		while (iterator.hasNext()) {
 			Entry<String, ZkCluster> next = iterator.next();
-			ZkCluster zkCluster = next.getValue();
+			final ZkCluster zkCluster = next.getValue();
 			ArrayList<RegistryCenterConfiguration> regCenterConfList = zkCluster.getRegCenterConfList();
 			if (regCenterConfList == null) {
 				continue;
 			}
 
+			final List<RegistryCenterConfiguration> newConfList = new ArrayList<>();
 			for (RegistryCenterConfiguration conf : regCenterConfList) {
 				String nns = conf.getNameAndNamespace();
 				if (!namespaceShardingListenerManagerMap.containsKey(nns)) {
 					if (isZKClusterCanBeComputed(conf.getZkClusterKey())) {
-						createNamespaceShardingManager(conf, nns);
+						newConfList.add(conf);
 					}
 				} else {
 					NamespaceShardingManager namespaceShardingManager = namespaceShardingListenerManagerMap.get(nns);
 					if (!isZKClusterCanBeComputed(conf.getZkClusterKey())) {
-						namespaceShardingManager.stopWithCurator();
+						stopNamespaceShardingManager(namespaceShardingManager);
 						namespaceShardingListenerManagerMap.remove(nns);
 					}
 				}
 			}
+			if (!newConfList.isEmpty()) {
+				futures.add(localRefreshWorkerThreadPool.submit(new Runnable() {
+					@Override
+					public void run() {
+						createNamespaceShardingManagers(zkCluster, newConfList);
+					}
+				}));
+			}
+		}
+		waitRefreshDone(futures);
+	}
+
+	private void createNamespaceShardingManagers(ZkCluster zkCluster, List<RegistryCenterConfiguration> confList) {
+		long startTime = System.currentTimeMillis();
+		List<Runnable> tasks = new ArrayList<>();
+		for (final RegistryCenterConfiguration conf : confList) {
+			tasks.add(new Runnable() {
+				@Override
+				public void run() {
+					createNamespaceShardingManager(conf, conf.getNameAndNamespace());
+				}
+			});
+		}
+		int count = runWithClusterConcurrency(tasks);
+		log.info("Done starting {} NamespaceShardingManagers of zkCluster {}, cost {}ms", count,
+				zkCluster.getZkAlias(), System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * 并行执行一个zk集群的各个域的任务，最多同时执行REFRESH_CONCURRENCY_PER_ZK_CLUSTER个，等待全部完成
+	 *
+	 * @return 已提交执行的任务数，线程被中断时不再提交剩余的任务
+	 */
+	private int runWithClusterConcurrency(List<Runnable> tasks) {
+		final Semaphore semaphore = new Semaphore(REFRESH_CONCURRENCY_PER_ZK_CLUSTER);
+		List<Future<?>> futures = new ArrayList<>();
+		for (final Runnable task : tasks) {
+			try {
+				semaphore.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			try {
+				futures.add(localRefreshWorkerThreadPool.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							task.run();
+						} finally {
+							semaphore.release();
+						}
+					}
+				}));
+			} catch (RuntimeException e) {
+				semaphore.release();
+				throw e;
+			}
 		}
+		waitRefreshDone(futures);
+		return futures.size();
 	}
 
 	private void createNamespaceShardingManager(RegistryCenterConfiguration conf, String nns) {
 		try {
 			log.info("Start NamespaceShardingManager {}", nns);
 			String namespace = conf.getNamespace();
-			String digest = conf.getDigest();
-			CuratorFramework client = curatorRepository.connect(conf.getZkAddressList(), namespace, digest);
+			CuratorFramework sharedClient = getSharedZkClient(conf);
+			CuratorFramework client = sharedClient != null ? sharedClient.usingNamespace(namespace)
+					: curatorRepository.connect(conf.getZkAddressList(), namespace, conf.getDigest());
 
 			if (client == null) {
 				log.warn("fail to connect to zk during create NamespaceShardingManager");
@@ -344,11 +489,14 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 			try {
 				namespaceShardingManager = new NamespaceShardingManager(client, namespace,
 						generateShardingLeadershipHostValue(), reportAlarmService, updateJobConfigService);
+				if (sharedClient != null) {
+					sharedZkClientShardingManagers.add(namespaceShardingManager);
+				}
 				namespaceShardingManager.start();
 				if (namespaceShardingListenerManagerMap.putIfAbsent(nns, namespaceShardingManager) != null) {
 					// 已经存在，则关闭当前的client
 					try {
-						namespaceShardingManager.stopWithCurator();
+						stopNamespaceShardingManager(namespaceShardingManager);
 					} catch (Exception e) {
 						log.error(e.getMessage(), e);
 					}
@@ -358,21 +506,73 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 			} catch (Exception e) {
 				log.error(e.getMessage(), e);
 				if (namespaceShardingManager != null) {
+					sharedZkClientShardingManagers.remove(namespaceShardingManager);
 					try {
 						namespaceShardingManager.stop();
 					} catch (Exception e2) {
 						log.error(e2.getMessage(), e2);
 					}
 				}
-				client.close();
+				if (sharedClient == null) {
+					client.close();
+				}
 			}
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
+	private void stopNamespaceShardingManager(NamespaceShardingManager namespaceShardingManager) {
+		if (sharedZkClientShardingManagers.remove(namespaceShardingManager)) {
+			namespaceShardingManager.stop();
+		} else {
+			namespaceShardingManager.stopWithCurator();
+		}
+	}
+
+	/**
+	 * 获取域所属zk集群的共享连接，使用时需要通过usingNamespace获取域的命名空间视图，不能关闭。
+	 * 共享连接的生命周期由zk集群管理，关闭zk集群时先关闭其所有域，再关闭连接。
+	 *
+	 * @return 没有开启共享连接、zk集群未连接、离线或者digest不一致时返回null，由调用方为域单独建立连接
+	 */
+	private CuratorFramework getSharedZkClient(RegistryCenterConfiguration conf) {
+		if (!SaturnEnvProperties.VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT) {
+			return null;
+		}
+		ZkCluster zkCluster = zkClusterMap.get(conf.getZkClusterKey());
+		if (zkCluster == null || zkCluster.isOffline() || zkCluster.getCuratorFramework() == null
+				|| !Objects.equals(Strings.emptyToNull(zkCluster.getDigest()), Strings.emptyToNull(conf.getDigest()))) {
+			return null;
+		}
+		return zkCluster.getCuratorFramework();
+	}
+
+	/**
+	 * 创建域的RegistryCenterClient，优先使用zk集群的共享连接
+	 *
+	 * @return 连接失败时curatorClient为null
+	 */
+	private RegistryCenterClient createRegistryCenterClient(String nns, RegistryCenterConfiguration conf) {
+		RegistryCenterClient registryCenterClient = new RegistryCenterClient();
+		registryCenterClient.setNameAndNamespace(nns);
+		registryCenterClient.setZkAddr(conf.getZkAddressList());
+		CuratorFramework sharedClient = getSharedZkClient(conf);
+		CuratorFramework client;
+		if (sharedClient != null) {
+			client = sharedClient.usingNamespace(conf.getNamespace());
+			registryCenterClient.setShared(true);
+		} else {
+			client = curatorRepository.connect(conf.getZkAddressList(), conf.getNamespace(), conf.getDigest());
+		}
+		if (client != null) {
+			registryCenterClient.setConnected(client.getZookeeperClient().isConnected());
+			registryCenterClient.setCuratorClient(client);
+		}
+		return registryCenterClient;
+	}
+
 	private void refreshRegistryCenter() {
-		List<String> allOnlineNamespacesTemp = new ArrayList<>();
 		// 获取新的zkClusters
 		Map<String, ZkCluster> newClusterMap = getZkClusterInfo();
 
@@ -382,23 +582,62 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 		// 完善curatorFramework。如果没有，则新建
 		connectToZkClusterIfPossible(newClusterMap);
 
-		// 完善ZkCluster中的注册中心信息，关闭迁移了的域，新建迁移过来的域
+		// 完善ZkCluster中的注册中心信息，关闭迁移了的域，新建迁移过来的域，各个zk集群并行处理
+		final Map<String, List<String>> onlineNamespacesMap = new ConcurrentHashMap<>();
+		List<Future<?>> futures = new ArrayList<>();
 		for (Map.Entry<String, ZkCluster> zkClusterEntry : newClusterMap.entrySet()) {
-
-			ZkCluster zkCluster = zkClusterEntry.getValue();
-			List<NamespaceZkClusterMapping> nsZkClusterMappingList = namespaceZkClusterMapping4SqlService
-					.getAllMappingsOfCluster(zkClusterEntry.getKey());
-			// zkCluster对应的namespace列表
-			List<RegistryCenterConfiguration> regCenterConfList = zkCluster.getRegCenterConfList();
-
-			closeMoveOutNamespace(zkClusterEntry.getKey(), nsZkClusterMappingList, regCenterConfList);
-
-			initMoveInNamespace(allOnlineNamespacesTemp, zkClusterEntry.getKey(), zkCluster, nsZkClusterMappingList,
-					regCenterConfList);
+			final String zkClusterKey = zkClusterEntry.getKey();
+			final ZkCluster zkCluster = zkClusterEntry.getValue();
+			futures.add(localRefreshWorkerThreadPool.submit(new Runnable() {
+				@Override
+				public void run() {
+					List<NamespaceZkClusterMapping> nsZkClusterMappingList = namespaceZkClusterMapping4SqlService
+							.getAllMappingsOfCluster(zkClusterKey);
+					// zkCluster对应的namespace列表
+					List<RegistryCenterConfiguration> regCenterConfList = zkCluster.getRegCenterConfList();
+
+					closeMoveOutNamespace(zkClusterKey, nsZkClusterMappingList, regCenterConfList);
+
+					List<String> onlineNamespaces = new ArrayList<>();
+					initMoveInNamespace(onlineNamespaces, zkClusterKey, zkCluster, nsZkClusterMappingList,
+							regCenterConfList);
+					onlineNamespacesMap.put(zkClusterKey, onlineNamespaces);
+				}
+			}));
+		}
+		waitRefreshDone(futures);
+		Map<String, List<String>> newClusterOnlineNamespacesMap = mergeClusterOnlineNamespaces(
+				newClusterMap.keySet(), new HashMap<>(onlineNamespacesMap), clusterOnlineNamespacesMap);
+		Set<String> allOnlineNamespacesTemp = new LinkedHashSet<>();
+		for (List<String> onlineNamespaces : newClusterOnlineNamespacesMap.values()) {
+			allOnlineNamespacesTemp.addAll(onlineNamespaces);
 		}
 		// 直接赋值新的
 		zkClusterMap = (LinkedHashMap<String, ZkCluster>) newClusterMap;
-		allOnlineNamespaces = allOnlineNamespacesTemp;
+		clusterOnlineNamespacesMap = newClusterOnlineNamespacesMap;
+		allOnlineNamespaces = new ArrayList<>(allOnlineNamespacesTemp);
+	}
+
+	/**
+	 * 合并各zk集群的在线域。刷新任务失败（没有结果）的zk集群沿用上一次的在线域，避免其域在本轮被当作下线；已移除的zk集群不再保留。
+	 *
+	 * @return 按zkClusterKeys顺序排列的zk集群在线域
+	 */
+	static Map<String, List<String>> mergeClusterOnlineNamespaces(Collection<String> zkClusterKeys,
+			Map<String, List<String>> refreshedOnlineNamespaces, Map<String, List<String>> previousOnlineNamespaces) {
+		Map<String, List<String>> result = new LinkedHashMap<>();
+		for (String zkClusterKey : zkClusterKeys) {
+			List<String> onlineNamespaces = refreshedOnlineNamespaces.get(zkClusterKey);
+			if (onlineNamespaces == null) {
+				onlineNamespaces = previousOnlineNamespaces.get(zkClusterKey);
+				if (onlineNamespaces == null) {
+					continue;
+				}
+				log.warn("refresh zkCluster {} failed, keep the previous online namespaces", zkClusterKey);
+			}
+			result.put(zkClusterKey, onlineNamespaces);
+		}
+		return result;
 	}
 
 	private void initMoveInNamespace(List<String> allOnlineNamespacesTemp, String zkClusterKey, ZkCluster zkCluster,
@@ -408,6 +647,7 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 			return;
 		}
 
+		List<RegistryCenterConfiguration> moveInConfList = new ArrayList<>();
 		for (NamespaceZkClusterMapping mapping : nsZkClusterMappingList) {
 			String namespace = mapping.getNamespace();
 			String name = StringUtils.deleteWhitespace(mapping.getName());
@@ -439,19 +679,49 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 				}
 			}
 			if (!include) {
-				CuratorFramework curatorFramework = zkCluster.getCuratorFramework();
-				initNamespaceZkNodeIfNecessary(namespace, curatorFramework);
 				RegistryCenterConfiguration conf = new RegistryCenterConfiguration(name, namespace,
 						zkCluster.getZkAddr());
 				conf.setZkClusterKey(zkClusterKey);
-				conf.setVersion(getVersion(namespace, curatorFramework));
 				conf.setZkAlias(zkCluster.getZkAlias());
-				zkCluster.getRegCenterConfList().add(conf);
+				moveInConfList.add(conf);
 			}
 			if (!allOnlineNamespacesTemp.contains(namespace)) {
 				allOnlineNamespacesTemp.add(namespace);
 			}
 		}
+		initMoveInNamespaceConfs(zkCluster, moveInConfList);
+	}
+
+	/**
+	 * 并行初始化迁移过来的域：创建zk节点、读取executor版本，完成初始化的域才加入zk集群的域列表
+	 */
+	private void initMoveInNamespaceConfs(ZkCluster zkCluster, List<RegistryCenterConfiguration> moveInConfList) {
+		if (moveInConfList.isEmpty()) {
+			return;
+		}
+		long startTime = System.currentTimeMillis();
+		final CuratorFramework curatorFramework = zkCluster.getCuratorFramework();
+		List<Runnable> tasks = new ArrayList<>();
+		for (final RegistryCenterConfiguration conf : moveInConfList) {
+			tasks.add(new Runnable() {
+				@Override
+				public void run() {
+					initNamespaceZkNodeIfNecessary(conf.getNamespace(), curatorFramework);
+					conf.setVersion(getVersion(conf.getNamespace(), curatorFramework));
+				}
+			});
+		}
+		runWithClusterConcurrency(tasks);
+		int count = 0;
+		for (RegistryCenterConfiguration conf : moveInConfList) {
+			// 线程被中断而没有执行的，下一次刷新再初始化
+			if (conf.getVersion() != null) {
+				zkCluster.getRegCenterConfList().add(conf);
+				count++;
+			}
+		}
+		log.info("Done initializing {} namespaces of zkCluster {}, cost {}ms", count, zkCluster.getZkAlias(),
+				System.currentTimeMillis() - startTime);
 	}
 
 	private void closeMoveOutNamespace(String zkClusterKey, List<NamespaceZkClusterMapping> nsZkClusterMappingList,
@@ -523,15 +793,23 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 	}
 
 	private void connectToZkClusterIfPossible(Map<String, ZkCluster> newClusterMap) {
+		List<Future<?>> futures = new ArrayList<>();
 		Iterator<Entry<String, ZkCluster>> iterator = newClusterMap.entrySet().iterator();
 		while (iterator.hasNext()) {
 			Entry<String, ZkCluster> next = iterator.next();
-			ZkCluster zkCluster = next.getValue();
+			final ZkCluster zkCluster = next.getValue();
 			CuratorFramework curatorFramework = zkCluster.getCuratorFramework();
 			if (curatorFramework == null) {
-				createNewConnect(zkCluster);
+				// 连接不上的集群需要等待超时，并行连接避免阻塞其他集群
+				futures.add(localRefreshWorkerThreadPool.submit(new Runnable() {
+					@Override
+					public void run() {
+						createNewConnect(zkCluster);
+					}
+				}));
 			}
 		}
+		waitRefreshDone(futures);
 	}
 
 	private Object getNnsLock(String nns) {
@@ -547,6 +825,22 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 	}
 
 	private void closeNamespace(String nns) {
+		try {
+			NamespaceJobConfigCache jobConfigCache = jobConfigCacheMap.remove(nns);
+			if (jobConfigCache != null) {
+				jobConfigCache.shutdown();
+			}
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+		}
+		try {
+			NamespaceJobOverviewCache jobOverviewCache = jobOverviewCacheMap.remove(nns);
+			if (jobOverviewCache != null) {
+				jobOverviewCache.shutdown();
+			}
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+		}
 		try {
 			RegistryCenterClient registryCenterClient = registryCenterClientMap.remove(nns);
 			if (registryCenterClient != null) {
@@ -558,7 +852,7 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 		try {
 			NamespaceShardingManager namespaceShardingManager = namespaceShardingListenerManagerMap.remove(nns);
 			if (namespaceShardingManager != null) {
-				namespaceShardingManager.stopWithCurator();
+				stopNamespaceShardingManager(namespaceShardingManager);
 			}
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
@@ -777,19 +1071,12 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 				if (registryCenterConfiguration == null) {
 					return registryCenterClient;
 				}
-				String zkAddressList = registryCenterConfiguration.getZkAddressList();
-				String namespace = registryCenterConfiguration.getNamespace();
-				String digest = registryCenterConfiguration.getDigest();
-				registryCenterClient.setZkAddr(zkAddressList);
-
-				CuratorFramework client = curatorRepository.connect(zkAddressList, namespace, digest);
-				if (client == null) {
-					return registryCenterClient;
+				RegistryCenterClient newRegistryCenterClient = createRegistryCenterClient(nameAndNameSpace,
+						registryCenterConfiguration);
+				if (newRegistryCenterClient.getCuratorClient() != null) {
+					registryCenterClientMap.put(nameAndNameSpace, newRegistryCenterClient);
 				}
-				registryCenterClient.setConnected(client.getZookeeperClient().isConnected());
-				registryCenterClient.setCuratorClient(client);
-				registryCenterClientMap.put(nameAndNameSpace, registryCenterClient);
-				return registryCenterClient;
+				return newRegistryCenterClient;
 			} else {
 				RegistryCenterClient registryCenterClient2 = registryCenterClientMap.get(nameAndNameSpace);
 				if (registryCenterClient2 != null) {
@@ -817,19 +1104,13 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 			return new RegistryCenterClient();
 		}
 		String zkAddressList = registryCenterConfiguration.getZkAddressList();
-		String digest = registryCenterConfiguration.getDigest();
 		synchronized (getNnsLock(nns)) {
 			if (!registryCenterClientMap.containsKey(nns)) {
-				final RegistryCenterClient registryCenterClient = new RegistryCenterClient();
-				registryCenterClient.setNameAndNamespace(nns);
-				registryCenterClient.setZkAddr(zkAddressList);
-				CuratorFramework client = curatorRepository.connect(zkAddressList, namespace, digest);
-				if (client == null) {
-					return registryCenterClient;
+				RegistryCenterClient registryCenterClient = createRegistryCenterClient(nns,
+						registryCenterConfiguration);
+				if (registryCenterClient.getCuratorClient() != null) {
+					registryCenterClientMap.put(nns, registryCenterClient);
 				}
-				registryCenterClient.setConnected(client.getZookeeperClient().isConnected());
-				registryCenterClient.setCuratorClient(client);
-				registryCenterClientMap.put(nns, registryCenterClient);
 				return registryCenterClient;
 			} else {
 				RegistryCenterClient registryCenterClient = registryCenterClientMap.get(nns);
@@ -866,6 +1147,19 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 		return null;
 	}
 
+	@Override
+	public NamespaceReadiness getNamespaceReadiness(String namespace) {
+		RegistryCenterConfiguration conf = findConfigByNamespace(namespace);
+		if (conf == null) {
+			return NamespaceReadiness.NOT_REGISTERED;
+		}
+		if (isZKClusterCanBeComputed(conf.getZkClusterKey())
+				&& !namespaceShardingListenerManagerMap.containsKey(conf.getNameAndNamespace())) {
+			return NamespaceReadiness.REGISTERED;
+		}
+		return NamespaceReadiness.READY;
+	}
+
 	@Override
 	public RegistryCenterConfiguration findConfigByNamespace(String namespace) {
 		if (Strings.isNullOrEmpty(namespace)) {
@@ -1194,17 +1488,12 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 				throw new SaturnJobConsoleException("Connect zookeeper failed");
 			}
 
-			String zkAddressList = registryCenterConfiguration.getZkAddressList();
-			String digest = registryCenterConfiguration.getDigest();
 			synchronized (getNnsLock(nns)) {
 				if (!registryCenterClientMap.containsKey(nns)) {
-					final RegistryCenterClient registryCenterClient = new RegistryCenterClient();
-					registryCenterClient.setNameAndNamespace(nns);
-					registryCenterClient.setZkAddr(zkAddressList);
-					CuratorFramework curatorFramework = curatorRepository.connect(zkAddressList, namespace, digest);
+					RegistryCenterClient registryCenterClient = createRegistryCenterClient(nns,
+							registryCenterConfiguration);
+					CuratorFramework curatorFramework = registryCenterClient.getCuratorClient();
 					if (curatorFramework != null) {
-						registryCenterClient.setConnected(curatorFramework.getZookeeperClient().isConnected());
-						registryCenterClient.setCuratorClient(curatorFramework);
 						registryCenterClientMap.put(nns, registryCenterClient);
 						curatorFrameworkOp = curatorRepository.newCuratorFrameworkOp(curatorFramework);
 					}
@@ -1230,4 +1519,79 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 		return curatorFrameworkOp;
 	}
 
+	@Override
+	public NamespaceJobConfigCache getJobConfigCache(String namespace) throws SaturnJobConsoleException {
+		if (!SaturnEnvProperties.VIP_SATURN_CONSOLE_JOB_CONFIG_CACHE) {
+			return null;
+		}
+		RegistryCenterConfiguration registryCenterConfiguration = findConfigByNamespace(namespace);
+		if (registryCenterConfiguration == null || registryCenterConfiguration.getNameAndNamespace() == null) {
+			return null;
+		}
+		String nns = registryCenterConfiguration.getNameAndNamespace();
+		NamespaceJobConfigCache jobConfigCache = jobConfigCacheMap.get(nns);
+		if (jobConfigCache != null) {
+			return jobConfigCache;
+		}
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = getCuratorFrameworkOp(namespace);
+		synchronized (getNnsLock(nns)) {
+			jobConfigCache = jobConfigCacheMap.get(nns);
+			if (jobConfigCache == null) {
+				jobConfigCache = new NamespaceJobConfigCache(nns, curatorFrameworkOp.getCuratorFramework());
+				try {
+					jobConfigCache.start();
+				} catch (Exception e) {
+					log.error(e.getMessage(), e);
+					jobConfigCache.shutdown();
+					return null;
+				}
+				jobConfigCacheMap.put(nns, jobConfigCache);
+			}
+			return jobConfigCache;
+		}
+	}
+
+	@Override
+	public NamespaceJobConfigCache peekJobConfigCache(String namespace) {
+		RegistryCenterConfiguration registryCenterConfiguration = findConfigByNamespace(namespace);
+		if (registryCenterConfiguration == null || registryCenterConfiguration.getNameAndNamespace() == null) {
+			return null;
+		}
+		NamespaceJobConfigCache jobConfigCache = jobConfigCacheMap
+				.get(registryCenterConfiguration.getNameAndNamespace());
+		return jobConfigCache != null && jobConfigCache.isAvailable() ? jobConfigCache : null;
+	}
+
+	@Override
+	public NamespaceJobOverviewCache getJobOverviewCache(String namespace) throws SaturnJobConsoleException {
+		if (!SaturnEnvProperties.VIP_SATURN_CONSOLE_JOB_OVERVIEW_CACHE) {
+			return null;
+		}
+		RegistryCenterConfiguration registryCenterConfiguration = findConfigByNamespace(namespace);
+		if (registryCenterConfiguration == null || registryCenterConfiguration.getNameAndNamespace() == null) {
+			return null;
+		}
+		String nns = registryCenterConfiguration.getNameAndNamespace();
+		NamespaceJobOverviewCache jobOverviewCache = jobOverviewCacheMap.get(nns);
+		if (jobOverviewCache != null) {
+			return jobOverviewCache;
+		}
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = getCuratorFrameworkOp(namespace);
+		synchronized (getNnsLock(nns)) {
+			jobOverviewCache = jobOverviewCacheMap.get(nns);
+			if (jobOverviewCache == null) {
+				jobOverviewCache = new NamespaceJobOverviewCache(nns, curatorFrameworkOp.getCuratorFramework());
+				try {
+					jobOverviewCache.start();
+				} catch (Exception e) {
+					log.error(e.getMessage(), e);
+					jobOverviewCache.shutdown();
+					return null;
+				}
+				jobOverviewCacheMap.put(nns, jobOverviewCache);
+			}
+			return jobOverviewCache;
+		}
+	}
+
 }
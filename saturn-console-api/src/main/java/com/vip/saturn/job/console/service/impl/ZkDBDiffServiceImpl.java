@@ -6,6 +6,7 @@ import com.vip.saturn.job.console.domain.JobConfig;
 import com.vip.saturn.job.console.domain.JobDiffInfo;
 import com.vip.saturn.job.console.domain.RegistryCenterClient;
 import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
+import com.vip.saturn.job.console.domain.ZkDBDiffProgress;
 import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
 import com.vip.saturn.job.console.mybatis.entity.JobConfig4DB;
 import com.vip.saturn.job.console.mybatis.service.CurrentJobConfigService;
@@ -13,7 +14,9 @@ import com.vip.saturn.job.console.mybatis.service.NamespaceZkClusterMapping4SqlS
 import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
 import com.vip.saturn.job.console.service.JobService;
 import com.vip.saturn.job.console.service.RegistryCenterService;
+import com.vip.saturn.job.console.service.SystemConfigService;
 import com.vip.saturn.job.console.service.ZkDBDiffService;
+import com.vip.saturn.job.console.service.helper.SystemConfigProperties;
 import com.vip.saturn.job.console.utils.ConsoleThreadFactory;
 import com.vip.saturn.job.console.utils.JobNodePath;
 import org.apache.commons.lang3.StringUtils;
@@ -23,12 +26,20 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 
@@ -40,6 +51,18 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 
 	private static final int DIFF_THREAD_NUM = 10;
 
+	private static final int DEFAULT_DIFF_CONCURRENCY_PER_ZK_CLUSTER = 5;
+
+	/**
+	 * 直接读zk对比时，每批作业一次发出所有配置节点的读取请求
+	 */
+	private static final int DIFF_DIRECTLY_BATCH_SIZE = 100;
+
+	/**
+	 * 异步对比任务结束后保留结果的时间
+	 */
+	private static final long DIFF_TASK_EXPIRE_MS = 30 * 60 * 1000L;
+
 	@Resource
 	private NamespaceZkClusterMapping4SqlService namespaceZkClusterMapping4SqlService;
 
@@ -55,8 +78,18 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 	@Resource
 	private CuratorRepository curatorRepository;
 
+	@Resource
+	private SystemConfigService systemConfigService;
+
 	private ExecutorService diffExecutorService;
 
+	/**
+	 * 异步对比任务的线程池，每个任务占用一个调度线程，以及不超过每个zk集群并发数的对比线程
+	 */
+	private ExecutorService asyncDiffExecutorService;
+
+	private final Map<String, DiffTask> diffTaskMap = new ConcurrentHashMap<>();
+
 	@PostConstruct
 	public void init() {
 		if (diffExecutorService != null) {
@@ -64,6 +97,11 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 		}
 		diffExecutorService = Executors
 				.newFixedThreadPool(DIFF_THREAD_NUM, new ConsoleThreadFactory("diff-zk-db-thread", false));
+		if (asyncDiffExecutorService != null) {
+			asyncDiffExecutorService.shutdownNow();
+		}
+		asyncDiffExecutorService = Executors
+				.newCachedThreadPool(new ConsoleThreadFactory("diff-zk-db-async-thread", false));
 	}
 
 	@PreDestroy
@@ -71,6 +109,9 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 		if (diffExecutorService != null) {
 			diffExecutorService.shutdownNow();
 		}
+		if (asyncDiffExecutorService != null) {
+			asyncDiffExecutorService.shutdownNow();
+		}
 	}
 
 	@Override
@@ -131,24 +172,40 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 			}
 
 			Set<String> jobNamesInDb = getAllJobNames(dbJobConfigList);
+			// 一次取出zk中的所有作业，不需要逐个作业检查是否存在
+			Set<String> jobNamesInZk = getJobNamesInZk(zkClient);
+			List<JobConfig4DB> dbJobConfigsInZk = new ArrayList<>();
+			for (JobConfig4DB dbJobConfig : dbJobConfigList) {
+				if (jobNamesInZk.contains(dbJobConfig.getJobName())) {
+					dbJobConfigsInZk.add(dbJobConfig);
+				}
+			}
+			// 先与作业配置快照对比，快照与db一致的作业不需要再读zk，只有不一致的作业再直接读zk确认，避免快照还未同步到最新的误报。
+			// 只使用已经存在的快照，不为对比的每个域都创建快照；没有快照时所有作业都直接读zk
+			List<JobConfig4DB> toDiffDirectly = dbJobConfigsInZk;
+			if (registryCenterService.peekJobConfigCache(namespace) != null) {
+				toDiffDirectly = new ArrayList<>();
+				for (JobConfig4DB dbJobConfig : dbJobConfigsInZk) {
+					JobConfig jobConfigFromZK = jobService.getJobConfigFromZK(namespace, dbJobConfig.getJobName());
+					if (diff(namespace, dbJobConfig, jobConfigFromZK, false) != null) {
+						toDiffDirectly.add(dbJobConfig);
+					}
+				}
+			}
+			Map<String, JobDiffInfo> directlyDiffInfos = diffDirectly(namespace, toDiffDirectly);
 
 			for (JobConfig4DB dbJobConfig : dbJobConfigList) {
 				String jobName = dbJobConfig.getJobName();
-				log.info("start to diff job:{}@{}", jobName, namespace);
-				if (!checkJobIsExsitInZk(jobName, zkClient)) {
+				if (!jobNamesInZk.contains(jobName)) {
 					jobDiffInfos.add(new JobDiffInfo(namespace, jobName, JobDiffInfo.DiffType.DB_ONLY,
 							Lists.<JobDiffInfo.ConfigDiffInfo>newArrayList()));
-					continue;
-				}
-
-				JobConfig jobConfigFromZK = jobService.getJobConfigFromZK(namespace, jobName);
-				JobDiffInfo jobDiffInfo = diff(namespace, dbJobConfig, jobConfigFromZK, false);
-				if (jobDiffInfo != null) {
-					jobDiffInfos.add(jobDiffInfo);
+				} else if (directlyDiffInfos.containsKey(jobName)) {
+					jobDiffInfos.add(directlyDiffInfos.get(jobName));
 				}
 			}
 
-			List<JobDiffInfo> jobsInZkOnly = getJobNamesWhichInZKOnly(namespace, jobNamesInDb);
+			List<JobDiffInfo> jobsInZkOnly = getJobNamesWhichInZKOnly(namespace, jobNamesInDb, jobNamesInZk,
+					zkClient);
 			if (jobsInZkOnly != null && !jobsInZkOnly.isEmpty()) {
 				jobDiffInfos.addAll(jobsInZkOnly);
 			}
@@ -166,6 +223,40 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 		return jobDiffInfos;
 	}
 
+	/**
+	 * 直接读zk对比，每批作业的配置节点的读取请求一次发出，不需要逐个配置项等待往返
+	 *
+	 * @return 作业名到不一致信息的映射，一致的作业不在结果中
+	 */
+	private Map<String, JobDiffInfo> diffDirectly(String namespace, List<JobConfig4DB> dbJobConfigs)
+			throws SaturnJobConsoleException {
+		Map<String, JobDiffInfo> jobDiffInfos = new HashMap<>();
+		for (List<JobConfig4DB> batch : Lists.partition(dbJobConfigs, DIFF_DIRECTLY_BATCH_SIZE)) {
+			List<String> jobNames = new ArrayList<>();
+			for (JobConfig4DB dbJobConfig : batch) {
+				jobNames.add(dbJobConfig.getJobName());
+			}
+			Map<String, JobConfig> jobConfigsFromZK = jobService.getJobConfigsFromZKDirectly(namespace, jobNames);
+			for (JobConfig4DB dbJobConfig : batch) {
+				String jobName = dbJobConfig.getJobName();
+				log.debug("start to diff job:{}@{}", jobName, namespace);
+				JobConfig jobConfigFromZK = jobConfigsFromZK.get(jobName);
+				JobDiffInfo jobDiffInfo;
+				if (jobConfigFromZK == null) {
+					// 对比期间从zk删除
+					jobDiffInfo = new JobDiffInfo(namespace, jobName, JobDiffInfo.DiffType.DB_ONLY,
+							Lists.<JobDiffInfo.ConfigDiffInfo>newArrayList());
+				} else {
+					jobDiffInfo = diff(namespace, dbJobConfig, jobConfigFromZK, false);
+				}
+				if (jobDiffInfo != null) {
+					jobDiffInfos.put(jobName, jobDiffInfo);
+				}
+			}
+		}
+		return jobDiffInfos;
+	}
+
 	@Override
 	public JobDiffInfo diffByJob(String namespace, String jobName) throws SaturnJobConsoleException {
 		CuratorRepository.CuratorFrameworkOp zkClient;
@@ -196,8 +287,100 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 		}
 	}
 
-	private boolean checkJobIsExsitInZk(String jobName, CuratorRepository.CuratorFrameworkOp zkClient) {
-		return zkClient.checkExists(JobNodePath.getJobNodePath(jobName));
+	@Override
+	public String diffByClusterAsync(final String clusterKey) throws SaturnJobConsoleException {
+		removeExpiredDiffTasks();
+		synchronized (diffTaskMap) {
+			for (DiffTask diffTask : diffTaskMap.values()) {
+				if (!diffTask.isFinished() && diffTask.zkClusterKey.equals(clusterKey)) {
+					return diffTask.taskId;
+				}
+			}
+			final List<String> namespaces = namespaceZkClusterMapping4SqlService.getAllNamespacesOfCluster(clusterKey);
+			final DiffTask diffTask = new DiffTask(UUID.randomUUID().toString(), clusterKey,
+					namespaces == null ? 0 : namespaces.size());
+			final int concurrency = getDiffConcurrencyPerZkCluster();
+			diffTaskMap.put(diffTask.taskId, diffTask);
+			asyncDiffExecutorService.submit(new Runnable() {
+				@Override
+				public void run() {
+					runDiffTask(diffTask, namespaces, concurrency);
+				}
+			});
+			log.info("Start diff zkcluster:{} asynchronously, taskId:{}, concurrency:{}", clusterKey, diffTask.taskId,
+					concurrency);
+			return diffTask.taskId;
+		}
+	}
+
+	@Override
+	public ZkDBDiffProgress getDiffProgress(String taskId, int offset, int limit) {
+		DiffTask diffTask = diffTaskMap.get(taskId);
+		if (diffTask == null) {
+			return null;
+		}
+		return diffTask.getProgress(offset, limit);
+	}
+
+	private int getDiffConcurrencyPerZkCluster() {
+		int concurrency = systemConfigService.getIntegerValue(
+				SystemConfigProperties.ZK_DB_DIFF_CONCURRENCY_PER_ZK_CLUSTER, DEFAULT_DIFF_CONCURRENCY_PER_ZK_CLUSTER);
+		return concurrency > 0 ? concurrency : DEFAULT_DIFF_CONCURRENCY_PER_ZK_CLUSTER;
+	}
+
+	/**
+	 * 逐个域提交对比，同时对比的域不超过concurrency个，每个域对比完就追加结果；对比失败的域记录下来，不影响其他域
+	 */
+	private void runDiffTask(final DiffTask diffTask, List<String> namespaces, int concurrency) {
+		final Semaphore semaphore = new Semaphore(concurrency);
+		try {
+			if (namespaces != null) {
+				for (final String namespace : namespaces) {
+					semaphore.acquire();
+					asyncDiffExecutorService.submit(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								diffTask.addResults(diffByNamespace(namespace));
+							} catch (Throwable t) {
+								log.warn("fail to diff namespace:{} of task:{}", namespace, diffTask.taskId, t);
+								diffTask.addFailedNamespace(namespace);
+							} finally {
+								semaphore.release();
+							}
+						}
+					});
+				}
+			}
+			// 等待所有域对比完成
+			semaphore.acquire(concurrency);
+		} catch (InterruptedException e) {
+			log.warn("the diff task:{} is interrupted", diffTask.taskId, e);
+			Thread.currentThread().interrupt();
+		} finally {
+			diffTask.finish();
+			log.info("Finish diff zkcluster:{} asynchronously, taskId:{}, which cost {}ms", diffTask.zkClusterKey,
+					diffTask.taskId, System.currentTimeMillis() - diffTask.startTime);
+		}
+	}
+
+	private void removeExpiredDiffTasks() {
+		long now = System.currentTimeMillis();
+		Iterator<DiffTask> iterator = diffTaskMap.values().iterator();
+		while (iterator.hasNext()) {
+			DiffTask diffTask = iterator.next();
+			if (diffTask.isFinished() && now - diffTask.getFinishTime() > DIFF_TASK_EXPIRE_MS) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private Set<String> getJobNamesInZk(CuratorRepository.CuratorFrameworkOp zkClient) {
+		List<String> jobNames = zkClient.getChildren(JobNodePath.get$JobsNodePath());
+		if (jobNames == null) {
+			return Sets.newHashSet();
+		}
+		return Sets.newHashSet(jobNames);
 	}
 
 	/**
@@ -334,13 +517,16 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 		return null;
 	}
 
-	private List<JobDiffInfo> getJobNamesWhichInZKOnly(String namespace,
-			Set<String> jobNamesInDb) throws SaturnJobConsoleException {
+	private List<JobDiffInfo> getJobNamesWhichInZKOnly(String namespace, Set<String> jobNamesInDb,
+			Set<String> jobNamesInZk, CuratorRepository.CuratorFrameworkOp zkClient) {
 		List<JobDiffInfo> jobsOnlyInZK = Lists.newArrayList();
-		List<String> jobNamesInZk = jobService.getAllJobNamesFromZK(namespace);
+		List<String> sortedJobNamesInZk = new ArrayList<>(jobNamesInZk);
+		Collections.sort(sortedJobNamesInZk);
 
-		for (String name : jobNamesInZk) {
-			if (jobNamesInDb == null || jobNamesInDb.isEmpty() || !jobNamesInDb.contains(name)) {
+		for (String name : sortedJobNamesInZk) {
+			// 只有db中没有的作业才需要检查config节点，config节点存在才视为正常作业
+			if ((jobNamesInDb == null || !jobNamesInDb.contains(name)) && zkClient
+					.checkExists(JobNodePath.getConfigNodePath(name))) {
 				jobsOnlyInZK.add(new JobDiffInfo(namespace, name, JobDiffInfo.DiffType.ZK_ONLY,
 						Lists.<JobDiffInfo.ConfigDiffInfo>newArrayList()));
 			}
@@ -358,4 +544,65 @@ public class ZkDBDiffServiceImpl implements ZkDBDiffService {
 		return jobNames;
 	}
 
+	private static class DiffTask {
+
+		private final String taskId;
+		private final String zkClusterKey;
+		private final int totalNamespaceNum;
+		private final long startTime = System.currentTimeMillis();
+		private final List<JobDiffInfo> results = new ArrayList<>();
+		private final List<String> failedNamespaces = new ArrayList<>();
+		private int diffedNamespaceNum;
+		private boolean finished;
+		private long finishTime;
+
+		private DiffTask(String taskId, String zkClusterKey, int totalNamespaceNum) {
+			this.taskId = taskId;
+			this.zkClusterKey = zkClusterKey;
+			this.totalNamespaceNum = totalNamespaceNum;
+		}
+
+		private synchronized void addResults(List<JobDiffInfo> jobDiffInfos) {
+			if (jobDiffInfos != null) {
+				results.addAll(jobDiffInfos);
+			}
+			diffedNamespaceNum++;
+		}
+
+		private synchronized void addFailedNamespace(String namespace) {
+			failedNamespaces.add(namespace);
+			diffedNamespaceNum++;
+		}
+
+		private synchronized void finish() {
+			finished = true;
+			finishTime = System.currentTimeMillis();
+		}
+
+		private synchronized boolean isFinished() {
+			return finished;
+		}
+
+		private synchronized long getFinishTime() {
+			return finishTime;
+		}
+
+		private synchronized ZkDBDiffProgress getProgress(int offset, int limit) {
+			int fromIndex = Math.min(Math.max(offset, 0), results.size());
+			int toIndex = limit > 0 ? Math.min(fromIndex + limit, results.size()) : results.size();
+			ZkDBDiffProgress progress = new ZkDBDiffProgress();
+			progress.setTaskId(taskId);
+			progress.setZkClusterKey(zkClusterKey);
+			progress.setFinished(finished);
+			progress.setTotalNamespaceNum(totalNamespaceNum);
+			progress.setDiffedNamespaceNum(diffedNamespaceNum);
+			progress.setFailedNamespaces(new ArrayList<>(failedNamespaces));
+			progress.setTotalResultNum(results.size());
+			progress.setOffset(fromIndex);
+			progress.setResults(new ArrayList<>(results.subList(fromIndex, toIndex)));
+			progress.setStartTime(startTime);
+			return progress;
+		}
+	}
+
 }
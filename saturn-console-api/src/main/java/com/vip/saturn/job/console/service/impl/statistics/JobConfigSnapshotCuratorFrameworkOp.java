@@ -0,0 +1,153 @@
+package com.vip.saturn.job.console.service.impl.statistics;
+
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.CuratorFrameworkOp;
+import com.vip.saturn.job.console.service.cache.NamespaceJobConfigCache;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * 统计一个域时使用的zk操作：作业配置节点（$Jobs/jobName/config/*）的读取由作业配置快照提供，只有变更过的配置节点才会被快照重新拉取；其他节点仍直接读zk。
+ * <p>
+ * 同一个作业的配置在一次统计中只从快照读取一次，保证各个统计项看到的配置是一致的。快照中没有的作业回退到直接读zk。非线程安全，每个域的统计各自创建。
+ */
+class JobConfigSnapshotCuratorFrameworkOp implements CuratorFrameworkOp {
+
+	private static final String JOBS_NODE_PATH_PREFIX = JobNodePath.get$JobsNodePath() + "/";
+
+	private static final String CONFIG_NODE_NAME = "config";
+
+	private final CuratorFrameworkOp delegate;
+
+	private final NamespaceJobConfigCache jobConfigCache;
+
+	private final Map<String, Map<String, String>> jobConfigs = new HashMap<>();
+
+	JobConfigSnapshotCuratorFrameworkOp(CuratorFrameworkOp delegate, NamespaceJobConfigCache jobConfigCache) {
+		this.delegate = delegate;
+		this.jobConfigCache = jobConfigCache;
+	}
+
+	private Map<String, String> getJobConfig(String jobName) {
+		if (!jobConfigs.containsKey(jobName)) {
+			jobConfigs.put(jobName, jobConfigCache.getJobConfig(jobName));
+		}
+		return jobConfigs.get(jobName);
+	}
+
+	/**
+	 * @return [jobName, configItem]，configItem为null表示是config节点本身；不是作业配置节点返回null
+	 */
+	private static String[] parseConfigNodePath(String znode) {
+		if (znode == null || !znode.startsWith(JOBS_NODE_PATH_PREFIX)) {
+			return null;
+		}
+		String[] nodes = znode.substring(JOBS_NODE_PATH_PREFIX.length()).split("/");
+		if (nodes.length == 2 && CONFIG_NODE_NAME.equals(nodes[1])) {
+			return new String[] { nodes[0], null };
+		}
+		if (nodes.length == 3 && CONFIG_NODE_NAME.equals(nodes[1])) {
+			return new String[] { nodes[0], nodes[2] };
+		}
+		return null;
+	}
+
+	@Override
+	public boolean checkExists(String znode) {
+		String[] configNode = parseConfigNodePath(znode);
+		if (configNode != null) {
+			Map<String, String> jobConfig = getJobConfig(configNode[0]);
+			if (jobConfig != null) {
+				return configNode[1] == null || jobConfig.containsKey(configNode[1]);
+			}
+		}
+		return delegate.checkExists(znode);
+	}
+
+	@Override
+	public String getData(String znode) {
+		String[] configNode = parseConfigNodePath(znode);
+		if (configNode != null && configNode[1] != null) {
+			Map<String, String> jobConfig = getJobConfig(configNode[0]);
+			if (jobConfig != null) {
+				return jobConfig.get(configNode[1]);
+			}
+		}
+		return delegate.getData(znode);
+	}
+
+	@Override
+	public List<String> getChildren(String znode) {
+		return delegate.getChildren(znode);
+	}
+
+	@Override
+	public Map<String, String> getDataInBatch(Collection<String> znodes) {
+		return delegate.getDataInBatch(znodes);
+	}
+
+	@Override
+	public Map<String, List<String>> getChildrenInBatch(Collection<String> znodes) {
+		return delegate.getChildrenInBatch(znodes);
+	}
+
+	@Override
+	public void create(String znode) {
+		delegate.create(znode);
+	}
+
+	@Override
+	public void create(String znode, Object value) {
+		delegate.create(znode, value);
+	}
+
+	@Override
+	public void update(String znode, Object value) {
+		delegate.update(znode, value);
+	}
+
+	@Override
+	public void delete(String znode) {
+		delegate.delete(znode);
+	}
+
+	@Override
+	public void deleteRecursive(String znode) {
+		delegate.deleteRecursive(znode);
+	}
+
+	@Override
+	public void fillJobNodeIfNotExist(String node, Object value) {
+		delegate.fillJobNodeIfNotExist(node, value);
+	}
+
+	@Override
+	public Stat getStat(String node) {
+		return delegate.getStat(node);
+	}
+
+	@Override
+	public long getMtime(String node) {
+		return delegate.getMtime(node);
+	}
+
+	@Override
+	public long getCtime(String node) {
+		return delegate.getCtime(node);
+	}
+
+	@Override
+	public CuratorTransactionOp inTransaction() {
+		return delegate.inTransaction();
+	}
+
+	@Override
+	public CuratorFramework getCuratorFramework() {
+		return delegate.getCuratorFramework();
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.vip.saturn.job.console.service.impl.statistics;
+
+import com.vip.saturn.job.console.domain.AbnormalJob;
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.CuratorFrameworkOp;
+import com.vip.saturn.job.console.service.cache.NamespaceJobConfigCache;
+import com.vip.saturn.job.console.service.impl.statistics.analyzer.ExecutorInfoAnalyzer.NamespaceExecutorInfo;
+import com.vip.saturn.job.console.utils.ExecutorNodePath;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * 域的统计结果中不随时间变化的部分：在线executor和无法高可用的作业。
+ * <p>
+ * 域的版本由$Jobs、$SaturnExecutors/executors的pzxid和cversion，$SaturnExecutors/sharding/count的mzxid，以及作业配置缓存的版本组成：
+ * 作业的增删会修改$Jobs的子节点；executor的上下线、摘流量，作业的启用禁用都会触发分片，分片结束后leader会更新sharding/count；
+ * 作业配置的修改由作业配置缓存的版本反映。版本没有变化时，下一轮刷新直接使用这些结果，不再逐个读取executor的节点、逐个作业查询可选的executor。
+ * <p>
+ * 作业的执行次数、分片，超时告警、过时未跑等统计随时间变化，每轮刷新仍然重新分析。
+ */
+class NamespaceStatisticsSnapshot {
+
+	/**
+	 * 即使版本没有变化，也定期重新分析，避免没有触发分片的变化（比如没有作业的域的executor上下线）一直没有反映到统计结果
+	 */
+	static final long EXPIRE_MS = 30L * 60 * 1000;
+
+	private final String version;
+
+	private final NamespaceExecutorInfo executorInfo;
+
+	private final List<AbnormalJob> unableFailoverJobs;
+
+	private final long createTime = System.currentTimeMillis();
+
+	NamespaceStatisticsSnapshot(String version, NamespaceExecutorInfo executorInfo,
+			List<AbnormalJob> unableFailoverJobs) {
+		this.version = version;
+		this.executorInfo = executorInfo;
+		this.unableFailoverJobs = new ArrayList<>(unableFailoverJobs);
+	}
+
+	/**
+	 * 读取域的版本，需要在分析之前读取，分析过程中的修改会在下一轮刷新时被发现
+	 *
+	 * @return 作业配置缓存不可用时返回null，此时无法发现作业配置的修改，不能使用上一轮的结果
+	 */
+	static String readVersion(CuratorFrameworkOp curatorFrameworkOp, NamespaceJobConfigCache jobConfigCache) {
+		if (jobConfigCache == null || !jobConfigCache.isAvailable()) {
+			return null;
+		}
+		// 作业配置缓存重建后版本从零开始，加上缓存实例的标识
+		long jobConfigVersion = jobConfigCache.getVersion();
+		return getChildrenVersion(curatorFrameworkOp.getStat(JobNodePath.get$JobsNodePath())) + "|"
+				+ getChildrenVersion(curatorFrameworkOp.getStat(ExecutorNodePath.getExecutorNodePath())) + "|"
+				+ getDataVersion(curatorFrameworkOp.getStat(ExecutorNodePath.SHARDING_COUNT_PATH)) + "|"
+				+ System.identityHashCode(jobConfigCache) + ":" + jobConfigVersion;
+	}
+
+	private static String getChildrenVersion(Stat stat) {
+		return stat == null ? "-" : stat.getPzxid() + ":" + stat.getCversion();
+	}
+
+	private static String getDataVersion(Stat stat) {
+		return stat == null ? "-" : String.valueOf(stat.getMzxid());
+	}
+
+	boolean isValid(String version) {
+		return this.version.equals(version) && System.currentTimeMillis() - createTime < EXPIRE_MS;
+	}
+
+	NamespaceExecutorInfo getExecutorInfo() {
+		return executorInfo;
+	}
+
+	List<AbnormalJob> getUnableFailoverJobs() {
+		return unableFailoverJobs;
+	}
+}
@@ -11,7 +11,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,126 +30,194 @@ public class StatisticsPersistence {
 	public void persist(StatisticsModel statisticsModel, ZkCluster zkCluster) {
 		List<JobStatistics> jobList = statisticsModel.getJobStatisticsAnalyzer().getJobList();
 		List<ExecutorStatistics> executorList = statisticsModel.getExecutorInfoAnalyzer().getExecutorList();
+		String zkAddr = zkCluster.getZkAddr();
+		Map<String, SaturnStatistics> statisticsFromDB;
+		try {
+			statisticsFromDB = findStatisticsFromDB(zkAddr);
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+			return;
+		}
+		Map<String, String> results = new LinkedHashMap<>();
+		// 单独存储的已读标记，合并到新的告警作业列表中
+		Map<String, List<String>> readUuidsMap = findReadUuidsFromDB(zkAddr, statisticsFromDB);
 
 		// 全域当天处理总数，失败总数
-		saveOrUpdateDomainProcessCount(
+		collectDomainProcessCount(
 				new ZkStatistics(statisticsModel.getZkClusterDailyCountAnalyzer().getTotalCount(),
-						statisticsModel.getZkClusterDailyCountAnalyzer().getErrorCount()),
-				zkCluster.getZkAddr());
+						statisticsModel.getZkClusterDailyCountAnalyzer().getErrorCount()), results);
 
 		// 失败率Top10的域列表
-		saveOrUpdateTop10FailDomain(statisticsModel.getDomainStatisticsAnalyzer().getDomainList(),
-				zkCluster.getZkAddr());
+		collectTop10FailDomain(statisticsModel.getDomainStatisticsAnalyzer().getDomainList(), results);
 
 		// 稳定性最差的Top10的域列表
-		saveOrUpdateTop10UnstableDomain(statisticsModel.getDomainStatisticsAnalyzer().getDomainList(),
-				zkCluster.getZkAddr());
+		collectTop10UnstableDomain(statisticsModel.getDomainStatisticsAnalyzer().getDomainList(), results);
 
 		// 稳定性最差的Top10的executor列表
-		saveOrUpdateTop10FailExecutor(executorList, zkCluster.getZkAddr());
+		collectTop10FailExecutor(executorList, results);
 
 		// 根据失败率Top10的作业列表
-		saveOrUpdateTop10FailJob(jobList, zkCluster.getZkAddr());
+		collectTop10FailJob(jobList, results);
 
 		// 最活跃作业Top10的作业列表(即当天执行次数最多的作业)
-		saveOrUpdateTop10ActiveJob(jobList, zkCluster.getZkAddr());
+		collectTop10ActiveJob(jobList, results);
 
 		// 负荷最重的Top10的作业列表
-		saveOrUpdateTop10LoadJob(jobList, zkCluster.getZkAddr());
+		collectTop10LoadJob(jobList, results);
 
 		// 负荷最重的Top10的Executor列表
-		saveOrUpdateTop10LoadExecutor(executorList, zkCluster.getZkAddr());
+		collectTop10LoadExecutor(executorList, results);
 
 		// 异常作业列表 (如下次调度时间已经过了，但是作业没有被调度)
-		saveOrUpdateAbnormalJob(statisticsModel.getOutdatedNoRunningJobAnalyzer().getOutdatedNoRunningJobs(),
-				zkCluster.getZkAddr());
+		collectAbnormalJob(statisticsModel.getOutdatedNoRunningJobAnalyzer().getOutdatedNoRunningJobs(),
+				statisticsFromDB, readUuidsMap, results);
 
 		// 超时告警的作业列表
-		saveOrUpdateTimeout4AlarmJob(statisticsModel.getTimeout4AlarmJobAnalyzer().getTimeout4AlarmJobList(),
-				zkCluster.getZkAddr());
+		collectTimeout4AlarmJob(statisticsModel.getTimeout4AlarmJobAnalyzer().getTimeout4AlarmJobList(),
+				statisticsFromDB, readUuidsMap, results);
 
 		// 无法高可用的作业列表
-		saveOrUpdateUnableFailoverJob(statisticsModel.getUnableFailoverJobAnalyzer().getUnableFailoverJobList(),
-				zkCluster.getZkAddr());
+		collectUnableFailoverJob(statisticsModel.getUnableFailoverJobAnalyzer().getUnableFailoverJobList(), results);
 
 		// 不同版本的域数量
-		saveOrUpdateVersionDomainNumber(statisticsModel.getExecutorInfoAnalyzer().getVersionDomainNumber(),
-				zkCluster.getZkAddr());
+		collectVersionDomainNumber(statisticsModel.getExecutorInfoAnalyzer().getVersionDomainNumber(), results);
 
 		// 不同版本的executor数量
-		saveOrUpdateVersionExecutorNumber(statisticsModel.getExecutorInfoAnalyzer().getVersionExecutorNumber(),
-				zkCluster.getZkAddr());
+		collectVersionExecutorNumber(statisticsModel.getExecutorInfoAnalyzer().getVersionExecutorNumber(), results);
 
 		// 不同作业等级的作业数量
-		saveOrUpdateJobRankDistribution(jobList, zkCluster.getZkAddr());
+		collectJobRankDistribution(jobList, results);
 
 		// 容器executor数量
-		saveOrUpdateExecutorInDockerCount(statisticsModel.getExecutorInfoAnalyzer().getExeInDocker(),
-				zkCluster.getZkAddr());
+		collectExecutorInDockerCount(statisticsModel.getExecutorInfoAnalyzer().getExeInDocker(), results);
 
 		// 物理机executor数量
-		saveOrUpdateExecutorNotInDockerCount(statisticsModel.getExecutorInfoAnalyzer().getExeNotInDocker(),
-				zkCluster.getZkAddr());
+		collectExecutorNotInDockerCount(statisticsModel.getExecutorInfoAnalyzer().getExeNotInDocker(), results);
 
 		// 作业数量
-		saveOrUpdateJobCount(jobList.size(), zkCluster.getZkAddr());
+		collectJobCount(jobList.size(), results);
+
+		if (saveOrUpdateChangedStatistics(results, statisticsFromDB, zkAddr)) {
+			deleteMergedReadUuids(readUuidsMap, results, zkAddr);
+		}
+	}
+
+	/**
+	 * 一次查询出该zk集群所有的统计结果
+	 */
+	private Map<String, SaturnStatistics> findStatisticsFromDB(String zkAddr) {
+		Map<String, SaturnStatistics> statisticsFromDB = new HashMap<>();
+		List<SaturnStatistics> statisticsList = saturnStatisticsService.findStatisticsByZkList(zkAddr);
+		if (statisticsList != null) {
+			for (SaturnStatistics saturnStatistics : statisticsList) {
+				// 与findStatisticsByNameAndZkList一致，同名的取第一条
+				if (!statisticsFromDB.containsKey(saturnStatistics.getName())) {
+					statisticsFromDB.put(saturnStatistics.getName(), saturnStatistics);
+				}
+			}
+		}
+		return statisticsFromDB;
 	}
 
-	private void saveOrUpdateJobCount(int jobCount, String zkAddr) {
+	private Map<String, List<String>> findReadUuidsFromDB(String zkAddr,
+			Map<String, SaturnStatistics> statisticsFromDB) {
+		Map<String, List<String>> readUuidsMap = new HashMap<>();
+		for (String name : new String[]{StatisticsTableKeyConstant.UNNORMAL_JOB,
+				StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB}) {
+			if (!statisticsFromDB.containsKey(name)) {
+				continue;
+			}
+			try {
+				List<String> readUuids = saturnStatisticsService.findReadUuids(name, zkAddr);
+				if (readUuids != null && !readUuids.isEmpty()) {
+					readUuidsMap.put(name, readUuids);
+				}
+			} catch (Exception e) {
+				log.error(e.getMessage(), e);
+			}
+		}
+		return readUuidsMap;
+	}
+
+	/**
+	 * 已读标记已经合并到保存成功的告警作业列表中，删除单独存储的已读标记。已经恢复正常的告警作业的已读标记也一并删除。
+	 */
+	private void deleteMergedReadUuids(Map<String, List<String>> readUuidsMap, Map<String, String> results,
+			String zkAddr) {
+		for (Map.Entry<String, List<String>> entry : readUuidsMap.entrySet()) {
+			if (!results.containsKey(entry.getKey())) {
+				continue;
+			}
+			try {
+				saturnStatisticsService.deleteReadUuids(entry.getKey(), zkAddr, entry.getValue());
+			} catch (Exception e) {
+				log.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * 只保存内容有变化的统计结果，新增的批量插入，变化的批量更新
+	 *
+	 * @return 是否保存成功，没有变化也认为成功
+	 */
+	private boolean saveOrUpdateChangedStatistics(Map<String, String> results,
+			Map<String, SaturnStatistics> statisticsFromDB, String zkAddr) {
+		List<SaturnStatistics> toCreateList = new ArrayList<>();
+		List<SaturnStatistics> toUpdateList = new ArrayList<>();
+		for (Map.Entry<String, String> entry : results.entrySet()) {
+			SaturnStatistics saturnStatistics = statisticsFromDB.get(entry.getKey());
+			if (saturnStatistics == null) {
+				toCreateList.add(new SaturnStatistics(entry.getKey(), zkAddr, entry.getValue()));
+			} else if (!entry.getValue().equals(saturnStatistics.getResult())) {
+				saturnStatistics.setResult(entry.getValue());
+				toUpdateList.add(saturnStatistics);
+			}
+		}
+		if (toCreateList.isEmpty() && toUpdateList.isEmpty()) {
+			log.info("statistics of zkAddr:{} are not changed", zkAddr);
+			return true;
+		}
+		try {
+			saturnStatisticsService.batchCreateOrUpdate(toCreateList, toUpdateList);
+			log.info("persist statistics of zkAddr:{}, created:{}, updated:{}, unchanged:{}", zkAddr,
+					toCreateList.size(), toUpdateList.size(),
+					results.size() - toCreateList.size() - toUpdateList.size());
+			return true;
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+			return false;
+		}
+	}
+
+	private void collectJobCount(int jobCount, Map<String, String> results) {
 		try {
 			String jobCountString = JSON.toJSONString(jobCount);
-			SaturnStatistics jobCountFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.JOB_COUNT, zkAddr);
-			if (jobCountFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.JOB_COUNT, zkAddr,
-						jobCountString);
-				saturnStatisticsService.create(ss);
-			} else {
-				jobCountFromDB.setResult(jobCountString);
-				saturnStatisticsService.updateByPrimaryKey(jobCountFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.JOB_COUNT, jobCountString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateExecutorNotInDockerCount(int exeNotInDocker, String zkAddr) {
+	private void collectExecutorNotInDockerCount(int exeNotInDocker, Map<String, String> results) {
 		try {
 			String exeNotInDockerString = JSON.toJSONString(exeNotInDocker);
-			SaturnStatistics exeNotInDockerFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.EXECUTOR_NOT_IN_DOCKER_COUNT, zkAddr);
-			if (exeNotInDockerFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.EXECUTOR_NOT_IN_DOCKER_COUNT,
-						zkAddr, exeNotInDockerString);
-				saturnStatisticsService.create(ss);
-			} else {
-				exeNotInDockerFromDB.setResult(exeNotInDockerString);
-				saturnStatisticsService.updateByPrimaryKey(exeNotInDockerFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.EXECUTOR_NOT_IN_DOCKER_COUNT, exeNotInDockerString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateExecutorInDockerCount(int exeInDocker, String zkAddr) {
+	private void collectExecutorInDockerCount(int exeInDocker, Map<String, String> results) {
 		try {
 			String exeInDockerString = JSON.toJSONString(exeInDocker);
-			SaturnStatistics exeInDockerFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.EXECUTOR_IN_DOCKER_COUNT, zkAddr);
-			if (exeInDockerFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.EXECUTOR_IN_DOCKER_COUNT, zkAddr,
-						exeInDockerString);
-				saturnStatisticsService.create(ss);
-			} else {
-				exeInDockerFromDB.setResult(exeInDockerString);
-				saturnStatisticsService.updateByPrimaryKey(exeInDockerFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.EXECUTOR_IN_DOCKER_COUNT, exeInDockerString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateJobRankDistribution(List<JobStatistics> jobList, String zkBsKey) {
+	private void collectJobRankDistribution(List<JobStatistics> jobList, Map<String, String> results) {
 		try {
 			Map<Integer, Integer> jobDegreeCountMap = new HashMap<>();
 			for (JobStatistics jobStatistics : jobList) {
@@ -156,200 +226,116 @@ public class StatisticsPersistence {
 				jobDegreeCountMap.put(jobDegree, count == null ? 1 : count + 1);
 			}
 			String jobDegreeMapString = JSON.toJSONString(jobDegreeCountMap);
-			SaturnStatistics jobDegreeMapFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.JOB_RANK_DISTRIBUTION, zkBsKey);
-			if (jobDegreeMapFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.JOB_RANK_DISTRIBUTION, zkBsKey,
-						jobDegreeMapString);
-				saturnStatisticsService.create(ss);
-			} else {
-				jobDegreeMapFromDB.setResult(jobDegreeMapString);
-				saturnStatisticsService.updateByPrimaryKey(jobDegreeMapFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.JOB_RANK_DISTRIBUTION, jobDegreeMapString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateTop10FailExecutor(List<ExecutorStatistics> executorList, String zkAddr) {
+	private void collectTop10FailExecutor(List<ExecutorStatistics> executorList, Map<String, String> results) {
 		try {
 			executorList = DashboardServiceHelper.sortExecutorByFailureRate(executorList);
 			List<ExecutorStatistics> top10FailExecutor = executorList.subList(0,
 					executorList.size() > 9 ? 10 : executorList.size());
 			String top10FailExecutorJsonString = JSON.toJSONString(top10FailExecutor);
-			SaturnStatistics top10FailExecutorFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TOP_10_FAIL_EXECUTOR, zkAddr);
-			if (top10FailExecutorFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.TOP_10_FAIL_EXECUTOR, zkAddr,
-						top10FailExecutorJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				top10FailExecutorFromDB.setResult(top10FailExecutorJsonString);
-				saturnStatisticsService.updateByPrimaryKey(top10FailExecutorFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.TOP_10_FAIL_EXECUTOR, top10FailExecutorJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 
 	}
 
-	private void saveOrUpdateTop10FailDomain(List<DomainStatistics> domainList, String zkAddr) {
+	private void collectTop10FailDomain(List<DomainStatistics> domainList, Map<String, String> results) {
 		try {
 			domainList = DashboardServiceHelper.sortDomainByAllTimeFailureRate(domainList);
 			List<DomainStatistics> top10FailDomainList = domainList.subList(0,
 					domainList.size() > 9 ? 10 : domainList.size());
 			String top10FailDomainJsonString = JSON.toJSONString(top10FailDomainList);
-			SaturnStatistics top10FailDomainFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TOP_10_FAIL_DOMAIN, zkAddr);
-			if (top10FailDomainFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.TOP_10_FAIL_DOMAIN, zkAddr,
-						top10FailDomainJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				top10FailDomainFromDB.setResult(top10FailDomainJsonString);
-				saturnStatisticsService.updateByPrimaryKey(top10FailDomainFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.TOP_10_FAIL_DOMAIN, top10FailDomainJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateTop10UnstableDomain(List<DomainStatistics> domainList, String zkAddr) {
+	private void collectTop10UnstableDomain(List<DomainStatistics> domainList, Map<String, String> results) {
 		try {
 			domainList = DashboardServiceHelper.sortDomainByShardingCount(domainList);
 			List<DomainStatistics> top10UnstableDomain = domainList.subList(0,
 					domainList.size() > 9 ? 10 : domainList.size());
 			String top10UnstableDomainJsonString = JSON.toJSONString(top10UnstableDomain);
-			SaturnStatistics top10UnstableDomainFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TOP_10_UNSTABLE_DOMAIN, zkAddr);
-			if (top10UnstableDomainFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.TOP_10_UNSTABLE_DOMAIN, zkAddr,
-						top10UnstableDomainJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				top10UnstableDomainFromDB.setResult(top10UnstableDomainJsonString);
-				saturnStatisticsService.updateByPrimaryKey(top10UnstableDomainFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.TOP_10_UNSTABLE_DOMAIN, top10UnstableDomainJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateTop10FailJob(List<JobStatistics> jobList, String zkAddr) {
+	private void collectTop10FailJob(List<JobStatistics> jobList, Map<String, String> results) {
 		try {
 			jobList = DashboardServiceHelper.sortJobByAllTimeFailureRate(jobList);
 			List<JobStatistics> top10FailJob = jobList.subList(0, jobList.size() > 9 ? 10 : jobList.size());
 			String top10FailJobJsonString = JSON.toJSONString(top10FailJob);
-			SaturnStatistics top10FailJobFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TOP_10_FAIL_JOB, zkAddr);
-			if (top10FailJobFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.TOP_10_FAIL_JOB, zkAddr,
-						top10FailJobJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				top10FailJobFromDB.setResult(top10FailJobJsonString);
-				saturnStatisticsService.updateByPrimaryKey(top10FailJobFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.TOP_10_FAIL_JOB, top10FailJobJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateTop10ActiveJob(List<JobStatistics> jobList, String zkAddr) {
+	private void collectTop10ActiveJob(List<JobStatistics> jobList, Map<String, String> results) {
 		try {
 			jobList = DashboardServiceHelper.sortJobByDayProcessCount(jobList);
 			List<JobStatistics> top10ActiveJob = jobList.subList(0, jobList.size() > 9 ? 10 : jobList.size());
 			String top10ActiveJobJsonString = JSON.toJSONString(top10ActiveJob);
-			SaturnStatistics top10ActiveJobFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TOP_10_ACTIVE_JOB, zkAddr);
-			if (top10ActiveJobFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.TOP_10_ACTIVE_JOB, zkAddr,
-						top10ActiveJobJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				top10ActiveJobFromDB.setResult(top10ActiveJobJsonString);
-				saturnStatisticsService.updateByPrimaryKey(top10ActiveJobFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.TOP_10_ACTIVE_JOB, top10ActiveJobJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateTop10LoadJob(List<JobStatistics> jobList, String zkAddr) {
+	private void collectTop10LoadJob(List<JobStatistics> jobList, Map<String, String> results) {
 		try {
 			jobList = DashboardServiceHelper.sortJobByLoadLevel(jobList);
 			List<JobStatistics> top10LoadJob = jobList.subList(0, jobList.size() > 9 ? 10 : jobList.size());
 			String top10LoadJobJsonString = JSON.toJSONString(top10LoadJob);
-			SaturnStatistics top10LoadJobFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TOP_10_LOAD_JOB, zkAddr);
-			if (top10LoadJobFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.TOP_10_LOAD_JOB, zkAddr,
-						top10LoadJobJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				top10LoadJobFromDB.setResult(top10LoadJobJsonString);
-				saturnStatisticsService.updateByPrimaryKey(top10LoadJobFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.TOP_10_LOAD_JOB, top10LoadJobJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateTop10LoadExecutor(List<ExecutorStatistics> executorList, String zkAddr) {
+	private void collectTop10LoadExecutor(List<ExecutorStatistics> executorList, Map<String, String> results) {
 		try {
 			executorList = DashboardServiceHelper.sortExecutorByLoadLevel(executorList);
 			List<ExecutorStatistics> top10LoadExecutor = executorList.subList(0,
 					executorList.size() > 9 ? 10 : executorList.size());
 			String top10LoadExecutorJsonString = JSON.toJSONString(top10LoadExecutor);
-			SaturnStatistics top10LoadExecutorFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TOP_10_LOAD_EXECUTOR, zkAddr);
-			if (top10LoadExecutorFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.TOP_10_LOAD_EXECUTOR, zkAddr,
-						top10LoadExecutorJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				top10LoadExecutorFromDB.setResult(top10LoadExecutorJsonString);
-				saturnStatisticsService.updateByPrimaryKey(top10LoadExecutorFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.TOP_10_LOAD_EXECUTOR, top10LoadExecutorJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateDomainProcessCount(ZkStatistics zks, String zkAddr) {
+	private void collectDomainProcessCount(ZkStatistics zks, Map<String, String> results) {
 		try {
 			String domainListJsonString = JSON.toJSONString(zks);
-			SaturnStatistics domainProcessCountFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.DOMAIN_PROCESS_COUNT_OF_THE_DAY, zkAddr);
-			if (domainProcessCountFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.DOMAIN_PROCESS_COUNT_OF_THE_DAY,
-						zkAddr, domainListJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				domainProcessCountFromDB.setResult(domainListJsonString);
-				saturnStatisticsService.updateByPrimaryKey(domainProcessCountFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.DOMAIN_PROCESS_COUNT_OF_THE_DAY, domainListJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateAbnormalJob(List<AbnormalJob> unnormalJobList, String zkAddr) {
+	private void collectAbnormalJob(List<AbnormalJob> unnormalJobList, Map<String, SaturnStatistics> statisticsFromDB,
+			Map<String, List<String>> readUuidsMap, Map<String, String> results) {
 		try {
 			unnormalJobList = DashboardServiceHelper.sortUnnormaoJobByTimeDesc(unnormalJobList);
-			SaturnStatistics unnormalJobFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.UNNORMAL_JOB, zkAddr);
-			if (unnormalJobFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.UNNORMAL_JOB, zkAddr,
-						JSON.toJSONString(unnormalJobList));
-				saturnStatisticsService.create(ss);
-			} else {
+			SaturnStatistics unnormalJobFromDB = statisticsFromDB.get(StatisticsTableKeyConstant.UNNORMAL_JOB);
+			if (unnormalJobFromDB != null) {
 				List<AbnormalJob> oldUnnormalJobList = JSON
 						.parseArray(unnormalJobFromDB.getResult(), AbnormalJob.class);
+				DashboardServiceHelper.mergeReadUuids(oldUnnormalJobList,
+						readUuidsMap.get(StatisticsTableKeyConstant.UNNORMAL_JOB));
 				dealWithReadStatus(unnormalJobList, oldUnnormalJobList);
-				unnormalJobFromDB.setResult(JSON.toJSONString(unnormalJobList));
-				saturnStatisticsService.updateByPrimaryKey(unnormalJobFromDB);
 			}
+			results.put(StatisticsTableKeyConstant.UNNORMAL_JOB, JSON.toJSONString(unnormalJobList));
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
@@ -367,22 +353,20 @@ public class StatisticsPersistence {
 		}
 	}
 
-	private void saveOrUpdateTimeout4AlarmJob(List<Timeout4AlarmJob> timeout4AlarmJobList, String zkAddr) {
+	private void collectTimeout4AlarmJob(List<Timeout4AlarmJob> timeout4AlarmJobList,
+			Map<String, SaturnStatistics> statisticsFromDB, Map<String, List<String>> readUuidsMap,
+			Map<String, String> results) {
 		try {
-			String timeout4AlarmJobJsonString = JSON.toJSONString(timeout4AlarmJobList);
-			SaturnStatistics timeout4AlarmJobFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB, zkAddr);
-			if (timeout4AlarmJobFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB, zkAddr,
-						timeout4AlarmJobJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
+			SaturnStatistics timeout4AlarmJobFromDB = statisticsFromDB
+					.get(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB);
+			if (timeout4AlarmJobFromDB != null) {
 				List<Timeout4AlarmJob> oldTimeout4AlarmJobs = JSON
 						.parseArray(timeout4AlarmJobFromDB.getResult(), Timeout4AlarmJob.class);
+				DashboardServiceHelper.mergeReadUuids(oldTimeout4AlarmJobs,
+						readUuidsMap.get(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB));
 				dealWithReadStatus4Timeout4AlarmJob(timeout4AlarmJobList, oldTimeout4AlarmJobs);
-				timeout4AlarmJobFromDB.setResult(JSON.toJSONString(timeout4AlarmJobList));
-				saturnStatisticsService.updateByPrimaryKey(timeout4AlarmJobFromDB);
 			}
+			results.put(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB, JSON.toJSONString(timeout4AlarmJobList));
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
@@ -401,55 +385,28 @@ public class StatisticsPersistence {
 		}
 	}
 
-	private void saveOrUpdateUnableFailoverJob(List<AbnormalJob> unableFailoverJobList, String zkAddr) {
+	private void collectUnableFailoverJob(List<AbnormalJob> unableFailoverJobList, Map<String, String> results) {
 		try {
 			String unableFailoverJobJsonString = JSON.toJSONString(unableFailoverJobList);
-			SaturnStatistics unableFailoverJobFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.UNABLE_FAILOVER_JOB, zkAddr);
-			if (unableFailoverJobFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.UNABLE_FAILOVER_JOB, zkAddr,
-						unableFailoverJobJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				unableFailoverJobFromDB.setResult(unableFailoverJobJsonString);
-				saturnStatisticsService.updateByPrimaryKey(unableFailoverJobFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.UNABLE_FAILOVER_JOB, unableFailoverJobJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateVersionDomainNumber(Map<String, Long> versionDomainNumber, String zkAddr) {
+	private void collectVersionDomainNumber(Map<String, Long> versionDomainNumber, Map<String, String> results) {
 		try {
 			String versionDomainNumberJsonString = JSON.toJSONString(versionDomainNumber);
-			SaturnStatistics versionDomainNumberFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.VERSION_DOMAIN_NUMBER, zkAddr);
-			if (versionDomainNumberFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.VERSION_DOMAIN_NUMBER, zkAddr,
-						versionDomainNumberJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				versionDomainNumberFromDB.setResult(versionDomainNumberJsonString);
-				saturnStatisticsService.updateByPrimaryKey(versionDomainNumberFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.VERSION_DOMAIN_NUMBER, versionDomainNumberJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
 	}
 
-	private void saveOrUpdateVersionExecutorNumber(Map<String, Long> versionExecutorNumber, String zkAddr) {
+	private void collectVersionExecutorNumber(Map<String, Long> versionExecutorNumber, Map<String, String> results) {
 		try {
 			String versionExecutorNumberJsonString = JSON.toJSONString(versionExecutorNumber);
-			SaturnStatistics versionExecutorNumberFromDB = saturnStatisticsService
-					.findStatisticsByNameAndZkList(StatisticsTableKeyConstant.VERSION_EXECUTOR_NUMBER, zkAddr);
-			if (versionExecutorNumberFromDB == null) {
-				SaturnStatistics ss = new SaturnStatistics(StatisticsTableKeyConstant.VERSION_EXECUTOR_NUMBER, zkAddr,
-						versionExecutorNumberJsonString);
-				saturnStatisticsService.create(ss);
-			} else {
-				versionExecutorNumberFromDB.setResult(versionExecutorNumberJsonString);
-				saturnStatisticsService.updateByPrimaryKey(versionExecutorNumberFromDB);
-			}
+			results.put(StatisticsTableKeyConstant.VERSION_EXECUTOR_NUMBER, versionExecutorNumberJsonString);
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
@@ -12,7 +12,9 @@ import com.vip.saturn.job.console.service.JobService;
 import com.vip.saturn.job.console.service.RegistryCenterService;
 import com.vip.saturn.job.console.service.StatisticsRefreshService;
 import com.vip.saturn.job.console.service.SystemConfigService;
+import com.vip.saturn.job.console.service.cache.NamespaceJobConfigCache;
 import com.vip.saturn.job.console.service.helper.DashboardConstants;
+import com.vip.saturn.job.console.service.helper.DashboardServiceHelper;
 import com.vip.saturn.job.console.service.helper.ZkClusterMappingUtils;
 import com.vip.saturn.job.console.service.impl.statistics.analyzer.*;
 import com.vip.saturn.job.console.utils.ConsoleThreadFactory;
@@ -39,6 +41,8 @@ import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author timmy.hu
@@ -51,7 +55,17 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 
 	private static final int SO_TIMEOUT_MS = 180_000;
 
-	private static final int STAT_THREAD_NUM = 20;
+	static final int STAT_THREAD_NUM = 20;
+
+	/**
+	 * 每个zk集群统计域的最小并发数
+	 */
+	static final int MIN_STAT_CONCURRENCY = 2;
+
+	/**
+	 * 每个zk集群统计域的初始并发数，之后根据每轮刷新的耗时调整
+	 */
+	static final int INITIAL_STAT_CONCURRENCY = (MIN_STAT_CONCURRENCY + STAT_THREAD_NUM) / 2;
 
 	private Timer refreshStatisticsTimer;
 
@@ -81,6 +95,14 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 
 	private ExecutorService statExecutorService;
 
+	/**
+	 * 各个zk集群并行刷新，每个集群一个线程；定时器只负责提交，不等待刷新结束，耗时长的集群不会推迟其他集群的下一轮刷新
+	 */
+	private ExecutorService zkClusterExecutorService;
+
+	private ConcurrentHashMap<String/** zkClusterKey **/
+			, ZkClusterRefreshState> zkClusterRefreshStateMap = new ConcurrentHashMap<>();
+
 	@PostConstruct
 	public void init() {
 		initStatExecutorService();
@@ -93,6 +115,9 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 		if (statExecutorService != null) {
 			statExecutorService.shutdownNow();
 		}
+		if (zkClusterExecutorService != null) {
+			zkClusterExecutorService.shutdownNow();
+		}
 		if (refreshStatisticsTimer != null) {
 			refreshStatisticsTimer.cancel();
 		}
@@ -110,6 +135,11 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 				new LinkedBlockingQueue<Runnable>(), new ConsoleThreadFactory("dashboard-statistics-thread", true));
 		tp.allowCoreThreadTimeOut(true);
 		statExecutorService = tp;
+		if (zkClusterExecutorService != null) {
+			zkClusterExecutorService.shutdownNow();
+		}
+		zkClusterExecutorService = Executors
+				.newCachedThreadPool(new ConsoleThreadFactory("dashboard-statistics-zkCluster-thread", true));
 	}
 
 	private void startRefreshStatisticsTimer() {
@@ -121,7 +151,7 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 					Date start = new Date();
 					Collection<ZkCluster> zkClusterList = registryCenterService.getZkClusterList();
 					if (zkClusterList != null) {
-						for (ZkCluster zkCluster : zkClusterList) {
+						for (final ZkCluster zkCluster : zkClusterList) {
 							if (zkCluster.isOffline()) {
 								log.info("zkcluster:{} is offline, skip statistics refresh.",
 										zkCluster.getZkClusterKey());
@@ -129,11 +159,20 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 							}
 
 							if (registryCenterService.isDashboardLeader(zkCluster.getZkClusterKey())) {
-								refreshStatistics2DB(zkCluster);
+								zkClusterExecutorService.submit(new Runnable() {
+									@Override
+									public void run() {
+										try {
+											refreshStatistics2DBIfNotRefreshing(zkCluster);
+										} catch (Throwable t) {
+											log.error(t.getMessage(), t);
+										}
+									}
+								});
 							}
 						}
 					}
-					log.info("end refresh statistics on timer which takes {}ms",
+					log.info("end submit refresh statistics on timer which takes {}ms",
 							new Date().getTime() - start.getTime());
 				} catch (Throwable t) {
 					log.error(t.getMessage(), t);
@@ -145,6 +184,44 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 				1000L * 60 * DashboardConstants.REFRESH_INTERVAL_IN_MINUTE);
 	}
 
+	/**
+	 * 定时刷新时，上一轮刷新还没有结束的集群本轮跳过，避免同一个集群的刷新越积越多
+	 */
+	private void refreshStatistics2DBIfNotRefreshing(ZkCluster zkCluster) {
+		ZkClusterRefreshState refreshState = getRefreshState(zkCluster.getZkClusterKey());
+		if (!refreshState.tryStartRefresh()) {
+			log.warn("the last refresh statistics of zkClusterKey:{} is not finished, skip this time",
+					zkCluster.getZkClusterKey());
+			return;
+		}
+		try {
+			refreshStatistics2DB(zkCluster);
+		} finally {
+			refreshState.finishRefresh();
+		}
+	}
+
+	private ZkClusterRefreshState getRefreshState(String zkClusterKey) {
+		ZkClusterRefreshState refreshState = zkClusterRefreshStateMap.get(zkClusterKey);
+		if (refreshState == null) {
+			refreshState = new ZkClusterRefreshState();
+			ZkClusterRefreshState pre = zkClusterRefreshStateMap.putIfAbsent(zkClusterKey, refreshState);
+			if (pre != null) {
+				refreshState = pre;
+			}
+		}
+		return refreshState;
+	}
+
+	@Override
+	public Map<String, Long> getLastRefreshCostMs() {
+		Map<String, Long> result = new HashMap<>();
+		for (Entry<String, ZkClusterRefreshState> entry : zkClusterRefreshStateMap.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().getLastCostMs());
+		}
+		return result;
+	}
+
 	private void startCleanAbnormalShardingCacheTimer() {
 		TimerTask timerTask = new TimerTask() {
 			@Override
@@ -258,10 +335,19 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 	private void refreshStatistics2DB(ZkCluster zkCluster) {
 		log.info("start refresh statistics by zkClusterKey:{}", zkCluster.getZkClusterKey());
 		Date start = new Date();
+		ZkClusterRefreshState refreshState = getRefreshState(zkCluster.getZkClusterKey());
 		StatisticsModel statisticsModel = initStatisticsModel();
-		List<Callable<Boolean>> callableList = getStatCallableList(zkCluster, statisticsModel);
+		Queue<RegistryCenterConfiguration> configQueue = getNamespaceConfigQueue(zkCluster);
+		int namespaceCount = configQueue.size();
+		refreshState.retainNamespaceSnapshots(configQueue);
+		int concurrency = Math.min(refreshState.getConcurrency(), namespaceCount);
 		try {
-			if (callableList != null && !callableList.isEmpty()) {
+			// 上一轮的告警结果整个集群只读取一次，各个域的统计任务共享，只读不修改
+			List<AbnormalJob> oldAbnormalJobs = getOldAbnormalJobs(zkCluster);
+			List<Timeout4AlarmJob> oldTimeout4AlarmJobs = getOldTimeout4AlarmJobs(zkCluster);
+			List<Callable<Boolean>> callableList = getStatCallableList(zkCluster, refreshState, statisticsModel,
+					configQueue, concurrency, oldAbnormalJobs, oldTimeout4AlarmJobs);
+			if (!callableList.isEmpty()) {
 				statExecutorService.invokeAll(callableList);
 			}
 			statisticsPersistence.persist(statisticsModel, zkCluster);
@@ -269,22 +355,46 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 			log.warn("the refreshStatistics2DB thread is interrupted", e);
 			Thread.currentThread().interrupt();
 		}
-		log.info("end refresh statistics by zkClusterKey:{}, takes {}", zkCluster.getZkClusterKey(),
-				new Date().getTime() - start.getTime());
+		long cost = new Date().getTime() - start.getTime();
+		refreshState.refreshed(cost);
+		log.info("end refresh statistics by zkClusterKey:{}, takes {}, namespaces:{}, unchanged namespaces:{}, "
+						+ "concurrency:{}", zkCluster.getZkClusterKey(), cost, namespaceCount,
+				refreshState.getUnchangedNamespaceCount(), concurrency);
 	}
 
-	private List<Callable<Boolean>> getStatCallableList(final ZkCluster zkCluster,
-			final StatisticsModel statisticsModel) {
-		List<Callable<Boolean>> callableList = Lists.newArrayList();
-		for (final RegistryCenterConfiguration config : zkCluster.getRegCenterConfList()) {
+	private Queue<RegistryCenterConfiguration> getNamespaceConfigQueue(ZkCluster zkCluster) {
+		Queue<RegistryCenterConfiguration> configQueue = new ConcurrentLinkedQueue<>();
+		for (RegistryCenterConfiguration config : zkCluster.getRegCenterConfList()) {
 			// 过滤非当前zk连接
-			if (!zkCluster.getZkAddr().equals(config.getZkAddressList())) {
-				continue;
+			if (zkCluster.getZkAddr().equals(config.getZkAddressList())) {
+				configQueue.add(config);
 			}
+		}
+		return configQueue;
+	}
+
+	/**
+	 * 启动concurrency个统计任务，每个任务从队列中逐个取域统计，直到队列为空
+	 */
+	private List<Callable<Boolean>> getStatCallableList(final ZkCluster zkCluster,
+			final ZkClusterRefreshState refreshState, final StatisticsModel statisticsModel,
+			final Queue<RegistryCenterConfiguration> configQueue, int concurrency,
+			final List<AbnormalJob> oldAbnormalJobs, final List<Timeout4AlarmJob> oldTimeout4AlarmJobs) {
+		List<Callable<Boolean>> callableList = Lists.newArrayList();
+		for (int i = 0; i < concurrency; i++) {
 			Callable<Boolean> callable = new Callable<Boolean>() {
 				@Override
 				public Boolean call() throws Exception {
-					return analyzeStatistics(statisticsModel, zkCluster, config);
+					boolean success = true;
+					RegistryCenterConfiguration config;
+					while ((config = configQueue.poll()) != null) {
+						if (Thread.currentThread().isInterrupted()) {
+							return false;
+						}
+						success &= analyzeStatistics(statisticsModel, zkCluster, refreshState, config,
+								oldAbnormalJobs, oldTimeout4AlarmJobs);
+					}
+					return success;
 				}
 			};
 			callableList.add(callable);
@@ -292,16 +402,33 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 		return callableList;
 	}
 
-	private boolean analyzeStatistics(StatisticsModel statisticsModel, ZkCluster zkCluster,
-			RegistryCenterConfiguration config) {
+	/**
+	 * 分析一个域。域的版本（见{@link NamespaceStatisticsSnapshot}）与上一轮相同时，在线executor和无法高可用的作业直接使用上一轮的结果
+	 */
+	boolean analyzeStatistics(StatisticsModel statisticsModel, ZkCluster zkCluster, ZkClusterRefreshState refreshState,
+			RegistryCenterConfiguration config, List<AbnormalJob> oldAbnormalJobs,
+			List<Timeout4AlarmJob> oldTimeout4AlarmJobs) {
 		String namespace = config.getNamespace();
 		try {
 			DomainStatistics domain = statisticsModel.getDomainStatisticsAnalyzer().initDomain(zkCluster, config);
 			CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = registryCenterService
 					.getCuratorFrameworkOp(namespace);
-			List<AbnormalJob> oldAbnormalJobs = getOldAbnormalJobs(zkCluster);
-			List<Timeout4AlarmJob> oldTimeout4AlarmJobs = getOldTimeout4AlarmJobs(zkCluster);
-			statisticsModel.analyzeExecutor(curatorFrameworkOp, config);
+			NamespaceJobConfigCache jobConfigCache = registryCenterService.getJobConfigCache(namespace);
+			if (jobConfigCache != null) {
+				curatorFrameworkOp = new JobConfigSnapshotCuratorFrameworkOp(curatorFrameworkOp, jobConfigCache);
+			}
+			String version = NamespaceStatisticsSnapshot.readVersion(curatorFrameworkOp, jobConfigCache);
+			NamespaceStatisticsSnapshot snapshot = refreshState.getNamespaceSnapshot(namespace, version);
+			ExecutorInfoAnalyzer.NamespaceExecutorInfo executorInfo;
+			if (snapshot != null) {
+				executorInfo = snapshot.getExecutorInfo();
+				statisticsModel.addExecutorInfo(executorInfo);
+				statisticsModel.addUnableFailoverJobs(snapshot.getUnableFailoverJobs());
+			} else {
+				executorInfo = statisticsModel.analyzeExecutor(curatorFrameworkOp, config);
+			}
+			List<AbnormalJob> unableFailoverJobs = new ArrayList<>();
+			boolean allJobsAnalyzed = true;
 			List<String> jobs = jobService.getUnSystemJobNames(config.getNamespace());
 			for (String job : jobs) {
 				if (!curatorFrameworkOp.checkExists(JobNodePath.getConfigNodePath(job))) {
@@ -321,12 +448,24 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 					}
 					statisticsModel.analyzeTimeout4AlarmJob(curatorFrameworkOp, oldTimeout4AlarmJobs, job, jobDegree,
 							config);
-					statisticsModel.analyzeUnableFailoverJob(curatorFrameworkOp, job, jobDegree, config);
+					if (snapshot == null) {
+						AbnormalJob unableFailoverJob = statisticsModel.analyzeUnableFailoverJob(curatorFrameworkOp,
+								job, jobDegree, config);
+						if (unableFailoverJob != null) {
+							unableFailoverJobs.add(unableFailoverJob);
+						}
+					}
 				} catch (Exception e) {
+					allJobsAnalyzed = false;
 					log.info(String.format("analyzeStatistics namespace(%s) jobName(%s) error", namespace, job), e);
 				}
 			}
 			statisticsModel.analyzeProcessCount(domain, jobs, config);
+			// 有作业分析失败时不保存，下一轮重新分析
+			if (snapshot == null && version != null && allJobsAnalyzed) {
+				refreshState.putNamespaceSnapshot(namespace,
+						new NamespaceStatisticsSnapshot(version, executorInfo, unableFailoverJobs));
+			}
 		} catch (Exception e) {
 			log.info(String.format("analyzeStatistics namespace(%s) error", namespace), e);
 			return false;
@@ -343,6 +482,8 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 			if (StringUtils.isNotBlank(result)) {
 				oldAbnormalJobs = JSON.parseArray(result, AbnormalJob.class);
 			}
+			DashboardServiceHelper.mergeReadUuids(oldAbnormalJobs, saturnStatisticsService
+					.findReadUuids(StatisticsTableKeyConstant.UNNORMAL_JOB, zkCluster.getZkAddr()));
 		}
 		return oldAbnormalJobs;
 	}
@@ -356,6 +497,8 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 			if (StringUtils.isNotBlank(result)) {
 				oldTimeout4AlarmJobs = JSON.parseArray(result, Timeout4AlarmJob.class);
 			}
+			DashboardServiceHelper.mergeReadUuids(oldTimeout4AlarmJobs, saturnStatisticsService
+					.findReadUuids(StatisticsTableKeyConstant.TIMEOUT_4_ALARM_JOB, zkCluster.getZkAddr()));
 		}
 		return oldTimeout4AlarmJobs;
 	}
@@ -389,4 +532,88 @@ public class StatisticsRefreshServiceImpl implements StatisticsRefreshService {
 		return statisticsModel;
 	}
 
+	/**
+	 * zk集群的刷新状态。并发数从中间值开始，根据上一轮的耗时调整：超过刷新周期的一半则加倍，不足十分之一则减一，让出线程给其他集群。
+	 */
+	static class ZkClusterRefreshState {
+
+		private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+		private volatile int concurrency = INITIAL_STAT_CONCURRENCY;
+
+		private volatile long lastCostMs = -1;
+
+		private final ConcurrentHashMap<String/** namespace **/, NamespaceStatisticsSnapshot> namespaceSnapshotMap =
+				new ConcurrentHashMap<>();
+
+		private final AtomicInteger unchangedNamespaceCount = new AtomicInteger();
+
+		/**
+		 * @return 上一轮定时刷新还没有结束则返回false
+		 */
+		boolean tryStartRefresh() {
+			return refreshing.compareAndSet(false, true);
+		}
+
+		void finishRefresh() {
+			refreshing.set(false);
+		}
+
+		int getConcurrency() {
+			return concurrency;
+		}
+
+		long getLastCostMs() {
+			return lastCostMs;
+		}
+
+		/**
+		 * 每轮刷新开始时调用，移除已经不在该集群的域的结果
+		 */
+		void retainNamespaceSnapshots(Collection<RegistryCenterConfiguration> configs) {
+			Set<String> namespaces = new HashSet<>();
+			for (RegistryCenterConfiguration config : configs) {
+				namespaces.add(config.getNamespace());
+			}
+			namespaceSnapshotMap.keySet().retainAll(namespaces);
+			unchangedNamespaceCount.set(0);
+		}
+
+		/**
+		 * @return 上一轮的结果，版本为null、版本变化了或者已经过期时返回null
+		 */
+		NamespaceStatisticsSnapshot getNamespaceSnapshot(String namespace, String version) {
+			if (version == null) {
+				return null;
+			}
+			NamespaceStatisticsSnapshot snapshot = namespaceSnapshotMap.get(namespace);
+			if (snapshot == null || !snapshot.isValid(version)) {
+				return null;
+			}
+			unchangedNamespaceCount.incrementAndGet();
+			return snapshot;
+		}
+
+		void putNamespaceSnapshot(String namespace, NamespaceStatisticsSnapshot snapshot) {
+			namespaceSnapshotMap.put(namespace, snapshot);
+		}
+
+		/**
+		 * @return 本轮刷新中版本没有变化，使用了上一轮结果的域的数量
+		 */
+		int getUnchangedNamespaceCount() {
+			return unchangedNamespaceCount.get();
+		}
+
+		synchronized void refreshed(long costMs) {
+			lastCostMs = costMs;
+			long intervalMs = 60L * 1000 * DashboardConstants.REFRESH_INTERVAL_IN_MINUTE;
+			if (costMs > intervalMs / 2) {
+				concurrency = Math.min(STAT_THREAD_NUM, concurrency * 2);
+			} else if (costMs < intervalMs / 10) {
+				concurrency = Math.max(MIN_STAT_CONCURRENCY, concurrency - 1);
+			}
+		}
+	}
+
 }
@@ -34,54 +34,77 @@ public class ExecutorInfoAnalyzer {
 
 	private AtomicInteger exeNotInDocker = new AtomicInteger(0);
 
-	public void analyzeExecutor(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
-								RegistryCenterConfiguration config) {
-		long executorNumber = 0L; // 该域的在线executor数量
+	/**
+	 * 统计域的在线executor和版本
+	 *
+	 * @return 该域的executor信息，域没有变化时，下一轮刷新可以直接{@link #addExecutorInfo}，不再读取executor的节点
+	 */
+	public NamespaceExecutorInfo analyzeExecutor(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+			RegistryCenterConfiguration config) {
+		NamespaceExecutorInfo executorInfo = readExecutorInfo(curatorFrameworkOp, config);
+		addExecutorInfo(executorInfo);
+		return executorInfo;
+	}
+
+	private NamespaceExecutorInfo readExecutorInfo(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
+			RegistryCenterConfiguration config) {
+		List<ExecutorStatistics> onlineExecutors = new ArrayList<>();
 		// 统计物理容器资源，统计版本数据
 		if (!curatorFrameworkOp.checkExists(ExecutorNodePath.getExecutorNodePath())) {
-			addVersionNumber("-1", executorNumber);
-			return;
+			return new NamespaceExecutorInfo(onlineExecutors, "-1", 0L);
 		}
 
 		List<String> executors = curatorFrameworkOp.getChildren(ExecutorNodePath.getExecutorNodePath());
 		if (executors == null) {
-			addVersionNumber("-1", executorNumber);
-			return;
+			return new NamespaceExecutorInfo(onlineExecutors, "-1", 0L);
 		}
 
 		String version = null; // 该域的版本号
 		for (String exe : executors) {
 			// 在线的才统计
 			if (curatorFrameworkOp.checkExists(ExecutorNodePath.getExecutorIpNodePath(exe))) {
+				ExecutorStatistics executorStatistics = new ExecutorStatistics(exe, config.getNamespace());
+				executorStatistics.setNns(config.getNameAndNamespace());
+				executorStatistics.setIp(curatorFrameworkOp.getData(ExecutorNodePath.getExecutorIpNodePath(exe)));
 				// 统计是物理机还是容器
-				String executorMapKey = exe + "-" + config.getNamespace();
-				ExecutorStatistics executorStatistics = executorMap.get(executorMapKey);
-				if (executorStatistics == null) {
-					executorStatistics = new ExecutorStatistics(exe, config.getNamespace());
-					executorStatistics.setNns(config.getNameAndNamespace());
-					executorStatistics
-							.setIp(curatorFrameworkOp.getData(ExecutorNodePath.getExecutorIpNodePath(exe)));
-					executorMap.put(executorMapKey, executorStatistics);
-				}
-				// set runInDocker field
-				if (isExecutorInDocker(curatorFrameworkOp, exe)) {
-					executorStatistics.setRunInDocker(true);
-					exeInDocker.incrementAndGet();
-				} else {
-					exeNotInDocker.incrementAndGet();
-				}
+				executorStatistics.setRunInDocker(isExecutorInDocker(curatorFrameworkOp, exe));
+				onlineExecutors.add(executorStatistics);
 			}
 			// 获取版本号
 			if (version == null) {
 				version = curatorFrameworkOp.getData(ExecutorNodePath.getExecutorVersionNodePath(exe));
 			}
 		}
-		executorNumber = executors.size();
 		// 统计版本数据
 		if (version == null) { // 未知版本
 			version = "-1";
 		}
-		addVersionNumber(version, executorNumber);
+		return new NamespaceExecutorInfo(onlineExecutors, version, executors.size());
+	}
+
+	/**
+	 * 累加域的在线executor和版本，executor的统计是新建的，执行次数、负载等从零开始统计
+	 */
+	public void addExecutorInfo(NamespaceExecutorInfo executorInfo) {
+		for (ExecutorStatistics onlineExecutor : executorInfo.onlineExecutors) {
+			String executorMapKey = onlineExecutor.getExecutorName() + "-" + onlineExecutor.getDomain();
+			ExecutorStatistics executorStatistics = executorMap.get(executorMapKey);
+			if (executorStatistics == null) {
+				executorStatistics = new ExecutorStatistics(onlineExecutor.getExecutorName(),
+						onlineExecutor.getDomain());
+				executorStatistics.setNns(onlineExecutor.getNns());
+				executorStatistics.setIp(onlineExecutor.getIp());
+				executorMap.put(executorMapKey, executorStatistics);
+			}
+			// set runInDocker field
+			if (onlineExecutor.isRunInDocker()) {
+				executorStatistics.setRunInDocker(true);
+				exeInDocker.incrementAndGet();
+			} else {
+				exeNotInDocker.incrementAndGet();
+			}
+		}
+		addVersionNumber(executorInfo.version, executorInfo.executorNumber);
 	}
 
 	public boolean isExecutorInDocker(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp,
@@ -229,4 +252,22 @@ public class ExecutorInfoAnalyzer {
 	public int getExeNotInDocker() {
 		return exeNotInDocker.get();
 	}
+
+	/**
+	 * 一个域的在线executor和版本，构建后不再修改
+	 */
+	public static class NamespaceExecutorInfo {
+
+		private final List<ExecutorStatistics> onlineExecutors;
+
+		private final String version;
+
+		private final long executorNumber; // 该域的executor数量
+
+		private NamespaceExecutorInfo(List<ExecutorStatistics> onlineExecutors, String version, long executorNumber) {
+			this.onlineExecutors = onlineExecutors;
+			this.version = version;
+			this.executorNumber = executorNumber;
+		}
+	}
 }
@@ -24,9 +24,13 @@ public class StatisticsModel {
 
 	private ZkClusterDailyCountAnalyzer zkClusterDailyCountAnalyzer;
 
-	public void analyzeExecutor(CuratorFrameworkOp curatorFrameworkOp, RegistryCenterConfiguration config)
-			throws Exception {
-		executorInfoAnalyzer.analyzeExecutor(curatorFrameworkOp, config);
+	public ExecutorInfoAnalyzer.NamespaceExecutorInfo analyzeExecutor(CuratorFrameworkOp curatorFrameworkOp,
+			RegistryCenterConfiguration config) throws Exception {
+		return executorInfoAnalyzer.analyzeExecutor(curatorFrameworkOp, config);
+	}
+
+	public void addExecutorInfo(ExecutorInfoAnalyzer.NamespaceExecutorInfo executorInfo) {
+		executorInfoAnalyzer.addExecutorInfo(executorInfo);
 	}
 
 	public JobStatistics analyzeJobStatistics(CuratorFrameworkOp curatorFrameworkOp, String job, boolean localMode,
@@ -49,9 +53,13 @@ public class StatisticsModel {
 		timeout4AlarmJobAnalyzer.analyze(curatorFrameworkOp, oldTimeout4AlarmJob, jobName, jobDegree, config);
 	}
 
-	public void analyzeUnableFailoverJob(CuratorFrameworkOp curatorFrameworkOp, String jobName, String jobDegree,
-			RegistryCenterConfiguration config) {
-		unableFailoverJobAnalyzer.analyze(curatorFrameworkOp, jobName, jobDegree, config);
+	public AbnormalJob analyzeUnableFailoverJob(CuratorFrameworkOp curatorFrameworkOp, String jobName,
+			String jobDegree, RegistryCenterConfiguration config) {
+		return unableFailoverJobAnalyzer.analyze(curatorFrameworkOp, jobName, jobDegree, config);
+	}
+
+	public void addUnableFailoverJobs(List<AbnormalJob> unableFailoverJobs) {
+		unableFailoverJobAnalyzer.addUnableFailoverJobs(unableFailoverJobs);
 	}
 
 	public void analyzeProcessCount(DomainStatistics domainStatistics, List<String> jobs,
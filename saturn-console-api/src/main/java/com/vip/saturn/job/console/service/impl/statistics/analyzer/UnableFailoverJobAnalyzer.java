@@ -25,21 +25,32 @@ public class UnableFailoverJobAnalyzer {
 
 	/**
 	 * 查找无法高可用的作业
+	 *
+	 * @return 作业无法高可用时返回该作业，否则返回null
 	 */
-	public void analyze(CuratorFrameworkOp curatorFrameworkOp, String jobName, String jobDegree,
+	public AbnormalJob analyze(CuratorFrameworkOp curatorFrameworkOp, String jobName, String jobDegree,
 			RegistryCenterConfiguration config) {
 		AbnormalJob unableFailoverJob = new AbnormalJob(jobName, config.getNamespace(), config.getNameAndNamespace(),
 				config.getDegree());
 		if (isUnableFailoverJob(curatorFrameworkOp, unableFailoverJob)) {
 			unableFailoverJob.setJobDegree(jobDegree);
 			addUnableFailoverJob(unableFailoverJob);
+			return unableFailoverJob;
 		}
+		return null;
 	}
 
 	private synchronized void addUnableFailoverJob(AbnormalJob unableFailoverJob) {
 		unableFailoverJobList.add(unableFailoverJob);
 	}
 
+	/**
+	 * 累加上一轮刷新中已经分析过的无法高可用的作业
+	 */
+	public synchronized void addUnableFailoverJobs(List<AbnormalJob> unableFailoverJobs) {
+		unableFailoverJobList.addAll(unableFailoverJobs);
+	}
+
 	/**
 	 * 无法高可用的情况： 1、勾选只使用优先executor，preferList只有一个物理机器（剔除offline、deleted的物理机） 2、没有勾选只使用优先executor，没有选择容器资源，可供选择的preferList只有一个物理机器（剔除offline、deleted的物理机，剔除容器资源）
 	 */
@@ -47,7 +58,7 @@ public class UnableFailoverJobAnalyzer {
 		try {
 			String jobName = unableFailoverJob.getJobName();
 			List<ExecutorProvided> preferListProvided = jobService
-					.getCandidateExecutors(curatorFrameworkOp.getCuratorFramework().getNamespace(), jobName);
+					.getCandidateExecutors(unableFailoverJob.getDomainName(), jobName);
 			if (CollectionUtils.isEmpty(preferListProvided)) {
 				return false;
 			}
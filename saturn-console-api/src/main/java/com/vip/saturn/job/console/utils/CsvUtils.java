@@ -0,0 +1,185 @@
+package com.vip.saturn.job.console.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV（RFC 4180）的逐行读写，用于作业的流式导入导出，不需要把整个文件加载到内存。
+ * <p>
+ * 字段包含逗号、双引号、换行时用双引号包围，字段中的双引号写为两个双引号；读取时兼容带BOM的UTF-8文件（Excel另存为的CSV）。
+ * <p>
+ * 以=、+、-、@等开头的字段会被Excel当作公式执行（CSV注入），写入时在前面加上单引号，读取时再去掉，导出后再导入的值不变。
+ */
+public class CsvUtils {
+
+	private static final char BOM = '\uFEFF';
+
+	private static final char ESCAPE = '\'';
+
+	/**
+	 * Excel会当作公式处理的字段开头
+	 */
+	private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+	private CsvUtils() {
+	}
+
+	/**
+	 * 写入一行，null写为空字段
+	 */
+	public static void writeRecord(Writer writer, String... fields) throws IOException {
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				writer.write(',');
+			}
+			String field = fields[i];
+			if (field == null) {
+				continue;
+			}
+			if (needEscape(field)) {
+				field = ESCAPE + field;
+			}
+			if (needQuote(field)) {
+				writer.write('"');
+				writer.write(field.replace("\"", "\"\""));
+				writer.write('"');
+			} else {
+				writer.write(field);
+			}
+		}
+		writer.write("\r\n");
+	}
+
+	/**
+	 * 写入BOM，使Excel能够正确识别UTF-8编码的中文
+	 */
+	public static void writeBom(Writer writer) throws IOException {
+		writer.write(BOM);
+	}
+
+	/**
+	 * 公式开头的字段需要加单引号；本身以单引号开头的字段也加，读取时才能区分
+	 */
+	private static boolean needEscape(String field) {
+		return !field.isEmpty() && (FORMULA_PREFIXES.indexOf(field.charAt(0)) >= 0 || field.charAt(0) == ESCAPE);
+	}
+
+	/**
+	 * 去掉写入时加上的单引号，只处理单引号后面是公式开头或者单引号的字段，其他以单引号开头的字段保持不变
+	 */
+	private static String unescape(String field) {
+		if (field.length() > 1 && field.charAt(0) == ESCAPE
+				&& (FORMULA_PREFIXES.indexOf(field.charAt(1)) >= 0 || field.charAt(1) == ESCAPE)) {
+			return field.substring(1);
+		}
+		return field;
+	}
+
+	private static boolean needQuote(String field) {
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static class CsvReader implements Closeable {
+
+		private final Reader reader;
+
+		private int next = -2;
+
+		private boolean first = true;
+
+		/**
+		 * @param reader 调用方负责传入带缓冲的Reader
+		 */
+		public CsvReader(Reader reader) {
+			this.reader = reader;
+		}
+
+		private int peek() throws IOException {
+			if (next == -2) {
+				next = reader.read();
+			}
+			return next;
+		}
+
+		private int read() throws IOException {
+			int c = peek();
+			next = -2;
+			return c;
+		}
+
+		/**
+		 * 读取下一行
+		 *
+		 * @return 该行的所有字段，已读到文件末尾返回null
+		 * @throws IOException 读取失败，或者引号没有闭合
+		 */
+		public String[] readRecord() throws IOException {
+			if (first) {
+				first = false;
+				if (peek() == BOM) {
+					read();
+				}
+			}
+			if (peek() == -1) {
+				return null;
+			}
+			List<String> fields = new ArrayList<>();
+			StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			while (true) {
+				int c = read();
+				if (quoted) {
+					if (c == -1) {
+						throw new IOException("CSV格式有误，引号没有闭合");
+					}
+					if (c == '"') {
+						if (peek() == '"') {
+							field.append('"');
+							read();
+						} else {
+							quoted = false;
+						}
+					} else {
+						field.append((char) c);
+					}
+					continue;
+				}
+				if (c == -1 || c == '\n') {
+					break;
+				}
+				if (c == '\r') {
+					if (peek() == '\n') {
+						read();
+					}
+					break;
+				}
+				if (c == ',') {
+					fields.add(unescape(field.toString()));
+					field.setLength(0);
+				} else if (c == '"' && field.length() == 0) {
+					quoted = true;
+				} else {
+					field.append((char) c);
+				}
+			}
+			fields.add(unescape(field.toString()));
+			return fields.toArray(new String[fields.size()]);
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+
+}
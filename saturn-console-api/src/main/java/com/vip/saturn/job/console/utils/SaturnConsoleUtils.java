@@ -3,12 +3,15 @@ package com.vip.saturn.job.console.utils;
 import com.vip.saturn.job.console.domain.JobType;
 import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
 import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.CuratorFrameworkOp;
+import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
@@ -22,6 +25,13 @@ import java.util.TimeZone;
  */
 public class SaturnConsoleUtils {
 
+	private static final Logger log = LoggerFactory.getLogger(SaturnConsoleUtils.class);
+
+	/**
+	 * 批量操作请求的分片事件合并窗口（毫秒）
+	 */
+	private static final long BATCH_SHARDING_COALESCING_WINDOW_MS = 2000L;
+
 	private static DateTimeFormatter dtf = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
 
 	private static Random random = new Random();
@@ -56,6 +66,19 @@ public class SaturnConsoleUtils {
 		return jobType == JobType.JAVA_JOB || jobType == JobType.SHELL_JOB;
 	}
 
+	/**
+	 * 批量操作的每一批提交前调用，请求分片leader合并之后一段时间内到达的分片事件，整个批量操作只触发一次分片。
+	 * 只是优化，写入失败不影响批量操作
+	 */
+	public static void requestShardingCoalescing(CuratorFrameworkOp curatorFrameworkOp) {
+		try {
+			curatorFrameworkOp.update(SaturnExecutorsNode.SHARDING_COALESCING_WINDOW_NODE_PATH,
+					BATCH_SHARDING_COALESCING_WINDOW_MS);
+		} catch (Exception e) {
+			log.warn("request sharding coalescing failed", e);
+		}
+	}
+
 	public static File createTmpFile() throws SaturnJobConsoleException, IOException {
 		int loopTimes = 5;
 
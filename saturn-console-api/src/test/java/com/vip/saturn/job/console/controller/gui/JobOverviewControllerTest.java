@@ -0,0 +1,190 @@
+package com.vip.saturn.job.console.controller.gui;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.domain.AbnormalJob;
+import com.vip.saturn.job.console.domain.JobConfig;
+import com.vip.saturn.job.console.domain.JobOverviewJobVo;
+import com.vip.saturn.job.console.domain.JobOverviewVo;
+import com.vip.saturn.job.console.domain.JobStatus;
+import com.vip.saturn.job.console.service.AlarmStatisticsService;
+import com.vip.saturn.job.console.service.JobService;
+import com.vip.saturn.job.console.utils.FakeService;
+import com.vip.saturn.job.console.utils.SaturnConstants;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobOverviewControllerTest {
+
+	private static final String NAMESPACE = "ns1";
+
+	private JobOverviewController jobOverviewController;
+
+	private List<JobConfig> jobConfigs;
+
+	private Map<String, JobStatus> jobStatuses;
+
+	/**
+	 * 获取状态失败的作业
+	 */
+	private Set<String> brokenJobs;
+
+	/**
+	 * 获取过状态的作业
+	 */
+	private List<String> resolvedJobs;
+
+	@Before
+	public void setUp() {
+		jobConfigs = new ArrayList<>();
+		jobStatuses = new HashMap<>();
+		brokenJobs = new HashSet<>();
+		resolvedJobs = new ArrayList<>();
+		addJob("order_sync", "order", true, JobStatus.RUNNING);
+		addJob("order_clean", "order", false, JobStatus.STOPPED);
+		addJob("pay_sync", null, true, JobStatus.READY);
+		addJob("pay_report", "pay", true, JobStatus.RUNNING);
+		addJob("user_sync", null, false, JobStatus.STOPPED);
+		jobOverviewController = new JobOverviewController();
+		ReflectionTestUtils.setField(jobOverviewController, "jobService", newJobService());
+		ReflectionTestUtils.setField(jobOverviewController, "alarmStatisticsService", newAlarmStatisticsService());
+	}
+
+	@Test
+	public void testListAll() throws Exception {
+		JobOverviewVo jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE);
+
+		assertThat(jobNames(jobOverviewVo.getJobs())).containsExactly("order_sync", "order_clean", "pay_sync",
+				"pay_report", "user_sync");
+		assertThat(jobOverviewVo.getTotalNumber()).isEqualTo(5);
+		assertThat(jobOverviewVo.getFilteredNumber()).isEqualTo(5);
+		assertThat(jobOverviewVo.getEnabledNumber()).isEqualTo(3);
+		assertThat(jobOverviewVo.getAbnormalNumber()).isEqualTo(1);
+		assertThat(jobOverviewVo.getJobs().get(2).getGroups()).isEqualTo(SaturnConstants.NO_GROUPS_LABEL);
+		assertThat(jobOverviewVo.getJobs().get(0).getShardingList()).isEqualTo("exec1,exec2");
+		assertThat(jobOverviewVo.getJobs().get(1).getShardingList()).isNull();
+	}
+
+	@Test
+	public void testListAllCountsListedJobsOnly() throws Exception {
+		brokenJobs.add("pay_sync");
+		JobOverviewVo jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE);
+
+		// 与原来一样，获取详情失败的作业不列出，也不统计
+		assertThat(jobOverviewVo.getJobs()).hasSize(4);
+		assertThat(jobOverviewVo.getTotalNumber()).isEqualTo(4);
+		assertThat(jobOverviewVo.getFilteredNumber()).isEqualTo(4);
+		assertThat(jobOverviewVo.getEnabledNumber()).isEqualTo(2);
+	}
+
+	@Test
+	public void testFilter() throws Exception {
+		JobOverviewVo jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, "order", null, null, null,
+				null);
+		assertThat(jobNames(jobOverviewVo.getJobs())).containsExactly("order_sync", "order_clean");
+		assertThat(jobOverviewVo.getFilteredNumber()).isEqualTo(2);
+		// 过滤时统计域下所有作业
+		assertThat(jobOverviewVo.getTotalNumber()).isEqualTo(5);
+		assertThat(jobOverviewVo.getEnabledNumber()).isEqualTo(3);
+
+		jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, SaturnConstants.NO_GROUPS_LABEL, null,
+				null, null, null);
+		assertThat(jobNames(jobOverviewVo.getJobs())).containsExactly("pay_sync", "user_sync");
+
+		jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, null, " SYNC ", null, null, null);
+		assertThat(jobNames(jobOverviewVo.getJobs())).containsExactly("order_sync", "pay_sync", "user_sync");
+
+		jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, null, "sync", JobStatus.STOPPED, null,
+				null);
+		assertThat(jobNames(jobOverviewVo.getJobs())).containsExactly("user_sync");
+		assertThat(jobOverviewVo.getFilteredNumber()).isEqualTo(1);
+	}
+
+	@Test
+	public void testPaging() throws Exception {
+		JobOverviewVo jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, null, null, null, 2, 2);
+		assertThat(jobNames(jobOverviewVo.getJobs())).containsExactly("pay_sync", "pay_report");
+		assertThat(jobOverviewVo.getFilteredNumber()).isEqualTo(5);
+		assertThat(jobOverviewVo.getTotalNumber()).isEqualTo(5);
+		// 不按状态过滤时只获取当前页作业的状态
+		assertThat(resolvedJobs).containsExactly("pay_sync", "pay_report");
+
+		jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, null, null, null, 3, 2);
+		assertThat(jobNames(jobOverviewVo.getJobs())).containsExactly("user_sync");
+		jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, null, null, null, 4, 2);
+		assertThat(jobOverviewVo.getJobs()).isEmpty();
+		assertThat(jobOverviewVo.getFilteredNumber()).isEqualTo(5);
+
+		// 不合法的分页参数视为不分页
+		jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, null, null, null, 0, 2);
+		assertThat(jobOverviewVo.getJobs()).hasSize(5);
+
+		resolvedJobs.clear();
+		jobOverviewVo = jobOverviewController.getJobOverviewVo(NAMESPACE, null, null, JobStatus.RUNNING, 2, 1);
+		assertThat(jobNames(jobOverviewVo.getJobs())).containsExactly("pay_report");
+		assertThat(jobOverviewVo.getFilteredNumber()).isEqualTo(2);
+		assertThat(resolvedJobs).hasSize(5);
+	}
+
+	private void addJob(String jobName, String groups, boolean enabled, JobStatus jobStatus) {
+		JobConfig jobConfig = new JobConfig();
+		jobConfig.setJobName(jobName);
+		jobConfig.setJobType("JAVA_JOB");
+		jobConfig.setGroups(groups);
+		jobConfig.setEnabled(enabled);
+		jobConfigs.add(jobConfig);
+		jobStatuses.put(jobName, jobStatus);
+	}
+
+	private static List<String> jobNames(List<JobOverviewJobVo> jobs) {
+		List<String> jobNames = new ArrayList<>();
+		for (JobOverviewJobVo job : jobs) {
+			jobNames.add(job.getJobName());
+		}
+		return jobNames;
+	}
+
+	private JobService newJobService() {
+		return FakeService.of(JobService.class, new FakeService.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) throws Exception {
+				switch (methodName) {
+					case "getUnSystemJobs":
+						return new ArrayList<>(jobConfigs);
+					case "getJobStatus":
+						String jobName = ((JobConfig) args[1]).getJobName();
+						resolvedJobs.add(jobName);
+						if (brokenJobs.contains(jobName)) {
+							throw new IllegalStateException("fail to get the status of " + jobName);
+						}
+						return jobStatuses.get(jobName);
+					case "getJobShardingAllocatedExecutorList":
+						return Arrays.asList("exec1", "exec2");
+					default:
+						throw new UnsupportedOperationException(methodName);
+				}
+			}
+		});
+	}
+
+	private AlarmStatisticsService newAlarmStatisticsService() {
+		return FakeService.of(AlarmStatisticsService.class, new FakeService.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) throws Exception {
+				if ("getAbnormalJobListByNamespace".equals(methodName)) {
+					return Arrays.asList(new AbnormalJob("order_sync", NAMESPACE, NAMESPACE, "1"));
+				}
+				throw new UnsupportedOperationException(methodName);
+			}
+		});
+	}
+
+}
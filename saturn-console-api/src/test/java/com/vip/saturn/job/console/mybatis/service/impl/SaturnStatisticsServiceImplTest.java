@@ -0,0 +1,82 @@
+package com.vip.saturn.job.console.mybatis.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.base.Strings;
+import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
+import com.vip.saturn.job.console.mybatis.repository.SaturnStatisticsRepository;
+import com.vip.saturn.job.console.utils.FakeService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SaturnStatisticsServiceImplTest {
+
+	private static final int HALF = SaturnStatisticsServiceImpl.MAX_BATCH_RESULT_LENGTH / 2;
+
+	@Test
+	public void testSplitByResultLength() {
+		SaturnStatistics s1 = statistics("s1", HALF);
+		SaturnStatistics s2 = statistics("s2", HALF);
+		SaturnStatistics s3 = statistics("s3", 1);
+		SaturnStatistics s4 = statistics("s4", SaturnStatisticsServiceImpl.MAX_BATCH_RESULT_LENGTH * 2);
+		SaturnStatistics s5 = statistics("s5", 0);
+		s5.setResult(null);
+
+		List<List<SaturnStatistics>> batches = SaturnStatisticsServiceImpl
+				.splitByResultLength(Arrays.asList(s1, s2, s3, s4, s5));
+
+		// 超过上限的单独一批
+		assertThat(batches).hasSize(4);
+		assertThat(batches.get(0)).containsExactly(s1, s2);
+		assertThat(batches.get(1)).containsExactly(s3);
+		assertThat(batches.get(2)).containsExactly(s4);
+		assertThat(batches.get(3)).containsExactly(s5);
+	}
+
+	@Test
+	public void testBatchCreateOrUpdateInChunks() {
+		final List<List<SaturnStatistics>> inserted = new ArrayList<>();
+		final List<List<SaturnStatistics>> updated = new ArrayList<>();
+		SaturnStatisticsServiceImpl saturnStatisticsService = new SaturnStatisticsServiceImpl();
+		ReflectionTestUtils.setField(saturnStatisticsService, "saturnStatisticsRepo",
+				FakeService.of(SaturnStatisticsRepository.class, new FakeService.Handler() {
+					@SuppressWarnings("unchecked")
+					@Override
+					public Object handle(String methodName, Object[] args) {
+						switch (methodName) {
+							case "batchInsert":
+								inserted.add((List<SaturnStatistics>) args[0]);
+								return 1;
+							case "batchUpdateResult":
+								updated.add((List<SaturnStatistics>) args[0]);
+								return 1;
+							default:
+								throw new UnsupportedOperationException(methodName);
+						}
+					}
+				}));
+
+		saturnStatisticsService.batchCreateOrUpdate(
+				Arrays.asList(statistics("s1", HALF), statistics("s2", HALF), statistics("s3", HALF)),
+				Collections.<SaturnStatistics>emptyList());
+		assertThat(inserted).hasSize(2);
+		assertThat(inserted.get(0)).hasSize(2);
+		assertThat(inserted.get(1)).hasSize(1);
+		assertThat(updated).isEmpty();
+
+		inserted.clear();
+		saturnStatisticsService.batchCreateOrUpdate(null, Arrays.asList(statistics("s1", 1), statistics("s2", 1)));
+		assertThat(inserted).isEmpty();
+		assertThat(updated).hasSize(1);
+		assertThat(updated.get(0)).hasSize(2);
+	}
+
+	private static SaturnStatistics statistics(String name, int resultLength) {
+		return new SaturnStatistics(name, "127.0.0.1:2181", Strings.repeat("a", resultLength));
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.vip.saturn.job.console.repository.zookeeper.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.CuratorFrameworkOp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryNTimes;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CuratorRepositoryImplTest {
+
+	private TestingServer testingServer;
+
+	private CuratorFramework curatorFramework;
+
+	private CuratorFrameworkOp curatorFrameworkOp;
+
+	@Before
+	public void setUp() throws Exception {
+		testingServer = new TestingServer();
+		curatorFramework = CuratorFrameworkFactory.builder().connectString(testingServer.getConnectString())
+				.namespace("ns1").retryPolicy(new RetryNTimes(3, 1000)).build();
+		curatorFramework.start();
+		curatorFramework.blockUntilConnected();
+		curatorFrameworkOp = new CuratorRepositoryImpl().newCuratorFrameworkOp(curatorFramework);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		curatorFramework.close();
+		testingServer.close();
+	}
+
+	@Test
+	public void testGetDataInBatch() {
+		curatorFrameworkOp.create("/a/b", "b");
+		curatorFrameworkOp.create("/a/c", "中文");
+
+		Map<String, String> result = curatorFrameworkOp.getDataInBatch(Arrays.asList("/a/b", "/a/c", "/a/d", "/a/b"));
+
+		assertThat(result).hasSize(2).containsEntry("/a/b", "b").containsEntry("/a/c", "中文");
+		assertThat(curatorFrameworkOp.getDataInBatch(Arrays.<String>asList())).isEmpty();
+	}
+
+	@Test
+	public void testGetChildrenInBatch() {
+		curatorFrameworkOp.create("/a/b/1");
+		curatorFrameworkOp.create("/a/b/2");
+		curatorFrameworkOp.create("/a/c");
+
+		Map<String, List<String>> result = curatorFrameworkOp
+				.getChildrenInBatch(Arrays.asList("/a/b", "/a/c", "/a/d"));
+
+		assertThat(result).hasSize(2);
+		assertThat(result.get("/a/b")).containsOnly("1", "2");
+		assertThat(result.get("/a/c")).isEmpty();
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.vip.saturn.job.console.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.alibaba.fastjson.JSON;
+import com.vip.saturn.job.console.domain.AbnormalJob;
+import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class AlarmJobIndexTest {
+
+	@Test
+	public void testLookup() {
+		String result = JSON.toJSONString(Arrays.asList(job("ns1", "job1", "u1"), job("ns1", "job2", "u2"),
+				job("ns2", "job1", "u3"), job("ns1", "job1", "u4")));
+		AlarmJobIndex<AbnormalJob> index = AlarmJobIndex.parse(statistics(result, 1L, 1L), null, AbnormalJob.class);
+
+		assertThat(uuids(index.getJobs())).containsExactly("u1", "u2", "u3", "u4");
+		assertThat(uuids(index.getJobsByNamespace("ns1"))).containsExactly("u1", "u2", "u4");
+		assertThat(index.getJobsByNamespace("ns3")).isEmpty();
+		assertThat(index.getJobByUuid("u3").getDomainName()).isEqualTo("ns2");
+		assertThat(index.getJobByUuid("u5")).isNull();
+		// 同一个作业有多条时，返回第一条
+		assertThat(index.getJob("ns1", "job1").getUuid()).isEqualTo("u1");
+		assertThat(index.getJob("ns2", "job2")).isNull();
+	}
+
+	@Test
+	public void testVersions() {
+		String result = JSON.toJSONString(Arrays.asList(job("ns1", "job1", "u1")));
+		AlarmJobIndex<AbnormalJob> index = AlarmJobIndex.parse(statistics(result, 2L, 3L), null, AbnormalJob.class);
+
+		assertThat(index.isResultOf(statistics(null, 2L, 4L))).isTrue();
+		assertThat(index.isResultOf(statistics(null, 3L, 3L))).isFalse();
+		assertThat(index.isResultOf(null)).isFalse();
+		assertThat(index.isReadOf(statistics(null, 3L, 3L))).isTrue();
+		assertThat(index.isReadOf(statistics(null, 2L, 4L))).isFalse();
+
+		AlarmJobIndex<AbnormalJob> emptyIndex = AlarmJobIndex.parse(null, null, AbnormalJob.class);
+		assertThat(emptyIndex.isResultOf(null)).isTrue();
+		assertThat(emptyIndex.getId()).isNull();
+		assertThat(emptyIndex.getJobs()).isEmpty();
+		assertThat(emptyIndex.getJobByUuid("u1")).isNull();
+	}
+
+	@Test
+	public void testMergeReadUuids() {
+		String result = JSON.toJSONString(Arrays.asList(job("ns1", "job1", "u1"), job("ns1", "job2", "u2")));
+		AlarmJobIndex<AbnormalJob> index = AlarmJobIndex.parse(statistics(result, 1L, 1L), Arrays.asList("u1"),
+				AbnormalJob.class);
+
+		assertThat(index.getJobByUuid("u1").isRead()).isTrue();
+		assertThat(index.getJob("ns1", "job2").isRead()).isFalse();
+
+		// 只替换已读标记，不影响原来的索引
+		AlarmJobIndex<AbnormalJob> newIndex = index.withReadUuid("u2");
+		assertThat(readUuids(newIndex.getJobsByNamespace("ns1"))).containsExactly("u1", "u2");
+		assertThat(readUuids(index.getJobs())).containsExactly("u1");
+		assertThat(newIndex.isReadOf(statistics(null, 1L, 1L))).isTrue();
+
+		newIndex = index.withReadUuids(2L, Arrays.asList("u2"));
+		assertThat(readUuids(newIndex.getJobs())).containsExactly("u2");
+		assertThat(newIndex.isReadOf(statistics(null, 1L, 2L))).isTrue();
+		assertThat(newIndex.isResultOf(statistics(null, 1L, 2L))).isTrue();
+	}
+
+	@Test
+	public void testReturnCopies() {
+		List<AbnormalJob> jobs = new ArrayList<>(Arrays.asList(job("ns1", "job1", "u1")));
+		AlarmJobIndex<AbnormalJob> index = new AlarmJobIndex<>(statistics(null, 1L, 1L), jobs, null,
+				AbnormalJob.class);
+
+		// 修改构建用的列表和查询的结果，都不影响索引
+		jobs.add(job("ns1", "job2", "u2"));
+		index.getJobByUuid("u1").setRead(true);
+		index.getJob("ns1", "job1").setRead(true);
+		index.getJobsByNamespace("ns1").get(0).setRead(true);
+		List<AbnormalJob> allJobs = index.getJobs();
+		allJobs.get(0).setRead(true);
+		allJobs.clear();
+
+		assertThat(index.getJobs()).hasSize(1);
+		assertThat(index.getJobByUuid("u1").isRead()).isFalse();
+		assertThat(index.getJobByUuid("u1")).isNotSameAs(index.getJobByUuid("u1"));
+		assertThat(index.getJobByUuid("u1").getCause()).isEqualTo("cause-u1");
+	}
+
+	private static AbnormalJob job(String namespace, String jobName, String uuid) {
+		AbnormalJob job = new AbnormalJob(jobName, namespace, namespace, "1");
+		job.setUuid(uuid);
+		job.setCause("cause-" + uuid);
+		return job;
+	}
+
+	private static SaturnStatistics statistics(String result, Long version, Long readVersion) {
+		SaturnStatistics saturnStatistics = new SaturnStatistics("unnormalJob", "127.0.0.1:2181", result);
+		saturnStatistics.setId(1);
+		saturnStatistics.setVersion(version);
+		saturnStatistics.setReadVersion(readVersion);
+		return saturnStatistics;
+	}
+
+	private static List<String> readUuids(List<AbnormalJob> jobs) {
+		List<String> uuids = new ArrayList<>();
+		for (AbnormalJob job : jobs) {
+			if (job.isRead()) {
+				uuids.add(job.getUuid());
+			}
+		}
+		return uuids;
+	}
+
+	private static List<String> uuids(List<AbnormalJob> jobs) {
+		List<String> uuids = new ArrayList<>();
+		for (AbnormalJob job : jobs) {
+			uuids.add(job.getUuid());
+		}
+		return uuids;
+	}
+
+}
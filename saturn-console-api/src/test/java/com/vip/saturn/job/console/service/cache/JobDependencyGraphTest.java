@@ -0,0 +1,132 @@
+package com.vip.saturn.job.console.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.domain.DependencyJob;
+import com.vip.saturn.job.console.domain.JobConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class JobDependencyGraphTest {
+
+	@Test
+	public void testDirectDependencies() {
+		JobDependencyGraph graph = newGraph(job("A", "B, C", true), job("B", null, false), job("C", "", true));
+
+		assertThat(names(graph.getDependingJobs("A"))).containsExactly("B", "C");
+		assertThat(names(graph.getDependedJobs("B"))).containsExactly("A");
+		assertThat(graph.getDependingJobs("B")).isEmpty();
+		assertThat(graph.getDependingJobs("A").get(0).isEnabled()).isFalse();
+	}
+
+	@Test
+	public void testTraverseByDistance() {
+		// A -> B -> C -> D, A -> D
+		JobDependencyGraph graph = newGraph(job("A", "B,D", true), job("B", "C", true), job("C", "D", true),
+				job("D", null, true));
+
+		assertThat(names(graph.getAllDependingJobs("A"))).containsExactly("B", "D", "C");
+		assertThat(names(graph.getAllDependedJobs("D"))).containsExactly("A", "C", "B");
+		assertThat(graph.getAllDependingJobs("D")).isEmpty();
+	}
+
+	@Test
+	public void testTraverseWithCycleTerminates() {
+		// A -> B -> C -> A
+		JobDependencyGraph graph = newGraph(job("A", "B", true), job("B", "C", true), job("C", "A", true));
+
+		assertThat(names(graph.getAllDependingJobs("A"))).containsExactly("B", "C");
+		assertThat(names(graph.getAllDependedJobs("A"))).containsExactly("C", "B");
+	}
+
+	@Test
+	public void testFindCycle() {
+		// A -> B -> C -> A, C -> D, D没有依赖
+		JobDependencyGraph graph = newGraph(job("A", "B", true), job("B", "C", true), job("C", "D,A", true),
+				job("D", null, true));
+
+		assertThat(graph.findCycle("A")).containsExactly("A", "B", "C", "A");
+		assertThat(graph.findCycle("B")).containsExactly("B", "C", "A", "B");
+		assertThat(graph.findCycle("D")).isEmpty();
+	}
+
+	@Test
+	public void testFindCycleNotPassingTheJob() {
+		// E -> A -> B -> A，环不经过E
+		JobDependencyGraph graph = newGraph(job("E", "A", true), job("A", "B", true), job("B", "A", true));
+
+		assertThat(graph.findCycle("E")).isEmpty();
+		assertThat(graph.findCycle("A")).containsExactly("A", "B", "A");
+	}
+
+	@Test
+	public void testSelfDependencyIgnored() {
+		JobDependencyGraph graph = newGraph(job("A", "A", true));
+
+		assertThat(graph.findCycle("A")).isEmpty();
+		assertThat(graph.getDependingJobs("A")).isEmpty();
+	}
+
+	@Test
+	public void testMissingJobKeepsEdges() {
+		JobDependencyGraph graph = newGraph(job("A", "B", true), job("B", "A", true));
+		graph.removeJob("B");
+
+		// 不存在的作业不返回，也不构成环
+		assertThat(graph.containsJob("B")).isFalse();
+		assertThat(graph.getDependingJobs("A")).isEmpty();
+		assertThat(graph.findCycle("A")).isEmpty();
+
+		// 依赖的作业重新添加后，A对它的依赖仍然有效
+		graph.putJob("B", "A", false);
+		assertThat(names(graph.getDependingJobs("A"))).containsExactly("B");
+		assertThat(graph.findCycle("A")).containsExactly("A", "B", "A");
+	}
+
+	@Test
+	public void testPutJobReplacesDependencies() {
+		JobDependencyGraph graph = newGraph(job("A", "B", true), job("B", null, true), job("C", null, true));
+		graph.putJob("A", "C", true);
+
+		assertThat(names(graph.getDependingJobs("A"))).containsExactly("C");
+		assertThat(graph.getDependedJobs("B")).isEmpty();
+		assertThat(names(graph.getDependedJobs("C"))).containsExactly("A");
+	}
+
+	@Test
+	public void testMarkMissing() {
+		JobDependencyGraph graph = newGraph(job("A", null, true));
+
+		graph.markMissing("A");
+		assertThat(graph.isMissing("A")).isFalse();
+		graph.markMissing("B");
+		assertThat(graph.isMissing("B")).isTrue();
+
+		// 本控制台添加的作业不再是缺失的
+		graph.putJob("B", null, true);
+		assertThat(graph.isMissing("B")).isFalse();
+	}
+
+	private static JobDependencyGraph newGraph(JobConfig... jobConfigs) {
+		return new JobDependencyGraph(Arrays.asList(jobConfigs));
+	}
+
+	private static JobConfig job(String jobName, String dependencies, boolean enabled) {
+		JobConfig jobConfig = new JobConfig();
+		jobConfig.setJobName(jobName);
+		jobConfig.setDependencies(dependencies);
+		jobConfig.setEnabled(enabled);
+		return jobConfig;
+	}
+
+	private static List<String> names(List<DependencyJob> dependencyJobs) {
+		List<String> names = new ArrayList<>();
+		for (DependencyJob dependencyJob : dependencyJobs) {
+			names.add(dependencyJob.getJobName());
+		}
+		return names;
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.vip.saturn.job.console.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent.Type;
+import org.apache.zookeeper.data.Stat;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NamespaceJobConfigCacheTest {
+
+	private FakeJobConfigCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new FakeJobConfigCache();
+		cache.configs.put("cron", "0 * * * * ?");
+	}
+
+	@Test
+	public void testNotAvailableBeforeInitialized() {
+		assertThat(cache.isAvailable()).isFalse();
+		assertThat(cache.getStalenessMs()).isEqualTo(-1);
+		assertThat(cache.getJobConfig("job1")).isNull();
+		assertThat(cache.readTimes).isEqualTo(0);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testRead() {
+		cache.handleEvent(new TreeCacheEvent(Type.INITIALIZED, null));
+
+		assertThat(cache.getJobConfig("job1")).containsEntry("cron", "0 * * * * ?");
+		assertThat(cache.readTimes).isEqualTo(1);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getStalenessMs()).isEqualTo(0);
+	}
+
+	@Test
+	public void testJobNotExist() {
+		cache.handleEvent(new TreeCacheEvent(Type.INITIALIZED, null));
+		cache.configs = null;
+
+		assertThat(cache.getJobConfig("job1")).isNull();
+		assertThat(cache.readTimes).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testDisconnected() throws Exception {
+		cache.handleEvent(new TreeCacheEvent(Type.INITIALIZED, null));
+		long version = cache.getVersion();
+
+		cache.handleEvent(new TreeCacheEvent(Type.CONNECTION_SUSPENDED, null));
+		assertThat(cache.isAvailable()).isFalse();
+		assertThat(cache.getVersion()).isGreaterThan(version);
+		assertThat(cache.getJobConfig("job1")).isNull();
+		Thread.sleep(20L);
+		assertThat(cache.getStalenessMs()).isGreaterThanOrEqualTo(20L);
+
+		cache.handleEvent(new TreeCacheEvent(Type.CONNECTION_RECONNECTED, null));
+		assertThat(cache.isAvailable()).isTrue();
+		assertThat(cache.getStalenessMs()).isEqualTo(0);
+		assertThat(cache.getJobConfig("job1")).isNotNull();
+	}
+
+	@Test
+	public void testNodeEventIncreasesVersion() {
+		cache.handleEvent(new TreeCacheEvent(Type.INITIALIZED, null));
+		long version = cache.getVersion();
+
+		cache.handleEvent(new TreeCacheEvent(Type.NODE_UPDATED,
+				new ChildData(JobNodePath.getConfigNodePath("job1", "cron"), new Stat(), new byte[0])));
+		assertThat(cache.getVersion()).isEqualTo(version + 1);
+	}
+
+	@Test
+	public void testSelector() {
+		NamespaceJobConfigCache.JobConfigSelector selector = new NamespaceJobConfigCache.JobConfigSelector();
+		assertThat(selector.traverseChildren(JobNodePath.get$JobsNodePath())).isTrue();
+		assertThat(selector.traverseChildren(JobNodePath.getJobNodePath("job1"))).isTrue();
+		assertThat(selector.traverseChildren(JobNodePath.getConfigNodePath("job1"))).isTrue();
+		assertThat(selector.traverseChildren(JobNodePath.getServerNodePath("job1"))).isFalse();
+		assertThat(selector.traverseChildren(JobNodePath.getExecutionNodePath("job1"))).isFalse();
+
+		assertThat(selector.acceptChild(JobNodePath.getJobNodePath("job1"))).isTrue();
+		assertThat(selector.acceptChild(JobNodePath.getConfigNodePath("job1"))).isTrue();
+		assertThat(selector.acceptChild(JobNodePath.getConfigNodePath("job1", "cron"))).isTrue();
+		assertThat(selector.acceptChild(JobNodePath.getServerNodePath("job1"))).isFalse();
+		assertThat(selector.acceptChild(JobNodePath.getJobNodePath("job1") + "/leader")).isFalse();
+	}
+
+	/**
+	 * 不依赖TreeCache，读取的配置由测试设置
+	 */
+	private static class FakeJobConfigCache extends NamespaceJobConfigCache {
+
+		private Map<String, String> configs = new HashMap<>();
+
+		private int readTimes;
+
+		private FakeJobConfigCache() {
+			super("ns1", null);
+		}
+
+		@Override
+		Map<String, String> readJobConfig(String jobName) {
+			readTimes++;
+			return configs == null ? null : new HashMap<>(configs);
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.vip.saturn.job.console.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.nio.charset.Charset;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent.Type;
+import org.apache.zookeeper.data.Stat;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NamespaceJobOverviewCacheTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private NamespaceJobOverviewCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new NamespaceJobOverviewCache("ns1", null);
+		cache.handleEvent(new TreeCacheEvent(Type.INITIALIZED, null));
+	}
+
+	@Test
+	public void testAvailability() {
+		NamespaceJobOverviewCache uninitializedCache = new NamespaceJobOverviewCache("ns1", null);
+		assertThat(uninitializedCache.isAvailable()).isFalse();
+		assertThat(uninitializedCache.isAllShardsFinished("job1")).isNull();
+		assertThat(uninitializedCache.getShardingAllocatedExecutors("job1")).isNull();
+
+		assertThat(cache.isAvailable()).isTrue();
+		cache.handleEvent(new TreeCacheEvent(Type.CONNECTION_SUSPENDED, null));
+		assertThat(cache.isAvailable()).isFalse();
+		assertThat(cache.isAllShardsFinished("job1")).isNull();
+		cache.handleEvent(new TreeCacheEvent(Type.CONNECTION_RECONNECTED, null));
+		assertThat(cache.isAvailable()).isTrue();
+	}
+
+	@Test
+	public void testSharding() {
+		String sharding1 = JobNodePath.getServerNodePath("job1", "exec1", "sharding");
+		String sharding2 = JobNodePath.getServerNodePath("job1", "exec2", "sharding");
+		event(Type.NODE_ADDED, sharding1, "0,1");
+		event(Type.NODE_ADDED, sharding2, "2");
+		assertThat(cache.getShardingAllocatedExecutors("job1")).containsExactly("exec1", "exec2");
+
+		// 分片内容为空的executor不算已分配
+		event(Type.NODE_UPDATED, sharding2, " ");
+		assertThat(cache.getShardingAllocatedExecutors("job1")).containsExactly("exec1");
+		event(Type.NODE_UPDATED, sharding2, "2");
+		event(Type.NODE_REMOVED, sharding1, "0,1");
+		assertThat(cache.getShardingAllocatedExecutors("job1")).containsExactly("exec2");
+
+		// servers下的其他节点不影响
+		event(Type.NODE_ADDED, JobNodePath.getServerNodePath("job1", "exec3", "status"), "READY");
+		assertThat(cache.getShardingAllocatedExecutors("job1")).containsExactly("exec2");
+		assertThat(cache.getShardingAllocatedExecutors("job2")).isEmpty();
+	}
+
+	@Test
+	public void testRunningAndCompleted() {
+		assertThat(cache.isAllShardsFinished("job1")).isTrue();
+
+		event(Type.NODE_ADDED, JobNodePath.getExecutionNodePath("job1", "0", "running"), "");
+		event(Type.NODE_ADDED, JobNodePath.getExecutionNodePath("job1", "1", "running"), "");
+		event(Type.NODE_ADDED, JobNodePath.getExecutionNodePath("job1", "0", "completed"), "");
+		assertThat(cache.isAllShardsFinished("job1")).isFalse();
+
+		event(Type.NODE_ADDED, JobNodePath.getExecutionNodePath("job1", "1", "completed"), "");
+		assertThat(cache.isAllShardsFinished("job1")).isTrue();
+
+		// completed被删除，running还在，即分片重新开始执行
+		event(Type.NODE_REMOVED, JobNodePath.getExecutionNodePath("job1", "1", "completed"), "");
+		assertThat(cache.isAllShardsFinished("job1")).isFalse();
+		event(Type.NODE_REMOVED, JobNodePath.getExecutionNodePath("job1", "1", "running"), "");
+		assertThat(cache.isAllShardsFinished("job1")).isTrue();
+
+		// execution下的其他节点不影响
+		event(Type.NODE_ADDED, JobNodePath.getExecutionNodePath("job1", "2", "failover"), "");
+		assertThat(cache.isAllShardsFinished("job1")).isTrue();
+	}
+
+	@Test
+	public void testJobRemoved() {
+		event(Type.NODE_ADDED, JobNodePath.getJobNodePath("job1"), "");
+		event(Type.NODE_ADDED, JobNodePath.getServerNodePath("job1", "exec1", "sharding"), "0");
+		event(Type.NODE_ADDED, JobNodePath.getExecutionNodePath("job1", "0", "running"), "");
+		assertThat(cache.isAllShardsFinished("job1")).isFalse();
+
+		event(Type.NODE_REMOVED, JobNodePath.getJobNodePath("job1"), "");
+		assertThat(cache.isAllShardsFinished("job1")).isTrue();
+		assertThat(cache.getShardingAllocatedExecutors("job1")).isEmpty();
+
+		// 作业删除后子节点的删除事件不会重新创建作业的状态
+		event(Type.NODE_REMOVED, JobNodePath.getExecutionNodePath("job1", "0", "completed"), "");
+		event(Type.NODE_ADDED, JobNodePath.getExecutionNodePath("job1", "0", "running"), "");
+		assertThat(cache.isAllShardsFinished("job1")).isFalse();
+	}
+
+	@Test
+	public void testSelector() {
+		NamespaceJobOverviewCache.JobRuntimeSelector selector = new NamespaceJobOverviewCache.JobRuntimeSelector();
+		assertThat(selector.traverseChildren(JobNodePath.get$JobsNodePath())).isTrue();
+		assertThat(selector.traverseChildren(JobNodePath.getJobNodePath("job1"))).isTrue();
+		assertThat(selector.traverseChildren(JobNodePath.getServerNodePath("job1"))).isTrue();
+		assertThat(selector.traverseChildren(JobNodePath.getServerNodePath("job1", "exec1"))).isTrue();
+		assertThat(selector.traverseChildren(JobNodePath.getConfigNodePath("job1"))).isFalse();
+		assertThat(selector.traverseChildren(JobNodePath.getServerNodePath("job1", "exec1", "sharding"))).isFalse();
+
+		assertThat(selector.acceptChild(JobNodePath.getJobNodePath("job1"))).isTrue();
+		assertThat(selector.acceptChild(JobNodePath.getConfigNodePath("job1"))).isFalse();
+		assertThat(selector.acceptChild(JobNodePath.getServerNodePath("job1", "exec1", "sharding"))).isTrue();
+		assertThat(selector.acceptChild(JobNodePath.getServerNodePath("job1", "exec1", "status"))).isFalse();
+		assertThat(selector.acceptChild(JobNodePath.getExecutionNodePath("job1", "0", "running"))).isTrue();
+		assertThat(selector.acceptChild(JobNodePath.getExecutionNodePath("job1", "0", "completed"))).isTrue();
+		assertThat(selector.acceptChild(JobNodePath.getExecutionNodePath("job1", "0", "failover"))).isFalse();
+		assertThat(selector.acceptChild("/other/job1")).isFalse();
+	}
+
+	private void event(Type type, String path, String data) {
+		cache.handleEvent(new TreeCacheEvent(type, new ChildData(path, new Stat(), data.getBytes(UTF8))));
+	}
+
+}
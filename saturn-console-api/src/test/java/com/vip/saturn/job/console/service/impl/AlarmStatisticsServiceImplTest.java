@@ -0,0 +1,182 @@
+package com.vip.saturn.job.console.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import com.alibaba.fastjson.JSON;
+import com.vip.saturn.job.console.domain.AbnormalJob;
+import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
+import com.vip.saturn.job.console.domain.ZkCluster;
+import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
+import com.vip.saturn.job.console.mybatis.service.SaturnStatisticsService;
+import com.vip.saturn.job.console.service.RegistryCenterService;
+import com.vip.saturn.job.console.utils.FakeService;
+import com.vip.saturn.job.console.utils.StatisticsTableKeyConstant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AlarmStatisticsServiceImplTest {
+
+	private static final String ZK_ADDR = "127.0.0.1:2181";
+
+	private AlarmStatisticsServiceImpl alarmStatisticsService;
+
+	/**
+	 * 数据库中的告警作业
+	 */
+	private String result;
+
+	private long version;
+
+	private long readVersion;
+
+	/**
+	 * 数据库中单独存储的已读标记
+	 */
+	private List<String> readUuids;
+
+	private int resultReadCount;
+
+	private boolean failUpdate;
+
+	@Before
+	public void setUp() {
+		AbnormalJob job1 = new AbnormalJob("job1", "ns1", "ns1", "1");
+		job1.setUuid("u1");
+		AbnormalJob job2 = new AbnormalJob("job2", "ns1", "ns1", "1");
+		job2.setUuid("u2");
+		result = JSON.toJSONString(Arrays.asList(job1, job2));
+		readUuids = new ArrayList<>();
+		alarmStatisticsService = new AlarmStatisticsServiceImpl();
+		ReflectionTestUtils.setField(alarmStatisticsService, "registryCenterService", newRegistryCenterService());
+		ReflectionTestUtils.setField(alarmStatisticsService, "saturnStatisticsService", newSaturnStatisticsService());
+	}
+
+	@Test
+	public void testSetReadKeepsIndexWhenUpdateFails() throws Exception {
+		assertThat(alarmStatisticsService.getAbnormalJobListByNamespace("ns1")).hasSize(2);
+
+		failUpdate = true;
+		try {
+			alarmStatisticsService.setAbnormalJobMonitorStatusToRead("u1");
+			fail("should fail when the db update fails");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage()).isEqualTo("update failed");
+		}
+		assertThat(readUuids(alarmStatisticsService.getAbnormalJobList())).isEmpty();
+
+		failUpdate = false;
+		alarmStatisticsService.setAbnormalJobMonitorStatusToRead("u1");
+		assertThat(readUuids(alarmStatisticsService.getAbnormalJobList())).containsExactly("u1");
+		assertThat(alarmStatisticsService.getAbnormalJobsStringByZKCluster("zk1")).contains("\"read\":true");
+		// 只插入已读标记，不重写、不重新读取result
+		assertThat(readUuids).containsExactly("u1");
+		assertThat(readUuids(JSON.parseArray(result, AbnormalJob.class))).isEmpty();
+		assertThat(resultReadCount).isEqualTo(1);
+	}
+
+	@Test
+	public void testReadResultOnlyWhenVersionChanged() throws Exception {
+		assertThat(alarmStatisticsService.getAbnormalJobList()).hasSize(2);
+
+		// 其他控制台标记已读，只重新读取已读标记
+		readUuids.add("u2");
+		readVersion++;
+		alarmStatisticsService.setAbnormalJobMonitorStatusToRead("u1");
+		assertThat(readUuids(alarmStatisticsService.getAbnormalJobList())).containsExactly("u1", "u2");
+		assertThat(resultReadCount).isEqualTo(1);
+
+		// 统计刷新，重新读取result
+		AbnormalJob job3 = new AbnormalJob("job3", "ns1", "ns1", "1");
+		job3.setUuid("u3");
+		result = JSON.toJSONString(Arrays.asList(job3));
+		version++;
+		alarmStatisticsService.setAbnormalJobMonitorStatusToRead("u3");
+		assertThat(readUuids(alarmStatisticsService.getAbnormalJobList())).containsExactly("u3");
+		assertThat(resultReadCount).isEqualTo(2);
+	}
+
+	@Test
+	public void testQueryReturnsCopies() throws Exception {
+		alarmStatisticsService.getAbnormalJobList().get(0).setRead(true);
+		alarmStatisticsService.isAbnormalJob("ns1", "job2").setRead(true);
+
+		assertThat(readUuids(alarmStatisticsService.getAbnormalJobList())).isEmpty();
+	}
+
+	private static List<String> readUuids(List<AbnormalJob> jobs) {
+		List<String> uuids = new ArrayList<>();
+		for (AbnormalJob job : jobs) {
+			if (job.isRead()) {
+				uuids.add(job.getUuid());
+			}
+		}
+		return uuids;
+	}
+
+	private RegistryCenterService newRegistryCenterService() {
+		final ZkCluster zkCluster = new ZkCluster();
+		zkCluster.setZkClusterKey("zk1");
+		zkCluster.setZkAddr(ZK_ADDR);
+		return FakeService.of(RegistryCenterService.class, new FakeService.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) throws Exception {
+				switch (methodName) {
+					case "getZkClusterList":
+						return Arrays.asList(zkCluster);
+					case "getZkCluster":
+						return zkCluster;
+					case "findConfigByNamespace":
+						RegistryCenterConfiguration conf = new RegistryCenterConfiguration("", (String) args[0],
+								ZK_ADDR);
+						conf.setZkClusterKey("zk1");
+						return conf;
+					default:
+						throw new UnsupportedOperationException(methodName);
+				}
+			}
+		});
+	}
+
+	private SaturnStatisticsService newSaturnStatisticsService() {
+		return FakeService.of(SaturnStatisticsService.class, new FakeService.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) throws Exception {
+				switch (methodName) {
+					case "findStatisticsVersionByNameAndZkList":
+						return newSaturnStatistics((String) args[0], (String) args[1], null);
+					case "findStatisticsByNameAndZkList":
+						resultReadCount++;
+						return newSaturnStatistics((String) args[0], (String) args[1], result);
+					case "findReadUuids":
+						return new ArrayList<>(readUuids);
+					case "markRead":
+						if (failUpdate) {
+							throw new IllegalStateException("update failed");
+						}
+						readUuids.add((String) args[3]);
+						readVersion++;
+						return null;
+					default:
+						throw new UnsupportedOperationException(methodName);
+				}
+			}
+		});
+	}
+
+	private SaturnStatistics newSaturnStatistics(String name, String zkAddr, String result) {
+		if (!StatisticsTableKeyConstant.UNNORMAL_JOB.equals(name)) {
+			return null;
+		}
+		SaturnStatistics saturnStatistics = new SaturnStatistics(name, zkAddr, result);
+		saturnStatistics.setId(1);
+		saturnStatistics.setVersion(version);
+		saturnStatistics.setReadVersion(readVersion);
+		return saturnStatistics;
+	}
+
+}
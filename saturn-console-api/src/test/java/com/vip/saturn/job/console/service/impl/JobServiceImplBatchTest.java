@@ -0,0 +1,331 @@
+package com.vip.saturn.job.console.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import com.vip.saturn.job.console.domain.ImportJobProgress;
+import com.vip.saturn.job.console.domain.ImportJobResult;
+import com.vip.saturn.job.console.domain.JobConfig;
+import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
+import com.vip.saturn.job.console.mybatis.entity.JobConfig4DB;
+import com.vip.saturn.job.console.mybatis.service.CurrentJobConfigService;
+import com.vip.saturn.job.console.service.RegistryCenterService;
+import com.vip.saturn.job.console.service.SystemConfigService;
+import com.vip.saturn.job.console.utils.FakeService;
+import com.vip.saturn.job.console.utils.InMemoryCuratorFrameworkOp;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobServiceImplBatchTest {
+
+	private static final String NAMESPACE = "ns1";
+
+	private JobServiceImpl jobService;
+
+	private InMemoryCuratorFrameworkOp zk;
+
+	private Map<String, JobConfig4DB> db;
+
+	private int findConfigsCount;
+
+	@Before
+	public void setUp() {
+		zk = new InMemoryCuratorFrameworkOp();
+		db = new LinkedHashMap<>();
+		jobService = new JobServiceImpl();
+		ReflectionTestUtils.setField(jobService, "currentJobConfigService", newCurrentJobConfigService());
+		ReflectionTestUtils.setField(jobService, "registryCenterService", newRegistryCenterService());
+		ReflectionTestUtils.setField(jobService, "systemConfigService", newSystemConfigService());
+		addJob("job1", false);
+		addJob("job2", false);
+	}
+
+	@Test
+	public void testBatchEnableJobChecksRunningShardsInZk() throws Exception {
+		zk.put(JobNodePath.getExecutionNodePath("job2", "0", "running"), "");
+		try {
+			jobService.batchEnableJob(NAMESPACE, Arrays.asList("job1", "job2"), "admin");
+			fail("should not enable the job which is not STOPPED");
+		} catch (SaturnJobConsoleException e) {
+			assertThat(e.getMessage()).contains("job2").doesNotContain("job1");
+		}
+		assertThat(db.get("job1").getEnabled()).isFalse();
+
+		zk.put(JobNodePath.getExecutionNodePath("job2", "0", "completed"), "");
+		jobService.batchEnableJob(NAMESPACE, Arrays.asList("job1", "job2"), "admin");
+		assertThat(db.get("job1").getEnabled()).isTrue();
+		assertThat(db.get("job2").getEnabled()).isTrue();
+		assertThat(zk.get(JobNodePath.getConfigNodePath("job1", JobServiceImpl.CONFIG_ITEM_ENABLED)))
+				.isEqualTo("true");
+	}
+
+	@Test
+	public void testBatchDisableJobRestoresDbWhenZkCommitFails() throws Exception {
+		db.get("job1").setEnabled(true);
+		db.get("job2").setEnabled(true);
+		zk.setFailCommit(true);
+		try {
+			jobService.batchDisableJob(NAMESPACE, Arrays.asList("job1", "job2"), "admin");
+			fail("should fail when the zk transaction fails");
+		} catch (SaturnJobConsoleException e) {
+			assertThat(e.getMessage()).contains("job1").contains("job2");
+		}
+		assertThat(db.get("job1").getEnabled()).isTrue();
+		assertThat(db.get("job2").getEnabled()).isTrue();
+	}
+
+	@Test
+	public void testBatchRemoveJobRecreatesToDeleteInTransaction() throws Exception {
+		String toDeletePath = JobNodePath.getConfigNodePath("job1", "toDelete");
+		zk.put(toDeletePath, "");
+		zk.put(JobNodePath.getExecutionNodePath("job1", "0", "running"), "");
+		try {
+			jobService.batchRemoveJob(NAMESPACE, Arrays.asList("job1", "job2"));
+			fail("should not remove the job which is not STOPPED");
+		} catch (SaturnJobConsoleException e) {
+			assertThat(e.getMessage()).contains("job1");
+		}
+		assertThat(zk.exists(toDeletePath)).isTrue();
+
+		zk.put(JobNodePath.getExecutionNodePath("job1", "0", "completed"), "");
+		jobService.batchRemoveJob(NAMESPACE, Arrays.asList("job1", "job2"));
+		assertThat(zk.getCommittedTransactionOps()).containsSequence("delete " + toDeletePath,
+				"create " + toDeletePath);
+		assertThat(db).isEmpty();
+		assertThat(zk.exists(JobNodePath.getJobNodePath("job1"))).isFalse();
+		assertThat(zk.exists(JobNodePath.getJobNodePath("job2"))).isFalse();
+	}
+
+	@Test
+	public void testBatchRemoveJobRestoresDbWhenZkCommitFails() throws Exception {
+		zk.setFailCommit(true);
+		try {
+			jobService.batchRemoveJob(NAMESPACE, Arrays.asList("job1", "job2"));
+			fail("should fail when the zk transaction fails");
+		} catch (SaturnJobConsoleException e) {
+			assertThat(e.getMessage()).contains("job1").contains("job2");
+		}
+		assertThat(db.keySet()).containsExactly("job1", "job2");
+		assertThat(zk.exists(JobNodePath.getJobNodePath("job1"))).isTrue();
+	}
+
+	@Test
+	public void testBatchSetPreferListRecreatesForceShard() throws Exception {
+		String forceShardPath = SaturnExecutorsNode.getJobConfigForceShardNodePath("job1");
+		zk.put(forceShardPath, "");
+		jobService.batchSetPreferList(NAMESPACE, Arrays.asList("job1", "job2"), "exec1", "admin");
+
+		assertThat(zk.getCommittedTransactionOps()).containsSequence("delete " + forceShardPath,
+				"create " + forceShardPath);
+		assertThat(zk.getCommittedTransactionOps())
+				.contains("create " + SaturnExecutorsNode.getJobConfigForceShardNodePath("job2"));
+		assertThat(zk.get(SaturnExecutorsNode.getJobConfigPreferListNodePath("job1"))).isEqualTo("exec1");
+		assertThat(db.get("job2").getPreferList()).isEqualTo("exec1");
+		// 请求分片leader合并各作业的forceShard事件
+		assertThat(zk.get(SaturnExecutorsNode.SHARDING_COALESCING_WINDOW_NODE_PATH)).isEqualTo("2000");
+	}
+
+	@Test
+	public void testGetJobConfigsFromZKDirectly() throws Exception {
+		zk.put(JobNodePath.getConfigNodePath("job1", "jobType"), "JAVA_JOB");
+		zk.put(JobNodePath.getConfigNodePath("job1", "cron"), "0 * * * * ?");
+		zk.put(JobNodePath.getConfigNodePath("job1", "shardingTotalCount"), "2");
+		zk.put(JobNodePath.getConfigNodePath("job1", "processCountIntervalSeconds"), "300");
+		zk.put(JobNodePath.getConfigNodePath("job1", "timeoutSeconds"), "0");
+
+		Map<String, JobConfig> jobConfigs = jobService.getJobConfigsFromZKDirectly(NAMESPACE,
+				Arrays.asList("job1", "job3"));
+		assertThat(jobConfigs).containsOnlyKeys("job1");
+		assertThat(jobConfigs.get("job1").getCron()).isEqualTo("0 * * * * ?");
+		assertThat(jobConfigs.get("job1").getShardingTotalCount()).isEqualTo(2);
+		assertThat(jobConfigs.get("job1").getEnabled()).isFalse();
+		assertThat(jobConfigs.get("job1").getLoadLevel()).isEqualTo(1);
+	}
+
+	@Test
+	public void testImportJobsFromCsvInTransaction() throws Exception {
+		List<ImportJobResult> results = jobService.importJobsFromCsv(NAMESPACE,
+				toCsv(csvRow("job3"), csvRow("job1"), csvRow("job4"), csvRow("job3")), "user1");
+
+		assertImportResults(results, true, false, true, false);
+		assertThat(results.get(1).getMessage()).contains("已经存在");
+		assertThat(db).containsKeys("job3", "job4");
+		assertThat(db.get("job3").getCreateBy()).isEqualTo("user1");
+		// 配置节点在同一个事务中创建
+		assertThat(zk.getCommittedTransactionOps()).contains("create " + JobNodePath.getJobNodePath("job3"),
+				"create " + JobNodePath.getConfigNodePath("job3", "cron"),
+				"create " + JobNodePath.getConfigNodePath("job4", "enabled"));
+		assertThat(zk.get(JobNodePath.getConfigNodePath("job3", "cron"))).isEqualTo("0 * * * * ?");
+		assertThat(zk.get(JobNodePath.getConfigNodePath("job3", "enabled"))).isEqualTo("false");
+		ImportJobProgress progress = jobService.getImportJobProgress(NAMESPACE);
+		assertThat(progress.isFinished()).isTrue();
+		assertThat(progress.getSuccessNum()).isEqualTo(2);
+		assertThat(progress.getFailNum()).isEqualTo(2);
+	}
+
+	@Test
+	public void testImportJobsOneByOneWhenZkCommitFails() throws Exception {
+		zk.setFailCommit(true);
+
+		List<ImportJobResult> results = jobService.importJobsFromCsv(NAMESPACE, toCsv(csvRow("job3"), csvRow("job4")),
+				"user1");
+
+		assertImportResults(results, true, true);
+		assertThat(zk.getCommittedTransactionOps()).isEmpty();
+		assertThat(db).containsKeys("job3", "job4");
+		assertThat(zk.get(JobNodePath.getConfigNodePath("job4", "cron"))).isEqualTo("0 * * * * ?");
+	}
+
+	@Test
+	public void testRemoveExpiredImportJobProgress() throws Exception {
+		jobService.importJobsFromCsv(NAMESPACE, toCsv(csvRow("job3")), "user1");
+		ImportJobProgress progress = jobService.getImportJobProgress(NAMESPACE);
+		assertThat(progress.isFinished()).isTrue();
+
+		progress.setFinishTime(System.currentTimeMillis() - 11 * 60 * 1000L);
+		assertThat(jobService.getImportJobProgress(NAMESPACE)).isNull();
+	}
+
+	@Test
+	public void testDependencyGraphRebuiltOnceForUnknownJob() throws Exception {
+		db.get("job1").setDependencies("job2");
+		assertThat(jobService.getDependingJobs(NAMESPACE, "job1")).hasSize(1);
+		assertThat(findConfigsCount).isEqualTo(1);
+
+		// 不存在的作业只触发一次重建
+		for (int i = 0; i < 3; i++) {
+			try {
+				jobService.getDependingJobs(NAMESPACE, "job3");
+				fail();
+			} catch (SaturnJobConsoleException e) {
+				assertThat(e.getMessage()).contains("job3");
+			}
+		}
+		assertThat(findConfigsCount).isEqualTo(2);
+		// 另一个不存在的作业仍然重建一次再确认
+		try {
+			jobService.getDependedJobs(NAMESPACE, "job4");
+			fail();
+		} catch (SaturnJobConsoleException e) {
+			assertThat(e.getMessage()).contains("job4");
+		}
+		assertThat(findConfigsCount).isEqualTo(3);
+	}
+
+	private static void assertImportResults(List<ImportJobResult> results, boolean... successes) {
+		assertThat(results).hasSize(successes.length);
+		for (int i = 0; i < successes.length; i++) {
+			assertThat(results.get(i).isSuccess()).as(results.get(i).getJobName() + " " + results.get(i).getMessage())
+					.isEqualTo(successes[i]);
+		}
+	}
+
+	private static String csvRow(String jobName) {
+		return jobName + ",JAVA_JOB,com.vip.DemoJob,0 * * * * ?,,false,1,0,,0=a,,,,false,300,1,false,,,false,0,,,,,0,"
+				+ "Asia/Shanghai";
+	}
+
+	private static ByteArrayInputStream toCsv(String... rows) {
+		StringBuilder csv = new StringBuilder("header\n");
+		for (String row : rows) {
+			csv.append(row).append('\n');
+		}
+		return new ByteArrayInputStream(csv.toString().getBytes(Charset.forName("UTF-8")));
+	}
+
+	private void addJob(String jobName, boolean enabled) {
+		JobConfig4DB jobConfig = new JobConfig4DB();
+		jobConfig.setId((long) db.size() + 1);
+		jobConfig.setNamespace(NAMESPACE);
+		jobConfig.setJobName(jobName);
+		jobConfig.setEnabled(enabled);
+		jobConfig.setPreferList("");
+		db.put(jobName, jobConfig);
+		zk.put(JobNodePath.getConfigNodePath(jobName, JobServiceImpl.CONFIG_ITEM_ENABLED), String.valueOf(enabled));
+		zk.put(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName), "");
+	}
+
+	private static JobConfig4DB copy(JobConfig4DB jobConfig) {
+		JobConfig4DB copy = new JobConfig4DB();
+		BeanUtils.copyProperties(jobConfig, copy);
+		return copy;
+	}
+
+	private RegistryCenterService newRegistryCenterService() {
+		return FakeService.of(RegistryCenterService.class, new FakeService.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) throws Exception {
+				if ("getCuratorFrameworkOp".equals(methodName)) {
+					return zk.getProxy();
+				}
+				throw new UnsupportedOperationException(methodName);
+			}
+		});
+	}
+
+	private SystemConfigService newSystemConfigService() {
+		return FakeService.of(SystemConfigService.class, new FakeService.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) throws Exception {
+				if ("getIntegerValue".equals(methodName)) {
+					return args[1];
+				}
+				throw new UnsupportedOperationException(methodName);
+			}
+		});
+	}
+
+	/**
+	 * 内存中的作业配置表
+	 */
+	private CurrentJobConfigService newCurrentJobConfigService() {
+		return FakeService.of(CurrentJobConfigService.class, new FakeService.Handler() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Object handle(String methodName, Object[] args) throws Exception {
+				switch (methodName) {
+					case "findConfigsByNamespace":
+						findConfigsCount++;
+						List<JobConfig4DB> jobConfigs = new ArrayList<>();
+						for (JobConfig4DB jobConfig : db.values()) {
+							jobConfigs.add(copy(jobConfig));
+						}
+						return jobConfigs;
+					case "batchUpdate":
+					case "batchCreate":
+					case "batchUpdateNewAndSaveOld2History":
+						for (JobConfig4DB jobConfig : (List<JobConfig4DB>) args[0]) {
+							db.put(jobConfig.getJobName(), copy(jobConfig));
+						}
+						return null;
+					case "findConfigByNamespaceAndJobName":
+						JobConfig4DB found = db.get(args[1]);
+						return found == null ? null : copy(found);
+					case "create":
+						JobConfig4DB created = (JobConfig4DB) args[0];
+						db.put(created.getJobName(), copy(created));
+						return 1;
+					case "batchDelete":
+						for (JobConfig4DB jobConfig : (List<JobConfig4DB>) args[0]) {
+							db.remove(jobConfig.getJobName());
+						}
+						return null;
+					default:
+						throw new UnsupportedOperationException(methodName);
+				}
+			}
+		});
+	}
+
+}
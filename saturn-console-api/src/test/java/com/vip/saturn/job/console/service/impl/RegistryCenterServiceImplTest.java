@@ -0,0 +1,235 @@
+package com.vip.saturn.job.console.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.Sets;
+import com.vip.saturn.job.console.SaturnEnvProperties;
+import com.vip.saturn.job.console.domain.RegistryCenterClient;
+import com.vip.saturn.job.console.domain.NamespaceReadiness;
+import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
+import com.vip.saturn.job.console.domain.ZkCluster;
+import com.vip.saturn.job.console.mybatis.entity.NamespaceZkClusterMapping;
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
+import com.vip.saturn.job.console.utils.ExecutorNodePath;
+import com.vip.saturn.job.console.utils.FakeService;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.imps.CuratorFrameworkState;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RegistryCenterServiceImplTest {
+
+	@Test
+	public void testMergeKeepsPreviousOnlineNamespacesOfFailedCluster() {
+		Map<String, List<String>> previous = new HashMap<>();
+		previous.put("zk1", Arrays.asList("ns1", "ns2"));
+		previous.put("zk2", Arrays.asList("ns3"));
+		previous.put("zk3", Arrays.asList("ns4"));
+		Map<String, List<String>> refreshed = new HashMap<>();
+		refreshed.put("zk1", Arrays.asList("ns1"));
+
+		// zk2刷新失败沿用上一次的结果，zk3已移除，zk4是新的且刷新失败
+		Map<String, List<String>> result = RegistryCenterServiceImpl
+				.mergeClusterOnlineNamespaces(Arrays.asList("zk4", "zk2", "zk1"), refreshed, previous);
+
+		assertThat(result.keySet()).containsExactly("zk2", "zk1");
+		assertThat(result.get("zk1")).containsExactly("ns1");
+		assertThat(result.get("zk2")).containsExactly("ns3");
+	}
+
+	@Test
+	public void testMergeUsesRefreshedEmptyNamespaces() {
+		Map<String, List<String>> previous = new HashMap<>();
+		previous.put("zk1", Arrays.asList("ns1"));
+		Map<String, List<String>> refreshed = new HashMap<>();
+		refreshed.put("zk1", Collections.<String>emptyList());
+
+		Map<String, List<String>> result = RegistryCenterServiceImpl
+				.mergeClusterOnlineNamespaces(Arrays.asList("zk1"), refreshed, previous);
+
+		assertThat(result.get("zk1")).isEmpty();
+	}
+
+	@Test
+	public void testInitMoveInNamespacesInParallel() throws Exception {
+		TestingServer testingServer = new TestingServer();
+		CuratorFramework client = CuratorFrameworkFactory.newClient(testingServer.getConnectString(),
+				new RetryOneTime(1000));
+		client.start();
+		ExecutorService workerThreadPool = Executors.newCachedThreadPool();
+		try {
+			client.create().creatingParentsIfNeeded()
+					.forPath("/ns1" + ExecutorNodePath.getExecutorVersionNodePath("exe1"),
+							"3.0.0".getBytes(Charset.forName("UTF-8")));
+			RegistryCenterServiceImpl registryCenterService = new RegistryCenterServiceImpl();
+			ReflectionTestUtils.setField(registryCenterService, "localRefreshWorkerThreadPool", workerThreadPool);
+			ZkCluster zkCluster = new ZkCluster();
+			zkCluster.setZkClusterKey("zk1");
+			zkCluster.setZkAddr(testingServer.getConnectString());
+			zkCluster.setCuratorFramework(client);
+			List<NamespaceZkClusterMapping> mappings = new ArrayList<>();
+			for (int i = 1; i <= 20; i++) {
+				NamespaceZkClusterMapping mapping = new NamespaceZkClusterMapping();
+				mapping.setNamespace("ns" + i);
+				mapping.setName("name" + i);
+				mapping.setZkClusterKey("zk1");
+				mappings.add(mapping);
+			}
+
+			List<String> onlineNamespaces = new ArrayList<>();
+			ReflectionTestUtils.invokeMethod(registryCenterService, "initMoveInNamespace", onlineNamespaces, "zk1",
+					zkCluster, mappings, zkCluster.getRegCenterConfList());
+
+			assertThat(onlineNamespaces).hasSize(20);
+			assertThat(zkCluster.getRegCenterConfList()).hasSize(20);
+			for (RegistryCenterConfiguration conf : zkCluster.getRegCenterConfList()) {
+				assertThat(client.checkExists().forPath("/" + conf.getNamespace() + JobNodePath.get$JobsNodePath()))
+						.isNotNull();
+				assertThat(conf.getVersion()).isEqualTo("ns1".equals(conf.getNamespace()) ? "3.0.0" : "");
+			}
+
+			LinkedHashMap<String, ZkCluster> zkClusterMap = new LinkedHashMap<>();
+			zkClusterMap.put("zk1", zkCluster);
+			ReflectionTestUtils.setField(registryCenterService, "zkClusterMap", zkClusterMap);
+			assertThat(registryCenterService.getNamespaceReadiness("ns1")).isEqualTo(NamespaceReadiness.READY);
+			assertThat(registryCenterService.getNamespaceReadiness("ns21"))
+					.isEqualTo(NamespaceReadiness.NOT_REGISTERED);
+			// 本控制台负责分片，但分片服务还没有启动
+			ReflectionTestUtils.setField(registryCenterService, "restrictComputeZkClusterKeys", Sets.newHashSet("zk1"));
+			assertThat(registryCenterService.getNamespaceReadiness("ns1")).isEqualTo(NamespaceReadiness.REGISTERED);
+		} finally {
+			workerThreadPool.shutdown();
+			client.close();
+			testingServer.close();
+		}
+	}
+
+	@Test
+	public void testNeverCloseNamespaceViewOfSharedZkClient() throws Exception {
+		TestingServer testingServer = new TestingServer();
+		CuratorFramework client = CuratorFrameworkFactory.newClient(testingServer.getConnectString(),
+				new RetryOneTime(1000));
+		client.start();
+		boolean sharedZkClient = SaturnEnvProperties.VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT;
+		SaturnEnvProperties.VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT = true;
+		try {
+			final AtomicInteger viewCloseCount = new AtomicInteger();
+			RegistryCenterServiceImpl registryCenterService = new RegistryCenterServiceImpl();
+			ZkCluster zkCluster = new ZkCluster();
+			zkCluster.setZkClusterKey("zk1");
+			zkCluster.setZkAddr(testingServer.getConnectString());
+			zkCluster.setCuratorFramework(recordViewClose(client, viewCloseCount));
+			LinkedHashMap<String, ZkCluster> zkClusterMap = new LinkedHashMap<>();
+			zkClusterMap.put("zk1", zkCluster);
+			ReflectionTestUtils.setField(registryCenterService, "zkClusterMap", zkClusterMap);
+			RegistryCenterConfiguration conf = new RegistryCenterConfiguration("name1", "ns1",
+					testingServer.getConnectString());
+			conf.setZkClusterKey("zk1");
+
+			RegistryCenterClient registryCenterClient = ReflectionTestUtils.invokeMethod(registryCenterService,
+					"createRegistryCenterClient", "name1/ns1", conf);
+			assertThat(registryCenterClient.isShared()).isTrue();
+			registryCenterClient.close();
+
+			ReflectionTestUtils.invokeMethod(registryCenterService, "createNamespaceShardingManager", conf,
+					"name1/ns1");
+			Map<?, ?> namespaceShardingManagers = (Map<?, ?>) ReflectionTestUtils
+					.getField(registryCenterService, "namespaceShardingListenerManagerMap");
+			Object namespaceShardingManager = namespaceShardingManagers.remove("name1/ns1");
+			assertThat(namespaceShardingManager).isNotNull();
+			ReflectionTestUtils.invokeMethod(registryCenterService, "stopNamespaceShardingManager",
+					namespaceShardingManager);
+
+			assertThat(viewCloseCount.get()).isEqualTo(0);
+			assertThat(client.getState()).isEqualTo(CuratorFrameworkState.STARTED);
+
+			// 离线的zk集群不共享连接，为域单独建立连接
+			final AtomicInteger connectCount = new AtomicInteger();
+			ReflectionTestUtils.setField(registryCenterService, "curatorRepository",
+					FakeService.of(CuratorRepository.class, new FakeService.Handler() {
+						@Override
+						public Object handle(String methodName, Object[] args) {
+							assertThat(methodName).isEqualTo("connect");
+							connectCount.incrementAndGet();
+							return null;
+						}
+					}));
+			zkCluster.setOffline(true);
+			RegistryCenterClient offlineClient = ReflectionTestUtils.invokeMethod(registryCenterService,
+					"createRegistryCenterClient", "name1/ns1", conf);
+			assertThat(offlineClient.isShared()).isFalse();
+			assertThat(connectCount.get()).isEqualTo(1);
+			offlineClient.close();
+		} finally {
+			SaturnEnvProperties.VIP_SATURN_CONSOLE_SHARED_ZK_CLIENT = sharedZkClient;
+			client.close();
+			testingServer.close();
+		}
+	}
+
+	/**
+	 * 记录usingNamespace返回的命名空间视图的close调用，其他方法委托给真实的连接
+	 */
+	private static CuratorFramework recordViewClose(final CuratorFramework client,
+			final AtomicInteger viewCloseCount) {
+		return delegate(client, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if ("usingNamespace".equals(method.getName())) {
+					CuratorFramework view = client.usingNamespace((String) args[0]);
+					return delegate(view, new InvocationHandler() {
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							if ("close".equals(method.getName())) {
+								viewCloseCount.incrementAndGet();
+							}
+							return null;
+						}
+					});
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * handler返回null时委托给target
+	 */
+	private static CuratorFramework delegate(final CuratorFramework target, final InvocationHandler handler) {
+		return (CuratorFramework) Proxy.newProxyInstance(RegistryCenterServiceImplTest.class.getClassLoader(),
+				new Class<?>[]{CuratorFramework.class}, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						Object result = handler.invoke(proxy, method, args);
+						if (result != null) {
+							return result;
+						}
+						try {
+							return method.invoke(target, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				});
+	}
+
+}
@@ -0,0 +1,278 @@
+package com.vip.saturn.job.console.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.domain.JobConfig;
+import com.vip.saturn.job.console.domain.JobDiffInfo;
+import com.vip.saturn.job.console.domain.RegistryCenterClient;
+import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
+import com.vip.saturn.job.console.domain.ZkDBDiffProgress;
+import com.vip.saturn.job.console.mybatis.entity.JobConfig4DB;
+import com.vip.saturn.job.console.mybatis.service.CurrentJobConfigService;
+import com.vip.saturn.job.console.mybatis.service.NamespaceZkClusterMapping4SqlService;
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
+import com.vip.saturn.job.console.service.JobService;
+import com.vip.saturn.job.console.service.RegistryCenterService;
+import com.vip.saturn.job.console.service.SystemConfigService;
+import com.vip.saturn.job.console.service.cache.NamespaceJobConfigCache;
+import com.vip.saturn.job.console.utils.FakeService;
+import com.vip.saturn.job.console.utils.InMemoryCuratorFrameworkOp;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ZkDBDiffServiceImplTest {
+
+	private static final String ZK_CLUSTER = "zk1";
+
+	private ZkDBDiffServiceImpl zkDBDiffService;
+
+	private InMemoryCuratorFrameworkOp zk;
+
+	private Map<String, List<JobConfig4DB>> db;
+
+	private Map<String, JobConfig> zkJobConfigs;
+
+	private List<String> namespaces;
+
+	/**
+	 * 对比到blockedNamespace时等待，用于检查对比中的任务
+	 */
+	private String blockedNamespace;
+
+	private final CountDownLatch unblockLatch = new CountDownLatch(1);
+
+	private final AtomicInteger diffingNamespaceNum = new AtomicInteger();
+
+	private final AtomicInteger maxDiffingNamespaceNum = new AtomicInteger();
+
+	private final List<String> invokedMethods = new CopyOnWriteArrayList<>();
+
+	private final List<List<String>> directlyReadJobNames = new CopyOnWriteArrayList<>();
+
+	private NamespaceJobConfigCache jobConfigCache;
+
+	@Before
+	public void setUp() {
+		zk = new InMemoryCuratorFrameworkOp();
+		db = new LinkedHashMap<>();
+		zkJobConfigs = new LinkedHashMap<>();
+		namespaces = new ArrayList<>();
+		zkDBDiffService = new ZkDBDiffServiceImpl();
+		ReflectionTestUtils.setField(zkDBDiffService, "namespaceZkClusterMapping4SqlService",
+				fake(NamespaceZkClusterMapping4SqlService.class));
+		ReflectionTestUtils.setField(zkDBDiffService, "currentJobConfigService", fake(CurrentJobConfigService.class));
+		ReflectionTestUtils.setField(zkDBDiffService, "jobService", fake(JobService.class));
+		ReflectionTestUtils.setField(zkDBDiffService, "registryCenterService", fake(RegistryCenterService.class));
+		ReflectionTestUtils.setField(zkDBDiffService, "curatorRepository", fake(CuratorRepository.class));
+		ReflectionTestUtils.setField(zkDBDiffService, "systemConfigService", fake(SystemConfigService.class));
+		zkDBDiffService.init();
+
+		// ns1: job1一致，job2的cron不一致，job3只在db，job4只在zk
+		namespaces.add("ns1");
+		addJob("ns1", "job1", true, true);
+		addJob("ns1", "job2", true, true);
+		zkJobConfigs.get("job2").setCron("0 0 * * * ?");
+		addJob("ns1", "job3", true, false);
+		addJob("ns1", "job4", false, true);
+	}
+
+	@After
+	public void tearDown() {
+		unblockLatch.countDown();
+		zkDBDiffService.destroy();
+	}
+
+	@Test
+	public void testDiffByNamespaceNotCreateJobConfigCache() throws Exception {
+		List<JobDiffInfo> jobDiffInfos = zkDBDiffService.diffByNamespace("ns1");
+
+		assertThat(describe(jobDiffInfos)).containsExactly("job2:HAS_DIFFERENCE", "job3:DB_ONLY", "job4:ZK_ONLY");
+		assertThat(invokedMethods).contains("peekJobConfigCache", "getJobConfigsFromZKDirectly")
+				.doesNotContain("getJobConfigCache", "getJobConfigFromZK", "getJobConfigFromZKDirectly");
+		// 没有快照时所有作业一次批量直接读zk
+		assertThat(directlyReadJobNames).containsExactly(Arrays.asList("job1", "job2"));
+	}
+
+	@Test
+	public void testDiffByNamespaceReadOnlyDifferentJobsDirectly() throws Exception {
+		jobConfigCache = new NamespaceJobConfigCache("ns1", null);
+
+		List<JobDiffInfo> jobDiffInfos = zkDBDiffService.diffByNamespace("ns1");
+
+		assertThat(describe(jobDiffInfos)).containsExactly("job2:HAS_DIFFERENCE", "job3:DB_ONLY", "job4:ZK_ONLY");
+		// 与快照一致的job1不再直接读zk
+		assertThat(directlyReadJobNames).containsExactly(Arrays.asList("job2"));
+	}
+
+	@Test
+	public void testDiffProgressPaging() throws Exception {
+		ZkDBDiffProgress progress = waitFinished(zkDBDiffService.diffByClusterAsync(ZK_CLUSTER));
+		assertThat(progress.getTotalResultNum()).isEqualTo(3);
+
+		String taskId = progress.getTaskId();
+		assertThat(describe(zkDBDiffService.getDiffProgress(taskId, 0, 2).getResults()))
+				.containsExactly("job2:HAS_DIFFERENCE", "job3:DB_ONLY");
+		progress = zkDBDiffService.getDiffProgress(taskId, 2, 2);
+		assertThat(progress.getOffset()).isEqualTo(2);
+		assertThat(describe(progress.getResults())).containsExactly("job4:ZK_ONLY");
+		// limit不大于0时返回offset之后的全部结果，offset越界时返回空
+		assertThat(zkDBDiffService.getDiffProgress(taskId, 1, 0).getResults()).hasSize(2);
+		assertThat(zkDBDiffService.getDiffProgress(taskId, -1, 1).getOffset()).isEqualTo(0);
+		progress = zkDBDiffService.getDiffProgress(taskId, 10, 2);
+		assertThat(progress.getOffset()).isEqualTo(3);
+		assertThat(progress.getResults()).isEmpty();
+	}
+
+	@Test
+	public void testDiffTaskLifecycle() throws Exception {
+		namespaces.add("ns2");
+		namespaces.add("ns3");
+		namespaces.add("ns4");
+		db.put("ns2", null);
+		blockedNamespace = "ns3";
+
+		String taskId = zkDBDiffService.diffByClusterAsync(ZK_CLUSTER);
+		// 对比中的zk集群不会重复对比
+		assertThat(zkDBDiffService.diffByClusterAsync(ZK_CLUSTER)).isEqualTo(taskId);
+		ZkDBDiffProgress progress = zkDBDiffService.getDiffProgress(taskId, 0, 10);
+		assertThat(progress.isFinished()).isFalse();
+		assertThat(progress.getZkClusterKey()).isEqualTo(ZK_CLUSTER);
+		assertThat(progress.getTotalNamespaceNum()).isEqualTo(4);
+
+		unblockLatch.countDown();
+		progress = waitFinished(taskId);
+		assertThat(progress.getDiffedNamespaceNum()).isEqualTo(4);
+		assertThat(progress.getFailedNamespaces()).containsExactly("ns2");
+		assertThat(progress.getTotalResultNum()).isEqualTo(3);
+		assertThat(maxDiffingNamespaceNum.get()).isLessThanOrEqualTo(2);
+
+		// 结束后可以重新对比，结束的任务仍然可以查询
+		assertThat(zkDBDiffService.diffByClusterAsync(ZK_CLUSTER)).isNotEqualTo(taskId);
+		assertThat(zkDBDiffService.getDiffProgress(taskId, 0, 10).isFinished()).isTrue();
+		assertThat(zkDBDiffService.getDiffProgress("unknown", 0, 10)).isNull();
+	}
+
+	private ZkDBDiffProgress waitFinished(String taskId) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			ZkDBDiffProgress progress = zkDBDiffService.getDiffProgress(taskId, 0, 0);
+			if (progress.isFinished()) {
+				return progress;
+			}
+			Thread.sleep(50L);
+		}
+		throw new AssertionError("the diff task is not finished");
+	}
+
+	private void addJob(String namespace, String jobName, boolean inDb, boolean inZk) {
+		JobConfig4DB jobConfig = new JobConfig4DB();
+		jobConfig.setNamespace(namespace);
+		jobConfig.setJobName(jobName);
+		jobConfig.setJobType("JAVA_JOB");
+		jobConfig.setCron("0 * * * * ?");
+		jobConfig.setShardingTotalCount(1);
+		jobConfig.setEnabled(true);
+		if (inDb) {
+			if (!db.containsKey(namespace)) {
+				db.put(namespace, new ArrayList<JobConfig4DB>());
+			}
+			db.get(namespace).add(jobConfig);
+		}
+		if (inZk) {
+			JobConfig zkJobConfig = new JobConfig();
+			BeanUtils.copyProperties(jobConfig, zkJobConfig);
+			zkJobConfigs.put(jobName, zkJobConfig);
+			zk.put(JobNodePath.getConfigNodePath(jobName), "");
+		}
+	}
+
+	private static List<String> describe(List<JobDiffInfo> jobDiffInfos) {
+		List<String> result = new ArrayList<>();
+		for (JobDiffInfo jobDiffInfo : jobDiffInfos) {
+			result.add(jobDiffInfo.getJobName() + ":" + jobDiffInfo.getDiffType());
+		}
+		return result;
+	}
+
+	private <T> T fake(Class<T> type) {
+		return FakeService.of(type, new FakeService.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) throws Exception {
+				invokedMethods.add(methodName);
+				return ZkDBDiffServiceImplTest.this.handle(methodName, args);
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object handle(String methodName, Object[] args) throws Exception {
+		switch (methodName) {
+			case "getAllNamespacesOfCluster":
+				return new ArrayList<>(namespaces);
+			case "getIntegerValue":
+				return 2;
+			case "findConfigsByNamespace":
+				return findConfigsByNamespace((String) args[0]);
+			case "findConfigByNamespace":
+				return new RegistryCenterConfiguration("", (String) args[0], "");
+			case "connectByNamespace":
+				RegistryCenterClient registryCenterClient = new RegistryCenterClient();
+				registryCenterClient.setConnected(true);
+				return registryCenterClient;
+			case "newCuratorFrameworkOp":
+				return zk.getProxy();
+			case "peekJobConfigCache":
+				return jobConfigCache;
+			case "getJobConfigFromZK":
+				return zkJobConfigs.get(args[1]);
+			case "getJobConfigsFromZKDirectly":
+				List<String> jobNames = new ArrayList<>((Collection<String>) args[1]);
+				directlyReadJobNames.add(jobNames);
+				Map<String, JobConfig> jobConfigs = new LinkedHashMap<>();
+				for (String jobName : jobNames) {
+					if (zkJobConfigs.containsKey(jobName)) {
+						jobConfigs.put(jobName, zkJobConfigs.get(jobName));
+					}
+				}
+				return jobConfigs;
+			default:
+				throw new UnsupportedOperationException(methodName);
+		}
+	}
+
+	private List<JobConfig4DB> findConfigsByNamespace(String namespace) throws InterruptedException {
+		int diffing = diffingNamespaceNum.incrementAndGet();
+		try {
+			while (true) {
+				int max = maxDiffingNamespaceNum.get();
+				if (diffing <= max || maxDiffingNamespaceNum.compareAndSet(max, diffing)) {
+					break;
+				}
+			}
+			if (namespace.equals(blockedNamespace)) {
+				unblockLatch.await(5, TimeUnit.SECONDS);
+			}
+			if (db.containsKey(namespace) && db.get(namespace) == null) {
+				throw new IllegalStateException("fail to query " + namespace);
+			}
+			List<JobConfig4DB> jobConfigs = db.get(namespace);
+			return jobConfigs == null ? null : new ArrayList<>(jobConfigs);
+		} finally {
+			diffingNamespaceNum.decrementAndGet();
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+package com.vip.saturn.job.console.service.impl.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.domain.ZkCluster;
+import com.vip.saturn.job.console.mybatis.entity.SaturnStatistics;
+import com.vip.saturn.job.console.mybatis.service.SaturnStatisticsService;
+import com.vip.saturn.job.console.utils.FakeService;
+import com.vip.saturn.job.console.utils.StatisticsTableKeyConstant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class StatisticsPersistenceTest {
+
+	private static final String ZK_ADDR = "127.0.0.1:2181";
+
+	private StatisticsPersistence statisticsPersistence;
+
+	private ZkCluster zkCluster;
+
+	private List<SaturnStatistics> statisticsInDB;
+
+	private Map<String, List<String>> readUuidsInDB;
+
+	private List<SaturnStatistics> createdList;
+
+	private List<SaturnStatistics> updatedList;
+
+	private int batchCreateOrUpdateCount;
+
+	private boolean batchCreateOrUpdateFail;
+
+	private Map<String, Collection<String>> deletedReadUuids;
+
+	@Before
+	public void setUp() {
+		statisticsInDB = new ArrayList<>();
+		readUuidsInDB = new HashMap<>();
+		createdList = new ArrayList<>();
+		updatedList = new ArrayList<>();
+		deletedReadUuids = new HashMap<>();
+		zkCluster = new ZkCluster();
+		zkCluster.setZkAddr(ZK_ADDR);
+		statisticsPersistence = new StatisticsPersistence();
+		ReflectionTestUtils.setField(statisticsPersistence, "saturnStatisticsService",
+				FakeService.of(SaturnStatisticsService.class, new FakeService.Handler() {
+					@Override
+					public Object handle(String methodName, Object[] args) {
+						return StatisticsPersistenceTest.this.handle(methodName, args);
+					}
+				}));
+	}
+
+	@Test
+	public void testCreateAllStatisticsAtFirst() {
+		persist();
+
+		assertThat(batchCreateOrUpdateCount).isEqualTo(1);
+		assertThat(createdList).isNotEmpty();
+		assertThat(updatedList).isEmpty();
+		assertThat(findCreated(StatisticsTableKeyConstant.JOB_COUNT).getResult()).isEqualTo("0");
+		assertThat(deletedReadUuids).isEmpty();
+	}
+
+	@Test
+	public void testSkipUnchangedStatisticsAndDeleteMergedReadUuids() {
+		persist();
+		saveCreatedToDB();
+		readUuidsInDB.put(StatisticsTableKeyConstant.UNNORMAL_JOB, Arrays.asList("uuid1"));
+
+		// 统计结果没有变化，不写数据库，已读标记已经合并到告警作业列表中，删除
+		persist();
+		assertThat(batchCreateOrUpdateCount).isEqualTo(0);
+		assertThat(deletedReadUuids).containsOnlyKeys(StatisticsTableKeyConstant.UNNORMAL_JOB);
+		assertThat(deletedReadUuids.get(StatisticsTableKeyConstant.UNNORMAL_JOB)).containsExactly("uuid1");
+	}
+
+	@Test
+	public void testUpdateOnlyChangedStatistics() {
+		persist();
+		saveCreatedToDB();
+		findInDB(StatisticsTableKeyConstant.JOB_COUNT).setResult("5");
+
+		persist();
+		assertThat(batchCreateOrUpdateCount).isEqualTo(1);
+		assertThat(createdList).isEmpty();
+		assertThat(updatedList).hasSize(1);
+		assertThat(updatedList.get(0).getName()).isEqualTo(StatisticsTableKeyConstant.JOB_COUNT);
+		assertThat(updatedList.get(0).getResult()).isEqualTo("0");
+	}
+
+	@Test
+	public void testKeepReadUuidsWhenSaveFailed() {
+		persist();
+		saveCreatedToDB();
+		findInDB(StatisticsTableKeyConstant.JOB_COUNT).setResult("5");
+		readUuidsInDB.put(StatisticsTableKeyConstant.UNNORMAL_JOB, Arrays.asList("uuid1"));
+		batchCreateOrUpdateFail = true;
+
+		// 保存失败时已读标记没有合并到数据库中，不能删除
+		persist();
+		assertThat(batchCreateOrUpdateCount).isEqualTo(1);
+		assertThat(deletedReadUuids).isEmpty();
+	}
+
+	private void persist() {
+		batchCreateOrUpdateCount = 0;
+		createdList.clear();
+		updatedList.clear();
+		statisticsPersistence.persist(new StatisticsRefreshServiceImpl().initStatisticsModel(), zkCluster);
+	}
+
+	private void saveCreatedToDB() {
+		int id = 1;
+		for (SaturnStatistics saturnStatistics : createdList) {
+			saturnStatistics.setId(id++);
+			statisticsInDB.add(saturnStatistics);
+		}
+	}
+
+	private SaturnStatistics findCreated(String name) {
+		for (SaturnStatistics saturnStatistics : createdList) {
+			if (name.equals(saturnStatistics.getName())) {
+				return saturnStatistics;
+			}
+		}
+		return null;
+	}
+
+	private SaturnStatistics findInDB(String name) {
+		for (SaturnStatistics saturnStatistics : statisticsInDB) {
+			if (name.equals(saturnStatistics.getName())) {
+				return saturnStatistics;
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object handle(String methodName, Object[] args) {
+		switch (methodName) {
+			case "findStatisticsByZkList":
+				assertThat(args[0]).isEqualTo(ZK_ADDR);
+				// 与数据库一样，每次返回新的对象
+				List<SaturnStatistics> result = new ArrayList<>();
+				for (SaturnStatistics saturnStatistics : statisticsInDB) {
+					SaturnStatistics copy = new SaturnStatistics(saturnStatistics.getName(),
+							saturnStatistics.getZklist(), saturnStatistics.getResult());
+					copy.setId(saturnStatistics.getId());
+					result.add(copy);
+				}
+				return result;
+			case "findReadUuids":
+				return readUuidsInDB.get(args[0]);
+			case "batchCreateOrUpdate":
+				batchCreateOrUpdateCount++;
+				if (batchCreateOrUpdateFail) {
+					throw new IllegalStateException("batchCreateOrUpdate failed");
+				}
+				createdList.addAll((List<SaturnStatistics>) args[0]);
+				updatedList.addAll((List<SaturnStatistics>) args[1]);
+				return null;
+			case "deleteReadUuids":
+				deletedReadUuids.put((String) args[0], (Collection<String>) args[2]);
+				return null;
+			default:
+				throw new UnsupportedOperationException(methodName);
+		}
+	}
+
+}
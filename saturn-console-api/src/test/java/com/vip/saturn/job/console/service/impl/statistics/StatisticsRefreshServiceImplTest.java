@@ -0,0 +1,215 @@
+package com.vip.saturn.job.console.service.impl.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.domain.AbnormalJob;
+import com.vip.saturn.job.console.domain.ExecutorProvided;
+import com.vip.saturn.job.console.domain.ExecutorProvidedStatus;
+import com.vip.saturn.job.console.domain.ExecutorProvidedType;
+import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
+import com.vip.saturn.job.console.domain.Timeout4AlarmJob;
+import com.vip.saturn.job.console.domain.ZkCluster;
+import com.vip.saturn.job.console.service.JobService;
+import com.vip.saturn.job.console.service.RegistryCenterService;
+import com.vip.saturn.job.console.service.cache.NamespaceJobConfigCache;
+import com.vip.saturn.job.console.service.impl.statistics.StatisticsRefreshServiceImpl.ZkClusterRefreshState;
+import com.vip.saturn.job.console.service.impl.statistics.analyzer.StatisticsModel;
+import com.vip.saturn.job.console.utils.ExecutorNodePath;
+import com.vip.saturn.job.console.utils.FakeService;
+import com.vip.saturn.job.console.utils.InMemoryCuratorFrameworkOp;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class StatisticsRefreshServiceImplTest {
+
+	private static final String NAMESPACE = "ns1";
+
+	private StatisticsRefreshServiceImpl statisticsRefreshService;
+
+	private InMemoryCuratorFrameworkOp zk;
+
+	private FakeJobConfigCache jobConfigCache;
+
+	private ZkClusterRefreshState refreshState;
+
+	private ZkCluster zkCluster;
+
+	private RegistryCenterConfiguration config;
+
+	private int candidateExecutorsQueryCount;
+
+	@Before
+	public void setUp() {
+		zk = new InMemoryCuratorFrameworkOp();
+		jobConfigCache = new FakeJobConfigCache();
+		refreshState = new ZkClusterRefreshState();
+		zkCluster = new ZkCluster();
+		zkCluster.setZkAddr("127.0.0.1:2181");
+		config = new RegistryCenterConfiguration("name1", NAMESPACE, "127.0.0.1:2181");
+		statisticsRefreshService = new StatisticsRefreshServiceImpl();
+		ReflectionTestUtils.setField(statisticsRefreshService, "registryCenterService",
+				fake(RegistryCenterService.class));
+		ReflectionTestUtils.setField(statisticsRefreshService, "jobService", fake(JobService.class));
+
+		// job1只使用优先的exe1，exe1是唯一的物理机，无法高可用
+		addJob("job1");
+		zk.put(JobNodePath.getConfigNodePath("job1", "preferList"), "exe1");
+		zk.put(JobNodePath.getConfigNodePath("job1", "useDispreferList"), "false");
+		zk.put(ExecutorNodePath.getExecutorIpNodePath("exe1"), "127.0.0.1");
+		zk.put(ExecutorNodePath.getExecutorVersionNodePath("exe1"), "3.0.0");
+		zk.put(ExecutorNodePath.SHARDING_COUNT_PATH, "1");
+	}
+
+	@Test
+	public void testReuseSnapshotOfUnchangedNamespace() {
+		StatisticsModel statisticsModel = analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(1);
+		assertThat(refreshState.getUnchangedNamespaceCount()).isEqualTo(0);
+		assertUnableFailoverJob1(statisticsModel);
+
+		// 版本没有变化，不再查询可选的executor，结果与上一轮相同，executor的统计是新建的
+		StatisticsModel statisticsModel2 = analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(1);
+		assertThat(refreshState.getUnchangedNamespaceCount()).isEqualTo(1);
+		assertUnableFailoverJob1(statisticsModel2);
+		assertThat(statisticsModel2.getExecutorInfoAnalyzer().getExecutorMap().get("exe1-" + NAMESPACE))
+				.isNotNull()
+				.isNotSameAs(statisticsModel.getExecutorInfoAnalyzer().getExecutorMap().get("exe1-" + NAMESPACE));
+		assertThat(statisticsModel2.getExecutorInfoAnalyzer().getVersionExecutorNumber()).containsEntry("3.0.0", 1L);
+		assertThat(statisticsModel2.getExecutorInfoAnalyzer().getExeNotInDocker()).isEqualTo(1);
+	}
+
+	@Test
+	public void testReanalyzeChangedNamespace() {
+		analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(1);
+
+		// 分片后sharding/count更新
+		zk.put(ExecutorNodePath.SHARDING_COUNT_PATH, "2");
+		analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(2);
+
+		// 增加executor
+		zk.put(ExecutorNodePath.getExecutorVersionNodePath("exe2"), "3.0.0");
+		StatisticsModel statisticsModel = analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(3);
+		assertThat(statisticsModel.getExecutorInfoAnalyzer().getVersionExecutorNumber()).containsEntry("3.0.0", 2L);
+
+		// 增加作业
+		addJob("job2");
+		analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(5);
+
+		// 修改作业配置
+		jobConfigCache.version++;
+		analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(7);
+		analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(7);
+	}
+
+	@Test
+	public void testAlwaysAnalyzeWithoutJobConfigCache() {
+		jobConfigCache.available = false;
+		analyze();
+		analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(2);
+		assertThat(refreshState.getUnchangedNamespaceCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testRemoveSnapshotOfRemovedNamespace() {
+		analyze();
+		refreshState.retainNamespaceSnapshots(Collections.<RegistryCenterConfiguration>emptyList());
+		analyze();
+		assertThat(candidateExecutorsQueryCount).isEqualTo(2);
+	}
+
+	private void addJob(String jobName) {
+		zk.put(JobNodePath.getConfigNodePath(jobName, "enabled"), "true");
+		zk.put(JobNodePath.getConfigNodePath(jobName, "localMode"), "false");
+		zk.put(JobNodePath.getConfigNodePath(jobName, "loadLevel"), "1");
+		zk.put(JobNodePath.getConfigNodePath(jobName, "shardingTotalCount"), "1");
+	}
+
+	private StatisticsModel analyze() {
+		StatisticsModel statisticsModel = statisticsRefreshService.initStatisticsModel();
+		refreshState.retainNamespaceSnapshots(Arrays.asList(config));
+		assertThat(statisticsRefreshService.analyzeStatistics(statisticsModel, zkCluster, refreshState, config,
+				new ArrayList<AbnormalJob>(), new ArrayList<Timeout4AlarmJob>())).isTrue();
+		return statisticsModel;
+	}
+
+	private static void assertUnableFailoverJob1(StatisticsModel statisticsModel) {
+		List<AbnormalJob> unableFailoverJobs = statisticsModel.getUnableFailoverJobAnalyzer()
+				.getUnableFailoverJobList();
+		assertThat(unableFailoverJobs).hasSize(1);
+		assertThat(unableFailoverJobs.get(0).getJobName()).isEqualTo("job1");
+	}
+
+	private <T> T fake(Class<T> type) {
+		return FakeService.of(type, new FakeService.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) {
+				return StatisticsRefreshServiceImplTest.this.handle(methodName);
+			}
+		});
+	}
+
+	private Object handle(String methodName) {
+		switch (methodName) {
+			case "getCuratorFrameworkOp":
+				return zk.getProxy();
+			case "getJobConfigCache":
+				return jobConfigCache;
+			case "getUnSystemJobNames":
+				return zk.getProxy().getChildren(JobNodePath.get$JobsNodePath());
+			case "getCandidateExecutors":
+				candidateExecutorsQueryCount++;
+				ExecutorProvided executorProvided = new ExecutorProvided();
+				executorProvided.setExecutorName("exe1");
+				executorProvided.setType(ExecutorProvidedType.PHYSICAL);
+				executorProvided.setStatus(ExecutorProvidedStatus.ONLINE);
+				return new ArrayList<>(Arrays.asList(executorProvided));
+			default:
+				throw new UnsupportedOperationException(methodName);
+		}
+	}
+
+	/**
+	 * 作业配置缓存的可用性和版本由测试控制，配置直接从zk读取
+	 */
+	private static class FakeJobConfigCache extends NamespaceJobConfigCache {
+
+		private boolean available = true;
+
+		private long version;
+
+		FakeJobConfigCache() {
+			super("name1/" + NAMESPACE, null);
+		}
+
+		@Override
+		public boolean isAvailable() {
+			return available;
+		}
+
+		@Override
+		public long getVersion() {
+			return version;
+		}
+
+		@Override
+		public Map<String, String> getJobConfig(String jobName) {
+			return null;
+		}
+	}
+
+}
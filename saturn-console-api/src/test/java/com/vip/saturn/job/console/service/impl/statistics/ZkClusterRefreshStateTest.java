@@ -0,0 +1,66 @@
+package com.vip.saturn.job.console.service.impl.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.console.service.helper.DashboardConstants;
+import com.vip.saturn.job.console.service.impl.statistics.StatisticsRefreshServiceImpl.ZkClusterRefreshState;
+import org.junit.Test;
+
+public class ZkClusterRefreshStateTest {
+
+	private static final long INTERVAL_MS = 60L * 1000 * DashboardConstants.REFRESH_INTERVAL_IN_MINUTE;
+
+	@Test
+	public void testConcurrencyStartsInTheMiddle() {
+		ZkClusterRefreshState state = new ZkClusterRefreshState();
+
+		assertThat(state.getConcurrency()).isGreaterThan(StatisticsRefreshServiceImpl.MIN_STAT_CONCURRENCY)
+				.isLessThan(StatisticsRefreshServiceImpl.STAT_THREAD_NUM);
+		assertThat(state.getLastCostMs()).isEqualTo(-1);
+	}
+
+	@Test
+	public void testConcurrencyIncreasesWhenSlow() {
+		ZkClusterRefreshState state = new ZkClusterRefreshState();
+		int initial = state.getConcurrency();
+
+		state.refreshed(INTERVAL_MS / 2 + 1);
+		assertThat(state.getConcurrency())
+				.isEqualTo(Math.min(initial * 2, StatisticsRefreshServiceImpl.STAT_THREAD_NUM));
+		assertThat(state.getLastCostMs()).isEqualTo(INTERVAL_MS / 2 + 1);
+
+		for (int i = 0; i < 10; i++) {
+			state.refreshed(INTERVAL_MS);
+		}
+		assertThat(state.getConcurrency()).isEqualTo(StatisticsRefreshServiceImpl.STAT_THREAD_NUM);
+	}
+
+	@Test
+	public void testConcurrencyDecreasesWhenFast() {
+		ZkClusterRefreshState state = new ZkClusterRefreshState();
+		int initial = state.getConcurrency();
+
+		state.refreshed(INTERVAL_MS / 10 - 1);
+		assertThat(state.getConcurrency()).isEqualTo(initial - 1);
+
+		// 介于十分之一和一半之间不调整
+		state.refreshed(INTERVAL_MS / 4);
+		assertThat(state.getConcurrency()).isEqualTo(initial - 1);
+
+		for (int i = 0; i < StatisticsRefreshServiceImpl.STAT_THREAD_NUM; i++) {
+			state.refreshed(0);
+		}
+		assertThat(state.getConcurrency()).isEqualTo(StatisticsRefreshServiceImpl.MIN_STAT_CONCURRENCY);
+	}
+
+	@Test
+	public void testSkipWhileRefreshing() {
+		ZkClusterRefreshState state = new ZkClusterRefreshState();
+
+		assertThat(state.tryStartRefresh()).isTrue();
+		assertThat(state.tryStartRefresh()).isFalse();
+		state.finishRefresh();
+		assertThat(state.tryStartRefresh()).isTrue();
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.vip.saturn.job.console.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Test;
+
+public class CsvUtilsTest {
+
+	@Test
+	public void testWriteQuotesAndNewlines() throws Exception {
+		StringWriter writer = new StringWriter();
+		CsvUtils.writeRecord(writer, "plain", "a,b", "say \"hi\"", "line1\nline2", null, "");
+
+		assertThat(writer.toString()).isEqualTo("plain,\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\",,\r\n");
+	}
+
+	@Test
+	public void testWriteEscapesFormula() throws Exception {
+		StringWriter writer = new StringWriter();
+		CsvUtils.writeRecord(writer, "=1+1", "+1", "-Dkey=value", "@SUM(A1)", "'quoted", "a=b");
+
+		assertThat(writer.toString()).isEqualTo("'=1+1,'+1,'-Dkey=value,'@SUM(A1),''quoted,a=b\r\n");
+	}
+
+	@Test
+	public void testReadBomAndLineEndings() throws Exception {
+		CsvUtils.CsvReader reader = new CsvUtils.CsvReader(
+				new StringReader("\uFEFFjobName,cron\r\njob1,0 * * * * ?\njob2,"));
+
+		assertThat(reader.readRecord()).containsExactly("jobName", "cron");
+		assertThat(reader.readRecord()).containsExactly("job1", "0 * * * * ?");
+		assertThat(reader.readRecord()).containsExactly("job2", "");
+		assertThat(reader.readRecord()).isNull();
+	}
+
+	@Test
+	public void testReadKeepsHandWrittenQuote() throws Exception {
+		CsvUtils.CsvReader reader = new CsvUtils.CsvReader(new StringReader("'abc,'=x,''y\n"));
+
+		assertThat(reader.readRecord()).containsExactly("'abc", "=x", "'y");
+	}
+
+	@Test
+	public void testReadUnclosedQuote() throws Exception {
+		CsvUtils.CsvReader reader = new CsvUtils.CsvReader(new StringReader("a,\"b\n"));
+		try {
+			reader.readRecord();
+			fail("the unclosed quote should fail");
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("引号");
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		String[][] records = {{"jobName", "jobParameter", "description"},
+				{"job1", "-Dkey=value", "=HYPERLINK(\"http://x\")"},
+				{"job2", "line1\r\nline2, \"quoted\"", "'=already escaped"},
+				{"作业3", "@user", "'plain"}};
+		StringWriter writer = new StringWriter();
+		CsvUtils.writeBom(writer);
+		for (String[] record : records) {
+			CsvUtils.writeRecord(writer, record);
+		}
+
+		CsvUtils.CsvReader reader = new CsvUtils.CsvReader(new StringReader(writer.toString()));
+		for (String[] record : records) {
+			assertThat(reader.readRecord()).containsExactly(record);
+		}
+		assertThat(reader.readRecord()).isNull();
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.vip.saturn.job.console.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * 用动态代理构造的服务接口的测试替身，只实现测试用到的方法；Object的方法由代理自身处理
+ */
+public final class FakeService {
+
+	private FakeService() {
+	}
+
+	/**
+	 * 测试替身的方法实现，没有实现的方法抛出UnsupportedOperationException
+	 */
+	public interface Handler {
+
+		Object handle(String methodName, Object[] args) throws Exception;
+	}
+
+	public static <T> T of(Class<T> type, final Handler handler) {
+		return type.cast(Proxy.newProxyInstance(FakeService.class.getClassLoader(), new Class<?>[]{type},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (method.getDeclaringClass() == Object.class) {
+							try {
+								return method.invoke(this, args);
+							} catch (InvocationTargetException e) {
+								throw e.getCause();
+							}
+						}
+						return handler.handle(method.getName(), args);
+					}
+				}));
+	}
+
+}
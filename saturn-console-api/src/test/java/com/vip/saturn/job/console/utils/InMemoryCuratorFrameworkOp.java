@@ -0,0 +1,261 @@
+package com.vip.saturn.job.console.utils;
+
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.CuratorFrameworkOp;
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.CuratorFrameworkOp.CuratorTransactionOp;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * 内存中的CuratorFrameworkOp，用于不依赖zk的单元测试；事务的操作按顺序记录，提交时一起生效；
+ * 每次修改分配递增的zxid，维护节点Stat的mzxid、pzxid、version和cversion
+ */
+public class InMemoryCuratorFrameworkOp implements InvocationHandler {
+
+	private final Map<String, String> nodes = new TreeMap<>();
+
+	private final Map<String, Stat> stats = new HashMap<>();
+
+	private long zxid = 0;
+
+	private final List<String> committedTransactionOps = new ArrayList<>();
+
+	private boolean failCommit = false;
+
+	private final CuratorFrameworkOp proxy = (CuratorFrameworkOp) Proxy
+			.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{CuratorFrameworkOp.class}, this);
+
+	public CuratorFrameworkOp getProxy() {
+		return proxy;
+	}
+
+	public synchronized void put(String path, String value) {
+		String parent = path.substring(0, path.lastIndexOf('/'));
+		if (!parent.isEmpty() && !nodes.containsKey(parent)) {
+			put(parent, "");
+		}
+		nodes.put(path, value == null ? "" : value);
+		updated(path);
+	}
+
+	/**
+	 * @return 节点的Stat的副本，节点不存在时返回null
+	 */
+	public synchronized Stat getStat(String path) {
+		Stat stat = stats.get(path);
+		if (stat == null) {
+			return null;
+		}
+		Stat copy = new Stat();
+		copy.setCzxid(stat.getCzxid());
+		copy.setMzxid(stat.getMzxid());
+		copy.setPzxid(stat.getPzxid());
+		copy.setVersion(stat.getVersion());
+		copy.setCversion(stat.getCversion());
+		return copy;
+	}
+
+	private void updated(String path) {
+		zxid++;
+		Stat stat = stats.get(path);
+		if (stat == null) {
+			stat = new Stat();
+			stat.setCzxid(zxid);
+			stat.setPzxid(zxid);
+			stat.setVersion(-1);
+			stats.put(path, stat);
+			childrenChanged(path);
+		}
+		stat.setMzxid(zxid);
+		stat.setVersion(stat.getVersion() + 1);
+	}
+
+	private void deleted(String path) {
+		zxid++;
+		if (stats.remove(path) != null) {
+			childrenChanged(path);
+		}
+	}
+
+	private void childrenChanged(String path) {
+		Stat parentStat = stats.get(path.substring(0, path.lastIndexOf('/')));
+		if (parentStat != null) {
+			parentStat.setPzxid(zxid);
+			parentStat.setCversion(parentStat.getCversion() + 1);
+		}
+	}
+
+	public synchronized boolean exists(String path) {
+		return nodes.containsKey(path);
+	}
+
+	public synchronized String get(String path) {
+		return nodes.get(path);
+	}
+
+	/**
+	 * @return 已提交的事务操作，如"delete /a"、"create /a"
+	 */
+	public synchronized List<String> getCommittedTransactionOps() {
+		return new ArrayList<>(committedTransactionOps);
+	}
+
+	/**
+	 * 设置事务提交是否失败
+	 */
+	public synchronized void setFailCommit(boolean failCommit) {
+		this.failCommit = failCommit;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		String path = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+		switch (name) {
+			case "checkExists":
+				return nodes.containsKey(path);
+			case "getData":
+				return nodes.get(path);
+			case "getChildren":
+				return getChildren(path);
+			case "getDataInBatch":
+				Map<String, String> dataMap = new HashMap<>();
+				for (String znode : (Collection<String>) args[0]) {
+					if (nodes.containsKey(znode)) {
+						dataMap.put(znode, nodes.get(znode));
+					}
+				}
+				return dataMap;
+			case "getChildrenInBatch":
+				Map<String, List<String>> childrenMap = new HashMap<>();
+				for (String znode : (Collection<String>) args[0]) {
+					if (nodes.containsKey(znode)) {
+						childrenMap.put(znode, getChildren(znode));
+					}
+				}
+				return childrenMap;
+			case "create":
+			case "update":
+			case "fillJobNodeIfNotExist":
+				if (!"fillJobNodeIfNotExist".equals(name) || !nodes.containsKey(path)) {
+					put(path, args.length > 1 && args[1] != null ? args[1].toString() : "");
+				}
+				return null;
+			case "delete":
+				nodes.remove(path);
+				deleted(path);
+				return null;
+			case "deleteRecursive":
+				deleteRecursive(path);
+				return null;
+			case "getStat":
+				return getStat(path);
+			case "getMtime":
+			case "getCtime":
+				return 0L;
+			case "inTransaction":
+				return newTransaction();
+			case "toString":
+				return nodes.toString();
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			default:
+				throw new UnsupportedOperationException(name);
+		}
+	}
+
+	private List<String> getChildren(String path) {
+		if (!nodes.containsKey(path)) {
+			return null;
+		}
+		List<String> children = new ArrayList<>();
+		String prefix = path + "/";
+		for (String node : nodes.keySet()) {
+			if (node.startsWith(prefix) && node.indexOf('/', prefix.length()) < 0) {
+				children.add(node.substring(prefix.length()));
+			}
+		}
+		return children;
+	}
+
+	private void deleteRecursive(String path) {
+		String prefix = path + "/";
+		for (String node : new ArrayList<>(nodes.keySet())) {
+			if (node.startsWith(prefix)) {
+				nodes.remove(node);
+				deleted(node);
+			}
+		}
+		nodes.remove(path);
+		deleted(path);
+	}
+
+	private CuratorTransactionOp newTransaction() {
+		final List<String[]> ops = new ArrayList<>();
+		return (CuratorTransactionOp) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{CuratorTransactionOp.class}, new InvocationHandler() {
+					@Override
+					public Object invoke(Object transactionProxy, Method method, Object[] args) throws Throwable {
+						String name = method.getName();
+						if ("commit".equals(name)) {
+							commit(ops);
+							return Collections.emptyList();
+						}
+						if ("replaceIfchanged".equals(name) || "create".equals(name) || "delete".equals(name)) {
+							ops.add(new String[]{name, (String) args[0],
+									args.length > 1 && args[1] != null ? args[1].toString() : ""});
+							return transactionProxy;
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+
+	private synchronized void commit(List<String[]> ops) throws Exception {
+		if (failCommit) {
+			throw new IllegalStateException("commit failed");
+		}
+		Map<String, String> newNodes = new TreeMap<>(nodes);
+		for (String[] op : ops) {
+			String path = op[1];
+			if ("create".equals(op[0])) {
+				if (newNodes.containsKey(path)) {
+					throw new KeeperException.NodeExistsException(path);
+				}
+				newNodes.put(path, op[2]);
+			} else if ("delete".equals(op[0])) {
+				if (newNodes.remove(path) == null) {
+					throw new KeeperException.NoNodeException(path);
+				}
+			} else {
+				if (!newNodes.containsKey(path)) {
+					throw new KeeperException.NoNodeException(path);
+				}
+				newNodes.put(path, op[2]);
+			}
+		}
+		nodes.clear();
+		nodes.putAll(newNodes);
+		for (String[] op : ops) {
+			if ("delete".equals(op[0])) {
+				deleted(op[1]);
+			} else {
+				updated(op[1]);
+			}
+			committedTransactionOps.add(op[0] + " " + op[1]);
+		}
+	}
+
+}
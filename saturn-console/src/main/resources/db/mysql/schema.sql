@@ -122,9 +122,24 @@ CREATE TABLE `saturn_statistics` (
   `name` varchar(255) NOT NULL COMMENT '统计名称，例如top10FailJob',
   `zklist` varchar(255) NOT NULL COMMENT '统计所属zk集群',
   `result` longtext NOT NULL COMMENT '统计结果(json结构)',
+  `version` bigint(11) NOT NULL DEFAULT 0 COMMENT '统计结果的修改版本',
+  `read_version` bigint(11) NOT NULL DEFAULT 0 COMMENT '已读标记的修改版本',
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=1 DEFAULT CHARSET=utf8;
 
+-- ----------------------------
+-- Table structure for `saturn_statistics_read`
+-- ----------------------------
+CREATE TABLE `saturn_statistics_read` (
+  `id` bigint(11) NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `name` varchar(64) NOT NULL COMMENT '统计名称，例如unnormalJob',
+  `zklist` varchar(255) NOT NULL COMMENT '统计所属zk集群',
+  `uuid` varchar(64) NOT NULL COMMENT '已读的告警作业的uuid',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uniq_ssr_uuid` (`uuid`),
+  KEY `idx_ssr_name` (`name`)
+) ENGINE=InnoDB AUTO_INCREMENT=1 DEFAULT CHARSET=utf8;
+
 -- ----------------------------
 -- Table structure for `namespace_info`
 -- ----------------------------
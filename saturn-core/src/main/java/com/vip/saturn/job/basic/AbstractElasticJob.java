@@ -33,7 +33,9 @@ import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -166,27 +168,57 @@ public abstract class AbstractElasticJob implements Stopable {
 		} finally {
 			Date nextFireTimePausePeriodEffected = jobScheduler.getNextFireTimePausePeriodEffected();
 			boolean isEnabledReport = SaturnUtils.checkIfJobIsEnabledReport(getJobScheduler().getCurrentConf());
-			for (int item : shardingContext.getShardingItems()) {
-				if (isEnabledReport && !checkIfZkLostAfterExecution(item)) {
-					continue;
-				}
-				if (!aborted) {
-					executionService.registerJobCompletedByItem(shardingContext, item, nextFireTimePausePeriodEffected);
-				}
-				if (isFailoverSupported() && configService.isFailover()) {
-					failoverService.updateFailoverComplete(item);
+			if (executionService.isExecutionStateInTransaction()) {
+				registerJobCompletedInTransaction(shardingContext, nextFireTimePausePeriodEffected);
+			} else {
+				for (int item : shardingContext.getShardingItems()) {
+					if (isEnabledReport && !checkIfZkLostAfterExecution(item)) {
+						continue;
+					}
+					if (!aborted) {
+						executionService.registerJobCompletedByItem(shardingContext, item,
+								nextFireTimePausePeriodEffected);
+					}
+					if (isFailoverSupported() && configService.isFailover()) {
+						failoverService.updateFailoverComplete(item);
+					}
 				}
 			}
 			afterMainThreadDone(shardingContext);
 		}
 	}
 
+	/**
+	 * 事务模式下，所有分片的完成信息在一个事务中注册，然后再逐个分片更新failover信息
+	 */
+	private void registerJobCompletedInTransaction(final JobExecutionMultipleShardingContext shardingContext,
+			final Date nextFireTimePausePeriodEffected) {
+		List<Integer> items = new ArrayList<>();
+		for (int item : shardingContext.getShardingItems()) {
+			if (checkIfZkLostAfterExecution(item)) {
+				items.add(item);
+			}
+		}
+		if (!aborted) {
+			executionService.registerJobCompleted(shardingContext, items, nextFireTimePausePeriodEffected);
+		}
+		if (isFailoverSupported() && configService.isFailover()) {
+			for (int item : items) {
+				failoverService.updateFailoverComplete(item);
+			}
+		}
+	}
+
 	/**
 	 * 如果不存在该分片的running节点，又不是关闭了enabledReport的话，不继续执行；如果所有该executor分片running节点属于当前zk，继续执行；
 	 * @param item 分片信息
 	 * @return 是否继续执行完complete节点，清空failover信息
 	 */
 	private boolean checkIfZkLostAfterExecution(final Integer item) {
+		// 事务模式下，本地镜像已确认running节点是当前zk会话创建的
+		if (executionService.isRunningInCurrentSession(item)) {
+			return true;
+		}
 		CuratorFramework curatorFramework = (CuratorFramework) executionService.getCoordinatorRegistryCenter()
 				.getRawClient();
 		try {
@@ -27,6 +27,11 @@ public abstract class AbstractSaturnJob extends AbstractElasticJob {
 
 	protected static PropertyPlaceholderHelper placeHolderHelper = new PropertyPlaceholderHelper("{", "}");
 
+	/**
+	 * 作业的处理数量计数器，第一次使用时查找，之后直接累加
+	 */
+	private volatile ProcessCountStatistics.JobProcessCount jobProcessCount;
+
 	@Override
 	protected final void executeJob(final JobExecutionMultipleShardingContext shardingContext) {
 		if (!(shardingContext instanceof SaturnExecutionContext)) {
@@ -105,14 +110,24 @@ public abstract class AbstractSaturnJob extends AbstractElasticJob {
 		// 为了展现分片处理失败的状态
 		saturnContext.getShardingItemResults().put(item, jobReturn);
 		// 执行次数加1
-		ProcessCountStatistics.increaseTotalCountDelta(executorName, jobName);
+		ProcessCountStatistics.JobProcessCount processCount = getJobProcessCount();
+		processCount.increaseTotalCountDelta();
 		// 只要有出错和失败的分片，就认为是处理失败; 否则认为处理成功
 		if (errorCount == 0 && successCount >= 0) {
-			ProcessCountStatistics.incrementProcessSuccessCount(executorName, jobName, successCount);
+			processCount.incrementProcessSuccessCount(successCount);
 		} else {
-			ProcessCountStatistics.increaseErrorCountDelta(executorName, jobName);
-			ProcessCountStatistics.incrementProcessFailureCount(executorName, jobName, errorCount);
+			processCount.increaseErrorCountDelta();
+			processCount.incrementProcessFailureCount(errorCount);
+		}
+	}
+
+	private ProcessCountStatistics.JobProcessCount getJobProcessCount() {
+		ProcessCountStatistics.JobProcessCount processCount = jobProcessCount;
+		if (processCount == null) {
+			processCount = ProcessCountStatistics.getJobProcessCount(executorName, jobName);
+			jobProcessCount = processCount;
 		}
+		return processCount;
 	}
 
 	public Properties parseKV(String path) {
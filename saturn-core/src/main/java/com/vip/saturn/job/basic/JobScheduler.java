@@ -33,6 +33,7 @@ import com.vip.saturn.job.executor.SaturnExecutorService;
 import com.vip.saturn.job.internal.analyse.AnalyseService;
 import com.vip.saturn.job.internal.config.ConfigurationService;
 import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.internal.config.JobType;
 import com.vip.saturn.job.internal.control.ReportService;
 import com.vip.saturn.job.internal.election.LeaderElectionService;
 import com.vip.saturn.job.internal.execution.ExecutionContextService;
@@ -47,8 +48,11 @@ import com.vip.saturn.job.reg.base.CoordinatorRegistryCenter;
 import com.vip.saturn.job.reg.zookeeper.ZkCacheManager;
 import com.vip.saturn.job.threads.ExtendableThreadPoolExecutor;
 import com.vip.saturn.job.threads.SaturnThreadFactory;
+import com.vip.saturn.job.threads.SharedBusinessThreadPool;
 import com.vip.saturn.job.threads.TaskQueue;
+import com.vip.saturn.job.threads.VirtualThreadExecutors;
 import com.vip.saturn.job.trigger.SaturnScheduler;
+import com.vip.saturn.job.utils.SystemEnvProperties;
 
 /**
  * 作业调度器.
@@ -208,10 +212,45 @@ public class JobScheduler {
 	}
 
 	private void initExecutorService() {
+		if (useVirtualThread()) {
+			executorService = VirtualThreadExecutors.newVirtualThreadPerTaskExecutor("Saturn-" + jobName + "-virtual-");
+			if (executorService != null) {
+				return;
+			}
+			log.warn(SaturnConstant.LOG_FORMAT, jobName,
+					"virtual thread is not supported by the current jvm, use the platform threads");
+		}
+		if (SystemEnvProperties.VIP_SATURN_SHARED_BUSINESS_POOL) {
+			// 在共享业务线程池中执行，按作业的负荷作为权重
+			Integer loadLevel = currentConf.getLoadLevel();
+			executorService = SharedBusinessThreadPool.getInstance().newJobExecutorService(jobName,
+					loadLevel == null ? 1 : loadLevel);
+			return;
+		}
 		ThreadFactory factory = new SaturnThreadFactory(jobName);
 		executorService = new ExtendableThreadPoolExecutor(0, 100, 2, TimeUnit.MINUTES, new TaskQueue(), factory);
 	}
 
+	/**
+	 * Java作业是否配置为在虚拟线程中执行分片
+	 */
+	private boolean useVirtualThread() {
+		String virtualThread = SystemEnvProperties.VIP_SATURN_VIRTUAL_THREAD;
+		if (virtualThread == null || virtualThread.isEmpty()
+				|| !JobType.JAVA_JOB.name().equals(currentConf.getJobType())) {
+			return false;
+		}
+		if (Boolean.parseBoolean(virtualThread)) {
+			return true;
+		}
+		for (String tmp : virtualThread.split(",")) {
+			if (jobName.equals(tmp.trim())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public void reCreateExecutorService() {
 		synchronized (isShutdownFlag) {
 			if (isShutdownFlag.get()) {
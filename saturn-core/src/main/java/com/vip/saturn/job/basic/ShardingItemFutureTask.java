@@ -18,6 +18,16 @@ import com.vip.saturn.job.SaturnJobReturn;
 public class ShardingItemFutureTask implements Callable<SaturnJobReturn> {
 	private static Logger log = LoggerFactory.getLogger(ShardingItemFutureTask.class);
 
+	/**
+	 * 业务线程不支持stop时，最多中断的次数
+	 */
+	private static final int MAX_INTERRUPT_TIMES = 100;
+
+	/**
+	 * 业务线程没有停止时，再次强杀的间隔
+	 */
+	static final long KILL_INTERVAL_MS = 50L;
+
 	private JavaShardingItemCallable callable;
 
 	private Callable<?> doneFinallyCallback;
@@ -137,22 +147,38 @@ public class ShardingItemFutureTask implements Callable<SaturnJobReturn> {
 	}
 
 	public static void killRunningBusinessThread(ShardingItemFutureTask shardingItemFutureTask) {
+		try {
+			int killTimes = 0;
+			while (killRunningBusinessThreadOnce(shardingItemFutureTask, killTimes++)) {
+				Thread.sleep(KILL_INTERVAL_MS);
+			}
+		} catch (InterruptedException e) {// NOSONAR
+		}
+	}
+
+	/**
+	 * 强杀一次业务线程，不等待其停止
+	 *
+	 * @param killTimes 之前已经强杀的次数
+	 * @return 业务线程仍未停止，需要再次强杀则返回true
+	 */
+	static boolean killRunningBusinessThreadOnce(ShardingItemFutureTask shardingItemFutureTask, int killTimes) {
 		JavaShardingItemCallable shardingItemCallable = shardingItemFutureTask.getCallable();
 		Thread businessThread = shardingItemCallable.getCurrentThread();
-		if (businessThread != null) {
-			try {
-
-				while (!shardingItemCallable.isBreakForceStop() && !shardingItemFutureTask.isDone()) {
-					businessThread.stop();
-					if (!shardingItemCallable.isBreakForceStop() && !shardingItemFutureTask.isDone()) {
-						Thread.sleep(50);
-					} else {
-						break;
-					}
-				}
-
-			} catch (InterruptedException e) {// NOSONAR
+		if (businessThread == null || shardingItemCallable.isBreakForceStop() || shardingItemFutureTask.isDone()) {
+			return false;
+		}
+		try {
+			businessThread.stop();
+		} catch (UnsupportedOperationException e) {// NOSONAR
+			// 虚拟线程以及JDK20+不支持stop，只能中断，业务不响应中断则放弃
+			if (killTimes >= MAX_INTERRUPT_TIMES) {
+				log.warn(SaturnConstant.LOG_FORMAT, shardingItemCallable.getJobName(),
+						"the business thread cannot be stopped and does not respond to interruption");
+				return false;
 			}
+			businessThread.interrupt();
 		}
+		return !shardingItemCallable.isBreakForceStop() && !shardingItemFutureTask.isDone();
 	}
 }
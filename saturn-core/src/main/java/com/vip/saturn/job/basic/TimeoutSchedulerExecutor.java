@@ -1,63 +1,56 @@
 package com.vip.saturn.job.basic;
 
-import com.vip.saturn.job.threads.SaturnThreadFactory;
+import com.vip.saturn.job.threads.HousekeepingScheduler;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import org.jboss.netty.util.internal.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * 作业分片的超时检查，在Executor级别的内务调度线程池中调度。
+ * <p>
+ * 超时后强杀业务线程不能阻塞内务线程（其它作业的zk事件分发、统计上报也在上面执行），所以每次只强杀一次，业务线程仍未停止则延时再强杀。
+ *
  * @author chembo.huang
  */
 public class TimeoutSchedulerExecutor {
 
 	private static Logger log = LoggerFactory.getLogger(TimeoutSchedulerExecutor.class);
 
-	private static ConcurrentHashMap<String, ScheduledThreadPoolExecutor> scheduledThreadPoolExecutorMap = new ConcurrentHashMap<>();
-
 	private TimeoutSchedulerExecutor() {
 
 	}
 
-	public static synchronized ScheduledThreadPoolExecutor createScheduler(String executorName) {
-		if (!scheduledThreadPoolExecutorMap.containsKey(executorName)) {
-			ScheduledThreadPoolExecutor timeoutExecutor = new ScheduledThreadPoolExecutor(
-					Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
-					new SaturnThreadFactory(executorName + "-timeout-watchdog", false));
-			timeoutExecutor.setRemoveOnCancelPolicy(true);
-			scheduledThreadPoolExecutorMap.put(executorName, timeoutExecutor);
-			return timeoutExecutor;
-		}
-		return scheduledThreadPoolExecutorMap.get(executorName);
+	public static ScheduledThreadPoolExecutor createScheduler(String executorName) {
+		return HousekeepingScheduler.getOrCreate(executorName);
 	}
 
 	private static ScheduledThreadPoolExecutor getScheduler(String executorName) {
-		return scheduledThreadPoolExecutorMap.get(executorName);
+		return HousekeepingScheduler.get(executorName);
 	}
 
 	public static final void shutdownScheduler(String executorName) {
-		if (getScheduler(executorName) != null) {
-			getScheduler(executorName).shutdown();
-			scheduledThreadPoolExecutorMap.remove(executorName);
-		}
+		HousekeepingScheduler.shutdown(executorName);
 	}
 
 	// Note that before running this method, method createScheduler() should have been run, so that
 	// getScheduler(executorName) will not be null.
 	public static final void scheduleTimeoutJob(String executorName, int timeoutSeconds,
 			ShardingItemFutureTask shardingItemFutureTask) {
-		ScheduledFuture<?> timeoutFuture = getScheduler(executorName)
-				.schedule(new TimeoutHandleTask(shardingItemFutureTask), timeoutSeconds, TimeUnit.SECONDS);
+		ScheduledFuture<?> timeoutFuture = getScheduler(executorName).schedule(
+				new TimeoutHandleTask(executorName, shardingItemFutureTask), timeoutSeconds, TimeUnit.SECONDS);
 		shardingItemFutureTask.setTimeoutFuture(timeoutFuture);
 	}
 
 	private static class TimeoutHandleTask implements Runnable {
 
+		private String executorName;
+
 		private ShardingItemFutureTask shardingItemFutureTask;
 
-		public TimeoutHandleTask(ShardingItemFutureTask shardingItemFutureTask) {
+		public TimeoutHandleTask(String executorName, ShardingItemFutureTask shardingItemFutureTask) {
+			this.executorName = executorName;
 			this.shardingItemFutureTask = shardingItemFutureTask;
 		}
 
@@ -69,7 +62,38 @@ public class TimeoutSchedulerExecutor {
 					// 调用beforeTimeout毁掉函数
 					shardingItemFutureTask.getCallable().beforeTimeout();
 					// 强杀
-					ShardingItemFutureTask.killRunningBusinessThread(shardingItemFutureTask);
+					new KillBusinessThreadTask(executorName, shardingItemFutureTask).run();
+				}
+			} catch (Throwable t) {
+				log.warn("Fail to force stop timeout job:" + shardingItemFutureTask.getCallable().getJobName()
+						+ " with reason:" + t.getMessage(), t);
+			}
+		}
+
+	}
+
+	private static class KillBusinessThreadTask implements Runnable {
+
+		private String executorName;
+
+		private ShardingItemFutureTask shardingItemFutureTask;
+
+		private int killTimes = 0;
+
+		public KillBusinessThreadTask(String executorName, ShardingItemFutureTask shardingItemFutureTask) {
+			this.executorName = executorName;
+			this.shardingItemFutureTask = shardingItemFutureTask;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!ShardingItemFutureTask.killRunningBusinessThreadOnce(shardingItemFutureTask, killTimes++)) {
+					return;
+				}
+				ScheduledThreadPoolExecutor scheduler = getScheduler(executorName);
+				if (scheduler != null && !scheduler.isShutdown()) {
+					scheduler.schedule(this, ShardingItemFutureTask.KILL_INTERVAL_MS, TimeUnit.MILLISECONDS);
 				}
 			} catch (Throwable t) {
 				log.warn("Fail to force stop timeout job:" + shardingItemFutureTask.getCallable().getJobName()
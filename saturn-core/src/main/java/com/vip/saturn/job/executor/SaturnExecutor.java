@@ -16,6 +16,7 @@ import com.vip.saturn.job.exception.SaturnExecutorExceptionType;
 import com.vip.saturn.job.internal.config.JobConfiguration;
 import com.vip.saturn.job.internal.config.JobType;
 import com.vip.saturn.job.internal.storage.JobNodePath;
+import com.vip.saturn.job.internal.storage.ZkWriteBehindBuffer;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
 import com.vip.saturn.job.threads.SaturnThreadFactory;
@@ -529,6 +530,8 @@ public class SaturnExecutor {
 			if (connectionLostListener != null) {
 				connectionLostListener.close();
 			}
+			// flush the zk write-behind buffer before closing the regCenter
+			ZkWriteBehindBuffer.shutdown(executorName);
 			if (regCenter != null) {
 				regCenter.close();
 			}
@@ -564,13 +567,15 @@ public class SaturnExecutor {
 			if (periodicTruncateNohupOutService != null) {
 				periodicTruncateNohupOutService.shutdown();
 			}
-			// shutdown timeout-watchdog-threadpool
-			TimeoutSchedulerExecutor.shutdownScheduler(executorName);
 			try {
 				blockUntilJobCompletedIfNotTimeout();
 				shutdownUnfinishJob();
 				JobRegistry.clearExecutor(executorName);
 			} finally {
+				// flush the zk write-behind buffer, and shutdown the housekeeping scheduler (timeout-watchdog, process
+				// count, zk cache events) after the jobs
+				ZkWriteBehindBuffer.shutdown(executorName);
+				TimeoutSchedulerExecutor.shutdownScheduler(executorName);
 				if (connectionLostListener != null) {
 					connectionLostListener.close();
 				}
@@ -4,6 +4,7 @@ import com.vip.saturn.job.exception.TimeDiffIntolerableException;
 import com.vip.saturn.job.internal.config.ConfigurationNode;
 import com.vip.saturn.job.internal.storage.JobNodePath;
 import com.vip.saturn.job.reg.base.CoordinatorRegistryCenter;
+import com.vip.saturn.job.sharding.service.NamespaceShardingContentService;
 import com.vip.saturn.job.threads.SaturnThreadFactory;
 import com.vip.saturn.job.utils.LocalHostService;
 import com.vip.saturn.job.utils.SaturnVersionUtils;
@@ -11,6 +12,8 @@ import com.vip.saturn.job.utils.SystemEnvProperties;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.NodeCache;
+import org.apache.curator.framework.recipes.cache.NodeCacheListener;
 import org.apache.curator.framework.recipes.cache.TreeCache;
 import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
 import org.apache.curator.framework.recipes.cache.TreeCacheEvent.Type;
@@ -39,6 +42,8 @@ public class SaturnExecutorService {
 
 	private List<String> jobNames = new ArrayList<>();
 	private TreeCache jobsTreeCache;
+	private NodeCache shardingCountNodeCache;
+	private NamespaceShardingContentService namespaceShardingContentService;
 	private String ipNode;
 	private ClassLoader jobClassLoader;
 	private ClassLoader executorClassLoader;
@@ -135,6 +140,7 @@ public class SaturnExecutorService {
 	 * existing jobs.
 	 */
 	public void registerCallbackAndStartExistingJob(final ScheduleNewJobCallback callback) throws Exception {
+		startShardingCountNodeCache();
 		jobsTreeCache = TreeCache
 				.newBuilder((CuratorFramework) coordinatorRegistryCenter.getRawClient(), JobNodePath.ROOT)
 				.setExecutor(new CloseableExecutorService(Executors.newSingleThreadExecutor(
@@ -189,6 +195,23 @@ public class SaturnExecutorService {
 		jobsTreeCache.start();
 	}
 
+	/**
+	 * 所有作业共享分片内容服务，leader每次分片后都会更新sharding/count，此时使缓存的分片索引失效
+	 */
+	private void startShardingCountNodeCache() throws Exception {
+		CuratorFramework client = (CuratorFramework) coordinatorRegistryCenter.getRawClient();
+		namespaceShardingContentService = new NamespaceShardingContentService(client);
+		namespaceShardingContentService.enableShardingItemsCache();
+		shardingCountNodeCache = new NodeCache(client, SaturnExecutorsNode.SHARDING_COUNT_PATH);
+		shardingCountNodeCache.getListenable().addListener(new NodeCacheListener() {
+			@Override
+			public void nodeChanged() throws Exception {
+				namespaceShardingContentService.invalidateShardingItemsCache();
+			}
+		});
+		shardingCountNodeCache.start();
+	}
+
 	public void removeJobName(String jobName) {
 		if (jobNames.contains(jobName)) {
 			jobNames.remove(jobName);
@@ -226,17 +249,35 @@ public class SaturnExecutorService {
 		}
 	}
 
+	private void closeShardingCountNodeCache() {
+		try {
+			if (shardingCountNodeCache != null) {
+				shardingCountNodeCache.close();
+			}
+		} catch (Throwable t) {
+			log.error(t.getMessage(), t);
+		}
+	}
+
 	// Attention, catch Throwable and not throw it.
 	public void shutdown() {
 		stopRestartExecutorService();
 		removeIpNode();
 		closeJobsTreeCache();
+		closeShardingCountNodeCache();
 	}
 
 	public CoordinatorRegistryCenter getCoordinatorRegistryCenter() {
 		return coordinatorRegistryCenter;
 	}
 
+	/**
+	 * @return 所有作业共享的分片内容服务，注册作业回调之前为null
+	 */
+	public NamespaceShardingContentService getNamespaceShardingContentService() {
+		return namespaceShardingContentService;
+	}
+
 	public String getIpNode() {
 		return ipNode;
 	}
@@ -16,4 +16,6 @@ public class SaturnExecutorsNode {
 
 	public static final String EXECUTORS_ROOT = "/" + EXECUTOR_NODE_NAME + "/executors";
 
+	public static final String SHARDING_COUNT_PATH = "/" + EXECUTOR_NODE_NAME + "/sharding/count";
+
 }
@@ -56,20 +56,49 @@ public class AnalyseService extends AbstractSaturnService {
 	}
 
 	public synchronized void persistTotalCount() {
-		int delta = ProcessCountStatistics.getTotalCountDelta(executorName, jobName);
+		// 取出增量并清零，取出之后的累加留给下次，持久化失败则放回
+		ProcessCountStatistics.JobProcessCount processCount = ProcessCountStatistics.getJobProcessCount(executorName,
+				jobName);
+		int delta = processCount.takeTotalCountDelta();
 		if (delta > 0) {
-			int totalCount = Integer.parseInt(getJobNodeStorage().getJobNodeData(AnalyseNode.PROCESS_COUNT));
-			getJobNodeStorage().updateJobNode(AnalyseNode.PROCESS_COUNT, totalCount + delta);
-			ProcessCountStatistics.initTotalCountDelta(executorName, jobName, 0);
+			try {
+				int totalCount = Integer.parseInt(getJobNodeStorage().getJobNodeData(AnalyseNode.PROCESS_COUNT));
+				getJobNodeStorage().updateJobNode(AnalyseNode.PROCESS_COUNT, totalCount + delta);
+			} catch (RuntimeException e) {
+				processCount.restoreTotalCountDelta(delta);
+				throw e;
+			}
 		}
 	}
 
 	public synchronized void persistErrorCount() {
-		int delta = ProcessCountStatistics.getErrorCountDelta(executorName, jobName);
+		ProcessCountStatistics.JobProcessCount processCount = ProcessCountStatistics.getJobProcessCount(executorName,
+				jobName);
+		int delta = processCount.takeErrorCountDelta();
 		if (delta > 0) {
-			int errorCount = Integer.parseInt(getJobNodeStorage().getJobNodeData(AnalyseNode.ERROR_COUNT));
-			getJobNodeStorage().updateJobNode(AnalyseNode.ERROR_COUNT, delta + errorCount);
-			ProcessCountStatistics.initErrorCountDelta(executorName, jobName, 0);
+			try {
+				int errorCount = Integer.parseInt(getJobNodeStorage().getJobNodeData(AnalyseNode.ERROR_COUNT));
+				getJobNodeStorage().updateJobNode(AnalyseNode.ERROR_COUNT, delta + errorCount);
+			} catch (RuntimeException e) {
+				processCount.restoreErrorCountDelta(delta);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * 把totalCount、errorCount的增量交给zk写缓冲，由缓冲读取zk上的值累加后批量写入.
+	 */
+	public synchronized void persistCountWriteBehind() {
+		ProcessCountStatistics.JobProcessCount processCount = ProcessCountStatistics.getJobProcessCount(executorName,
+				jobName);
+		int totalCountDelta = processCount.takeTotalCountDelta();
+		if (totalCountDelta > 0) {
+			getJobNodeStorage().increaseJobNodeWriteBehind(AnalyseNode.PROCESS_COUNT, totalCountDelta);
+		}
+		int errorCountDelta = processCount.takeErrorCountDelta();
+		if (errorCountDelta > 0) {
+			getJobNodeStorage().increaseJobNodeWriteBehind(AnalyseNode.ERROR_COUNT, errorCountDelta);
 		}
 	}
 
@@ -57,24 +57,26 @@ public class ReportService extends AbstractSaturnService {
 						continue;
 					}
 					if (info.getLastBeginTime() != null) {
-						jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getLastBeginTimeNode(item),
+						jobScheduler.getJobNodeStorage().replaceJobNodeWriteBehind(ExecutionNode.getLastBeginTimeNode(item),
 								info.getLastBeginTime());
 					}
 					if (info.getLastCompleteTime() != null) {
-						jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getLastCompleteTimeNode(item),
+						jobScheduler.getJobNodeStorage().replaceJobNodeWriteBehind(ExecutionNode.getLastCompleteTimeNode(item),
 								info.getLastCompleteTime());
 					}
 					if (info.getNextFireTime() != null) {
-						jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getNextFireTimeNode(item),
+						jobScheduler.getJobNodeStorage().replaceJobNodeWriteBehind(ExecutionNode.getNextFireTimeNode(item),
 								info.getNextFireTime());
 					}
-					jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getJobLog(item),
+					jobScheduler.getJobNodeStorage().replaceJobNodeWriteBehind(ExecutionNode.getJobLog(item),
 							(info.getJobLog() == null ? "" : info.getJobLog()));
-					jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getJobMsg(item),
+					jobScheduler.getJobNodeStorage().replaceJobNodeWriteBehind(ExecutionNode.getJobMsg(item),
 							(info.getJobMsg() == null ? "" : info.getJobMsg()));
 					log.info("done flushed {} to zk.", info);
 				}
 				infoMap.clear();
+				// 控制台在请求上报后只等待很短的时间就读取，所以开启了zk写缓冲也要立即刷新本作业的数据，所有分片的执行信息在同一批事务中写入
+				jobScheduler.getJobNodeStorage().flushWriteBehind();
 			}
 		}
 	}
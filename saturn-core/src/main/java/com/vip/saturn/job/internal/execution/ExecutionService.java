@@ -17,7 +17,14 @@ package com.vip.saturn.job.internal.execution;
 import java.util.Date;
 import java.util.List;
 
+import com.vip.saturn.job.internal.storage.JobNodePath;
 import com.vip.saturn.job.utils.SaturnUtils;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,14 +49,22 @@ public class ExecutionService extends AbstractSaturnService {
 
 	private static final String NO_RETURN_VALUE = "No return value.";
 
+	/**
+	 * 事务模式下一个事务最多包含的分片数，每个分片最多5个操作
+	 */
+	private static final int MAX_ITEMS_PER_TRANSACTION = 200;
+
 	static Logger log = LoggerFactory.getLogger(ExecutionService.class);
 
 	private ConfigurationService configService;
 
 	private ReportService reportService;
 
+	private final ExecutionStateMirror executionStateMirror;
+
 	public ExecutionService(final JobScheduler jobScheduler) {
 		super(jobScheduler);
+		executionStateMirror = new ExecutionStateMirror(jobName);
 	}
 
 	@Override
@@ -94,12 +109,198 @@ public class ExecutionService extends AbstractSaturnService {
 			Date nextFireTimePausePeriodEffected = jobScheduler.getNextFireTimePausePeriodEffected();
 			Long nextFireTime = nextFireTimePausePeriodEffected == null ? null
 					: nextFireTimePausePeriodEffected.getTime();
+			if (isExecutionStateInTransaction() && registerJobBeginInTransaction(shardingItems)) {
+				for (int item : shardingItems) {
+					reportService.initInfoOnBegin(item, nextFireTime);
+				}
+				return;
+			}
 			for (int item : shardingItems) {
 				registerJobBeginByItem(item, nextFireTime);
 			}
 		}
 	}
 
+	/**
+	 * 是否开启了事务模式：一次执行的所有分片的开始、完成状态分别在一个事务中注册。只有上报运行状态的作业才需要注册.
+	 *
+	 * @return 是否开启了事务模式
+	 */
+	public boolean isExecutionStateInTransaction() {
+		return SystemEnvProperties.VIP_SATURN_EXECUTION_STATE_IN_TRANSACTION
+				&& SaturnUtils.checkIfJobIsEnabledReport(jobConfiguration);
+	}
+
+	/**
+	 * 在事务中注册分片的开始状态：删除completed、failed、timeout节点，重建running节点。节点是否存在由本地镜像判断。
+	 *
+	 * @return 是否成功，失败则需要逐个分片注册
+	 */
+	private boolean registerJobBeginInTransaction(final List<Integer> items) {
+		try {
+			CuratorFramework client = getJobNodeStorage().getClient();
+			executionStateMirror.loadIfNecessary(client, items, getSessionId(client));
+			for (int from = 0; from < items.size(); from += MAX_ITEMS_PER_TRANSACTION) {
+				List<Integer> batch = items.subList(from, Math.min(from + MAX_ITEMS_PER_TRANSACTION, items.size()));
+				ExecutionStateMirror.ItemState[] states = new ExecutionStateMirror.ItemState[batch.size()];
+				CuratorTransaction transaction = client.inTransaction();
+				for (int i = 0; i < batch.size(); i++) {
+					int item = batch.get(i);
+					ExecutionStateMirror.ItemState state = getMirroredState(item);
+					if (!state.itemExisted) {
+						// 第一次执行，分片节点及其父节点可能都不存在，在事务之外创建
+						createItemNodeIfNeeded(client, item);
+					}
+					if (state.completed) {
+						transaction = transaction.delete().forPath(getFullPath(ExecutionNode.getCompletedNode(item)))
+								.and();
+					}
+					if (state.running) {
+						transaction = transaction.delete().forPath(getFullPath(ExecutionNode.getRunningNode(item)))
+								.and();
+					}
+					transaction = transaction.create().withMode(CreateMode.EPHEMERAL)
+							.forPath(getFullPath(ExecutionNode.getRunningNode(item)), executorName.getBytes("UTF-8"))
+							.and();
+					// 清除完成状态timeout等信息
+					if (state.failed) {
+						transaction = transaction.delete().forPath(getFullPath(ExecutionNode.getFailedNode(item)))
+								.and();
+					}
+					if (state.timeout) {
+						transaction = transaction.delete().forPath(getFullPath(ExecutionNode.getTimeoutNode(item)))
+								.and();
+					}
+					state.itemExisted = true;
+					state.running = true;
+					state.completed = false;
+					state.failed = false;
+					state.timeout = false;
+					states[i] = state;
+				}
+				((CuratorTransactionFinal) transaction).commit();
+				for (int i = 0; i < batch.size(); i++) {
+					executionStateMirror.put(batch.get(i), states[i]);
+				}
+			}
+			return true;
+		} catch (Exception e) {
+			// 镜像已过期或者zk异常，逐个分片注册，它们能处理节点已存在、不存在的情况
+			executionStateMirror.clear();
+			log.info("[{}] msg=register job begin in transaction failed, register by item: {}", jobName,
+					e.getMessage());
+			return false;
+		}
+	}
+
+	private void createItemNodeIfNeeded(CuratorFramework client, int item) throws Exception {
+		try {
+			client.create().creatingParentsIfNeeded()
+					.forPath(getFullPath(ExecutionNode.getExecutionNode(String.valueOf(item))));
+		} catch (KeeperException.NodeExistsException e) {
+			log.debug("the execution node of item {} is existing", item);
+		}
+	}
+
+	private ExecutionStateMirror.ItemState getMirroredState(int item) {
+		ExecutionStateMirror.ItemState state = executionStateMirror.get(item);
+		if (state == null) {
+			throw new IllegalStateException("the execution state of item " + item + " is not mirrored");
+		}
+		return state;
+	}
+
+	private String getFullPath(String node) {
+		return JobNodePath.getNodeFullPath(jobName, node);
+	}
+
+	private long getSessionId(CuratorFramework client) throws Exception {
+		return client.getZookeeperClient().getZooKeeper().getSessionId();
+	}
+
+	/**
+	 * 事务模式下，本地镜像确认该分片的running节点是当前zk会话创建的，则不需要再查询zk.
+	 *
+	 * @param item 分片
+	 * @return 是否确认
+	 */
+	public boolean isRunningInCurrentSession(int item) {
+		if (!isExecutionStateInTransaction()) {
+			return false;
+		}
+		try {
+			return executionStateMirror.isRunningInSession(item, getSessionId(getJobNodeStorage().getClient()));
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 事务模式下注册多个分片的完成信息，控制信息在一个事务中注册，失败则逐个分片注册.
+	 */
+	public void registerJobCompleted(final JobExecutionMultipleShardingContext jobExecutionShardingContext,
+			final List<Integer> items, Date nextFireTimePausePeriodEffected) {
+		if (items.isEmpty()) {
+			return;
+		}
+		if (!registerJobCompletedControlInfoInTransaction(jobExecutionShardingContext, items)) {
+			for (int item : items) {
+				registerJobCompletedControlInfoByItem(jobExecutionShardingContext, item);
+			}
+		}
+		for (int item : items) {
+			registerJobCompletedReportInfoByItem(jobExecutionShardingContext, item, nextFireTimePausePeriodEffected);
+		}
+	}
+
+	private boolean registerJobCompletedControlInfoInTransaction(
+			final JobExecutionMultipleShardingContext jobExecutionShardingContext, final List<Integer> items) {
+		try {
+			CuratorFramework client = getJobNodeStorage().getClient();
+			byte[] executorNameBytes = executorName.getBytes("UTF-8");
+			for (int from = 0; from < items.size(); from += MAX_ITEMS_PER_TRANSACTION) {
+				List<Integer> batch = items.subList(from, Math.min(from + MAX_ITEMS_PER_TRANSACTION, items.size()));
+				ExecutionStateMirror.ItemState[] states = new ExecutionStateMirror.ItemState[batch.size()];
+				CuratorTransaction transaction = client.inTransaction();
+				for (int i = 0; i < batch.size(); i++) {
+					int item = batch.get(i);
+					ExecutionStateMirror.ItemState state = getMirroredState(item);
+					String failureNode = getFailureNode(jobExecutionShardingContext, item);
+					if (ExecutionNode.getTimeoutNode(item).equals(failureNode) && !state.timeout) {
+						transaction = transaction.create().forPath(getFullPath(failureNode)).and();
+						state.timeout = true;
+					} else if (ExecutionNode.getFailedNode(item).equals(failureNode) && !state.failed) {
+						transaction = transaction.create().forPath(getFullPath(failureNode)).and();
+						state.failed = true;
+					}
+					// create completed node
+					String completedPath = getFullPath(ExecutionNode.getCompletedNode(item));
+					transaction = state.completed
+							? transaction.setData().forPath(completedPath, executorNameBytes).and()
+							: transaction.create().forPath(completedPath, executorNameBytes).and();
+					// remove running node
+					if (state.running) {
+						transaction = transaction.delete().forPath(getFullPath(ExecutionNode.getRunningNode(item)))
+								.and();
+					}
+					state.completed = true;
+					state.running = false;
+					states[i] = state;
+				}
+				((CuratorTransactionFinal) transaction).commit();
+				for (int i = 0; i < batch.size(); i++) {
+					executionStateMirror.put(batch.get(i), states[i]);
+				}
+			}
+			return true;
+		} catch (Exception e) {
+			executionStateMirror.clear();
+			log.info("[{}] msg=register job completed in transaction failed, register by item: {}", jobName,
+					e.getMessage());
+			return false;
+		}
+	}
+
 	public void registerJobBeginByItem(int item, Long nextFireTime) {
 		if (log.isDebugEnabled()) {
 			log.debug("registerJobBeginByItem: " + item);
@@ -170,29 +371,42 @@ public class ExecutionService extends AbstractSaturnService {
 			return;
 		}
 
+		String failureNode = getFailureNode(jobExecutionShardingContext, item);
+		if (failureNode != null) {
+			getJobNodeStorage().createJobNodeIfNeeded(failureNode);
+		}
+
+		// create completed node
+		getJobNodeStorage().createOrUpdateJobNodeWithValue(ExecutionNode.getCompletedNode(item), executorName);
+		// remove running node
+		getJobNodeStorage().removeJobNodeIfExisted(ExecutionNode.getRunningNode(item));
+
+	}
+
+	/**
+	 * 为了展现分片处理失败的状态，获取需要创建的timeout或者failed节点
+	 *
+	 * @return timeout或者failed节点，不需要则返回null
+	 */
+	private String getFailureNode(final JobExecutionMultipleShardingContext jobExecutionShardingContext,
+			int item) {
 		if (jobExecutionShardingContext instanceof SaturnExecutionContext) {
-			// 为了展现分片处理失败的状态
 			SaturnExecutionContext saturnContext = (SaturnExecutionContext) jobExecutionShardingContext;
 			if (saturnContext.isSaturnJob()) {
 				SaturnJobReturn jobRet = saturnContext.getShardingItemResults().get(item);
 				if (jobRet != null) {
 					int errorGroup = jobRet.getErrorGroup();
 					if (errorGroup == SaturnSystemErrorGroup.TIMEOUT) {
-						getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getTimeoutNode(item));
+						return ExecutionNode.getTimeoutNode(item);
 					} else if (errorGroup == SaturnSystemErrorGroup.FAIL) {
-						getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getFailedNode(item));
+						return ExecutionNode.getFailedNode(item);
 					}
 				} else {
-					getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getFailedNode(item));
+					return ExecutionNode.getFailedNode(item);
 				}
 			}
 		}
-
-		// create completed node
-		getJobNodeStorage().createOrUpdateJobNodeWithValue(ExecutionNode.getCompletedNode(item), executorName);
-		// remove running node
-		getJobNodeStorage().removeJobNodeIfExisted(ExecutionNode.getRunningNode(item));
-
+		return null;
 	}
 
 	/**
@@ -205,6 +419,7 @@ public class ExecutionService extends AbstractSaturnService {
 	 * @param items 需要清理的分片项列表
 	 */
 	public void clearRunningInfo(final List<Integer> items) {
+		executionStateMirror.clear();
 		for (int each : items) {
 			// 已被其他executor接管的正在failover的分片不清理running节点，防止清理节点时触发JobCrashedJobListener导致重新failover了一次
 			if (!getJobNodeStorage().isJobNodeExisted(FailoverNode.getExecutionFailoverNode(each))) {
@@ -219,6 +434,7 @@ public class ExecutionService extends AbstractSaturnService {
 	 * 删除作业执行时信息.
 	 */
 	public void removeExecutionInfo() {
+		executionStateMirror.clear();
 		getJobNodeStorage().removeJobNodeIfExisted(ExecutionNode.ROOT);
 	}
 
@@ -0,0 +1,109 @@
+package com.vip.saturn.job.internal.execution;
+
+import com.vip.saturn.job.internal.storage.JobNodePath;
+import com.vip.saturn.job.sharding.utils.CuratorUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.curator.framework.CuratorFramework;
+
+/**
+ * 本executor分配到的分片的execution节点（running、completed、failed、timeout）是否存在的本地镜像，事务模式下据此组装多操作事务，不需要逐个查询zk。
+ * <p>
+ * 镜像只在分片列表、zk会话都没有变化时有效，否则从zk批量重新加载；事务提交失败说明镜像已过期（如被控制台修改），需要清空镜像。
+ */
+class ExecutionStateMirror {
+
+	private final String jobName;
+
+	private final Map<Integer, ItemState> itemStates = new HashMap<>();
+
+	private List<Integer> items;
+
+	private long sessionId;
+
+	ExecutionStateMirror(String jobName) {
+		this.jobName = jobName;
+	}
+
+	/**
+	 * 分片列表或者zk会话变化了，从zk批量重新加载
+	 */
+	synchronized void loadIfNecessary(CuratorFramework client, List<Integer> items, long sessionId)
+			throws Exception {
+		if (sessionId == this.sessionId && items.equals(this.items)) {
+			return;
+		}
+		itemStates.clear();
+		this.items = null;
+		List<String> paths = new ArrayList<>(items.size());
+		for (int item : items) {
+			paths.add(getItemPath(item));
+		}
+		Map<String, List<String>> childrenMap = CuratorUtils.getChildrenInBatch(client, paths);
+		for (int item : items) {
+			List<String> children = childrenMap.get(getItemPath(item));
+			ItemState state = new ItemState();
+			if (children != null) {
+				state.itemExisted = true;
+				state.running = children.contains(ExecutionNode.RUNNING_APPENDIX);
+				state.completed = children.contains("completed");
+				state.failed = children.contains("failed");
+				state.timeout = children.contains("timeout");
+			}
+			itemStates.put(item, state);
+		}
+		this.items = new ArrayList<>(items);
+		this.sessionId = sessionId;
+	}
+
+	private String getItemPath(int item) {
+		return JobNodePath.getNodeFullPath(jobName, ExecutionNode.getExecutionNode(String.valueOf(item)));
+	}
+
+	synchronized ItemState get(int item) {
+		ItemState state = itemStates.get(item);
+		return state == null ? null : state.copy();
+	}
+
+	synchronized void put(int item, ItemState state) {
+		if (itemStates.containsKey(item)) {
+			itemStates.put(item, state);
+		}
+	}
+
+	/**
+	 * 本地镜像确认该分片的running节点是当前zk会话创建的
+	 */
+	synchronized boolean isRunningInSession(int item, long sessionId) {
+		ItemState state = itemStates.get(item);
+		return state != null && state.running && sessionId == this.sessionId;
+	}
+
+	synchronized void clear() {
+		itemStates.clear();
+		items = null;
+		sessionId = 0;
+	}
+
+	static class ItemState {
+
+		boolean itemExisted;
+		boolean running;
+		boolean completed;
+		boolean failed;
+		boolean timeout;
+
+		ItemState copy() {
+			ItemState copy = new ItemState();
+			copy.itemExisted = itemExisted;
+			copy.running = running;
+			copy.completed = completed;
+			copy.failed = failed;
+			copy.timeout = timeout;
+			return copy;
+		}
+	}
+
+}
@@ -140,4 +140,17 @@ public class ServerService extends AbstractSaturnService {
 		getJobNodeStorage().replaceJobNode(ServerNode.getProcessFailureCountNode(executorName), processFailureCount);
 	}
 
+	/**
+	 * 定时上报统计处理数据成功、失败的数量，开启了zk写缓冲则合并后批量写入.
+	 * 
+	 * @param processSuccessCount 成功数
+	 * @param processFailureCount 失败数
+	 */
+	public void reportProcessCount(final int processSuccessCount, final int processFailureCount) {
+		getJobNodeStorage().replaceJobNodeWriteBehind(ServerNode.getProcessSuccessCountNode(executorName),
+				processSuccessCount);
+		getJobNodeStorage().replaceJobNodeWriteBehind(ServerNode.getProcessFailureCountNode(executorName),
+				processFailureCount);
+	}
+
 }
@@ -18,6 +18,7 @@ import com.vip.saturn.job.basic.AbstractSaturnService;
 import com.vip.saturn.job.basic.JobScheduler;
 import com.vip.saturn.job.basic.SaturnConstant;
 import com.vip.saturn.job.exception.JobShuttingDownException;
+import com.vip.saturn.job.executor.SaturnExecutorService;
 import com.vip.saturn.job.internal.election.LeaderElectionService;
 import com.vip.saturn.job.internal.execution.ExecutionService;
 import com.vip.saturn.job.internal.server.ServerService;
@@ -69,8 +70,14 @@ public class ShardingService extends AbstractSaturnService {
 		leaderElectionService = jobScheduler.getLeaderElectionService();
 		serverService = jobScheduler.getServerService();
 		executionService = jobScheduler.getExecutionService();
-		namespaceShardingContentService = new NamespaceShardingContentService(
-				(CuratorFramework) coordinatorRegistryCenter.getRawClient());
+		// 优先共享executor的分片内容服务，其缓存的分片索引在每次分片后失效
+		SaturnExecutorService saturnExecutorService = jobScheduler.getSaturnExecutorService();
+		if (saturnExecutorService != null && saturnExecutorService.getNamespaceShardingContentService() != null) {
+			namespaceShardingContentService = saturnExecutorService.getNamespaceShardingContentService();
+		} else {
+			namespaceShardingContentService = new NamespaceShardingContentService(
+					(CuratorFramework) coordinatorRegistryCenter.getRawClient());
+		}
 	}
 
 	/**
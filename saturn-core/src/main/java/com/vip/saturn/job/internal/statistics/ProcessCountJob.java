@@ -41,6 +41,14 @@ public class ProcessCountJob implements Runnable {
 	@Override
 	public void run() {
 		String jobName = jobConfiguration.getJobName();
+		if (serverService.getJobNodeStorage().isWriteBehind()) {
+			// 开启了zk写缓冲，所有作业的上报合并后批量写入
+			serverService.reportProcessCount(
+					ProcessCountStatistics.getProcessSuccessCount(serverService.getExecutorName(), jobName),
+					ProcessCountStatistics.getProcessFailureCount(serverService.getExecutorName(), jobName));
+			analyseService.persistCountWriteBehind();
+			return;
+		}
 		serverService.persistProcessSuccessCount(
 				ProcessCountStatistics.getProcessSuccessCount(serverService.getExecutorName(), jobName));
 		serverService.persistProcessFailureCount(
@@ -16,51 +16,75 @@ package com.vip.saturn.job.internal.statistics;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 统计处理数据数量的类.
  * 
+ * <p>
+ * 每个作业的计数器只在第一次使用时按executor名、作业名查找创建一次，调用方可以持有{@link JobProcessCount}直接累加，
+ * 累加使用无锁的分段计数器，不同作业、不同分片线程之间没有锁竞争。
+ * </p>
  * 
  */
 public final class ProcessCountStatistics {
 
-	private static ConcurrentMap<String, AtomicInteger> successCountMap = new ConcurrentHashMap<>();
-
-	private static ConcurrentMap<String, AtomicInteger> failureCountMap = new ConcurrentHashMap<>();
-
-	private static ConcurrentMap<String, AtomicInteger> totalCountDeltaMap = new ConcurrentHashMap<>();
+	private static ConcurrentMap<String, ConcurrentMap<String, JobProcessCount>> processCountMap =
+			new ConcurrentHashMap<>();
 
-	private static ConcurrentMap<String, AtomicInteger> errorCountDeltaMap = new ConcurrentHashMap<>();
+	private ProcessCountStatistics() {
+	}
 
-	private static String buildKey(String executorName, String jobName) {
-		return executorName + "_" + jobName;
+	/**
+	 * 获取作业的处理数量计数器，不存在则创建.
+	 *
+	 * @param executorName executor名
+	 * @param jobName 作业名称
+	 * @return 作业的处理数量计数器
+	 */
+	public static JobProcessCount getJobProcessCount(final String executorName, final String jobName) {
+		ConcurrentMap<String, JobProcessCount> jobMap = processCountMap.get(executorName);
+		if (jobMap == null) {
+			jobMap = new ConcurrentHashMap<>();
+			ConcurrentMap<String, JobProcessCount> existing = processCountMap.putIfAbsent(executorName, jobMap);
+			if (existing != null) {
+				jobMap = existing;
+			}
+		}
+		JobProcessCount jobProcessCount = jobMap.get(jobName);
+		if (jobProcessCount == null) {
+			jobProcessCount = new JobProcessCount();
+			JobProcessCount existing = jobMap.putIfAbsent(jobName, jobProcessCount);
+			if (existing != null) {
+				jobProcessCount = existing;
+			}
+		}
+		return jobProcessCount;
 	}
 
 	public static void initTotalCountDelta(final String executorName, final String jobName, final int processCount) {
-		totalCountDeltaMap.put(buildKey(executorName, jobName), new AtomicInteger(processCount));
+		getJobProcessCount(executorName, jobName).totalCountDelta.reset(processCount);
 	}
 
 	public static void initErrorCountDelta(final String executorName, final String jobName, final int errorCount) {
-		errorCountDeltaMap.put(buildKey(executorName, jobName), new AtomicInteger(errorCount));
+		getJobProcessCount(executorName, jobName).errorCountDelta.reset(errorCount);
 	}
 
-	public static synchronized void increaseTotalCountDelta(final String executorName, final String jobName) {
-		incrementProcessCount(buildKey(executorName, jobName), totalCountDeltaMap);
+	public static void increaseTotalCountDelta(final String executorName, final String jobName) {
+		getJobProcessCount(executorName, jobName).increaseTotalCountDelta();
 	}
 
-	public static synchronized void increaseErrorCountDelta(final String executorName, final String jobName) {
-		incrementProcessCount(buildKey(executorName, jobName), errorCountDeltaMap);
+	public static void increaseErrorCountDelta(final String executorName, final String jobName) {
+		getJobProcessCount(executorName, jobName).increaseErrorCountDelta();
 	}
 
 	public static int getTotalCountDelta(final String executorName, final String jobName) {
-		String key = buildKey(executorName, jobName);
-		return null == totalCountDeltaMap.get(key) ? 0 : totalCountDeltaMap.get(key).get();
+		JobProcessCount jobProcessCount = getExisting(executorName, jobName);
+		return jobProcessCount == null ? 0 : jobProcessCount.getTotalCountDelta();
 	}
 
 	public static int getErrorCountDelta(final String executorName, final String jobName) {
-		String key = buildKey(executorName, jobName);
-		return null == errorCountDeltaMap.get(key) ? 0 : errorCountDeltaMap.get(key).get();
+		JobProcessCount jobProcessCount = getExisting(executorName, jobName);
+		return jobProcessCount == null ? 0 : jobProcessCount.getErrorCountDelta();
 	}
 
 	/**
@@ -69,8 +93,8 @@ public final class ProcessCountStatistics {
 	 * @param executorName executor名
 	 * @param jobName 作业名称
 	 */
-	public static synchronized void incrementProcessSuccessCount(final String executorName, final String jobName) {
-		incrementProcessCount(buildKey(executorName, jobName), successCountMap);
+	public static void incrementProcessSuccessCount(final String executorName, final String jobName) {
+		getJobProcessCount(executorName, jobName).incrementProcessSuccessCount(1);
 	}
 
 	/**
@@ -80,9 +104,9 @@ public final class ProcessCountStatistics {
 	 * @param jobName 作业名称
 	 * @param successCount 处理数据正确的数量
 	 */
-	public static synchronized void incrementProcessSuccessCount(final String executorName, final String jobName,
+	public static void incrementProcessSuccessCount(final String executorName, final String jobName,
 			final int successCount) {
-		incrementProcessCount(buildKey(executorName, jobName), successCount, successCountMap);
+		getJobProcessCount(executorName, jobName).incrementProcessSuccessCount(successCount);
 	}
 
 	/**
@@ -91,8 +115,8 @@ public final class ProcessCountStatistics {
 	 * @param executorName executor名
 	 * @param jobName 作业名称
 	 */
-	public static synchronized void incrementProcessFailureCount(final String executorName, final String jobName) {
-		incrementProcessCount(buildKey(executorName, jobName), failureCountMap);
+	public static void incrementProcessFailureCount(final String executorName, final String jobName) {
+		getJobProcessCount(executorName, jobName).incrementProcessFailureCount(1);
 	}
 
 	/**
@@ -104,19 +128,7 @@ public final class ProcessCountStatistics {
 	 */
 	public static void incrementProcessFailureCount(final String executorName, final String jobName,
 			final int failureCount) {
-		incrementProcessCount(buildKey(executorName, jobName), failureCount, failureCountMap);
-	}
-
-	private static void incrementProcessCount(final String key,
-			final ConcurrentMap<String, AtomicInteger> processCountMap) {
-		processCountMap.putIfAbsent(key, new AtomicInteger(0));
-		processCountMap.get(key).incrementAndGet();
-	}
-
-	private static void incrementProcessCount(final String key, final int count,
-			final ConcurrentMap<String, AtomicInteger> processCountMap) {
-		processCountMap.putIfAbsent(key, new AtomicInteger(0));
-		processCountMap.get(key).addAndGet(count);
+		getJobProcessCount(executorName, jobName).incrementProcessFailureCount(failureCount);
 	}
 
 	/**
@@ -127,8 +139,8 @@ public final class ProcessCountStatistics {
 	 * @return 本作业服务器处理数据正确的数量
 	 */
 	public static int getProcessSuccessCount(final String executorName, final String jobName) {
-		String key = buildKey(executorName, jobName);
-		return null == successCountMap.get(key) ? 0 : successCountMap.get(key).get();
+		JobProcessCount jobProcessCount = getExisting(executorName, jobName);
+		return jobProcessCount == null ? 0 : jobProcessCount.getProcessSuccessCount();
 	}
 
 	/**
@@ -139,8 +151,8 @@ public final class ProcessCountStatistics {
 	 * @return 本作业服务器处理数据错误的数量
 	 */
 	public static int getProcessFailureCount(final String executorName, final String jobName) {
-		String key = buildKey(executorName, jobName);
-		return null == failureCountMap.get(key) ? 0 : failureCountMap.get(key).get();
+		JobProcessCount jobProcessCount = getExisting(executorName, jobName);
+		return jobProcessCount == null ? 0 : jobProcessCount.getProcessFailureCount();
 	}
 
 	/**
@@ -150,12 +162,10 @@ public final class ProcessCountStatistics {
 	 * @param jobName 作业名称
 	 */
 	public static void resetSuccessFailureCount(final String executorName, final String jobName) {
-		String key = buildKey(executorName, jobName);
-		if (successCountMap.containsKey(key)) {
-			successCountMap.get(key).set(0);
-		}
-		if (failureCountMap.containsKey(key)) {
-			failureCountMap.get(key).set(0);
+		JobProcessCount jobProcessCount = getExisting(executorName, jobName);
+		if (jobProcessCount != null) {
+			jobProcessCount.successCount.reset(0);
+			jobProcessCount.failureCount.reset(0);
 		}
 	}
 
@@ -165,12 +175,96 @@ public final class ProcessCountStatistics {
 	 * @param jobName
 	 */
 	public static void resetAnalyseCount(final String executorName, final String jobName) {
-		String key = buildKey(executorName, jobName);
-		if (totalCountDeltaMap.containsKey(key)) {
-			totalCountDeltaMap.get(key).set(0);
+		JobProcessCount jobProcessCount = getExisting(executorName, jobName);
+		if (jobProcessCount != null) {
+			jobProcessCount.totalCountDelta.reset(0);
+			jobProcessCount.errorCountDelta.reset(0);
+		}
+	}
+
+	private static JobProcessCount getExisting(final String executorName, final String jobName) {
+		ConcurrentMap<String, JobProcessCount> jobMap = processCountMap.get(executorName);
+		return jobMap == null ? null : jobMap.get(jobName);
+	}
+
+	/**
+	 * 作业的处理数量计数器.
+	 */
+	public static final class JobProcessCount {
+
+		private final StripedCounter successCount = new StripedCounter();
+
+		private final StripedCounter failureCount = new StripedCounter();
+
+		private final StripedCounter totalCountDelta = new StripedCounter();
+
+		private final StripedCounter errorCountDelta = new StripedCounter();
+
+		private JobProcessCount() {
+		}
+
+		public void incrementProcessSuccessCount(final int count) {
+			successCount.add(count);
+		}
+
+		public void incrementProcessFailureCount(final int count) {
+			failureCount.add(count);
+		}
+
+		public void increaseTotalCountDelta() {
+			totalCountDelta.add(1);
+		}
+
+		public void increaseErrorCountDelta() {
+			errorCountDelta.add(1);
+		}
+
+		public int getProcessSuccessCount() {
+			return (int) successCount.sum();
 		}
-		if (errorCountDeltaMap.containsKey(key)) {
-			errorCountDeltaMap.get(key).set(0);
+
+		public int getProcessFailureCount() {
+			return (int) failureCount.sum();
+		}
+
+		public int getTotalCountDelta() {
+			return (int) totalCountDelta.sum();
+		}
+
+		public int getErrorCountDelta() {
+			return (int) errorCountDelta.sum();
+		}
+
+		/**
+		 * 取出totalCount的增量并清零，并发的累加不会丢失，留给下次取出
+		 *
+		 * @return totalCount的增量
+		 */
+		public int takeTotalCountDelta() {
+			return (int) totalCountDelta.sumThenReset();
+		}
+
+		/**
+		 * 取出errorCount的增量并清零，并发的累加不会丢失，留给下次取出
+		 *
+		 * @return errorCount的增量
+		 */
+		public int takeErrorCountDelta() {
+			return (int) errorCountDelta.sumThenReset();
+		}
+
+		/**
+		 * 把未能持久化的增量放回
+		 */
+		public void restoreTotalCountDelta(final int delta) {
+			totalCountDelta.add(delta);
+		}
+
+		/**
+		 * 把未能持久化的增量放回
+		 */
+		public void restoreErrorCountDelta(final int delta) {
+			errorCountDelta.add(delta);
 		}
 	}
 }
@@ -15,12 +15,9 @@
 package com.vip.saturn.job.internal.statistics;
 
 import java.util.Random;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import com.vip.saturn.job.basic.AbstractSaturnService;
 import com.vip.saturn.job.basic.JobScheduler;
 import com.vip.saturn.job.internal.config.ConfigurationService;
+import com.vip.saturn.job.threads.HousekeepingScheduler;
 
 /**
  * 作业统计信息服务.
@@ -52,23 +50,8 @@ public class StatisticsService extends AbstractSaturnService {
 	@Override
 	public synchronized void start() {
 		configService = jobScheduler.getConfigService();
-		processCountExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-			private AtomicInteger number = new AtomicInteger(0);
-
-			@Override
-			public Thread newThread(Runnable r) {
-				StringBuilder name = new StringBuilder(jobConfiguration.getJobName()).append("-ProcessCount-Thread-")
-						.append(number.incrementAndGet());
-				Thread t = new Thread(r, name.toString());
-				if (t.isDaemon()) {
-					t.setDaemon(false);
-				}
-				if (t.getPriority() != Thread.NORM_PRIORITY) {
-					t.setPriority(Thread.NORM_PRIORITY);
-				}
-				return t;
-			}
-		});
+		// 在Executor级别的内务调度线程池中定时上报，不独占线程
+		processCountExecutor = HousekeepingScheduler.getOrCreate(executorName);
 	}
 
 	/**
@@ -99,11 +82,10 @@ public class StatisticsService extends AbstractSaturnService {
 	 * 停止统计处理数据数量的作业.
 	 */
 	public synchronized void stopProcessCountJob() {
+		// 线程池是共享的，只取消本作业的任务
 		if (processCountJobFuture != null) {
 			processCountJobFuture.cancel(true);
-		}
-		if (processCountExecutor != null) {
-			processCountExecutor.shutdown();
+			processCountJobFuture = null;
 		}
 	}
 
@@ -0,0 +1,97 @@
+package com.vip.saturn.job.internal.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的分段计数器：没有竞争时只累加到一个基础值上；出现竞争后，按线程散列到多个分段累加，分段之间相隔一个缓存行，避免伪共享。
+ * <p>
+ * 与JDK8的LongAdder思路一致，但需要兼容JDK7。分段只在出现竞争后才创建，所以大量不竞争的计数器不会占用额外的内存。
+ */
+final class StripedCounter {
+
+	/**
+	 * 分段之间间隔的long数，8个long即64字节，一个缓存行
+	 */
+	private static final int PADDING = 8;
+
+	private static final int STRIPES = stripes();
+
+	private final AtomicLong base = new AtomicLong();
+
+	private volatile AtomicLongArray cells;
+
+	private static int stripes() {
+		int stripes = 1;
+		int cpus = Runtime.getRuntime().availableProcessors();
+		while (stripes < cpus && stripes < 64) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+
+	void add(long x) {
+		AtomicLongArray cs = cells;
+		if (cs == null) {
+			long v = base.get();
+			if (base.compareAndSet(v, v + x)) {
+				return;
+			}
+			cs = initCells();
+		}
+		cs.getAndAdd(index(), x);
+	}
+
+	private synchronized AtomicLongArray initCells() {
+		if (cells == null) {
+			cells = new AtomicLongArray(STRIPES * PADDING);
+		}
+		return cells;
+	}
+
+	private static int index() {
+		long id = Thread.currentThread().getId();
+		int h = (int) (id ^ (id >>> 32));
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		h ^= (h >>> 13);
+		return (h & (STRIPES - 1)) * PADDING;
+	}
+
+	/**
+	 * @return 当前的和，并发累加时不是一个精确的快照
+	 */
+	long sum() {
+		long sum = base.get();
+		AtomicLongArray cs = cells;
+		if (cs != null) {
+			for (int i = 0; i < cs.length(); i += PADDING) {
+				sum += cs.get(i);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * 取出当前的和并清零。每个分段都是原子地取出并清零，所以并发的累加要么计入本次的和，要么留给下次，不会丢失
+	 */
+	long sumThenReset() {
+		long sum = base.getAndSet(0);
+		AtomicLongArray cs = cells;
+		if (cs != null) {
+			for (int i = 0; i < cs.length(); i += PADDING) {
+				sum += cs.getAndSet(i, 0);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * 重置为指定值，并发的累加可能会丢失，只用于初始化、清零
+	 */
+	void reset(long value) {
+		sumThenReset();
+		base.addAndGet(value);
+	}
+
+}
@@ -32,6 +32,7 @@ import com.vip.saturn.job.reg.exception.RegExceptionHandler;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
 import com.vip.saturn.job.utils.BlockUtils;
+import com.vip.saturn.job.utils.SystemEnvProperties;
 
 /**
  * 作业节点数据访问类.
@@ -226,6 +227,57 @@ public class JobNodeStorage {
 		coordinatorRegistryCenter.persist(JobNodePath.getNodeFullPath(jobName, node), value.toString());
 	}
 
+	/**
+	 * 是否开启了zk写缓冲.
+	 * 
+	 * @return 是否开启了zk写缓冲
+	 */
+	public boolean isWriteBehind() {
+		return SystemEnvProperties.VIP_SATURN_ZK_WRITE_BEHIND && coordinatorRegistryCenter != null;
+	}
+
+	/**
+	 * 替换作业节点数据，开启了zk写缓冲则由缓冲合并后批量写入，否则直接写入.
+	 * 
+	 * @param node 作业节点名称
+	 * @param value 待替换的数据
+	 */
+	public void replaceJobNodeWriteBehind(final String node, final Object value) {
+		if (isWriteBehind()) {
+			ZkWriteBehindBuffer.getOrCreate(coordinatorRegistryCenter)
+					.put(JobNodePath.getNodeFullPath(jobConfiguration.getJobName(), node), value.toString());
+		} else {
+			replaceJobNode(node, value);
+		}
+	}
+
+	/**
+	 * 由zk写缓冲累加计数节点的值，只有开启了zk写缓冲才能使用.
+	 * 
+	 * @param node 作业节点名称
+	 * @param delta 增量
+	 */
+	public void increaseJobNodeWriteBehind(final String node, final int delta) {
+		ZkWriteBehindBuffer.getOrCreate(coordinatorRegistryCenter)
+				.increase(JobNodePath.getNodeFullPath(jobConfiguration.getJobName(), node), delta);
+	}
+
+	/**
+	 * 立即把本作业在zk写缓冲中的数据写入zk，如果开启了zk写缓冲；其他作业的数据仍由缓冲定时合并写入.
+	 */
+	public void flushWriteBehind() {
+		if (isWriteBehind()) {
+			try {
+				ZkWriteBehindBuffer.getOrCreate(coordinatorRegistryCenter)
+						.flush(JobNodePath.getJobNameFullPath(jobConfiguration.getJobName()) + "/");
+				// CHECKSTYLE:OFF
+			} catch (final Exception ex) {
+				// CHECKSTYLE:ON
+				RegExceptionHandler.handleException(ex);
+			}
+		}
+	}
+
 	/**
 	 * 在事务中执行操作.
 	 * 
@@ -308,6 +360,10 @@ public class JobNodeStorage {
 	 * 删除ZK结点
 	 */
 	public void deleteJobNode() {
+		ZkWriteBehindBuffer writeBehindBuffer = ZkWriteBehindBuffer.get(executorName);
+		if (writeBehindBuffer != null) {
+			writeBehindBuffer.discard(JobNodePath.getJobNameFullPath(jobName) + "/");
+		}
 		ZookeeperConfiguration zkConfig = ((ZookeeperRegistryCenter) coordinatorRegistryCenter).getZkConfig();
 		ZookeeperRegistryCenter newZk = new ZookeeperRegistryCenter(zkConfig);
 		newZk.init();
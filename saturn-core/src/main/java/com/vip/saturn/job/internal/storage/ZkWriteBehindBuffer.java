@@ -0,0 +1,579 @@
+package com.vip.saturn.job.internal.storage;
+
+import com.vip.saturn.job.reg.base.CoordinatorRegistryCenter;
+import com.vip.saturn.job.threads.HousekeepingScheduler;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor级别的zk写缓冲，所有作业共享：定时上报的处理数量、执行信息先写入缓冲，同一节点只保留最新值（计数节点累加增量），
+ * 然后按固定周期在Executor级别的内务调度线程池中合并为zk多操作事务批量写入，见{@link SystemEnvProperties#VIP_SATURN_ZK_WRITE_BEHIND}。
+ * <p>
+ * 写入失败（如连接断开、计数节点被并发修改）的数据会放回缓冲，下个周期重试；节点不存在的，逐个创建后写入，
+ * 但作业节点已被删除的则丢弃，不会重新创建已删除作业的节点。
+ * <p>
+ * 计数节点按版本写入，缓冲记住最近一次写入的值和版本，下个周期直接在此基础上累加，不需要再读取；
+ * 节点被其他客户端修改（如控制台重置计数）导致版本冲突时，才重新读取。
+ * <p>
+ * 刷新的统计信息定期打印到日志，见{@link #STATS_LOG_INTERVAL_MS}。
+ */
+public class ZkWriteBehindBuffer {
+
+	private static final Logger log = LoggerFactory.getLogger(ZkWriteBehindBuffer.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * 一个事务的操作数上限
+	 */
+	private static final int MAX_OPS_PER_TRANSACTION = 500;
+
+	/**
+	 * 一个事务的数据量上限，zk的jute.maxbuffer默认是1MB
+	 */
+	private static final int MAX_BYTES_PER_TRANSACTION = 512 * 1024;
+
+	/**
+	 * 每个操作除了路径和数据之外的大概开销
+	 */
+	private static final int OP_OVERHEAD_BYTES = 64;
+
+	/**
+	 * 打印刷新统计信息的间隔
+	 */
+	private static final long STATS_LOG_INTERVAL_MS = 5L * 60 * 1000;
+
+	private static final ConcurrentHashMap<String, ZkWriteBehindBuffer> bufferMap = new ConcurrentHashMap<>();
+
+	private final String executorName;
+
+	private final CoordinatorRegistryCenter regCenter;
+
+	private final Object lock = new Object();
+
+	private final Object flushLock = new Object();
+
+	/**
+	 * 待写入的节点最新值
+	 */
+	private Map<String, String> pendingValues = new LinkedHashMap<>();
+
+	/**
+	 * 待累加到计数节点的增量
+	 */
+	private Map<String, Integer> pendingDeltas = new LinkedHashMap<>();
+
+	/**
+	 * 计数节点最近一次写入的值和版本
+	 */
+	private final ConcurrentHashMap<String, CountValue> lastCounts = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+	private ScheduledFuture<?> flushFuture;
+
+	private long flushCount;
+
+	private long totalFlushCostMs;
+
+	private long lastFlushCostMs;
+
+	private int lastFlushSize;
+
+	private long failedFlushCount;
+
+	private long countReadCount;
+
+	private long lastStatsLogTime = System.currentTimeMillis();
+
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			flushRequested.set(false);
+			try {
+				flush();
+			} catch (Throwable t) {
+				log.warn("[{}] msg=flush the zk write-behind buffer failed: {}", executorName, t.getMessage(), t);
+			}
+			logStatsIfNecessary();
+		}
+	};
+
+	ZkWriteBehindBuffer(CoordinatorRegistryCenter regCenter) {
+		this.regCenter = regCenter;
+		this.executorName = regCenter.getExecutorName();
+	}
+
+	/**
+	 * 获取Executor的zk写缓冲，不存在则创建并开始定时刷新
+	 */
+	public static synchronized ZkWriteBehindBuffer getOrCreate(CoordinatorRegistryCenter regCenter) {
+		String executorName = regCenter.getExecutorName();
+		ZkWriteBehindBuffer buffer = bufferMap.get(executorName);
+		if (buffer == null || buffer.regCenter != regCenter) {
+			if (buffer != null) {
+				buffer.stop();
+			}
+			buffer = new ZkWriteBehindBuffer(regCenter);
+			buffer.start();
+			bufferMap.put(executorName, buffer);
+		}
+		return buffer;
+	}
+
+	public static ZkWriteBehindBuffer get(String executorName) {
+		return bufferMap.get(executorName);
+	}
+
+	/**
+	 * 停止定时刷新，并把缓冲中的数据写入zk，需要在关闭注册中心之前调用
+	 */
+	public static synchronized void shutdown(String executorName) {
+		ZkWriteBehindBuffer buffer = bufferMap.remove(executorName);
+		if (buffer != null) {
+			buffer.stop();
+			try {
+				buffer.flush();
+			} catch (Exception e) {
+				log.warn("[{}] msg=flush the zk write-behind buffer on shutdown failed: {}", executorName,
+						e.getMessage(), e);
+			}
+		}
+	}
+
+	private void start() {
+		long interval = SystemEnvProperties.VIP_SATURN_ZK_WRITE_BEHIND_INTERVAL_MS;
+		flushFuture = HousekeepingScheduler.getOrCreate(executorName).scheduleWithFixedDelay(flushTask, interval,
+				interval, TimeUnit.MILLISECONDS);
+	}
+
+	private void stop() {
+		if (flushFuture != null) {
+			flushFuture.cancel(false);
+			flushFuture = null;
+		}
+	}
+
+	/**
+	 * 写入节点数据，节点不存在则创建；覆盖同一节点尚未写入的旧值
+	 */
+	public void put(String path, String value) {
+		synchronized (lock) {
+			pendingValues.put(path, value);
+		}
+	}
+
+	/**
+	 * 累加计数节点的值，节点不存在则丢弃
+	 */
+	public void increase(String path, int delta) {
+		if (delta == 0) {
+			return;
+		}
+		synchronized (lock) {
+			Integer pending = pendingDeltas.get(path);
+			pendingDeltas.put(path, pending == null ? delta : pending + delta);
+		}
+	}
+
+	/**
+	 * 丢弃指定前缀（如作业根节点）下尚未写入的数据，用于删除作业，避免删除后又被写入
+	 */
+	public void discard(String pathPrefix) {
+		synchronized (lock) {
+			takeByPrefix(pendingValues, pathPrefix);
+			takeByPrefix(pendingDeltas, pathPrefix);
+			takeByPrefix(lastCounts, pathPrefix);
+		}
+	}
+
+	/**
+	 * 从map中移除指定前缀的数据
+	 *
+	 * @return 被移除的数据
+	 */
+	private static <V> Map<String, V> takeByPrefix(Map<String, V> map, String pathPrefix) {
+		Map<String, V> taken = new LinkedHashMap<>();
+		Iterator<Entry<String, V>> iterator = map.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<String, V> entry = iterator.next();
+			if (entry.getKey().startsWith(pathPrefix)) {
+				taken.put(entry.getKey(), entry.getValue());
+				iterator.remove();
+			}
+		}
+		return taken;
+	}
+
+	/**
+	 * 尽快在内务调度线程池中刷新一次，不等待刷新完成
+	 */
+	public void requestFlush() {
+		if (flushRequested.compareAndSet(false, true)) {
+			HousekeepingScheduler.getOrCreate(executorName).execute(flushTask);
+		}
+	}
+
+	/**
+	 * 把缓冲中的数据合并为多操作事务写入zk，同时只有一个线程在刷新
+	 */
+	public void flush() throws Exception {
+		flush(null);
+	}
+
+	/**
+	 * 只把指定前缀（如作业根节点）下的数据写入zk，其他数据留在缓冲中，等待定时刷新
+	 *
+	 * @param pathPrefix 节点路径前缀，为null时写入所有数据
+	 */
+	public void flush(String pathPrefix) throws Exception {
+		synchronized (flushLock) {
+			Map<String, String> values;
+			Map<String, Integer> deltas;
+			synchronized (lock) {
+				if (pathPrefix == null) {
+					values = pendingValues;
+					deltas = pendingDeltas;
+					pendingValues = new LinkedHashMap<>();
+					pendingDeltas = new LinkedHashMap<>();
+				} else {
+					values = takeByPrefix(pendingValues, pathPrefix);
+					deltas = takeByPrefix(pendingDeltas, pathPrefix);
+				}
+			}
+			if (values.isEmpty() && deltas.isEmpty()) {
+				return;
+			}
+			long start = System.currentTimeMillis();
+			CuratorFramework client = (CuratorFramework) regCenter.getRawClient();
+			List<PendingWrite> writes = new ArrayList<>(values.size() + deltas.size());
+			for (Entry<String, String> entry : values.entrySet()) {
+				writes.add(new PendingWrite(entry.getKey(), entry.getValue(), 0, -1));
+			}
+			boolean success = true;
+			try {
+				for (Entry<String, Integer> entry : deltas.entrySet()) {
+					PendingWrite write = readCount(client, entry.getKey(), entry.getValue());
+					if (write != null) {
+						writes.add(write);
+					}
+				}
+				int from = 0;
+				int bytes = 0;
+				for (int i = 0; i < writes.size(); i++) {
+					int opBytes = writes.get(i).getBytes();
+					if (i > from && (i - from >= MAX_OPS_PER_TRANSACTION
+							|| bytes + opBytes > MAX_BYTES_PER_TRANSACTION)) {
+						success &= commit(client, writes.subList(from, i));
+						from = i;
+						bytes = 0;
+					}
+					bytes += opBytes;
+				}
+				if (from < writes.size()) {
+					success &= commit(client, writes.subList(from, writes.size()));
+				}
+			} catch (Exception e) {
+				// 读取计数节点失败，全部放回
+				putBack(values, deltas);
+				success = false;
+				throw e;
+			} finally {
+				long cost = System.currentTimeMillis() - start;
+				synchronized (lock) {
+					flushCount++;
+					totalFlushCostMs += cost;
+					lastFlushCostMs = cost;
+					lastFlushSize = writes.size();
+					if (!success) {
+						failedFlushCount++;
+					}
+				}
+			}
+		}
+	}
+
+	private PendingWrite readCount(CuratorFramework client, String path, int delta) throws Exception {
+		CountValue lastCount = lastCounts.get(path);
+		if (lastCount != null) {
+			return new PendingWrite(path, String.valueOf(lastCount.count + delta), delta, lastCount.version);
+		}
+		synchronized (lock) {
+			countReadCount++;
+		}
+		Stat stat = new Stat();
+		byte[] data;
+		try {
+			data = client.getData().storingStatIn(stat).forPath(path);
+		} catch (KeeperException.NoNodeException e) {
+			log.warn("[{}] msg=the count node {} is not existing, discard the delta {}", executorName, path, delta);
+			return null;
+		}
+		long count = 0;
+		if (data != null && data.length > 0) {
+			try {
+				count = Long.parseLong(new String(data, UTF8).trim());
+			} catch (NumberFormatException e) {
+				log.warn("[{}] msg=the data of the count node {} is not a number, reset it", executorName, path);
+			}
+		}
+		return new PendingWrite(path, String.valueOf(count + delta), delta, stat.getVersion());
+	}
+
+	/**
+	 * 提交一个事务，失败则按原因重试或者放回缓冲
+	 *
+	 * @return 是否全部写入成功
+	 */
+	private boolean commit(CuratorFramework client, List<PendingWrite> writes) {
+		try {
+			CuratorTransaction transaction = client.inTransaction();
+			for (PendingWrite write : writes) {
+				transaction = write.isCount()
+						? transaction.setData().withVersion(write.version).forPath(write.path, write.getData()).and()
+						: transaction.setData().forPath(write.path, write.getData()).and();
+			}
+			((CuratorTransactionFinal) transaction).commit();
+			for (PendingWrite write : writes) {
+				written(write);
+			}
+			return true;
+		} catch (KeeperException.NoNodeException | KeeperException.BadVersionException e) {
+			// 有节点不存在或者计数节点被并发修改，整个事务都没有生效，逐个写入
+			log.info("[{}] msg=commit the zk write-behind transaction failed ({}), write them one by one",
+					executorName, e.getMessage());
+			return writeOneByOne(client, writes);
+		} catch (Exception e) {
+			log.warn("[{}] msg=commit the zk write-behind transaction failed, retry in the next round: {}",
+					executorName, e.getMessage());
+			for (PendingWrite write : writes) {
+				// 事务可能已经生效，重新读取计数节点
+				lastCounts.remove(write.path);
+				putBack(write);
+			}
+			return false;
+		}
+	}
+
+	private boolean writeOneByOne(CuratorFramework client, List<PendingWrite> writes) {
+		boolean success = true;
+		for (PendingWrite write : writes) {
+			try {
+				if (write.isCount()) {
+					client.setData().withVersion(write.version).forPath(write.path, write.getData());
+					written(write);
+				} else {
+					persistUnderExistingJob(client, write.path, write.getData());
+				}
+			} catch (KeeperException.NoNodeException e) {
+				lastCounts.remove(write.path);
+				if (write.isCount()) {
+					log.warn("[{}] msg=the count node {} is not existing, discard the delta {}", executorName,
+							write.path, write.delta);
+				} else {
+					log.warn("[{}] msg=the job of the node {} is not existing, discard the value", executorName,
+							write.path);
+				}
+			} catch (Exception e) {
+				// 计数节点被并发修改，下个周期重新读取后累加
+				lastCounts.remove(write.path);
+				log.info("[{}] msg=write {} failed, retry in the next round: {}", executorName, write.path,
+						e.getMessage());
+				putBack(write);
+				success = false;
+			}
+		}
+		return success;
+	}
+
+	/**
+	 * 写入节点，不存在则逐级创建，但不会创建作业节点本身：作业已被删除则抛出NoNodeException
+	 */
+	private void persistUnderExistingJob(CuratorFramework client, String path, byte[] data) throws Exception {
+		try {
+			client.setData().forPath(path, data);
+			return;
+		} catch (KeeperException.NoNodeException e) {// NOSONAR
+		}
+		String jobsRoot = JobNodePath.ROOT + "/";
+		int index = path.startsWith(jobsRoot) ? path.indexOf('/', jobsRoot.length()) : -1;
+		if (index < 0) { // 不是作业下的节点
+			regCenter.persist(path, new String(data, UTF8));
+			return;
+		}
+		while ((index = path.indexOf('/', index + 1)) > 0) {
+			try {
+				client.create().forPath(path.substring(0, index));
+			} catch (KeeperException.NodeExistsException e) {// NOSONAR
+			}
+		}
+		try {
+			client.create().forPath(path, data);
+		} catch (KeeperException.NodeExistsException e) {
+			client.setData().forPath(path, data);
+		}
+	}
+
+	/**
+	 * 记住计数节点写入后的值和版本
+	 */
+	private void written(PendingWrite write) {
+		if (write.isCount()) {
+			lastCounts.put(write.path, new CountValue(Long.parseLong(write.value), write.version + 1));
+		}
+	}
+
+	private void putBack(PendingWrite write) {
+		synchronized (lock) {
+			if (write.isCount()) {
+				Integer pending = pendingDeltas.get(write.path);
+				pendingDeltas.put(write.path, pending == null ? write.delta : pending + write.delta);
+			} else if (!pendingValues.containsKey(write.path)) { // 已经有更新的值则丢弃旧值
+				pendingValues.put(write.path, write.value);
+			}
+		}
+	}
+
+	private void putBack(Map<String, String> values, Map<String, Integer> deltas) {
+		for (Entry<String, String> entry : values.entrySet()) {
+			putBack(new PendingWrite(entry.getKey(), entry.getValue(), 0, -1));
+		}
+		for (Entry<String, Integer> entry : deltas.entrySet()) {
+			putBack(new PendingWrite(entry.getKey(), null, entry.getValue(), 0));
+		}
+	}
+
+	private void logStatsIfNecessary() {
+		long now = System.currentTimeMillis();
+		synchronized (lock) {
+			if (now - lastStatsLogTime < STATS_LOG_INTERVAL_MS) {
+				return;
+			}
+			lastStatsLogTime = now;
+		}
+		log.info(
+				"[{}] msg=zk write-behind buffer stats: queueDepth={}, flushCount={}, failedFlushCount={}, "
+						+ "averageFlushCostMs={}, lastFlushCostMs={}, lastFlushSize={}, countReadCount={}",
+				executorName, getQueueDepth(), getFlushCount(), getFailedFlushCount(), getAverageFlushCostMs(),
+				getLastFlushCostMs(), getLastFlushSize(), getCountReadCount());
+	}
+
+	/**
+	 * @return 等待写入的节点数
+	 */
+	public int getQueueDepth() {
+		synchronized (lock) {
+			return pendingValues.size() + pendingDeltas.size();
+		}
+	}
+
+	public long getFlushCount() {
+		synchronized (lock) {
+			return flushCount;
+		}
+	}
+
+	public long getFailedFlushCount() {
+		synchronized (lock) {
+			return failedFlushCount;
+		}
+	}
+
+	/**
+	 * @return 最近一次刷新的耗时
+	 */
+	public long getLastFlushCostMs() {
+		synchronized (lock) {
+			return lastFlushCostMs;
+		}
+	}
+
+	/**
+	 * @return 平均每次刷新的耗时
+	 */
+	public long getAverageFlushCostMs() {
+		synchronized (lock) {
+			return flushCount == 0 ? 0 : totalFlushCostMs / flushCount;
+		}
+	}
+
+	/**
+	 * @return 最近一次刷新写入的节点数
+	 */
+	public int getLastFlushSize() {
+		synchronized (lock) {
+			return lastFlushSize;
+		}
+	}
+
+	/**
+	 * @return 从zk读取计数节点的次数，计数节点最近一次写入的值和版本可用时不需要读取
+	 */
+	public long getCountReadCount() {
+		synchronized (lock) {
+			return countReadCount;
+		}
+	}
+
+	private static class CountValue {
+
+		private final long count;
+		private final int version;
+
+		private CountValue(long count, int version) {
+			this.count = count;
+			this.version = version;
+		}
+	}
+
+	private static class PendingWrite {
+
+		private final String path;
+		private final String value;
+		/**
+		 * 计数节点的增量
+		 */
+		private final int delta;
+		/**
+		 * 计数节点读取时的版本，-1表示不是计数节点
+		 */
+		private final int version;
+
+		private PendingWrite(String path, String value, int delta, int version) {
+			this.path = path;
+			this.value = value;
+			this.delta = delta;
+			this.version = version;
+		}
+
+		private boolean isCount() {
+			return version >= 0;
+		}
+
+		private byte[] getData() {
+			return value.getBytes(UTF8);
+		}
+
+		private int getBytes() {
+			return path.length() + getData().length + OP_OVERHEAD_BYTES;
+		}
+	}
+
+}
@@ -5,7 +5,6 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.cache.NodeCache;
@@ -16,7 +15,8 @@ import org.apache.curator.utils.CloseableExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.vip.saturn.job.threads.SaturnThreadFactory;
+import com.vip.saturn.job.threads.HousekeepingScheduler;
+import com.vip.saturn.job.threads.SerialExecutorService;
 
 /**
  * @author chembo.huang
@@ -35,8 +35,8 @@ public class ZkCacheManager {
 		this.client = client;
 		this.jobName = jobName;
 		this.executorName = executorName;
-		executorService = Executors
-				.newSingleThreadExecutor(new SaturnThreadFactory(executorName + "-" + jobName + "-watcher", false));
+		// 在Executor级别的内务调度线程池中按顺序分发该作业的缓存事件，不独占线程
+		executorService = new SerialExecutorService(HousekeepingScheduler.getOrCreate(executorName));
 		log.info("ZkCacheManager for executor:{} - job:{} created.", executorName, jobName);
 	}
 
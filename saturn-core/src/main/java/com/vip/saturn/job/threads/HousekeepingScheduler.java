@@ -0,0 +1,44 @@
+package com.vip.saturn.job.threads;
+
+import com.vip.saturn.job.utils.SystemEnvProperties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Executor级别的内务调度线程池，所有作业共享：作业分片的超时检查、处理数量的定时上报、zk缓存事件的分发。
+ * <p>
+ * 线程数有上限，与作业数无关，见{@link SystemEnvProperties#VIP_SATURN_HOUSEKEEPING_THREADS}。
+ */
+public class HousekeepingScheduler {
+
+	private static final ConcurrentHashMap<String, ScheduledThreadPoolExecutor> schedulerMap = new ConcurrentHashMap<>();
+
+	private HousekeepingScheduler() {
+	}
+
+	public static synchronized ScheduledThreadPoolExecutor getOrCreate(String executorName) {
+		ScheduledThreadPoolExecutor scheduler = schedulerMap.get(executorName);
+		if (scheduler == null || scheduler.isShutdown()) {
+			scheduler = new ScheduledThreadPoolExecutor(SystemEnvProperties.VIP_SATURN_HOUSEKEEPING_THREADS,
+					new SaturnThreadFactory(executorName + "-housekeeping"));
+			scheduler.setRemoveOnCancelPolicy(true);
+			schedulerMap.put(executorName, scheduler);
+		}
+		return scheduler;
+	}
+
+	public static ScheduledThreadPoolExecutor get(String executorName) {
+		return schedulerMap.get(executorName);
+	}
+
+	/**
+	 * 关闭后，已提交的任务以及已调度的延时任务会继续执行完
+	 */
+	public static synchronized void shutdown(String executorName) {
+		ScheduledThreadPoolExecutor scheduler = schedulerMap.remove(executorName);
+		if (scheduler != null) {
+			scheduler.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.vip.saturn.job.threads;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 在共享线程池上按提交顺序串行执行任务，效果与单线程的线程池一致，但不独占线程。关闭后，已提交的任务会继续执行完。
+ */
+public class SerialExecutorService extends AbstractExecutorService {
+
+	private static final Logger log = LoggerFactory.getLogger(SerialExecutorService.class);
+
+	private final Executor executor;
+
+	private final LinkedList<Runnable> tasks = new LinkedList<>();
+
+	private boolean running;
+
+	private boolean shutdown;
+
+	private final Runnable worker = new Runnable() {
+		@Override
+		public void run() {
+			runTasks();
+		}
+	};
+
+	public SerialExecutorService(Executor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		if (command == null) {
+			throw new NullPointerException();
+		}
+		synchronized (tasks) {
+			if (shutdown) {
+				throw new RejectedExecutionException("SerialExecutorService has been shutdown");
+			}
+			tasks.add(command);
+			if (running) {
+				return;
+			}
+			running = true;
+		}
+		dispatch();
+	}
+
+	private void dispatch() {
+		try {
+			executor.execute(worker);
+		} catch (RejectedExecutionException e) {
+			// 共享线程池已关闭，丢弃未执行的任务
+			synchronized (tasks) {
+				log.warn("the shared thread pool has been shutdown, discard {} tasks", tasks.size());
+				tasks.clear();
+				running = false;
+				tasks.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * 每次只执行一个任务，然后重新提交，避免长时间占用共享线程
+	 */
+	private void runTasks() {
+		Runnable task;
+		synchronized (tasks) {
+			task = tasks.poll();
+		}
+		try {
+			if (task != null) {
+				task.run();
+			}
+		} finally {
+			boolean hasMore;
+			synchronized (tasks) {
+				hasMore = !tasks.isEmpty();
+				if (!hasMore) {
+					running = false;
+					tasks.notifyAll();
+				}
+			}
+			if (hasMore) {
+				dispatch();
+			}
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		synchronized (tasks) {
+			shutdown = true;
+			tasks.notifyAll();
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		synchronized (tasks) {
+			shutdown = true;
+			List<Runnable> notExecuted = new ArrayList<>(tasks);
+			tasks.clear();
+			tasks.notifyAll();
+			return notExecuted;
+		}
+	}
+
+	@Override
+	public boolean isShutdown() {
+		synchronized (tasks) {
+			return shutdown;
+		}
+	}
+
+	@Override
+	public boolean isTerminated() {
+		synchronized (tasks) {
+			return shutdown && !running && tasks.isEmpty();
+		}
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+		synchronized (tasks) {
+			while (!(shutdown && !running && tasks.isEmpty())) {
+				long left = deadline - System.currentTimeMillis();
+				if (left <= 0) {
+					return false;
+				}
+				tasks.wait(left);
+			}
+			return true;
+		}
+	}
+
+}
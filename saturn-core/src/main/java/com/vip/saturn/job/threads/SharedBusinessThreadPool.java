@@ -0,0 +1,290 @@
+package com.vip.saturn.job.threads;
+
+import com.vip.saturn.job.utils.SystemEnvProperties;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有作业共享的业务线程池。
+ * <p>
+ * 每个作业有自己的等待队列和并发配额，空闲线程按作业权重轮询各作业的等待队列取任务执行：一个作业本轮最多连续取权重个任务，然后轮到下一个作业；
+ * 一个作业同时最多占用配额个线程，所以即使某个作业的分片很多或者执行很慢，也不会耗尽线程池、饿死其他作业。
+ * <p>
+ * 线程池的线程数是固定的上限，与作业数无关。业务线程被强杀后，线程池会补充新的线程。
+ */
+public class SharedBusinessThreadPool {
+
+	private final ThreadPoolExecutor threadPool;
+
+	private final int jobQuota;
+
+	private final Object lock = new Object();
+
+	/**
+	 * 有可执行任务（等待队列不为空，并且未达到配额）的作业，按轮询顺序
+	 */
+	private final LinkedList<JobExecutorService> readyJobs = new LinkedList<>();
+
+	/**
+	 * 队头作业本轮已取的任务数
+	 */
+	private int headPicks;
+
+	private final Runnable worker = new Runnable() {
+		@Override
+		public void run() {
+			runNext();
+		}
+	};
+
+	public SharedBusinessThreadPool(int poolSize, int jobQuota, ThreadFactory threadFactory) {
+		this.threadPool = new ThreadPoolExecutor(poolSize, poolSize, 2, TimeUnit.MINUTES,
+				new LinkedBlockingQueue<Runnable>(), threadFactory);
+		this.threadPool.allowCoreThreadTimeOut(true);
+		this.jobQuota = jobQuota;
+	}
+
+	/**
+	 * 获取Executor级别的共享业务线程池，只有开启共享业务线程池模式才会创建
+	 */
+	public static SharedBusinessThreadPool getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * 创建作业的业务线程池视图
+	 *
+	 * @param weight 作业权重，本轮最多连续取的任务数
+	 */
+	public JobExecutorService newJobExecutorService(String jobName, int weight) {
+		return new JobExecutorService(jobName, Math.max(1, weight));
+	}
+
+	public int getPoolSize() {
+		return threadPool.getPoolSize();
+	}
+
+	public int getActiveCount() {
+		return threadPool.getActiveCount();
+	}
+
+	public int getJobQuota() {
+		return jobQuota;
+	}
+
+	private void enqueue(JobExecutorService job, Runnable command) {
+		synchronized (lock) {
+			if (job.shutdown) {
+				throw new RejectedExecutionException("the business thread pool of " + job.jobName + " is shutdown");
+			}
+			job.pending.add(new PendingTask(job, command));
+			markReadyIfNecessary(job);
+		}
+		threadPool.execute(worker);
+	}
+
+	private void markReadyIfNecessary(JobExecutorService job) {
+		if (!job.ready && !job.pending.isEmpty() && job.running < jobQuota) {
+			job.ready = true;
+			readyJobs.add(job);
+		}
+	}
+
+	private PendingTask poll() {
+		synchronized (lock) {
+			JobExecutorService job = readyJobs.peek();
+			if (job == null) {
+				return null;
+			}
+			PendingTask task = job.pending.poll();
+			job.running++;
+			job.lastWaitTimeMs = System.currentTimeMillis() - task.submitTime;
+			job.totalWaitTimeMs += job.lastWaitTimeMs;
+			job.startedCount++;
+			headPicks++;
+			if (job.pending.isEmpty() || job.running >= jobQuota) {
+				readyJobs.poll();
+				job.ready = false;
+				headPicks = 0;
+			} else if (headPicks >= job.weight) {
+				readyJobs.poll();
+				readyJobs.add(job);
+				headPicks = 0;
+			}
+			return task;
+		}
+	}
+
+	/**
+	 * 每提交一个任务，或者作业的一个任务执行完成而该作业还有等待的任务，都会提交一次worker，所以可执行的任务总能被取到
+	 */
+	private void runNext() {
+		PendingTask task = poll();
+		if (task == null) {
+			return;
+		}
+		JobExecutorService job = task.job;
+		try {
+			task.command.run();
+		} finally {
+			boolean hasMore;
+			synchronized (lock) {
+				job.running--;
+				markReadyIfNecessary(job);
+				hasMore = job.ready;
+				lock.notifyAll();
+			}
+			if (hasMore) {
+				threadPool.execute(worker);
+			}
+		}
+	}
+
+	private static class PendingTask {
+
+		private final JobExecutorService job;
+		private final Runnable command;
+		private final long submitTime = System.currentTimeMillis();
+
+		private PendingTask(JobExecutorService job, Runnable command) {
+			this.job = job;
+			this.command = command;
+		}
+	}
+
+	/**
+	 * 作业的业务线程池视图，任务在共享线程池中执行。关闭视图不影响共享线程池。
+	 */
+	public class JobExecutorService extends AbstractExecutorService {
+
+		private final String jobName;
+		private final int weight;
+		private final LinkedList<PendingTask> pending = new LinkedList<>();
+		private int running;
+		private boolean ready;
+		private boolean shutdown;
+		private long lastWaitTimeMs;
+		private long totalWaitTimeMs;
+		private long startedCount;
+
+		private JobExecutorService(String jobName, int weight) {
+			this.jobName = jobName;
+			this.weight = weight;
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			if (command == null) {
+				throw new NullPointerException();
+			}
+			enqueue(this, command);
+		}
+
+		@Override
+		public void shutdown() {
+			synchronized (lock) {
+				shutdown = true;
+				lock.notifyAll();
+			}
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			synchronized (lock) {
+				shutdown = true;
+				List<Runnable> notExecuted = new ArrayList<>();
+				for (PendingTask task : pending) {
+					notExecuted.add(task.command);
+				}
+				pending.clear();
+				if (ready) {
+					readyJobs.remove(this);
+					ready = false;
+				}
+				lock.notifyAll();
+				return notExecuted;
+			}
+		}
+
+		@Override
+		public boolean isShutdown() {
+			synchronized (lock) {
+				return shutdown;
+			}
+		}
+
+		@Override
+		public boolean isTerminated() {
+			synchronized (lock) {
+				return shutdown && running == 0 && pending.isEmpty();
+			}
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+			synchronized (lock) {
+				while (!(shutdown && running == 0 && pending.isEmpty())) {
+					long left = deadline - System.currentTimeMillis();
+					if (left <= 0) {
+						return false;
+					}
+					lock.wait(left);
+				}
+				return true;
+			}
+		}
+
+		/**
+		 * @return 等待执行的任务数
+		 */
+		public int getQueueDepth() {
+			synchronized (lock) {
+				return pending.size();
+			}
+		}
+
+		/**
+		 * @return 正在执行的任务数，不超过配额
+		 */
+		public int getRunningCount() {
+			synchronized (lock) {
+				return running;
+			}
+		}
+
+		/**
+		 * @return 最近开始执行的任务的等待时间
+		 */
+		public long getLastWaitTimeMs() {
+			synchronized (lock) {
+				return lastWaitTimeMs;
+			}
+		}
+
+		/**
+		 * @return 已开始执行的任务的平均等待时间
+		 */
+		public long getAverageWaitTimeMs() {
+			synchronized (lock) {
+				return startedCount == 0 ? 0 : totalWaitTimeMs / startedCount;
+			}
+		}
+	}
+
+	private static class Holder {
+
+		private static final SharedBusinessThreadPool INSTANCE = new SharedBusinessThreadPool(
+				SystemEnvProperties.VIP_SATURN_SHARED_BUSINESS_POOL_SIZE,
+				SystemEnvProperties.VIP_SATURN_SHARED_BUSINESS_POOL_JOB_QUOTA,
+				new SaturnThreadFactory("shared-business"));
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.vip.saturn.job.threads;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 虚拟线程的支持，通过反射调用JDK21+的API，在旧版本JVM上不可用。
+ */
+public class VirtualThreadExecutors {
+
+	private static final Logger log = LoggerFactory.getLogger(VirtualThreadExecutors.class);
+
+	private static final Method OF_VIRTUAL;
+
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+		Method ofVirtual = null;
+		Method newThreadPerTaskExecutor = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		} catch (NoSuchMethodException e) {// NOSONAR
+			log.debug("virtual thread is not supported by the current jvm");
+		}
+		OF_VIRTUAL = ofVirtual;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	private VirtualThreadExecutors() {
+	}
+
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * 创建每个任务一个虚拟线程的线程池
+	 *
+	 * @param threadNamePrefix 线程名前缀，后缀为递增的序号
+	 * @return null 如果当前JVM不支持虚拟线程，或者创建失败
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor(String threadNamePrefix) {
+		if (!isSupported()) {
+			return null;
+		}
+		try {
+			Object builder = OF_VIRTUAL.invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+			ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+		} catch (Exception e) {
+			log.warn("fail to create virtual thread executor, " + e.getMessage(), e);
+			return null;
+		}
+	}
+
+}
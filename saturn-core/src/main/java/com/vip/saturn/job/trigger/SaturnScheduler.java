@@ -11,6 +11,7 @@ import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 
 import com.vip.saturn.job.basic.AbstractElasticJob;
+import com.vip.saturn.job.utils.SystemEnvProperties;
 
 /**
  * @author chembo.huang
@@ -24,16 +25,23 @@ public class SaturnScheduler {
 	private Trigger trigger;
 	private final ExecutorService executor;
 	private SaturnWorker saturnQuartzWorker;
+	/**
+	 * 共享调度模式下的触发器，此时不会创建独占的调度线程
+	 */
+	private SaturnSharedWorker saturnSharedWorker;
 
 	public SaturnScheduler(final AbstractElasticJob job, final Trigger trigger) {
 		this.job = job;
 		this.trigger = trigger;
+		if (SystemEnvProperties.VIP_SATURN_SHARED_SCHEDULER) {
+			executor = null;
+			return;
+		}
 		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
 
 			@Override
 			public Thread newThread(Runnable r) {
-				Thread t = new Thread(r,
-						job.getExecutorName() + "_" + job.getConfigService().getJobName() + SATURN_QUARTZ_WORKER);
+				Thread t = new Thread(r, getWorkerName());
 				if (t.isDaemon()) {
 					t.setDaemon(false);
 				}
@@ -45,7 +53,16 @@ public class SaturnScheduler {
 		});
 	}
 
+	private String getWorkerName() {
+		return job.getExecutorName() + "_" + job.getConfigService().getJobName() + SATURN_QUARTZ_WORKER;
+	}
+
 	public void start() throws SchedulerException {
+		if (executor == null) {
+			saturnSharedWorker = new SaturnSharedWorker(job, trigger, getWorkerName());
+			saturnSharedWorker.start();
+			return;
+		}
 		saturnQuartzWorker = new SaturnWorker(job, trigger);
 		executor.submit(saturnQuartzWorker);
 	}
@@ -55,20 +72,35 @@ public class SaturnScheduler {
 	}
 
 	public void shutdown() {
+		if (saturnSharedWorker != null) {
+			saturnSharedWorker.halt();
+			return;
+		}
 		saturnQuartzWorker.halt();
 		executor.shutdown();
 	}
 
 	public void triggerJob() {
+		if (saturnSharedWorker != null) {
+			saturnSharedWorker.trigger();
+			return;
+		}
 		saturnQuartzWorker.trigger();
 	}
 
 	public boolean isShutdown() {
+		if (saturnSharedWorker != null) {
+			return saturnSharedWorker.isShutDown();
+		}
 		return saturnQuartzWorker.isShutDown();
 	}
 
 	public void rescheduleJob(Trigger createTrigger) throws SchedulerException {
 		this.trigger = createTrigger;
+		if (saturnSharedWorker != null) {
+			saturnSharedWorker.reInitTrigger(createTrigger);
+			return;
+		}
 		saturnQuartzWorker.reInitTrigger(createTrigger);
 	}
 }
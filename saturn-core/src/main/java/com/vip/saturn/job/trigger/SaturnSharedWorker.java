@@ -0,0 +1,217 @@
+package com.vip.saturn.job.trigger;
+
+import com.vip.saturn.job.basic.AbstractElasticJob;
+import com.vip.saturn.job.basic.SaturnConstant;
+import com.vip.saturn.job.threads.SaturnThreadFactory;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.quartz.Trigger;
+import org.quartz.spi.OperableTrigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 共享调度模式下的作业触发器，与{@link SaturnWorker}的暂停、停止、立即执行语义一致，但不独占线程：
+ * <ul>
+ * <li>所有作业的下次触发由一个共享的延时队列线程调度；</li>
+ * <li>触发时，作业在共享的执行线程池中执行，执行期间线程名与独占模式一致，执行完成后才计算下次触发时间，即同一作业不会并发执行。</li>
+ * </ul>
+ * 所以线程数与作业数无关，只与同时在执行的作业数相关，并且不超过{@link SystemEnvProperties#VIP_SATURN_SHARED_WORKER_POOL_SIZE}。
+ * <p>
+ * 与{@link SaturnWorker}一致，触发时间到了不做misfire处理，只有在执行完成或者恢复暂停后，才跳过期间错过的触发时间（DO_NOTHING）。
+ */
+public class SaturnSharedWorker {
+
+	static Logger log = LoggerFactory.getLogger(SaturnSharedWorker.class);
+
+	/**
+	 * 与{@link SaturnWorker}一致，距离触发时间不超过该值则触发
+	 */
+	private static final long FIRE_TOLERANCE_MS = 2L;
+
+	private final AbstractElasticJob job;
+	private final String threadName;
+	private volatile OperableTrigger triggerObj;
+	private boolean paused = false;
+	private boolean triggered = false;
+	private boolean running = false;
+	private volatile boolean halted = false;
+	private ScheduledFuture<?> timeout;
+
+	public SaturnSharedWorker(AbstractElasticJob job, Trigger trigger, String threadName) {
+		this.job = job;
+		this.threadName = threadName;
+		initTrigger(trigger);
+	}
+
+	public synchronized void start() {
+		schedule();
+	}
+
+	public synchronized void reInitTrigger(Trigger trigger) {
+		initTrigger(trigger);
+		schedule();
+	}
+
+	private void initTrigger(Trigger trigger) {
+		if (trigger == null) {
+			return;
+		}
+
+		this.triggerObj = (OperableTrigger) trigger;
+		Date ft = this.triggerObj.computeFirstFireTime(null);
+		if (ft == null) {
+			log.warn("[{}] msg=Based on configured schedule, the given trigger '" + trigger.getKey()
+					+ "' will never fire.", job.getJobName());
+		}
+		this.triggerObj.updateAfterMisfire(null);
+	}
+
+	public boolean isShutDown() {
+		return halted;
+	}
+
+	synchronized void togglePause(boolean pause) {
+		paused = pause;
+		if (pause) {
+			cancelTimeout();
+		} else {
+			skipMissedFireTimes();
+			schedule();
+		}
+	}
+
+	synchronized void halt() {
+		halted = true;
+		cancelTimeout();
+	}
+
+	synchronized void trigger() {
+		triggered = true;
+		schedule();
+	}
+
+	private void cancelTimeout() {
+		if (timeout != null) {
+			timeout.cancel(false);
+			timeout = null;
+		}
+	}
+
+	/**
+	 * 计算下次触发时间并放入共享的延时队列；如果被暂停、停止或者正在执行，则不调度，待恢复或者执行完成后再调度
+	 */
+	private void schedule() {
+		cancelTimeout();
+		if (halted || paused || running) {
+			return;
+		}
+		if (triggered) { // 立即执行，不更新触发时间
+			triggered = false;
+			dispatch();
+			return;
+		}
+		if (triggerObj == null) { // 没有触发器，只能立即执行
+			return;
+		}
+		Date nextFireTime = triggerObj.getNextFireTime();
+		if (nextFireTime == null) { // 没有下次执行时间，等待触发器被重新初始化
+			return;
+		}
+		long timeUntilTrigger = nextFireTime.getTime() - System.currentTimeMillis();
+		if (timeUntilTrigger > FIRE_TOLERANCE_MS) {
+			timeout = Holder.DISPATCHER.schedule(new Runnable() {
+				@Override
+				public void run() {
+					onTimeout();
+				}
+			}, timeUntilTrigger, TimeUnit.MILLISECONDS);
+			return;
+		}
+		// 执行时间到了，更新执行时间
+		triggerObj.triggered(null);
+		dispatch();
+	}
+
+	/**
+	 * 执行期间或者暂停期间错过的触发时间不再补偿，直接跳到当前时间之后的下次触发时间
+	 */
+	private void skipMissedFireTimes() {
+		if (triggerObj == null) {
+			return;
+		}
+		Date nextFireTime = triggerObj.getNextFireTime();
+		if (nextFireTime != null && nextFireTime.getTime() < System.currentTimeMillis() - FIRE_TOLERANCE_MS) {
+			triggerObj.setNextFireTime(triggerObj.getFireTimeAfter(new Date()));
+		}
+	}
+
+	private synchronized void onTimeout() {
+		timeout = null;
+		schedule();
+	}
+
+	private void dispatch() {
+		running = true;
+		Holder.EXECUTION_POOL.execute(new Runnable() {
+			@Override
+			public void run() {
+				Thread currentThread = Thread.currentThread();
+				String originalName = currentThread.getName();
+				currentThread.setName(threadName);
+				try {
+					job.execute();
+				} catch (RuntimeException e) {
+					log.error(String.format(SaturnConstant.LOG_FORMAT_FOR_STRING, job.getJobName(), e.getMessage()),
+							e);
+				} finally {
+					currentThread.setName(originalName);
+					synchronized (SaturnSharedWorker.this) {
+						running = false;
+						skipMissedFireTimes();
+						schedule();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * 延迟创建共享线程，只有开启共享调度模式才会创建
+	 */
+	private static class Holder {
+
+		private static final ScheduledExecutorService DISPATCHER = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					private final ThreadFactory threadFactory = new SaturnThreadFactory(
+							"saturnQuartz-shared-dispatcher", false);
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = threadFactory.newThread(r);
+						t.setDaemon(true);
+						return t;
+					}
+				});
+
+		/**
+		 * 同一作业同时最多只有一个待执行任务，所以排队的任务数不超过作业数；空闲线程会被回收
+		 */
+		private static final ThreadPoolExecutor EXECUTION_POOL = new ThreadPoolExecutor(
+				SystemEnvProperties.VIP_SATURN_SHARED_WORKER_POOL_SIZE,
+				SystemEnvProperties.VIP_SATURN_SHARED_WORKER_POOL_SIZE, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new SaturnThreadFactory("saturnQuartz-shared-worker"));
+
+		static {
+			EXECUTION_POOL.allowCoreThreadTimeOut(true);
+		}
+	}
+
+}
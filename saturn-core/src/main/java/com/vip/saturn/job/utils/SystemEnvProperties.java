@@ -25,6 +25,72 @@ public class SystemEnvProperties {
 	public static boolean VIP_SATURN_EXECUTOR_CLEAN = Boolean.parseBoolean(
 			System.getProperty(NAME_VIP_SATURN_EXECUTOR_CLEAN, System.getenv(NAME_VIP_SATURN_EXECUTOR_CLEAN)));
 
+	private static final String NAME_VIP_SATURN_SHARED_SCHEDULER = "VIP_SATURN_SHARED_SCHEDULER";
+	/**
+	 * 是否使用共享调度模式，所有作业共享调度线程，而不是每个作业一个调度线程
+	 */
+	public static boolean VIP_SATURN_SHARED_SCHEDULER = Boolean.parseBoolean(
+			System.getProperty(NAME_VIP_SATURN_SHARED_SCHEDULER, System.getenv(NAME_VIP_SATURN_SHARED_SCHEDULER)));
+
+	private static final String NAME_VIP_SATURN_SHARED_WORKER_POOL_SIZE = "VIP_SATURN_SHARED_WORKER_POOL_SIZE";
+	/**
+	 * 共享调度模式下，同时执行作业的最大线程数
+	 */
+	public static int VIP_SATURN_SHARED_WORKER_POOL_SIZE = 200;
+
+	private static final String NAME_VIP_SATURN_SHARED_BUSINESS_POOL = "VIP_SATURN_SHARED_BUSINESS_POOL";
+	/**
+	 * 是否使用Executor级别的共享业务线程池，而不是每个作业一个业务线程池
+	 */
+	public static boolean VIP_SATURN_SHARED_BUSINESS_POOL = Boolean.parseBoolean(System
+			.getProperty(NAME_VIP_SATURN_SHARED_BUSINESS_POOL, System.getenv(NAME_VIP_SATURN_SHARED_BUSINESS_POOL)));
+
+	private static final String NAME_VIP_SATURN_VIRTUAL_THREAD = "VIP_SATURN_VIRTUAL_THREAD";
+	/**
+	 * Java作业的分片是否在虚拟线程中执行（需要JDK21+），true表示所有Java作业，也可以是逗号分隔的作业名
+	 */
+	public static String VIP_SATURN_VIRTUAL_THREAD = trim(
+			System.getProperty(NAME_VIP_SATURN_VIRTUAL_THREAD, System.getenv(NAME_VIP_SATURN_VIRTUAL_THREAD)));
+
+	private static final String NAME_VIP_SATURN_HOUSEKEEPING_THREADS = "VIP_SATURN_HOUSEKEEPING_THREADS";
+	/**
+	 * Executor级别的内务调度线程池（超时检查、处理数量上报、zk缓存事件分发）的线程数
+	 */
+	public static int VIP_SATURN_HOUSEKEEPING_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+	private static final String NAME_VIP_SATURN_SHARED_BUSINESS_POOL_SIZE = "VIP_SATURN_SHARED_BUSINESS_POOL_SIZE";
+	/**
+	 * 共享业务线程池的线程数
+	 */
+	public static int VIP_SATURN_SHARED_BUSINESS_POOL_SIZE = 200;
+
+	private static final String NAME_VIP_SATURN_SHARED_BUSINESS_POOL_JOB_QUOTA = "VIP_SATURN_SHARED_BUSINESS_POOL_JOB_QUOTA";
+	/**
+	 * 共享业务线程池中，每个作业最多同时占用的线程数
+	 */
+	public static int VIP_SATURN_SHARED_BUSINESS_POOL_JOB_QUOTA = 50;
+
+	private static final String NAME_VIP_SATURN_ZK_WRITE_BEHIND = "VIP_SATURN_ZK_WRITE_BEHIND";
+	/**
+	 * 是否开启zk写缓冲：定时上报的处理数量、执行信息合并后批量写入zk
+	 */
+	public static boolean VIP_SATURN_ZK_WRITE_BEHIND = Boolean.parseBoolean(
+			System.getProperty(NAME_VIP_SATURN_ZK_WRITE_BEHIND, System.getenv(NAME_VIP_SATURN_ZK_WRITE_BEHIND)));
+
+	private static final String NAME_VIP_SATURN_ZK_WRITE_BEHIND_INTERVAL_MS = "VIP_SATURN_ZK_WRITE_BEHIND_INTERVAL_MS";
+	/**
+	 * zk写缓冲的刷新周期
+	 */
+	public static int VIP_SATURN_ZK_WRITE_BEHIND_INTERVAL_MS = 1000;
+
+	private static final String NAME_VIP_SATURN_EXECUTION_STATE_IN_TRANSACTION = "VIP_SATURN_EXECUTION_STATE_IN_TRANSACTION";
+	/**
+	 * 是否在一个zk多操作事务中注册一次执行的所有分片的开始、完成状态，节点是否存在由本地镜像判断
+	 */
+	public static boolean VIP_SATURN_EXECUTION_STATE_IN_TRANSACTION = Boolean
+			.parseBoolean(System.getProperty(NAME_VIP_SATURN_EXECUTION_STATE_IN_TRANSACTION,
+					System.getenv(NAME_VIP_SATURN_EXECUTION_STATE_IN_TRANSACTION)));
+
 	/**
 	 * <pre>
 	 * shell作业的结果回写的文件全路径（如果需要返回一些执行结果，只需要将结果写入该文件），JSON结构:
@@ -151,6 +217,71 @@ public class SystemEnvProperties {
 			}
 		}
 
+		String housekeepingThreads = System.getProperty(NAME_VIP_SATURN_HOUSEKEEPING_THREADS,
+				System.getenv(NAME_VIP_SATURN_HOUSEKEEPING_THREADS));
+		if (!Strings.isNullOrEmpty(housekeepingThreads)) {
+			try {
+				int threads = Integer.parseInt(housekeepingThreads);
+				if (threads > 0) {
+					VIP_SATURN_HOUSEKEEPING_THREADS = threads;
+				}
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String sharedWorkerPoolSize = System.getProperty(NAME_VIP_SATURN_SHARED_WORKER_POOL_SIZE,
+				System.getenv(NAME_VIP_SATURN_SHARED_WORKER_POOL_SIZE));
+		if (!Strings.isNullOrEmpty(sharedWorkerPoolSize)) {
+			try {
+				int poolSize = Integer.parseInt(sharedWorkerPoolSize);
+				if (poolSize > 0) {
+					VIP_SATURN_SHARED_WORKER_POOL_SIZE = poolSize;
+				}
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String sharedBusinessPoolSize = System.getProperty(NAME_VIP_SATURN_SHARED_BUSINESS_POOL_SIZE,
+				System.getenv(NAME_VIP_SATURN_SHARED_BUSINESS_POOL_SIZE));
+		if (!Strings.isNullOrEmpty(sharedBusinessPoolSize)) {
+			try {
+				int poolSize = Integer.parseInt(sharedBusinessPoolSize);
+				if (poolSize > 0) {
+					VIP_SATURN_SHARED_BUSINESS_POOL_SIZE = poolSize;
+				}
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String sharedBusinessPoolJobQuota = System.getProperty(NAME_VIP_SATURN_SHARED_BUSINESS_POOL_JOB_QUOTA,
+				System.getenv(NAME_VIP_SATURN_SHARED_BUSINESS_POOL_JOB_QUOTA));
+		if (!Strings.isNullOrEmpty(sharedBusinessPoolJobQuota)) {
+			try {
+				int jobQuota = Integer.parseInt(sharedBusinessPoolJobQuota);
+				if (jobQuota > 0) {
+					VIP_SATURN_SHARED_BUSINESS_POOL_JOB_QUOTA = jobQuota;
+				}
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String zkWriteBehindInterval = System.getProperty(NAME_VIP_SATURN_ZK_WRITE_BEHIND_INTERVAL_MS,
+				System.getenv(NAME_VIP_SATURN_ZK_WRITE_BEHIND_INTERVAL_MS));
+		if (!Strings.isNullOrEmpty(zkWriteBehindInterval)) {
+			try {
+				int interval = Integer.parseInt(zkWriteBehindInterval);
+				if (interval > 0) {
+					VIP_SATURN_ZK_WRITE_BEHIND_INTERVAL_MS = interval;
+				}
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
 		String noHupOutSizeLimit = System.getProperty(NAME_VIP_SATURN_NOHUPOUT_SIZE_LIMIT_IN_BYTES,
 				System.getenv(NAME_VIP_SATURN_NOHUPOUT_SIZE_LIMIT_IN_BYTES));
 		if (!Strings.isNullOrEmpty(noHupOutSizeLimit)) {
@@ -0,0 +1,55 @@
+package com.vip.saturn.job.basic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TimeoutSchedulerExecutorTest {
+
+	@Test
+	public void testKillDoesNotBlockHousekeepingThread() throws Exception {
+		String executorName = "timeout-test-executor";
+		ScheduledThreadPoolExecutor scheduler = TimeoutSchedulerExecutor.createScheduler(executorName);
+		final AtomicBoolean finished = new AtomicBoolean(false);
+		final AtomicInteger killedTimes = new AtomicInteger();
+		// 不响应强杀的业务线程
+		Thread businessThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (!finished.get()) {
+					try {
+						Thread.sleep(10L);
+					} catch (Throwable t) {// NOSONAR
+						killedTimes.incrementAndGet();
+					}
+				}
+			}
+		});
+		businessThread.start();
+		try {
+			JavaShardingItemCallable callable = new JavaShardingItemCallable("timeoutJob", 0, "", 1, null, null);
+			callable.setCurrentThread(businessThread);
+			ShardingItemFutureTask futureTask = new ShardingItemFutureTask(callable, null);
+			TimeoutSchedulerExecutor.scheduleTimeoutJob(executorName, 1, futureTask);
+
+			Thread.sleep(1500L);
+			// 业务线程被多次强杀，但强杀任务是延时再调度的，没有占住内务线程
+			assertThat(callable.isTimeout()).isTrue();
+			assertThat(killedTimes.get()).isGreaterThan(1);
+			assertThat(scheduler.getQueue()).isNotEmpty();
+
+			futureTask.setDone(true);
+			Thread.sleep(200L);
+			assertThat(scheduler.getQueue()).isEmpty();
+		} finally {
+			finished.set(true);
+			businessThread.join(1000L);
+			TimeoutSchedulerExecutor.shutdownScheduler(executorName);
+		}
+	}
+
+}
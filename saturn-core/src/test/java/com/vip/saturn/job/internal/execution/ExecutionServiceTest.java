@@ -0,0 +1,114 @@
+package com.vip.saturn.job.internal.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.SaturnJobReturn;
+import com.vip.saturn.job.SaturnSystemErrorGroup;
+import com.vip.saturn.job.basic.JobRegistry;
+import com.vip.saturn.job.basic.JobScheduler;
+import com.vip.saturn.job.basic.SaturnExecutionContext;
+import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.java.SaturnJavaJob;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutionServiceTest {
+
+	private static final String EXECUTION = "/$Jobs/job1/execution";
+
+	private TestingServer testingServer;
+
+	private ZookeeperRegistryCenter regCenter;
+
+	private ExecutionService executionService;
+
+	@Before
+	public void setUp() throws Exception {
+		SystemEnvProperties.VIP_SATURN_EXECUTION_STATE_IN_TRANSACTION = true;
+		testingServer = new TestingServer();
+		regCenter = new ZookeeperRegistryCenter(
+				new ZookeeperConfiguration(testingServer.getConnectString(), "execution", 1000, 3000, 3));
+		regCenter.setExecutorName("executor1");
+		regCenter.init();
+
+		JobConfiguration jobConfiguration = new JobConfiguration("job1");
+		jobConfiguration.setJobType("JAVA_JOB");
+		jobConfiguration.setEnabledReport(true);
+		JobScheduler jobScheduler = new JobScheduler(regCenter, jobConfiguration);
+		jobScheduler.setJob(new SaturnJavaJob());
+		executionService = new ExecutionService(jobScheduler);
+		executionService.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SystemEnvProperties.VIP_SATURN_EXECUTION_STATE_IN_TRANSACTION = false;
+		JobRegistry.clearExecutor("executor1");
+		regCenter.close();
+		testingServer.close();
+	}
+
+	@Test
+	public void testRegisterBeginAndCompletedInTransaction() throws Exception {
+		regCenter.persist(EXECUTION + "/1/completed", "executor2");
+		regCenter.persist(EXECUTION + "/1/failed", "");
+		SaturnExecutionContext context = newContext(0, 1);
+
+		executionService.registerJobBegin(context);
+
+		assertThat(regCenter.getDirectly(EXECUTION + "/0/running")).isEqualTo("executor1");
+		assertThat(regCenter.getDirectly(EXECUTION + "/1/running")).isEqualTo("executor1");
+		assertThat(regCenter.isExisted(EXECUTION + "/1/completed")).isFalse();
+		assertThat(regCenter.isExisted(EXECUTION + "/1/failed")).isFalse();
+		assertThat(executionService.isRunningInCurrentSession(0)).isTrue();
+
+		context.getShardingItemResults().put(0, new SaturnJobReturn());
+		context.getShardingItemResults().put(1,
+				new SaturnJobReturn(500, "timeout", SaturnSystemErrorGroup.TIMEOUT));
+		executionService.registerJobCompleted(context, context.getShardingItems(), null);
+
+		assertThat(regCenter.getDirectly(EXECUTION + "/0/completed")).isEqualTo("executor1");
+		assertThat(regCenter.getDirectly(EXECUTION + "/1/completed")).isEqualTo("executor1");
+		assertThat(regCenter.isExisted(EXECUTION + "/0/running")).isFalse();
+		assertThat(regCenter.isExisted(EXECUTION + "/1/running")).isFalse();
+		assertThat(regCenter.isExisted(EXECUTION + "/0/timeout")).isFalse();
+		assertThat(regCenter.isExisted(EXECUTION + "/1/timeout")).isTrue();
+		assertThat(executionService.isRunningInCurrentSession(0)).isFalse();
+	}
+
+	@Test
+	public void testFallBackWhenTheMirrorIsStale() throws Exception {
+		SaturnExecutionContext context = newContext(0);
+		executionService.registerJobBegin(context);
+		executionService.registerJobCompleted(context, context.getShardingItems(), null);
+
+		// the console removes the completed node, the mirror is stale
+		regCenter.remove(EXECUTION + "/0/completed");
+		executionService.registerJobBegin(context);
+
+		assertThat(regCenter.getDirectly(EXECUTION + "/0/running")).isEqualTo("executor1");
+		assertThat(executionService.isRunningInCurrentSession(0)).isFalse();
+
+		// reloaded from zk, then registered in transaction again
+		executionService.registerJobCompleted(context, context.getShardingItems(), null);
+		executionService.registerJobBegin(context);
+		assertThat(regCenter.isExisted(EXECUTION + "/0/completed")).isFalse();
+		assertThat(executionService.isRunningInCurrentSession(0)).isTrue();
+	}
+
+	private SaturnExecutionContext newContext(Integer... items) {
+		SaturnExecutionContext context = new SaturnExecutionContext();
+		context.setSaturnJob(true);
+		List<Integer> itemList = Arrays.asList(items);
+		context.setShardingItems(itemList);
+		return context;
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.vip.saturn.job.internal.statistics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Contention benchmark of counting a shard completion (total delta, success count), like many short shards of many
+ * jobs finishing at the same time: the legacy global monitor with a string key per call, against the job handle with
+ * striped counters.
+ *
+ * <p>Generate it by: mvn -Pbenchmark clean test-compile, then run it by the main method, it's not run by the unit
+ * tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(16)
+@Fork(1)
+public class ProcessCountStatisticsBenchmark {
+
+	@Param({"1", "100"})
+	private int jobCount;
+
+	private String[] jobNames;
+
+	private ProcessCountStatistics.JobProcessCount[] jobProcessCounts;
+
+	@Setup
+	public void setUp() {
+		jobNames = new String[jobCount];
+		jobProcessCounts = new ProcessCountStatistics.JobProcessCount[jobCount];
+		for (int i = 0; i < jobCount; i++) {
+			jobNames[i] = "job" + i;
+			jobProcessCounts[i] = ProcessCountStatistics.getJobProcessCount("benchmark", jobNames[i]);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		private int next;
+
+		int nextJob(int jobCount) {
+			next = (next + 1) % jobCount;
+			return next;
+		}
+	}
+
+	@Benchmark
+	public void legacySynchronized(ThreadState threadState) {
+		String jobName = jobNames[threadState.nextJob(jobCount)];
+		LegacyProcessCountStatistics.increaseTotalCountDelta("benchmark", jobName);
+		LegacyProcessCountStatistics.incrementProcessSuccessCount("benchmark", jobName, 1);
+	}
+
+	@Benchmark
+	public void stripedHandle(ThreadState threadState) {
+		ProcessCountStatistics.JobProcessCount processCount = jobProcessCounts[threadState.nextJob(jobCount)];
+		processCount.increaseTotalCountDelta();
+		processCount.incrementProcessSuccessCount(1);
+	}
+
+	@Benchmark
+	public void stripedStaticApi(ThreadState threadState) {
+		String jobName = jobNames[threadState.nextJob(jobCount)];
+		ProcessCountStatistics.increaseTotalCountDelta("benchmark", jobName);
+		ProcessCountStatistics.incrementProcessSuccessCount("benchmark", jobName, 1);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder().include(ProcessCountStatisticsBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+	/**
+	 * The counting of the previous ProcessCountStatistics.
+	 */
+	private static final class LegacyProcessCountStatistics {
+
+		private static ConcurrentMap<String, AtomicInteger> successCountMap = new ConcurrentHashMap<>();
+
+		private static ConcurrentMap<String, AtomicInteger> totalCountDeltaMap = new ConcurrentHashMap<>();
+
+		private static String buildKey(String executorName, String jobName) {
+			return executorName + "_" + jobName;
+		}
+
+		static synchronized void increaseTotalCountDelta(final String executorName, final String jobName) {
+			String key = buildKey(executorName, jobName);
+			totalCountDeltaMap.putIfAbsent(key, new AtomicInteger(0));
+			totalCountDeltaMap.get(key).incrementAndGet();
+		}
+
+		static synchronized void incrementProcessSuccessCount(final String executorName, final String jobName,
+				final int successCount) {
+			String key = buildKey(executorName, jobName);
+			successCountMap.putIfAbsent(key, new AtomicInteger(0));
+			successCountMap.get(key).addAndGet(successCount);
+		}
+	}
+}
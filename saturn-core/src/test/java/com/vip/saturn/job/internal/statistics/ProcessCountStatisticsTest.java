@@ -0,0 +1,59 @@
+package com.vip.saturn.job.internal.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class ProcessCountStatisticsTest {
+
+	@Test
+	public void testTakeDeltaConcurrentlyNotLost() throws Exception {
+		final ProcessCountStatistics.JobProcessCount processCount = ProcessCountStatistics
+				.getJobProcessCount("executor1", "testTakeDeltaConcurrentlyNotLost");
+		final int threads = 8;
+		final int times = 100000;
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < times; j++) {
+						processCount.increaseTotalCountDelta();
+						processCount.incrementProcessSuccessCount(2);
+					}
+					done.countDown();
+				}
+			}).start();
+		}
+		AtomicLong taken = new AtomicLong();
+		while (done.getCount() > 0) {
+			taken.addAndGet(processCount.takeTotalCountDelta());
+		}
+		taken.addAndGet(processCount.takeTotalCountDelta());
+
+		assertThat(taken.get()).isEqualTo((long) threads * times);
+		assertThat(processCount.getTotalCountDelta()).isEqualTo(0);
+		assertThat(processCount.getProcessSuccessCount()).isEqualTo(2 * threads * times);
+	}
+
+	@Test
+	public void testStaticApiSharesTheJobCounter() {
+		ProcessCountStatistics.JobProcessCount processCount = ProcessCountStatistics.getJobProcessCount("executor1",
+				"testStaticApiSharesTheJobCounter");
+		assertThat(ProcessCountStatistics.getJobProcessCount("executor1", "testStaticApiSharesTheJobCounter"))
+				.isSameAs(processCount);
+
+		ProcessCountStatistics.incrementProcessFailureCount("executor1", "testStaticApiSharesTheJobCounter", 3);
+		ProcessCountStatistics.increaseErrorCountDelta("executor1", "testStaticApiSharesTheJobCounter");
+		assertThat(processCount.getProcessFailureCount()).isEqualTo(3);
+		assertThat(processCount.getErrorCountDelta()).isEqualTo(1);
+
+		ProcessCountStatistics.resetSuccessFailureCount("executor1", "testStaticApiSharesTheJobCounter");
+		ProcessCountStatistics.resetAnalyseCount("executor1", "testStaticApiSharesTheJobCounter");
+		assertThat(processCount.getProcessFailureCount()).isEqualTo(0);
+		assertThat(processCount.getErrorCountDelta()).isEqualTo(0);
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.vip.saturn.job.internal.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZkWriteBehindBufferTest {
+
+	private TestingServer testingServer;
+
+	private ZookeeperRegistryCenter regCenter;
+
+	@Before
+	public void setUp() throws Exception {
+		testingServer = new TestingServer();
+		regCenter = new ZookeeperRegistryCenter(
+				new ZookeeperConfiguration(testingServer.getConnectString(), "writeBehind", 1000, 3000, 3));
+		regCenter.setExecutorName("executor1");
+		regCenter.init();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		regCenter.close();
+		testingServer.close();
+	}
+
+	@Test
+	public void testCoalesceAndFlush() throws Exception {
+		regCenter.persist("/$Jobs/job1/analyse/processCount", "10");
+		regCenter.persist("/$Jobs/job1/servers/executor1/processSuccessCount", "0");
+
+		ZkWriteBehindBuffer buffer = new ZkWriteBehindBuffer(regCenter);
+		buffer.put("/$Jobs/job1/servers/executor1/processSuccessCount", "1");
+		buffer.put("/$Jobs/job1/servers/executor1/processSuccessCount", "2");
+		buffer.put("/$Jobs/job1/execution/0/jobMsg", "msg");
+		buffer.increase("/$Jobs/job1/analyse/processCount", 3);
+		buffer.increase("/$Jobs/job1/analyse/processCount", 4);
+		buffer.increase("/$Jobs/job1/analyse/errorCount", 1);
+		assertThat(buffer.getQueueDepth()).isEqualTo(4);
+
+		buffer.flush();
+
+		assertThat(buffer.getQueueDepth()).isEqualTo(0);
+		assertThat(buffer.getFlushCount()).isEqualTo(1);
+		assertThat(buffer.getLastFlushSize()).isEqualTo(3);
+		assertThat(regCenter.getDirectly("/$Jobs/job1/servers/executor1/processSuccessCount")).isEqualTo("2");
+		// the node not existing is created
+		assertThat(regCenter.getDirectly("/$Jobs/job1/execution/0/jobMsg")).isEqualTo("msg");
+		assertThat(regCenter.getDirectly("/$Jobs/job1/analyse/processCount")).isEqualTo("17");
+		// the delta of the count node not existing is discarded
+		assertThat(regCenter.isExisted("/$Jobs/job1/analyse/errorCount")).isFalse();
+	}
+
+	@Test
+	public void testReuseLastWrittenCount() throws Exception {
+		regCenter.persist("/$Jobs/job1/analyse/processCount", "10");
+		ZkWriteBehindBuffer buffer = new ZkWriteBehindBuffer(regCenter);
+		buffer.increase("/$Jobs/job1/analyse/processCount", 1);
+		buffer.flush();
+		assertThat(buffer.getCountReadCount()).isEqualTo(1);
+
+		// the count written last time is reused
+		buffer.increase("/$Jobs/job1/analyse/processCount", 2);
+		buffer.flush();
+		assertThat(buffer.getCountReadCount()).isEqualTo(1);
+		assertThat(regCenter.getDirectly("/$Jobs/job1/analyse/processCount")).isEqualTo("13");
+
+		// the count reset by others is read again
+		regCenter.update("/$Jobs/job1/analyse/processCount", "0");
+		buffer.increase("/$Jobs/job1/analyse/processCount", 3);
+		buffer.flush();
+		assertThat(buffer.getQueueDepth()).isEqualTo(1);
+		buffer.flush();
+		assertThat(buffer.getQueueDepth()).isEqualTo(0);
+		assertThat(buffer.getCountReadCount()).isEqualTo(2);
+		assertThat(regCenter.getDirectly("/$Jobs/job1/analyse/processCount")).isEqualTo("3");
+	}
+
+	@Test
+	public void testFlushByPrefix() throws Exception {
+		regCenter.persist("/$Jobs/job1/config/enabled", "true");
+		regCenter.persist("/$Jobs/job10/config/enabled", "true");
+		ZkWriteBehindBuffer buffer = new ZkWriteBehindBuffer(regCenter);
+		buffer.put("/$Jobs/job1/execution/0/jobMsg", "msg");
+		buffer.put("/$Jobs/job10/execution/0/jobMsg", "msg");
+
+		buffer.flush("/$Jobs/job1/");
+
+		assertThat(regCenter.getDirectly("/$Jobs/job1/execution/0/jobMsg")).isEqualTo("msg");
+		// the data of other jobs is kept in the buffer
+		assertThat(regCenter.isExisted("/$Jobs/job10/execution/0/jobMsg")).isFalse();
+		assertThat(buffer.getQueueDepth()).isEqualTo(1);
+		assertThat(buffer.getLastFlushSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void testDiscard() throws Exception {
+		regCenter.persist("/$Jobs/job10/config/enabled", "true");
+		ZkWriteBehindBuffer buffer = new ZkWriteBehindBuffer(regCenter);
+		buffer.put("/$Jobs/job1/execution/0/jobMsg", "msg");
+		buffer.put("/$Jobs/job10/execution/0/jobMsg", "msg");
+		buffer.increase("/$Jobs/job1/analyse/processCount", 1);
+
+		buffer.discard("/$Jobs/job1/");
+		buffer.flush();
+
+		assertThat(regCenter.isExisted("/$Jobs/job1")).isFalse();
+		assertThat(regCenter.getDirectly("/$Jobs/job10/execution/0/jobMsg")).isEqualTo("msg");
+	}
+
+	@Test
+	public void testNotRecreateRemovedJob() throws Exception {
+		regCenter.persist("/$Jobs/job1/config/enabled", "true");
+		ZkWriteBehindBuffer buffer = new ZkWriteBehindBuffer(regCenter);
+		buffer.put("/$Jobs/job1/execution/0/jobMsg", "msg");
+		buffer.put("/$Jobs/job2/execution/0/jobMsg", "msg");
+
+		buffer.flush();
+
+		assertThat(buffer.getQueueDepth()).isEqualTo(0);
+		assertThat(regCenter.getDirectly("/$Jobs/job1/execution/0/jobMsg")).isEqualTo("msg");
+		// the job node removed is not recreated
+		assertThat(regCenter.isExisted("/$Jobs/job2")).isFalse();
+	}
+
+}
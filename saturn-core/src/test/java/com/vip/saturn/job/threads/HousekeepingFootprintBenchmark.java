@@ -0,0 +1,102 @@
+package com.vip.saturn.job.threads;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the threads of the per-job housekeeping threads (a cache event watcher thread and a process count
+ * thread for every job) with the executor level {@link HousekeepingScheduler}, at 1k and 5k jobs.
+ *
+ * <p>Every thread reserves a stack of -Xss besides the heap. It's not run by the unit tests, run it by the main
+ * method.
+ */
+public class HousekeepingFootprintBenchmark {
+
+	private static final Runnable NOOP = new Runnable() {
+		@Override
+		public void run() {
+		}
+	};
+
+	public static void main(String[] args) throws Exception {
+		for (int jobCount : new int[]{1000, 5000}) {
+			perJob(jobCount);
+			shared(jobCount);
+		}
+	}
+
+	private static void perJob(int jobCount) throws Exception {
+		Footprint footprint = new Footprint();
+		List<ExecutorService> watchers = new ArrayList<>();
+		List<ScheduledExecutorService> processCounts = new ArrayList<>();
+		final CountDownLatch latch = new CountDownLatch(jobCount);
+		for (int i = 0; i < jobCount; i++) {
+			ExecutorService watcher = Executors
+					.newSingleThreadExecutor(new SaturnThreadFactory("executor-job" + i + "-watcher", false));
+			watcher.execute(new Runnable() {
+				@Override
+				public void run() {
+					latch.countDown();
+				}
+			});
+			watchers.add(watcher);
+			ScheduledExecutorService processCount = Executors
+					.newSingleThreadScheduledExecutor(new SaturnThreadFactory("job" + i + "-ProcessCount-Thread", false));
+			processCount.scheduleAtFixedRate(NOOP, 0, 30, TimeUnit.SECONDS);
+			processCounts.add(processCount);
+		}
+		latch.await();
+		footprint.print("per-job threads", jobCount);
+		for (int i = 0; i < jobCount; i++) {
+			watchers.get(i).shutdownNow();
+			processCounts.get(i).shutdownNow();
+		}
+		waitThreadsExit(footprint.threads);
+	}
+
+	private static void shared(int jobCount) throws Exception {
+		Footprint footprint = new Footprint();
+		ScheduledExecutorService scheduler = HousekeepingScheduler.getOrCreate("benchmark");
+		List<ScheduledFuture<?>> futures = new ArrayList<>();
+		final CountDownLatch latch = new CountDownLatch(jobCount);
+		for (int i = 0; i < jobCount; i++) {
+			new SerialExecutorService(scheduler).execute(new Runnable() {
+				@Override
+				public void run() {
+					latch.countDown();
+				}
+			});
+			futures.add(scheduler.scheduleAtFixedRate(NOOP, 0, 30, TimeUnit.SECONDS));
+		}
+		latch.await();
+		footprint.print("housekeeping scheduler", jobCount);
+		for (ScheduledFuture<?> future : futures) {
+			future.cancel(false);
+		}
+		HousekeepingScheduler.shutdown("benchmark");
+		waitThreadsExit(footprint.threads);
+	}
+
+	private static void waitThreadsExit(int threads) throws InterruptedException {
+		while (ManagementFactory.getThreadMXBean().getThreadCount() > threads) {
+			Thread.sleep(100);
+		}
+	}
+
+	private static class Footprint {
+
+		private final int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+		void print(String mode, int jobCount) {
+			int threadsDelta = ManagementFactory.getThreadMXBean().getThreadCount() - threads;
+			System.out.println(String.format("%s, %d jobs: %d threads", mode, jobCount, threadsDelta));
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.vip.saturn.job.threads;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SharedBusinessThreadPoolTest {
+
+	@Test
+	public void testJobQuotaAndFairness() throws Exception {
+		SharedBusinessThreadPool pool = new SharedBusinessThreadPool(4, 2, new SaturnThreadFactory("test-shared"));
+		SharedBusinessThreadPool.JobExecutorService jobA = pool.newJobExecutorService("jobA", 1);
+		SharedBusinessThreadPool.JobExecutorService jobB = pool.newJobExecutorService("jobB", 1);
+
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger runningA = new AtomicInteger();
+		final AtomicInteger maxRunningA = new AtomicInteger();
+		for (int i = 0; i < 10; i++) {
+			jobA.submit(new Runnable() {
+				@Override
+				public void run() {
+					int running = runningA.incrementAndGet();
+					maxRunningA.set(Math.max(maxRunningA.get(), running));
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					runningA.decrementAndGet();
+				}
+			});
+		}
+
+		// jobA is blocked with its quota, jobB still could run
+		final CountDownLatch doneB = new CountDownLatch(1);
+		jobB.submit(new Runnable() {
+			@Override
+			public void run() {
+				doneB.countDown();
+			}
+		});
+		assertThat(doneB.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(jobA.getRunningCount()).isLessThanOrEqualTo(2);
+		assertThat(jobA.getRunningCount() + jobA.getQueueDepth()).isEqualTo(10);
+
+		release.countDown();
+		jobA.shutdown();
+		assertThat(jobA.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(maxRunningA.get()).isEqualTo(2);
+		assertThat(jobA.getQueueDepth()).isEqualTo(0);
+	}
+
+	@Test
+	public void testShutdownNow() throws Exception {
+		SharedBusinessThreadPool pool = new SharedBusinessThreadPool(1, 1, new SaturnThreadFactory("test-shared"));
+		ExecutorService job = pool.newJobExecutorService("job", 1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		for (int i = 0; i < 3; i++) {
+			job.submit(new Runnable() {
+				@Override
+				public void run() {
+					started.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(job.shutdownNow()).hasSize(2);
+		assertThat(job.isTerminated()).isFalse();
+		release.countDown();
+		assertThat(job.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+	}
+}
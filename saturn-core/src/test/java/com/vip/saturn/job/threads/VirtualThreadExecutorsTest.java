@@ -0,0 +1,31 @@
+package com.vip.saturn.job.threads;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class VirtualThreadExecutorsTest {
+
+	@Test
+	public void testNewVirtualThreadPerTaskExecutor() throws Exception {
+		ExecutorService executorService = VirtualThreadExecutors.newVirtualThreadPerTaskExecutor("test-virtual-");
+		if (!VirtualThreadExecutors.isSupported()) {
+			// fall back on the old jvm
+			assertThat(executorService).isNull();
+			return;
+		}
+		String threadName = executorService.submit(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return Thread.currentThread().getName();
+			}
+		}).get(5, TimeUnit.SECONDS);
+		assertThat(threadName).startsWith("test-virtual-");
+		executorService.shutdown();
+		assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+	}
+}
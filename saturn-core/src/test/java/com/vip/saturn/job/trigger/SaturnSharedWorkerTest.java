@@ -0,0 +1,102 @@
+package com.vip.saturn.job.trigger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+
+import com.vip.saturn.job.basic.AbstractElasticJob;
+import com.vip.saturn.job.basic.JobExecutionMultipleShardingContext;
+
+public class SaturnSharedWorkerTest {
+
+	@Test
+	public void testCronJobFires() throws Exception {
+		Trigger trigger = createTrigger("0/1 * * * * ?");
+		SaturnSharedWorker worker = new SaturnSharedWorker(new EmptyJob(), trigger, "test-shared-worker");
+		worker.start();
+		try {
+			Set<Date> fireTimes = new HashSet<>();
+			long deadline = System.currentTimeMillis() + 5000L;
+			while (fireTimes.size() < 3 && System.currentTimeMillis() < deadline) {
+				Date previousFireTime = trigger.getPreviousFireTime();
+				if (previousFireTime != null) {
+					fireTimes.add(previousFireTime);
+				}
+				Thread.sleep(50L);
+			}
+			// 每秒都要触发，而不是每次到了触发时间都被当作misfire跳过
+			assertThat(fireTimes.size()).isGreaterThanOrEqualTo(3);
+		} finally {
+			worker.halt();
+		}
+	}
+
+	@Test
+	public void testSkipMissedFireTimesAfterResume() throws Exception {
+		Trigger trigger = createTrigger("0/1 * * * * ?");
+		SaturnSharedWorker worker = new SaturnSharedWorker(new EmptyJob(), trigger, "test-shared-worker");
+		worker.start();
+		try {
+			worker.togglePause(true);
+			Thread.sleep(2500L);
+			worker.togglePause(false);
+			// 暂停期间错过的触发时间不补偿
+			assertThat(trigger.getNextFireTime()).isAfter(new Date());
+		} finally {
+			worker.halt();
+		}
+	}
+
+	private Trigger createTrigger(String cron) {
+		return TriggerBuilder.newTrigger().withIdentity("test-shared-worker")
+				.withSchedule(CronScheduleBuilder.cronSchedule(cron).withMisfireHandlingInstructionDoNothing()).build();
+	}
+
+	private static class EmptyJob extends AbstractElasticJob {
+
+		@Override
+		protected void executeJob(JobExecutionMultipleShardingContext shardingContext) {
+		}
+
+		@Override
+		public boolean isFailoverSupported() {
+			return false;
+		}
+
+		@Override
+		public SaturnTrigger getTrigger() {
+			return null;
+		}
+
+		@Override
+		public void enableJob() {
+		}
+
+		@Override
+		public void disableJob() {
+		}
+
+		@Override
+		public void onResharding() {
+		}
+
+		@Override
+		public void onForceStop(int item) {
+		}
+
+		@Override
+		public void onTimeout(int item) {
+		}
+
+		@Override
+		public void onNeedRaiseAlarm(int item, String alarmMessage) {
+		}
+	}
+}
@@ -1352,7 +1352,7 @@ public class ShardingIT extends AbstractSaturnIT {
 			}
 		}, 10);
 		long mtime = ((CuratorFramework) regCenter.getRawClient()).checkExists()
-				.forPath(SaturnExecutorsNode.getShardingContentElementNodePath("0")).getMtime();
+				.forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH).getMtime();
 
 		// 禁用作业
 		Thread.sleep(1000);
@@ -1367,7 +1367,7 @@ public class ShardingIT extends AbstractSaturnIT {
 		}, 10);
 
 		long mtime2 = ((CuratorFramework) regCenter.getRawClient()).checkExists()
-				.forPath(SaturnExecutorsNode.getShardingContentElementNodePath("0")).getMtime();
+				.forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH).getMtime();
 
 		assertThat(mtime).isEqualTo(mtime2);
 
@@ -50,7 +50,7 @@ public class NamespaceShardingManager {
 		this.namespace = namespace;
 		this.shardingTreeCacheService = new ShardingTreeCacheService(namespace, curatorFramework);
 		this.namespaceShardingService = new NamespaceShardingService(curatorFramework, hostValue,
-				reportAlarmService);
+				reportAlarmService, shardingTreeCacheService);
 		this.executorCleanService = new ExecutorCleanService(curatorFramework,updateJobConfigService);
 		this.addJobListenersService = new AddJobListenersService(namespace, curatorFramework, namespaceShardingService,
 				shardingTreeCacheService);
@@ -15,8 +15,14 @@ public class ShardingTreeCache {
 
 	private static final Logger logger = LoggerFactory.getLogger(ShardingTreeCache.class);
 
+	/**
+	 * The max depth of the TreeCaches used by sharding, see NamespaceShardingManager and AddJobListenersService
+	 */
+	private static final int MAX_COVERING_DEPTH = 2;
+
 	private Map<String, TreeCache> treeCacheMap = new HashMap<String, TreeCache>();
 	private Map<TreeCache, List<TreeCacheListener>> treeCacheListenerMap = new HashMap<TreeCache, List<TreeCacheListener>>();
+	private Set<TreeCache> initializedTreeCacheSet = new HashSet<TreeCache>();
 
 	private String getKey(String path, int depth) {
 		return path + depth;
@@ -85,6 +91,51 @@ public class ShardingTreeCache {
 		}
 	}
 
+	/**
+	 * Mark the TreeCache as initialized, that means its data could be read instead of zk
+	 */
+	public void markTreeCacheInitialized(TreeCache treeCache) {
+		synchronized (this) {
+			if (treeCacheListenerMap.containsKey(treeCache)) {
+				initializedTreeCacheSet.add(treeCache);
+			}
+		}
+	}
+
+	public boolean isTreeCacheInitialized(String path, int depth) {
+		synchronized (this) {
+			TreeCache treeCache = treeCacheMap.get(getKey(path, depth));
+			return treeCache != null && initializedTreeCacheSet.contains(treeCache);
+		}
+	}
+
+	/**
+	 * Find the initialized TreeCache whose watching tree covers the node path
+	 *
+	 * @return null if no initialized TreeCache covers the node path
+	 */
+	public TreeCache getInitializedTreeCacheCovering(String nodePath) {
+		synchronized (this) {
+			String path = nodePath;
+			int distance = 0;
+			while (distance <= MAX_COVERING_DEPTH) {
+				for (int depth = distance; depth <= MAX_COVERING_DEPTH; depth++) {
+					TreeCache treeCache = treeCacheMap.get(getKey(path, depth));
+					if (treeCache != null && initializedTreeCacheSet.contains(treeCache)) {
+						return treeCache;
+					}
+				}
+				int lastIndexOf = path.lastIndexOf('/');
+				if (lastIndexOf <= 0) {
+					break;
+				}
+				path = path.substring(0, lastIndexOf);
+				distance++;
+			}
+			return null;
+		}
+	}
+
 	public void removeTreeCache(String path, int depth) {
 		String key = getKey(path, depth);
 		removeTreeCacheByKey(key);
@@ -95,6 +146,7 @@ public class ShardingTreeCache {
 			TreeCache treeCache = treeCacheMap.get(key);
 			if (treeCache != null) {
 				treeCacheListenerMap.remove(treeCache);
+				initializedTreeCacheSet.remove(treeCache);
 				treeCacheMap.remove(key);
 				treeCache.close();
 				logger.info("remove TreeCache success, path+depth is {}", key);
@@ -115,6 +167,7 @@ public class ShardingTreeCache {
 				iterator.remove();
 			}
 			treeCacheListenerMap.clear();
+			initializedTreeCacheSet.clear();
 		}
 	}
 
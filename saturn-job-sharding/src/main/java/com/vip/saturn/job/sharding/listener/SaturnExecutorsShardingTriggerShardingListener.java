@@ -38,6 +38,12 @@ public class SaturnExecutorsShardingTriggerShardingListener extends AbstractTree
 		if (isShardAllAtOnce(type, path)) {
 			LOGGER.info("shard-all-at-once triggered.");
 			namespaceShardingService.asyncShardingWhenExecutorAll();
+		} else if (isCoalescingWindow(type, path)) {
+			try {
+				namespaceShardingService.coalesceShardingEvents(Long.parseLong(nodeData.trim()));
+			} catch (NumberFormatException e) {
+				LOGGER.warn("invalid sharding coalescing window: {}", nodeData);
+			}
 		}
 	}
 
@@ -46,4 +52,9 @@ public class SaturnExecutorsShardingTriggerShardingListener extends AbstractTree
 				&& SaturnExecutorsNode.getExecutorShardingNodePath("shardAllAtOnce").equals(path);
 	}
 
+	private boolean isCoalescingWindow(Type type, String path) {
+		return (type == Type.NODE_ADDED || type == Type.NODE_UPDATED)
+				&& SaturnExecutorsNode.SHARDING_COALESCING_WINDOW_NODE_PATH.equals(path);
+	}
+
 }
@@ -13,6 +13,7 @@ public class SaturnExecutorsNode {
 	private static final String LATCH = "latch";
 	private static final String SHARDING = "sharding";
 	private static final String CONTENT = "content";
+	private static final String CONTENT_V2 = "contentV2";
 	private static final String IP = "ip";
 	private static final String NO_TRAFFIC = "noTraffic";
 	private static final String CLEAN = "clean";
@@ -26,6 +27,13 @@ public class SaturnExecutorsNode {
 	public static final String SHARDINGNODE_PATH = "/" + SATURN_EXECUTORS_NODE + "/" + SHARDING;
 	public static final String LEADER_LATCHNODE_PATH = "/" + SATURN_EXECUTORS_NODE + "/" + LEADER + "/" + LATCH;
 	public static final String SHARDING_CONTENTNODE_PATH = "/" + SATURN_EXECUTORS_NODE + "/" + SHARDING + "/" + CONTENT;
+	public static final String SHARDING_CONTENT_V2_NODE_PATH =
+			"/" + SATURN_EXECUTORS_NODE + "/" + SHARDING + "/" + CONTENT_V2;
+	/**
+	 * 批量操作写入的分片事件合并窗口（毫秒），leader收到后，窗口内的分片事件合并为一次分片
+	 */
+	public static final String SHARDING_COALESCING_WINDOW_NODE_PATH =
+			"/" + SATURN_EXECUTORS_NODE + "/" + SHARDING + "/" + "coalescingWindow";
 	public static final String EXECUTOR_IPNODE_PATH_REGEX =
 			"/\\" + SATURN_EXECUTORS_NODE + "/" + EXECUTORS + "/" + "[^/]*"
 					+ "/" + IP;
@@ -137,6 +145,13 @@ public class SaturnExecutorsNode {
 		return "/" + SATURN_EXECUTORS_NODE + "/" + SHARDING + "/" + CONTENT + "/" + element;
 	}
 
+	/**
+	 * 获取$SaturnExecutors/sharding/contentV2下存储executor分片内容的结点完整路径
+	 */
+	public static String getShardingContentV2ElementNodePath(String node) {
+		return "/" + SATURN_EXECUTORS_NODE + "/" + SHARDING + "/" + CONTENT_V2 + "/" + node;
+	}
+
 	/**
 	 * 获取作业结点完整路径
 	 */
@@ -144,6 +159,13 @@ public class SaturnExecutorsNode {
 		return String.format("/%s/%s", JOBS_NODE, jobName);
 	}
 
+	/**
+	 * 获取$Jobs/xx/config结点完整路径
+	 */
+	public static String getJobConfigNodePath(String jobName) {
+		return String.format("/%s/%s/%s", JOBS_NODE, jobName, "config");
+	}
+
 	/**
 	 * 获取$Jobs/xx/config/shardingTotalCount结点完整路径
 	 */
@@ -221,6 +243,13 @@ public class SaturnExecutorsNode {
 		return String.format("/%s/%s/execution", JOBS_NODE, jobName);
 	}
 
+	/**
+	 * 获取$Jobs/xx/servers完整路径
+	 */
+	public static String getJobServersNodePath(String jobName) {
+		return String.format("/%s/%s/servers", JOBS_NODE, jobName);
+	}
+
 	/**
 	 * 获取$Jobs/xx/servers/yy完整路径
 	 */
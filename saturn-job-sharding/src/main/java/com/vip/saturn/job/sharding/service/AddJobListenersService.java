@@ -1,6 +1,5 @@
 package com.vip.saturn.job.sharding.service;
 
-import com.google.common.collect.Lists;
 import com.vip.saturn.job.sharding.exception.ShardingException;
 import com.vip.saturn.job.sharding.listener.JobConfigTriggerShardingListener;
 import com.vip.saturn.job.sharding.listener.JobServersOnlineOfflineListener;
@@ -60,7 +59,7 @@ public class AddJobListenersService {
 	 * @return false, if the job/config path is not existing
 	 */
 	private boolean addJobConfigPathListener(String jobName) throws Exception {
-		String path = SaturnExecutorsNode.JOBSNODE_PATH + "/" + jobName + "/config";
+		String path = SaturnExecutorsNode.getJobConfigNodePath(jobName);
 		String fullPath = namespace + path;
 
 		int waitConfigPathCreatedCounts = 50;
@@ -76,17 +75,11 @@ public class AddJobListenersService {
 			Thread.sleep(100L);
 		} while(true);
 
-		int depth = 0;
-		List<String> configPath2AddTreeCacheList = Lists
-				.newArrayList(SaturnExecutorsNode.getJobConfigEnableNodePath(jobName),
-						SaturnExecutorsNode.getJobConfigForceShardNodePath(jobName));
-		for (String path2AddTreeCache : configPath2AddTreeCacheList) {
-			shardingTreeCacheService
-					.addTreeCacheIfAbsent(path2AddTreeCache, depth);
-			shardingTreeCacheService
-					.addTreeCacheListenerIfAbsent(path2AddTreeCache, depth,
-							new JobConfigTriggerShardingListener(jobName, namespaceShardingService));
-		}
+		// watch the whole config, so that the config used by sharding could be read from the TreeCache
+		int depth = 1;
+		shardingTreeCacheService.addTreeCacheIfAbsent(path, depth);
+		shardingTreeCacheService.addTreeCacheListenerIfAbsent(path, depth,
+				new JobConfigTriggerShardingListener(jobName, namespaceShardingService));
 
 		return true;
 	}
@@ -1,25 +1,44 @@
 package com.vip.saturn.job.sharding.service;
 
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import com.vip.saturn.job.sharding.entity.Executor;
 import com.vip.saturn.job.sharding.entity.Shard;
 import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
+import com.vip.saturn.job.sharding.utils.CuratorUtils;
 
 /**
  * @author hebelala
@@ -30,46 +49,313 @@ public class NamespaceShardingContentService {
 
 	private static final int SHARDING_CONTENT_SLICE_LEN = 1024 * 1023;
 
+	/**
+	 * sharding/contentV2的格式版本
+	 */
+	private static final int SHARDING_CONTENT_VERSION = 2;
+
+	private static final String NAME_SHARDING_CONTENT_LEGACY_COMPATIBLE =
+			"VIP_SATURN_SHARDING_CONTENT_LEGACY_COMPATIBLE";
+
+	/**
+	 * 是否同时以旧版本的格式（按长度分片的序号节点）写sharding/content，默认为false。
+	 * <p>
+	 * 旧版本的console、executor只认识sharding/content下的序号节点，重写旧格式不是原子的，所以只在滚动升级期间打开：
+	 * 升级前把新版本的该开关设置为true，所有的console和executor升级完成后，再恢复为false。
+	 * 旧版本的leader重写sharding/content时，无论开关是否打开，新版本都能通过版本头中记录的cversion发现，并改为读取旧格式。
+	 */
+	private static final boolean LEGACY_SHARDING_CONTENT_COMPATIBLE;
+
+	private static final int READ_RETRY_TIMES = 3;
+
+	/**
+	 * 通知作业分片的一个事务的字节数上限，远小于zk默认的jute.maxbuffer(1M)
+	 */
+	private static final int NECESSARY_TRANSACTION_BYTES_LIMIT = 512 * 1024;
+
+	/**
+	 * 通知作业分片的一个事务的操作数上限
+	 */
+	private static final int NECESSARY_TRANSACTION_OPS_LIMIT = 1000;
+
+	/**
+	 * 事务中每个操作除了数据和路径之外的估算字节数
+	 */
+	private static final int TRANSACTION_OP_OVERHEAD_BYTES = 64;
+
+	static {
+		String legacyCompatibleStr = System.getProperty(NAME_SHARDING_CONTENT_LEGACY_COMPATIBLE,
+				System.getenv(NAME_SHARDING_CONTENT_LEGACY_COMPATIBLE));
+		LEGACY_SHARDING_CONTENT_COMPATIBLE = StringUtils.isNotBlank(legacyCompatibleStr)
+				&& Boolean.parseBoolean(legacyCompatibleStr.trim());
+	}
+
 	private CuratorFramework curatorFramework;
 
+	private final boolean legacyCompatible;
+
 	private Gson gson = new Gson();
 
+	/**
+	 * 最后一次持久化后sharding/contentV2的状态，如果与zk不一致，说明被其他leader修改过
+	 */
+	private Stat persistedStat;
+
+	private List<String> persistedExecutorNames = new ArrayList<>();
+
+	private Map<String, HashCode> persistedDigests = new HashMap<>();
+
+	/**
+	 * 最后一次持久化后版本头中每个executor对应的节点
+	 */
+	private Map<String, String> persistedExecutorNodes = new HashMap<>();
+
+	/**
+	 * sharding/contentV2下所有的子节点，包括之前持久化失败时遗留的、没有被版本头引用的节点
+	 */
+	private Set<String> persistedNodes = new HashSet<>();
+
+	/**
+	 * 最后一次持久化后版本头中记录的sharding/content的cversion，sharding/content不存在时为null
+	 */
+	private Integer persistedLegacyCversion;
+
+	/**
+	 * 是否缓存解析后的分片索引，开启后由调用方在分片结果变化时调用{@link #invalidateShardingItemsCache()}
+	 */
+	private volatile boolean shardingItemsCacheEnabled;
+
+	/**
+	 * 解析后的分片索引的缓存，没有缓存时为null
+	 */
+	private volatile Map<String, Map<String, List<Integer>>> shardingItemsCache;
+
+	/**
+	 * 每次失效加一，读取分片结果期间缓存失效了，则读到的结果可能已过时，不放入缓存
+	 */
+	private long shardingItemsCacheGeneration;
+
+	private final Object shardingItemsCacheLock = new Object();
+
 	public NamespaceShardingContentService(CuratorFramework curatorFramework) {
+		this(curatorFramework, LEGACY_SHARDING_CONTENT_COMPATIBLE);
+	}
+
+	/**
+	 * @param legacyCompatible 是否同时以旧版本的格式写sharding/content
+	 */
+	public NamespaceShardingContentService(CuratorFramework curatorFramework, boolean legacyCompatible) {
 		this.curatorFramework = curatorFramework;
+		this.legacyCompatible = legacyCompatible;
 	}
 
-	public void persistDirectly(List<Executor> executorList) throws Exception {
-		// sharding/content如果不存在，则新建
-		if (curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH) == null) {
-			curatorFramework.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
+	/**
+	 * 持久化分片结果到sharding/contentV2，只写入分片有变化的executor的节点，在事务中提交。
+	 * <p>
+	 * sharding/contentV2节点的数据为版本头（格式版本号、有序的executor名称列表以及对应的子节点名称），每个executor的内容压缩后单独存储在子节点中。
+	 * 子节点写入后不再修改：变化的内容总是写到以本次版本命名的新节点，由版本头切换引用，所以读取者只要按版本头读取，就不会读到未提交的内容。
+	 * 版本头中同时记录sharding/content的cversion，读取时据此判断sharding/content是否被旧版本的leader重写过；兼容旧版本时，先以旧格式重写sharding/content。
+	 */
+	public synchronized void persistDirectly(List<Executor> executorList) throws Exception {
+		Stat stat = createIfNotExists(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH);
+		// sharding/contentV2被其他leader修改过（比如leader切换），则从zk重新加载已持久化的内容摘要
+		if (persistedStat == null || persistedStat.getVersion() != stat.getVersion()
+				|| persistedStat.getCversion() != stat.getCversion()) {
+			loadPersistedDigests();
 		}
-		// 删除sharding/content节点下的内容
-		List<String> shardingContent = curatorFramework.getChildren()
-				.forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
-		if (shardingContent != null && !shardingContent.isEmpty()) {
-			for (String shardingConentElement : shardingContent) {
-				curatorFramework.delete()
-						.forPath(SaturnExecutorsNode.getShardingContentElementNodePath(shardingConentElement));
+
+		// 新节点以提交后版本头的版本号命名，与已被引用的节点不会重名
+		String generation = String.valueOf(stat.getVersion() + 1);
+		List<String> executorNames = new ArrayList<>();
+		Map<String, HashCode> digests = new HashMap<>();
+		Map<String, String> executorNodes = new LinkedHashMap<>();
+		Map<String, byte[]> changedContent = new LinkedHashMap<>();
+		for (Executor executor : executorList) {
+			String executorName = executor.getExecutorName();
+			String content = gson.toJson(executor);
+			HashCode digest = digest(content);
+			executorNames.add(executorName);
+			digests.put(executorName, digest);
+			String node = persistedExecutorNodes.get(executorName);
+			if (node == null || !digest.equals(persistedDigests.get(executorName))) {
+				node = executorName + "@" + generation;
+				changedContent.put(node, compress(content));
 			}
+			executorNodes.put(executorName, node);
 		}
+		Set<String> referencedNodes = new HashSet<>(executorNodes.values());
+		List<String> deletedNodes = new ArrayList<>();
+		for (String node : persistedNodes) {
+			if (!referencedNodes.contains(node)) {
+				deletedNodes.add(node);
+			}
+		}
+		if (changedContent.isEmpty() && deletedNodes.isEmpty() && executorNames.equals(persistedExecutorNames)
+				&& isLegacySlicesInSync()) {
+			log.info("Sharding content is not changed, unnecessary to persist");
+			return;
+		}
+
+		log.info("Persist sharding content, written nodes are {}, deleted nodes are {}", changedContent.keySet(),
+				deletedNodes);
+		Integer legacyCversion;
+		try {
+			if (legacyCompatible) {
+				legacyCversion = persistLegacySlices(executorList);
+			} else {
+				legacyCversion = getLegacyCversion();
+			}
+			commitInTransaction(stat.getVersion(), toHeader(executorNames, executorNodes, legacyCversion),
+					changedContent, deletedNodes);
+		} catch (Exception e) {
+			persistedStat = null;
+			throw e;
+		}
+		persistedStat = curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH);
+		persistedExecutorNames = executorNames;
+		persistedDigests = digests;
+		persistedExecutorNodes = executorNodes;
+		persistedNodes = referencedNodes;
+		persistedLegacyCversion = legacyCversion;
+	}
 
-		// 持久化新的内容
-		String shardingContentStr = toShardingContent(executorList);
-		log.info("Persisit sharding content: {}", shardingContentStr);
-		// 如果内容过大，分开节点存储。不能使用事务提交，因为即使使用事务、写多个节点，但是提交事务时，仍然会报长度过长的错误。
-		byte[] shardingContentBytes = shardingContentStr.getBytes("UTF-8");
+	private Stat createIfNotExists(String path) throws Exception {
+		Stat stat = curatorFramework.checkExists().forPath(path);
+		if (stat == null) {
+			try {
+				curatorFramework.create().creatingParentsIfNeeded().forPath(path, new byte[0]);
+			} catch (KeeperException.NodeExistsException e) {// NOSONAR
+				log.debug("{} is created by others", path);
+			}
+			stat = curatorFramework.checkExists().forPath(path);
+		}
+		return stat;
+	}
+
+	/**
+	 * sharding/content的cversion与最后一次持久化时记录的一致才认为一致；兼容旧版本时，sharding/content不存在也需要重写
+	 */
+	private boolean isLegacySlicesInSync() throws Exception {
+		Integer legacyCversion = getLegacyCversion();
+		if (legacyCversion == null) {
+			return !legacyCompatible && persistedLegacyCversion == null;
+		}
+		return legacyCversion.equals(persistedLegacyCversion);
+	}
+
+	/**
+	 * @return sharding/content的cversion，不存在时为null
+	 */
+	private Integer getLegacyCversion() throws Exception {
+		Stat legacyStat = curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
+		return legacyStat == null ? null : legacyStat.getCversion();
+	}
+
+	/**
+	 * 以旧版本的格式重写sharding/content：删除所有子节点，再把所有executor的json内容按长度分片存储在序号节点中。
+	 * 内容过大时不能使用事务提交，因为提交事务时仍然会报长度过长的错误，与旧版本一致。
+	 *
+	 * @return 重写后sharding/content的cversion
+	 */
+	private int persistLegacySlices(List<Executor> executorList) throws Exception {
+		createIfNotExists(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
+		List<String> shardingContent = curatorFramework.getChildren()
+				.forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
+		for (String shardingContentElement : shardingContent) {
+			curatorFramework.delete()
+					.forPath(SaturnExecutorsNode.getShardingContentElementNodePath(shardingContentElement));
+		}
+		byte[] shardingContentBytes = toShardingContent(executorList).getBytes(StandardCharsets.UTF_8);
 		int length = shardingContentBytes.length;
 		int sliceCount = length / SHARDING_CONTENT_SLICE_LEN + 1;
 		for (int i = 0; i < sliceCount; i++) {
 			int start = SHARDING_CONTENT_SLICE_LEN * i;
-			int end = start + SHARDING_CONTENT_SLICE_LEN;
-			if (end > length) {
-				end = length;
-			}
-			byte[] subBytes = Arrays.copyOfRange(shardingContentBytes, start, end);
+			int end = Math.min(start + SHARDING_CONTENT_SLICE_LEN, length);
 			curatorFramework.create().forPath(SaturnExecutorsNode.getShardingContentElementNodePath(String.valueOf(i)),
-					subBytes);
+					Arrays.copyOfRange(shardingContentBytes, start, end));
+		}
+		return curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH).getCversion();
+	}
+
+	/**
+	 * 一般情况下在一个事务中提交。如果变化的内容超过了zk请求长度的限制，则分为多个事务提交：之前的事务只写入还没有被版本头引用的新节点，
+	 * 最后的事务删除不再引用的节点并更新版本头，所以读取者要么读到旧版本，要么读到新版本；每个事务都会检查版本，防止并发修改。
+	 * 提交失败时遗留的新节点没有被引用，下次持久化时覆盖或者删除。
+	 */
+	private void commitInTransaction(int version, byte[] header, Map<String, byte[]> changedContent,
+			List<String> deletedNodes) throws Exception {
+		CuratorTransactionFinal curatorTransactionFinal = newContentTransaction(version);
+		int length = 0;
+		for (Map.Entry<String, byte[]> entry : changedContent.entrySet()) {
+			byte[] data = entry.getValue();
+			if (length > 0 && length + data.length > SHARDING_CONTENT_SLICE_LEN) {
+				curatorTransactionFinal.commit();
+				curatorTransactionFinal = newContentTransaction(version);
+				length = 0;
+			}
+			String path = SaturnExecutorsNode.getShardingContentV2ElementNodePath(entry.getKey());
+			if (persistedNodes.contains(entry.getKey())) {
+				curatorTransactionFinal.setData().forPath(path, data).and();
+			} else {
+				curatorTransactionFinal.create().forPath(path, data).and();
+			}
+			length += data.length;
+		}
+		for (String node : deletedNodes) {
+			curatorTransactionFinal.delete().forPath(SaturnExecutorsNode.getShardingContentV2ElementNodePath(node))
+					.and();
+		}
+		curatorTransactionFinal.setData().withVersion(version)
+				.forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH, header).and();
+		curatorTransactionFinal.commit();
+	}
+
+	private CuratorTransactionFinal newContentTransaction(int version) throws Exception {
+		return curatorFramework.inTransaction().check().withVersion(version)
+				.forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH).and();
+	}
+
+	private void loadPersistedDigests() throws Exception {
+		persistedExecutorNames = new ArrayList<>();
+		persistedDigests = new HashMap<>();
+		persistedExecutorNodes = new HashMap<>();
+		persistedNodes = new HashSet<>();
+		persistedLegacyCversion = null;
+		Stat stat = new Stat();
+		byte[] headerData;
+		List<String> nodes;
+		try {
+			headerData = curatorFramework.getData().storingStatIn(stat)
+					.forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH);
+			nodes = curatorFramework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH);
+		} catch (KeeperException.NoNodeException e) {// NOSONAR
+			persistedStat = null;
+			return;
+		}
+		persistedNodes.addAll(nodes);
+		ShardingContentHeader header = parseHeader(headerData);
+		if (header != null) {
+			for (int i = 0; i < header.executors.size(); i++) {
+				String executorName = header.executors.get(i);
+				String node = header.getNode(i);
+				if (!persistedNodes.contains(node)) {
+					continue;
+				}
+				try {
+					byte[] data = curatorFramework.getData()
+							.forPath(SaturnExecutorsNode.getShardingContentV2ElementNodePath(node));
+					persistedDigests.put(executorName, digest(decompress(data)));
+					persistedExecutorNodes.put(executorName, node);
+				} catch (KeeperException.NoNodeException e) {// NOSONAR
+					persistedNodes.remove(node);
+				} catch (IOException e) {
+					log.warn("The sharding content of executor {} is broken, will rewrite it", executorName, e);
+				}
+			}
+			persistedExecutorNames = header.executors;
+			persistedLegacyCversion = header.legacyCversion;
 		}
+		persistedStat = stat;
 	}
 
 	public Map<String, List<Integer>> getShardingItems(List<Executor> executorList, String jobName) {
@@ -93,52 +379,245 @@ public class NamespaceShardingContentService {
 	}
 
 	/**
+	 * Index the sharding items of all jobs in one pass, the result of every job is the same as
+	 * {@link #getShardingItems(List, String)}.
+	 *
+	 * @return key is jobName, value is the map whose key is executorName and value is sharding items
+	 */
+	public Map<String, Map<String, List<Integer>>> getShardingItemsIndex(List<Executor> executorList) {
+		Map<String, Map<String, List<Integer>>> shardingItemsIndex = new HashMap<>();
+		if (executorList == null) {
+			return shardingItemsIndex;
+		}
+
+		for (Executor tmp : executorList) {
+			if (tmp.getJobNameList() == null) {
+				continue;
+			}
+			Map<String, List<Integer>> executorItems = new HashMap<>();
+			for (String jobName : tmp.getJobNameList()) {
+				Map<String, List<Integer>> shardingItems = shardingItemsIndex.get(jobName);
+				if (shardingItems == null) {
+					shardingItems = new HashMap<>();
+					shardingItemsIndex.put(jobName, shardingItems);
+				}
+				List<Integer> items = new ArrayList<>();
+				shardingItems.put(tmp.getExecutorName(), items);
+				executorItems.put(jobName, items);
+			}
+			if (tmp.getShardList() != null) {
+				for (Shard shard : tmp.getShardList()) {
+					List<Integer> items = executorItems.get(shard.getJobName());
+					if (items != null) {
+						items.add(shard.getItem());
+					}
+				}
+			}
+		}
+		return shardingItemsIndex;
+	}
+
+	/**
+	 * 开启缓存后优先从缓存的分片索引中获取，不再每次读取zk
+	 *
 	 * @param jobName 作业名
 	 * @return 返回Map数据，key值为executorName, value为分片项集合
 	 */
 	public Map<String, List<Integer>> getShardingItems(String jobName) throws Exception {
-		List<Executor> executorList = getExecutorList();
-		return getShardingItems(executorList, jobName);
+		if (!shardingItemsCacheEnabled) {
+			return getShardingItems(getExecutorList(), jobName);
+		}
+		Map<String, Map<String, List<Integer>>> shardingItemsIndex = shardingItemsCache;
+		if (shardingItemsIndex == null) {
+			long generation;
+			synchronized (shardingItemsCacheLock) {
+				generation = shardingItemsCacheGeneration;
+			}
+			shardingItemsIndex = getShardingItemsIndex(getExecutorList());
+			synchronized (shardingItemsCacheLock) {
+				if (generation == shardingItemsCacheGeneration) {
+					shardingItemsCache = shardingItemsIndex;
+				}
+			}
+		}
+		Map<String, List<Integer>> shardingItems = new HashMap<>();
+		Map<String, List<Integer>> cachedShardingItems = shardingItemsIndex.get(jobName);
+		if (cachedShardingItems != null) {
+			for (Map.Entry<String, List<Integer>> entry : cachedShardingItems.entrySet()) {
+				shardingItems.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+			}
+		}
+		return shardingItems;
 	}
 
 	/**
-	 * 从sharding/content获取数据
+	 * 开启分片索引的缓存。同一个域的所有作业应共享同一个实例，由调用方监听$SaturnExecutors/sharding/count（每次分片后leader都会更新该节点），
+	 * 在其变化时调用{@link #invalidateShardingItemsCache()}
+	 */
+	public void enableShardingItemsCache() {
+		shardingItemsCacheEnabled = true;
+	}
+
+	/**
+	 * 使缓存的分片索引失效，下一次获取时重新读取
+	 */
+	public void invalidateShardingItemsCache() {
+		synchronized (shardingItemsCacheLock) {
+			shardingItemsCacheGeneration++;
+			shardingItemsCache = null;
+		}
+	}
+
+	/**
+	 * 优先从sharding/contentV2获取数据；没有新格式的内容，或者sharding/content在新格式写入后被旧版本的leader重写过，则从sharding/content获取
 	 */
 	public List<Executor> getExecutorList() throws Exception {
-		List<Executor> executorList = new ArrayList<>();
-		// Sharding/content 内容多的时候，分多个节点存数据
-		if (curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH) != null) {
-			List<String> elementNodes = curatorFramework.getChildren()
-					.forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
-			Collections.sort(elementNodes, new Comparator<String>() {
-				@Override
-				public int compare(String arg0, String arg1) {
-					Integer a = Integer.valueOf(arg0);
-					Integer b = Integer.valueOf(arg1);
-					return a.compareTo(b);
-				}
-			});
-			List<Byte> dataByteList = new ArrayList<>();
-			for (String elementNode : elementNodes) {
-				byte[] elementData = curatorFramework.getData()
-						.forPath(SaturnExecutorsNode.getShardingContentElementNodePath(elementNode));
-				for (int i = 0; i < elementData.length; i++) {
-					dataByteList.add(elementData[i]);
-				}
+		for (int i = 0; i < READ_RETRY_TIMES; i++) {
+			Stat stat = new Stat();
+			byte[] headerData;
+			try {
+				headerData = curatorFramework.getData().storingStatIn(stat)
+						.forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH);
+			} catch (KeeperException.NoNodeException e) {// NOSONAR
+				return getExecutorListFromSlices();
+			}
+			ShardingContentHeader header = parseHeader(headerData);
+			if (header == null || isLegacySlicesRewritten(header)) {
+				return getExecutorListFromSlices();
+			}
+			List<Executor> executorList = getExecutorList(header);
+			// 被引用的节点不会被修改，只会在版本头更新时被删除，所以版本头没有变化就说明读到的是同一个版本的内容，否则重读
+			Stat current = curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH);
+			if (executorList != null && current != null && current.getVersion() == stat.getVersion()) {
+				return executorList;
+			}
+		}
+		log.warn("Cannot read the consistent sharding content of version {}, try to read it as slices",
+				SHARDING_CONTENT_VERSION);
+		return getExecutorListFromSlices();
+	}
+
+	/**
+	 * 版本头记录了写入新格式时sharding/content的cversion，不一致说明之后旧版本的leader重写了sharding/content，新格式的内容已过时
+	 */
+	private boolean isLegacySlicesRewritten(ShardingContentHeader header) throws Exception {
+		if (header.legacyCversion == null) {
+			return false;
+		}
+		Stat legacyStat = curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
+		return legacyStat != null && legacyStat.getCversion() != header.legacyCversion;
+	}
+
+	/**
+	 * @return null if the content of some executor is deleted
+	 */
+	private List<Executor> getExecutorList(ShardingContentHeader header) throws Exception {
+		List<Executor> executorList = new ArrayList<>(header.executors.size());
+		for (int i = 0; i < header.executors.size(); i++) {
+			byte[] data;
+			try {
+				data = curatorFramework.getData()
+						.forPath(SaturnExecutorsNode.getShardingContentV2ElementNodePath(header.getNode(i)));
+			} catch (KeeperException.NoNodeException e) {// NOSONAR
+				return null;
+			}
+			try (Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(data)),
+					StandardCharsets.UTF_8)) {
+				executorList.add(gson.fromJson(reader, Executor.class));
 			}
-			byte[] dataArray = new byte[dataByteList.size()];
-			for (int i = 0; i < dataByteList.size(); i++) {
-				dataArray[i] = dataByteList.get(i);
+		}
+		return executorList;
+	}
+
+	/**
+	 * 旧版本的格式：所有executor的json内容，按长度分片存储在序号节点中
+	 */
+	private List<Executor> getExecutorListFromSlices() throws Exception {
+		List<Executor> executorList = new ArrayList<>();
+		List<String> elementNodes = new ArrayList<>();
+		List<String> children;
+		try {
+			children = curatorFramework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
+		} catch (KeeperException.NoNodeException e) {// NOSONAR
+			return executorList;
+		}
+		for (String elementNode : children) {
+			if (StringUtils.isNumeric(elementNode)) {
+				elementNodes.add(elementNode);
 			}
-			List<Executor> tmp = gson.fromJson(new String(dataArray, "UTF-8"), new TypeToken<List<Executor>>() {
-			}.getType());
-			if (tmp != null) {
-				executorList.addAll(tmp);
+		}
+		Collections.sort(elementNodes, new Comparator<String>() {
+			@Override
+			public int compare(String arg0, String arg1) {
+				Integer a = Integer.valueOf(arg0);
+				Integer b = Integer.valueOf(arg1);
+				return a.compareTo(b);
 			}
+		});
+		ByteArrayOutputStream dataBuffer = new ByteArrayOutputStream();
+		for (String elementNode : elementNodes) {
+			byte[] elementData = curatorFramework.getData()
+					.forPath(SaturnExecutorsNode.getShardingContentElementNodePath(elementNode));
+			dataBuffer.write(elementData);
+		}
+		List<Executor> tmp = gson.fromJson(new String(dataBuffer.toByteArray(), StandardCharsets.UTF_8),
+				new TypeToken<List<Executor>>() {
+				}.getType());
+		if (tmp != null) {
+			executorList.addAll(tmp);
 		}
 		return executorList;
 	}
 
+	private byte[] toHeader(List<String> executorNames, Map<String, String> executorNodes, Integer legacyCversion) {
+		ShardingContentHeader header = new ShardingContentHeader();
+		header.version = SHARDING_CONTENT_VERSION;
+		header.executors = executorNames;
+		header.nodes = new ArrayList<>(executorNodes.values());
+		header.legacyCversion = legacyCversion;
+		return gson.toJson(header).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return null if the data is not the header of the supported version
+	 */
+	private ShardingContentHeader parseHeader(byte[] data) {
+		if (data == null || data.length == 0 || data[0] != '{') {
+			return null;
+		}
+		try {
+			ShardingContentHeader header = gson.fromJson(new String(data, StandardCharsets.UTF_8),
+					ShardingContentHeader.class);
+			if (header == null || header.version != SHARDING_CONTENT_VERSION || header.executors == null
+					|| header.nodes != null && header.nodes.size() != header.executors.size()) {
+				return null;
+			}
+			return header;
+		} catch (JsonParseException e) {// NOSONAR
+			return null;
+		}
+	}
+
+	private static HashCode digest(String content) {
+		return Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8);
+	}
+
+	private static byte[] compress(String content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		return out.toByteArray();
+	}
+
+	private static String decompress(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+			ByteStreams.copy(gzip, out);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
 	public String toShardingContent(List<Executor> executorList) {
 		return gson.toJson(executorList);
 	}
@@ -148,32 +627,79 @@ public class NamespaceShardingContentService {
 			throws Exception {
 		if (!jobShardContent.isEmpty()) {
 			log.info("Notify jobs sharding necessary, jobs is {}", jobShardContent.keySet());
-			CuratorTransactionFinal curatorTransactionFinal = curatorFramework.inTransaction().check().forPath("/")
-					.and();
+			// 按字节数和操作数分批，每批一个事务，避免超过jute.maxbuffer
+			Map<String, byte[]> batch = new LinkedHashMap<>();
+			int batchBytes = 0;
 			Iterator<Map.Entry<String, Map<String, List<Integer>>>> iterator = jobShardContent.entrySet().iterator();
 			while (iterator.hasNext()) {
 				Map.Entry<String, Map<String, List<Integer>>> next = iterator.next();
 				String jobName = next.getKey();
-				Map<String, List<Integer>> shardContent = next.getValue();
-				String shardContentJson = gson.toJson(shardContent);
+				String shardContentJson = gson.toJson(next.getValue());
 				byte[] necessaryContent = shardContentJson.getBytes("UTF-8");
-				// 更新$Jobs/xx/leader/sharding/neccessary 节点的内容为新分配的sharding 内容
-				String jobLeaderShardingNodePath = SaturnExecutorsNode.getJobLeaderShardingNodePath(jobName);
 				String jobLeaderShardingNecessaryNodePath = SaturnExecutorsNode
 						.getJobLeaderShardingNecessaryNodePath(jobName);
+				int opBytes = necessaryContent.length + jobLeaderShardingNecessaryNodePath.length()
+						+ TRANSACTION_OP_OVERHEAD_BYTES;
+				if (!batch.isEmpty() && (batchBytes + opBytes > NECESSARY_TRANSACTION_BYTES_LIMIT
+						|| batch.size() >= NECESSARY_TRANSACTION_OPS_LIMIT)) {
+					commitJobsNecessary(batch, batchBytes);
+					batch = new LinkedHashMap<>();
+					batchBytes = 0;
+				}
+				batch.put(jobName, necessaryContent);
+				batchBytes += opBytes;
+			}
+			commitJobsNecessary(batch, batchBytes);
+		}
+	}
+
+	/**
+	 * 更新$Jobs/xx/leader/sharding/necessary节点的内容为新分配的分片。先假设节点都已存在，直接setData；如果有节点不存在，事务失败，再批量检查是否存在，创建或更新。
+	 */
+	private void commitJobsNecessary(Map<String, byte[]> batch, int batchBytes) throws Exception {
+		long start = System.currentTimeMillis();
+		try {
+			CuratorTransactionFinal curatorTransactionFinal = curatorFramework.inTransaction().check().forPath("/")
+					.and();
+			for (Map.Entry<String, byte[]> entry : batch.entrySet()) {
+				curatorTransactionFinal.setData()
+						.forPath(SaturnExecutorsNode.getJobLeaderShardingNecessaryNodePath(entry.getKey()),
+								entry.getValue()).and();
+			}
+			curatorTransactionFinal.commit();
+		} catch (KeeperException.NoNodeException e) {// NOSONAR
+			log.debug("some necessary nodes are not existing, will create them");
+			commitJobsNecessaryWithCreating(batch);
+		}
+		log.info("Notify {} jobs sharding necessary in a transaction of about {} bytes, cost {}ms", batch.size(),
+				batchBytes, System.currentTimeMillis() - start);
+	}
+
+	private void commitJobsNecessaryWithCreating(Map<String, byte[]> batch) throws Exception {
+		List<String> necessaryPaths = new ArrayList<>();
+		for (String jobName : batch.keySet()) {
+			necessaryPaths.add(SaturnExecutorsNode.getJobLeaderShardingNecessaryNodePath(jobName));
+		}
+		Map<String, Boolean> existsMap = CuratorUtils.checkExistsInBatch(curatorFramework, necessaryPaths);
+		CuratorTransactionFinal curatorTransactionFinal = curatorFramework.inTransaction().check().forPath("/")
+				.and();
+		for (Map.Entry<String, byte[]> entry : batch.entrySet()) {
+			String jobName = entry.getKey();
+			String jobLeaderShardingNecessaryNodePath = SaturnExecutorsNode
+					.getJobLeaderShardingNecessaryNodePath(jobName);
+			if (Boolean.TRUE.equals(existsMap.get(jobLeaderShardingNecessaryNodePath))) {
+				curatorTransactionFinal.setData().forPath(jobLeaderShardingNecessaryNodePath, entry.getValue())
+						.and();
+			} else {
+				String jobLeaderShardingNodePath = SaturnExecutorsNode.getJobLeaderShardingNodePath(jobName);
 				if (curatorFramework.checkExists().forPath(jobLeaderShardingNodePath) == null) {
 					curatorFramework.create().creatingParentsIfNeeded().forPath(jobLeaderShardingNodePath);
 				}
-				if (curatorFramework.checkExists().forPath(jobLeaderShardingNecessaryNodePath) == null) {
-					curatorTransactionFinal.create().forPath(jobLeaderShardingNecessaryNodePath, necessaryContent)
-							.and();
-				} else {
-					curatorTransactionFinal.setData().forPath(jobLeaderShardingNecessaryNodePath, necessaryContent)
-							.and();
-				}
+				curatorTransactionFinal.create().forPath(jobLeaderShardingNecessaryNodePath, entry.getValue())
+						.and();
 			}
-			curatorTransactionFinal.commit();
 		}
+		curatorTransactionFinal.commit();
 	}
 
 	public Map<String, List<Integer>> getShardContent(String jobName, String jobNecessaryContent) throws Exception {
@@ -192,4 +718,22 @@ public class NamespaceShardingContentService {
 		return shardContent;
 	}
 
+	private static class ShardingContentHeader {
+
+		private int version;
+
+		private List<String> executors;
+
+		/**
+		 * 与executors一一对应的子节点名称，没有时子节点以executor命名
+		 */
+		private List<String> nodes;
+
+		private Integer legacyCversion;
+
+		private String getNode(int index) {
+			return nodes == null ? executors.get(index) : nodes.get(index);
+		}
+	}
+
 }
@@ -5,7 +5,9 @@ import com.vip.saturn.job.integrate.service.ReportAlarmService;
 import com.vip.saturn.job.sharding.entity.Executor;
 import com.vip.saturn.job.sharding.entity.Shard;
 import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
+import com.vip.saturn.job.sharding.task.AbstractAsyncShardingTask;
 import com.vip.saturn.job.sharding.task.ExecuteAllShardingTask;
+import com.vip.saturn.job.sharding.task.ExecuteCoalescedShardingTask;
 import com.vip.saturn.job.sharding.task.ExecuteExtractTrafficShardingTask;
 import com.vip.saturn.job.sharding.task.ExecuteJobDisableShardingTask;
 import com.vip.saturn.job.sharding.task.ExecuteJobEnableShardingTask;
@@ -15,14 +17,17 @@ import com.vip.saturn.job.sharding.task.ExecuteJobServerOnlineShardingTask;
 import com.vip.saturn.job.sharding.task.ExecuteOfflineShardingTask;
 import com.vip.saturn.job.sharding.task.ExecuteOnlineShardingTask;
 import com.vip.saturn.job.sharding.task.ExecuteRecoverTrafficShardingTask;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.curator.framework.CuratorFramework;
@@ -40,8 +45,21 @@ public class NamespaceShardingService {
 
 	private static final Logger log = LoggerFactory.getLogger(NamespaceShardingService.class);
 
+	/**
+	 * 分片事件的合并窗口（毫秒），第一个事件到达后，等待该时间再分片，窗口内的事件合并为一次分片。默认为0，只合并等待执行的事件；
+	 * 批量操作可以通过{@link SaturnExecutorsNode#SHARDING_COALESCING_WINDOW_NODE_PATH}临时请求更长的窗口
+	 */
+	public static final long SHARDING_COALESCING_WINDOW_MS;
+
 	private static final String NAME_IS_CONTAINER_ALIGN_WITH_PHYSICAL = "VIP_SATURN_CONTAINER_ALIGN_WITH_PHYSICAL";
 
+	private static final String NAME_SHARDING_COALESCING_WINDOW_MS = "VIP_SATURN_SHARDING_COALESCING_WINDOW_MS";
+
+	/**
+	 * 批量操作请求的合并窗口的上限，避免错误的值长时间推迟分片
+	 */
+	private static final long MAX_REQUESTED_COALESCING_WINDOW_MS = 10 * 1000L;
+
 	private String namespace;
 
 	private String hostValue;
@@ -52,12 +70,40 @@ public class NamespaceShardingService {
 
 	private AtomicBoolean needAllSharding;
 
-	private ExecutorService executorService;
+	private ScheduledExecutorService executorService;
+
+	/**
+	 * 等待合并执行的分片事件的任务
+	 */
+	private final List<AbstractAsyncShardingTask> pendingShardingTasks = new ArrayList<>();
+
+	private boolean coalescingScheduled;
+
+	/**
+	 * 批量操作请求的合并截止时间，之前到达的分片事件都等到该时间再合并执行
+	 */
+	private long coalescingDeadline;
+
+	private long shardingCoalescingWindowMs = SHARDING_COALESCING_WINDOW_MS;
+
+	private final AtomicLong shardingPassCount = new AtomicLong(0);
+
+	private final AtomicLong shardingEventCount = new AtomicLong(0);
+
+	private volatile int lastShardingPassEventCount;
 
 	private NamespaceShardingContentService namespaceShardingContentService;
 
 	private ReportAlarmService reportAlarmService;
 
+	private ShardingTreeCacheService shardingTreeCacheService;
+
+	/**
+	 * The sharding content persisted by the last sharding task, it's the authoritative in-memory model while being
+	 * leader. It's null, if not leader or the model should be rebuilt from sharding/content.
+	 */
+	private volatile List<Executor> shardingContentModel;
+
 	private ReentrantLock lock;
 
 	static {
@@ -66,13 +112,26 @@ public class NamespaceShardingService {
 
 		CONTAINER_ALIGN_WITH_PHYSICAL = StringUtils.isBlank(isContainerAlignWithPhysicalStr)
 				|| Boolean.parseBoolean(isContainerAlignWithPhysicalStr);
+
+		long shardingCoalescingWindowMs = 0L;
+		String shardingCoalescingWindowMsStr = System.getProperty(NAME_SHARDING_COALESCING_WINDOW_MS,
+				System.getenv(NAME_SHARDING_COALESCING_WINDOW_MS));
+		if (StringUtils.isNotBlank(shardingCoalescingWindowMsStr)) {
+			try {
+				shardingCoalescingWindowMs = Long.parseLong(shardingCoalescingWindowMsStr.trim());
+			} catch (NumberFormatException e) {
+				log.error("parse " + NAME_SHARDING_COALESCING_WINDOW_MS + " error", e);
+			}
+		}
+		SHARDING_COALESCING_WINDOW_MS = shardingCoalescingWindowMs;
 	}
 
 	public NamespaceShardingService(CuratorFramework curatorFramework, String hostValue,
-			ReportAlarmService reportAlarmService) {
+			ReportAlarmService reportAlarmService, ShardingTreeCacheService shardingTreeCacheService) {
 		this.curatorFramework = curatorFramework;
 		this.hostValue = hostValue;
 		this.reportAlarmService = reportAlarmService;
+		this.shardingTreeCacheService = shardingTreeCacheService;
 		this.shardingCount = new AtomicInteger(0);
 		this.needAllSharding = new AtomicBoolean(false);
 		this.executorService = newSingleThreadExecutor();
@@ -81,8 +140,8 @@ public class NamespaceShardingService {
 		this.lock = new ReentrantLock();
 	}
 
-	private ExecutorService newSingleThreadExecutor() {
-		return Executors.newSingleThreadExecutor(new ThreadFactory() {
+	private ScheduledExecutorService newSingleThreadExecutor() {
+		return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
 			@Override
 			public Thread newThread(Runnable r) {
 				return new Thread(r, namespace + "-" + r.getClass().getSimpleName());
@@ -129,8 +188,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenExecutorOnline(String executorName, String ip) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteOnlineShardingTask(this, executorName, ip));
+			submitShardingTask(new ExecuteOnlineShardingTask(this, executorName, ip));
 		}
 	}
 
@@ -139,8 +197,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenExecutorOffline(String executorName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteOfflineShardingTask(this, executorName));
+			submitShardingTask(new ExecuteOfflineShardingTask(this, executorName));
 		}
 	}
 
@@ -149,8 +206,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenExtractExecutorTraffic(String executorName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteExtractTrafficShardingTask(this, executorName));
+			submitShardingTask(new ExecuteExtractTrafficShardingTask(this, executorName));
 		}
 	}
 
@@ -159,8 +215,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenRecoverExecutorTraffic(String executorName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteRecoverTrafficShardingTask(this, executorName));
+			submitShardingTask(new ExecuteRecoverTrafficShardingTask(this, executorName));
 		}
 	}
 
@@ -169,8 +224,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobEnable(String jobName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobEnableShardingTask(this, jobName));
+			submitShardingTask(new ExecuteJobEnableShardingTask(this, jobName));
 		}
 	}
 
@@ -179,8 +233,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobDisable(String jobName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobDisableShardingTask(this, jobName));
+			submitShardingTask(new ExecuteJobDisableShardingTask(this, jobName));
 		}
 	}
 
@@ -189,8 +242,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobForceShard(String jobName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobForceShardShardingTask(this, jobName));
+			submitShardingTask(new ExecuteJobForceShardShardingTask(this, jobName));
 		}
 	}
 
@@ -199,8 +251,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobServerOnline(String jobName, String executorName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobServerOnlineShardingTask(this, jobName, executorName));
+			submitShardingTask(new ExecuteJobServerOnlineShardingTask(this, jobName, executorName));
 		}
 	}
 
@@ -209,8 +260,88 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobServerOffline(String jobName, String executorName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobServerOfflineShardingTask(this, jobName, executorName));
+			submitShardingTask(new ExecuteJobServerOfflineShardingTask(this, jobName, executorName));
+		}
+	}
+
+	/**
+	 * 提交分片事件的任务。在合并窗口内的事件，以及等待执行的事件，会合并为一次分片
+	 */
+	private void submitShardingTask(AbstractAsyncShardingTask task) {
+		shardingCount.incrementAndGet();
+		long delay;
+		synchronized (pendingShardingTasks) {
+			pendingShardingTasks.add(task);
+			if (coalescingScheduled) {
+				return;
+			}
+			coalescingScheduled = true;
+			delay = Math.max(shardingCoalescingWindowMs, coalescingDeadline - System.currentTimeMillis());
+		}
+		schedulePendingShardingTasks(delay);
+	}
+
+	private void schedulePendingShardingTasks(long delay) {
+		executorService.schedule(new Runnable() {
+			@Override
+			public void run() {
+				executePendingShardingTasks();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 批量操作（比如批量启用作业）开始前请求合并窗口：从现在起windowMs内到达的分片事件合并为一次分片。
+	 * 批量操作每一批都会重新请求，截止时间随之延后
+	 */
+	public void coalesceShardingEvents(long windowMs) {
+		long window = Math.min(windowMs, MAX_REQUESTED_COALESCING_WINDOW_MS);
+		synchronized (pendingShardingTasks) {
+			coalescingDeadline = Math.max(coalescingDeadline, System.currentTimeMillis() + window);
+		}
+		log.info("{}-{} coalesce sharding events in the next {}ms", namespace, hostValue, window);
+	}
+
+	private void executePendingShardingTasks() {
+		List<AbstractAsyncShardingTask> tasks;
+		synchronized (pendingShardingTasks) {
+			// 合并截止时间被延后了，继续等待
+			long remaining = coalescingDeadline - System.currentTimeMillis();
+			if (remaining > 0 && !pendingShardingTasks.isEmpty()) {
+				schedulePendingShardingTasks(remaining);
+				return;
+			}
+			tasks = new ArrayList<>(pendingShardingTasks);
+			pendingShardingTasks.clear();
+			coalescingScheduled = false;
+		}
+		if (tasks.isEmpty()) {
+			return;
+		}
+		long passCount = shardingPassCount.incrementAndGet();
+		long eventCount = shardingEventCount.addAndGet(tasks.size());
+		lastShardingPassEventCount = tasks.size();
+		long start = System.currentTimeMillis();
+		if (tasks.size() == 1) {
+			tasks.get(0).run();
+		} else {
+			new ExecuteCoalescedShardingTask(this, tasks).run();
+		}
+		log.info("{}-{} sharding pass finished, {} events in this pass, cost {}ms, totally {} events in {} passes",
+				namespace, hostValue, tasks.size(), System.currentTimeMillis() - start, eventCount, passCount);
+	}
+
+	/**
+	 * 丢弃等待执行的事件，每个事件提交时都增加了分片计数，需要一并减少
+	 */
+	private void clearPendingShardingTasks() {
+		synchronized (pendingShardingTasks) {
+			for (int i = 0; i < pendingShardingTasks.size(); i++) {
+				shardingCount.decrementAndGet();
+			}
+			pendingShardingTasks.clear();
+			coalescingScheduled = false;
+			coalescingDeadline = 0;
 		}
 	}
 
@@ -257,7 +388,9 @@ public class NamespaceShardingService {
 			executorService.shutdownNow();
 		}
 		needAllSharding.set(false);
+		clearPendingShardingTasks();
 		shardingCount.set(0);
+		shardingContentModel = null;
 		executorService = newSingleThreadExecutor();
 
 		// 持久化$Jobs节点
@@ -318,6 +451,8 @@ public class NamespaceShardingService {
 					executorService.shutdown();
 				}
 			}
+			shardingContentModel = null;
+			clearPendingShardingTasks();
 			try {
 				if (curatorFramework.getZookeeperClient().isConnected()) {
 					releaseMyLeadership();
@@ -378,7 +513,48 @@ public class NamespaceShardingService {
 		return executorService;
 	}
 
+	public long getShardingCoalescingWindowMs() {
+		return shardingCoalescingWindowMs;
+	}
+
+	public void setShardingCoalescingWindowMs(long shardingCoalescingWindowMs) {
+		this.shardingCoalescingWindowMs = shardingCoalescingWindowMs;
+	}
+
+	/**
+	 * @return 执行的分片次数（合并后），不包括全量分片
+	 */
+	public long getShardingPassCount() {
+		return shardingPassCount.get();
+	}
+
+	/**
+	 * @return 分片事件的总数，不包括全量分片
+	 */
+	public long getShardingEventCount() {
+		return shardingEventCount.get();
+	}
+
+	/**
+	 * @return 最后一次分片合并的事件数
+	 */
+	public int getLastShardingPassEventCount() {
+		return lastShardingPassEventCount;
+	}
+
 	public ReportAlarmService getReportAlarmService() {
 		return reportAlarmService;
 	}
+
+	public ShardingTreeCacheService getShardingTreeCacheService() {
+		return shardingTreeCacheService;
+	}
+
+	public List<Executor> getShardingContentModel() {
+		return shardingContentModel;
+	}
+
+	public void setShardingContentModel(List<Executor> shardingContentModel) {
+		this.shardingContentModel = shardingContentModel;
+	}
 }
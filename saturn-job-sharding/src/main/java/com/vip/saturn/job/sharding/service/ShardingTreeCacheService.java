@@ -5,10 +5,14 @@ import com.google.common.collect.Sets;
 import com.vip.saturn.job.sharding.TreeCacheThreadFactory;
 import com.vip.saturn.job.sharding.entity.ShardingTreeCache;
 import com.vip.saturn.job.sharding.exception.ShardingException;
+import com.vip.saturn.job.sharding.utils.CuratorUtils;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
 import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
 import org.apache.curator.framework.recipes.cache.TreeCacheListener;
 import org.apache.curator.utils.CloseableExecutorService;
 import org.slf4j.Logger;
@@ -48,18 +52,19 @@ public class ShardingTreeCacheService {
 				TreeCache treeCache = TreeCache.newBuilder(curatorFramework, path)
 						.setExecutor(new CloseableExecutorService(executorService, false)).setMaxDepth(depth)
 						.build();
+				treeCache.getListenable().addListener(new InitializedListener(treeCache));
+				// register before starting, otherwise the INITIALIZED event may arrive before registering and be dropped
+				TreeCache treeCacheOld = shardingTreeCache.putTreeCacheIfAbsent(path, depth, treeCache);
+				if (treeCacheOld != null) {
+					return;
+				}
 				try {
 					treeCache.start();
 				} catch (Exception e) {
-					treeCache.close();
+					shardingTreeCache.removeTreeCache(path, depth);
 					throw e;
 				}
-				TreeCache treeCacheOld = shardingTreeCache.putTreeCacheIfAbsent(path, depth, treeCache);
-				if (treeCacheOld != null) {
-					treeCache.close();
-				} else {
-					LOGGER.info("create TreeCache, full path is {}, depth is {}", fullPath, depth);
-				}
+				LOGGER.info("create TreeCache, full path is {}, depth is {}", fullPath, depth);
 			}
 		}
 	}
@@ -106,6 +111,54 @@ public class ShardingTreeCacheService {
 	}
 
 
+	/**
+	 * Whether the TreeCache has received the INITIALIZED event, that means the reads covered by it are served from it
+	 */
+	public boolean isTreeCacheInitialized(String path, int depth) {
+		return shardingTreeCache.isTreeCacheInitialized(path, depth);
+	}
+
+	/**
+	 * Get the data of the node from the initialized TreeCache covering it, or from zk if no TreeCache covers it.
+	 *
+	 * @return null if the node is not existing
+	 */
+	public byte[] getData(String path) throws Exception {
+		TreeCache treeCache = shardingTreeCache.getInitializedTreeCacheCovering(path);
+		if (treeCache != null) {
+			ChildData childData = treeCache.getCurrentData(path);
+			return childData == null ? null : childData.getData();
+		}
+		return CuratorUtils.getDataIfExists(curatorFramework, path);
+	}
+
+	/**
+	 * Check the node exists or not from the initialized TreeCache covering it, or from zk if no TreeCache covers it.
+	 */
+	public boolean checkExists(String path) throws Exception {
+		TreeCache treeCache = shardingTreeCache.getInitializedTreeCacheCovering(path);
+		if (treeCache != null) {
+			return treeCache.getCurrentData(path) != null;
+		}
+		return curatorFramework.checkExists().forPath(path) != null;
+	}
+
+	/**
+	 * Get the children of the node from the initialized TreeCache covering them, or from zk if no TreeCache covers
+	 * them.
+	 *
+	 * @return null if the node is not existing
+	 */
+	public List<String> getChildren(String path) throws Exception {
+		// the TreeCache should cover the children of the node, not only the node itself
+		TreeCache treeCache = shardingTreeCache.getInitializedTreeCacheCovering(path + "/");
+		if (treeCache != null) {
+			Map<String, ChildData> children = treeCache.getCurrentChildren(path);
+			return children == null ? null : Lists.newArrayList(children.keySet());
+		}
+		return CuratorUtils.getChildrenIfExists(curatorFramework, path);
+	}
+
 	public void start() {
 		synchronized (isShutdownFlag) {
 			if (isShutdownFlag.compareAndSet(true, false)) {
@@ -125,6 +178,25 @@ public class ShardingTreeCacheService {
 		}
 	}
 
+	/**
+	 * Mark the TreeCache as initialized when receiving the INITIALIZED event
+	 */
+	private class InitializedListener implements TreeCacheListener {
+
+		private TreeCache treeCache;
+
+		InitializedListener(TreeCache treeCache) {
+			this.treeCache = treeCache;
+		}
+
+		@Override
+		public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+			if (event.getType() == TreeCacheEvent.Type.INITIALIZED) {
+				shardingTreeCache.markTreeCacheInitialized(treeCache);
+			}
+		}
+	}
+
 	public void shutdown() {
 		synchronized (isShutdownFlag) {
 			if (isShutdownFlag.compareAndSet(false, true)) {
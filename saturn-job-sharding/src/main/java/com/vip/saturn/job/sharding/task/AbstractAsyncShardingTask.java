@@ -6,15 +6,20 @@ import com.vip.saturn.job.sharding.entity.Shard;
 import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
 import com.vip.saturn.job.sharding.service.NamespaceShardingContentService;
 import com.vip.saturn.job.sharding.service.NamespaceShardingService;
+import com.vip.saturn.job.sharding.service.ShardingTreeCacheService;
+import com.vip.saturn.job.sharding.utils.CuratorUtils;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import org.apache.curator.framework.CuratorFramework;
 import org.slf4j.Logger;
@@ -36,16 +41,41 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 
 	protected ReportAlarmService reportAlarmService;
 
+	protected ShardingTreeCacheService shardingTreeCacheService;
+
+	/**
+	 * The all sharding task rebuilds the whole model, so it reads data from zk directly, but not from the TreeCache or
+	 * the in-memory model.
+	 */
+	protected final boolean isAllShardingTask = this instanceof ExecuteAllShardingTask;
+
+	/**
+	 * The data read from zk in batch by this task, the value is null if the node is not existing
+	 */
+	private final Map<String, byte[]> prefetchedData = new HashMap<>();
+
+	/**
+	 * The existence of the nodes read from zk in batch by this task
+	 */
+	private final Map<String, Boolean> prefetchedExists = new HashMap<>();
+
 	public AbstractAsyncShardingTask(NamespaceShardingService namespaceShardingService) {
 		this.namespaceShardingService = namespaceShardingService;
 		this.curatorFramework = namespaceShardingService.getCuratorFramework();
 		this.namespaceShardingContentService = namespaceShardingService.getNamespaceShardingContentService();
 		this.executorService = namespaceShardingService.getExecutorService();
 		this.reportAlarmService = namespaceShardingService.getReportAlarmService();
+		this.shardingTreeCacheService = namespaceShardingService.getShardingTreeCacheService();
 	}
 
 	protected abstract void logStartInfo();
 
+	/**
+	 * 分片结束后（无论成功与否）的清理，默认不需要清理。合并分片时，被合并的任务的清理由{@link ExecuteCoalescedShardingTask}完成
+	 */
+	protected void cleanup() {
+	}
+
 	/**
 	 * Special enable jobs that need to be notified prior, not consider whether whose shards are changed.
 	 * By default, notify enable jobs whose shards are changed.
@@ -57,7 +87,6 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 	@Override
 	public void run() {
 		logStartInfo();
-		boolean isAllShardingTask = this instanceof ExecuteAllShardingTask;
 		try {
 			// 如果当前变为非leader，则直接返回
 			if (!namespaceShardingService.isLeadershipOnly()) {
@@ -72,25 +101,23 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 			}
 
 			List<String> allJobs = getAllJobs();
+			prefetchJobConfig(allJobs);
 			List<String> allEnableJobs = getAllEnableJobs(allJobs);
 			List<Executor> oldOnlineExecutorList = getLastOnlineExecutorList();
 			List<Executor> customLastOnlineExecutorList = customLastOnlineExecutorList();
 			List<Executor> lastOnlineExecutorList = customLastOnlineExecutorList == null
 					? copyOnlineExecutorList(oldOnlineExecutorList) : customLastOnlineExecutorList;
 			List<Executor> lastOnlineTrafficExecutorList = getTrafficExecutorList(lastOnlineExecutorList);
-			List<Shard> shardList = new ArrayList<>();
-			// 摘取
-			if (pick(allJobs, allEnableJobs, shardList, lastOnlineExecutorList, lastOnlineTrafficExecutorList)) {
-				// 放回
-				putBackBalancing(allEnableJobs, shardList, lastOnlineExecutorList, lastOnlineTrafficExecutorList);
+			// 摘取、放回
+			if (pickAndPutBack(allJobs, allEnableJobs, lastOnlineExecutorList, lastOnlineTrafficExecutorList)) {
 				// 如果当前变为非leader，则返回
 				if (!namespaceShardingService.isLeadershipOnly()) {
 					return;
 				}
-				// 持久化分片结果
-				if (shardingContentIsChanged(oldOnlineExecutorList, lastOnlineExecutorList)) {
-					namespaceShardingContentService.persistDirectly(lastOnlineExecutorList);
-				}
+				// 持久化分片结果，只会重写分片有变化的executor
+				namespaceShardingContentService.persistDirectly(lastOnlineExecutorList);
+				// the persisted content is the base of the next sharding task
+				namespaceShardingService.setShardingContentModel(lastOnlineExecutorList);
 				// notify the shards-changed jobs of all enable jobs.
 				Map<String, Map<String, List<Integer>>> enabledAndShardsChangedJobShardContent = getEnabledAndShardsChangedJobShardContent(
 						isAllShardingTask, allEnableJobs, oldOnlineExecutorList, lastOnlineExecutorList);
@@ -105,6 +132,8 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 			Thread.currentThread().interrupt();
 		} catch (Throwable t) {
 			log.error(t.getMessage(), t);
+			// the in-memory model maybe inconsistent with sharding/content, rebuild it from sharding/content
+			namespaceShardingService.setShardingContentModel(null);
 			if (!isAllShardingTask) { // 如果当前不是全量分片，则需要全量分片来拯救异常
 				namespaceShardingService.setNeedAllSharding(true);
 				namespaceShardingService.shardingCountIncrementAndGet();
@@ -117,6 +146,8 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 			if (isAllShardingTask) { // 如果是全量分片，不再进行全量分片
 				namespaceShardingService.setNeedAllSharding(false);
 			}
+			prefetchedData.clear();
+			prefetchedExists.clear();
 			namespaceShardingService.shardingCountDecrementAndGet();
 		}
 	}
@@ -145,13 +176,6 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		}
 	}
 
-	private boolean shardingContentIsChanged(List<Executor> oldOnlineExecutorList,
-			List<Executor> lastOnlineExecutorList) {
-		return !namespaceShardingContentService.toShardingContent(oldOnlineExecutorList)
-				.equals(namespaceShardingContentService
-						.toShardingContent(lastOnlineExecutorList));
-	}
-
 	private List<Executor> copyOnlineExecutorList(List<Executor> oldOnlineExecutorList) {
 		List<Executor> newOnlineExecutorList = new ArrayList<>();
 		for (Executor oldExecutor : oldOnlineExecutorList) {
@@ -192,10 +216,7 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 				executor.setJobNameList(new ArrayList<String>());
 			}
 			List<String> jobNameList = executor.getJobNameList();
-			String jobServersExecutorStatusNodePath = SaturnExecutorsNode
-					.getJobServersExecutorStatusNodePath(jobName, executor.getExecutorName());
-			if (curatorFramework.checkExists().forPath(jobServersExecutorStatusNodePath)
-					!= null) {
+			if (isJobServerOnline(jobName, executor.getExecutorName())) {
 				if (!jobNameList.contains(jobName)) {
 					jobNameList.add(jobName);
 					fixed = true;
@@ -210,6 +231,145 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		return fixed;
 	}
 
+	/**
+	 * The $Jobs/job/servers/executor/status node exists or not. If $Jobs/job/servers/executor is not existing, the
+	 * status node is not existing certainly, it could be known from the TreeCache of $Jobs/job/servers.
+	 */
+	private boolean isJobServerOnline(String jobName, String executorName) throws Exception {
+		return checkExists(SaturnExecutorsNode.getJobServersExecutorNodePath(jobName, executorName))
+				&& checkExists(SaturnExecutorsNode.getJobServersExecutorStatusNodePath(jobName, executorName));
+	}
+
+	/**
+	 * Get the data of the node from the TreeCache of sharding if possible, otherwise from zk
+	 *
+	 * @return null if the node is not existing
+	 */
+	protected byte[] getData(String path) throws Exception {
+		if (prefetchedData.containsKey(path)) {
+			return prefetchedData.get(path);
+		}
+		if (isReadFromZk()) {
+			return CuratorUtils.getDataIfExists(curatorFramework, path);
+		}
+		return shardingTreeCacheService.getData(path);
+	}
+
+	protected boolean checkExists(String path) throws Exception {
+		Boolean exists = prefetchedExists.get(path);
+		if (exists != null) {
+			return exists;
+		}
+		if (prefetchedData.containsKey(path)) {
+			return prefetchedData.get(path) != null;
+		}
+		if (isReadFromZk()) {
+			return curatorFramework.checkExists().forPath(path) != null;
+		}
+		return shardingTreeCacheService.checkExists(path);
+	}
+
+	/**
+	 * Get the children of the node from the TreeCache of sharding if possible, otherwise from zk
+	 *
+	 * @return null if the node is not existing
+	 */
+	protected List<String> getChildren(String path) throws Exception {
+		if (isReadFromZk()) {
+			return CuratorUtils.getChildrenIfExists(curatorFramework, path);
+		}
+		return shardingTreeCacheService.getChildren(path);
+	}
+
+	/**
+	 * Whether the data is read from zk directly, but not from the TreeCache
+	 */
+	protected boolean isReadFromZk() {
+		return isAllShardingTask || shardingTreeCacheService == null;
+	}
+
+	/**
+	 * Read the data of the nodes from zk in parallel, only if the data is read from zk directly, then
+	 * {@link #getData(String)} and {@link #checkExists(String)} of the nodes will not request zk again
+	 */
+	protected void prefetchData(Collection<String> paths) throws Exception {
+		if (!isReadFromZk()) {
+			return;
+		}
+		List<String> toRead = new ArrayList<>();
+		for (String path : paths) {
+			if (!prefetchedData.containsKey(path)) {
+				toRead.add(path);
+			}
+		}
+		prefetchedData.putAll(CuratorUtils.getDataInBatch(curatorFramework, toRead));
+	}
+
+	/**
+	 * Check the nodes exist or not from zk in parallel, only if the data is read from zk directly
+	 */
+	protected void prefetchExists(Collection<String> paths) throws Exception {
+		if (!isReadFromZk()) {
+			return;
+		}
+		List<String> toRead = new ArrayList<>();
+		for (String path : paths) {
+			if (!prefetchedExists.containsKey(path) && !prefetchedData.containsKey(path)) {
+				toRead.add(path);
+			}
+		}
+		prefetchedExists.putAll(CuratorUtils.checkExistsInBatch(curatorFramework, toRead));
+	}
+
+	/**
+	 * Read the config used by sharding of all jobs in one pass
+	 */
+	private void prefetchJobConfig(List<String> allJobs) throws Exception {
+		if (!isReadFromZk()) {
+			return;
+		}
+		List<String> paths = new ArrayList<>();
+		for (String jobName : allJobs) {
+			paths.add(SaturnExecutorsNode.getJobConfigEnableNodePath(jobName));
+			paths.add(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
+			paths.add(SaturnExecutorsNode.getJobConfigLocalModeNodePath(jobName));
+			paths.add(SaturnExecutorsNode.getJobConfigShardingTotalCountNodePath(jobName));
+			paths.add(SaturnExecutorsNode.getJobConfigLoadLevelNodePath(jobName));
+			paths.add(SaturnExecutorsNode.getJobConfigUseDispreferListNodePath(jobName));
+		}
+		prefetchData(paths);
+	}
+
+	/**
+	 * Read $Jobs/job/servers of the jobs, and check the status nodes of the existing servers in parallel, used by
+	 * {@link #fixJobNameList(List, String)}
+	 */
+	protected void prefetchJobServers(List<String> jobs, List<Executor> executorList) throws Exception {
+		if (!isReadFromZk()) {
+			return;
+		}
+		List<String> serversPaths = new ArrayList<>();
+		for (String jobName : jobs) {
+			serversPaths.add(SaturnExecutorsNode.getJobServersNodePath(jobName));
+		}
+		Map<String, List<String>> serversMap = CuratorUtils.getChildrenInBatch(curatorFramework, serversPaths);
+		List<String> statusPaths = new ArrayList<>();
+		for (String jobName : jobs) {
+			List<String> servers = serversMap.get(SaturnExecutorsNode.getJobServersNodePath(jobName));
+			Set<String> serverSet = servers == null ? new HashSet<String>() : new HashSet<>(servers);
+			for (Executor executor : executorList) {
+				String executorName = executor.getExecutorName();
+				boolean serverExists = serverSet.contains(executorName);
+				prefetchedExists.put(SaturnExecutorsNode.getJobServersExecutorNodePath(jobName, executorName),
+						serverExists);
+				if (serverExists) {
+					statusPaths.add(SaturnExecutorsNode.getJobServersExecutorStatusNodePath(jobName, executorName));
+				}
+			}
+		}
+		prefetchExists(statusPaths);
+	}
+
 	private void increaseShardingCount() throws Exception {
 		Integer shardingCount = 1;
 		if (null != curatorFramework.checkExists()
@@ -241,25 +401,28 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 			boolean isAllShardingTask, List<String> allEnableJobs, List<Executor> oldOnlineExecutorList,
 			List<Executor> lastOnlineExecutorList) {
 		Map<String, Map<String, List<Integer>>> jobShardContent = new HashMap<>();
+		// index the shards by job once, instead of scanning all executors for every enable job
+		Map<String, Map<String, List<Integer>>> lastShardingItemsIndex = namespaceShardingContentService
+				.getShardingItemsIndex(lastOnlineExecutorList);
 		if (isAllShardingTask) {
 			for (String enableJob : allEnableJobs) {
-				Map<String, List<Integer>> lastShardingItems = namespaceShardingContentService
-						.getShardingItems(lastOnlineExecutorList, enableJob);
-				jobShardContent.put(enableJob, lastShardingItems);
+				jobShardContent.put(enableJob, getShardingItemsFromIndex(lastShardingItemsIndex, enableJob));
 			}
 			return jobShardContent;
 		}
+		Map<String, Map<String, List<Integer>>> oldShardingItemsIndex = namespaceShardingContentService
+				.getShardingItemsIndex(oldOnlineExecutorList);
 		List<String> enableJobsPrior = notifyEnableJobsPrior();
 		for (String enableJob : allEnableJobs) {
-			Map<String, List<Integer>> lastShardingItems = namespaceShardingContentService
-					.getShardingItems(lastOnlineExecutorList, enableJob);
+			Map<String, List<Integer>> lastShardingItems = getShardingItemsFromIndex(lastShardingItemsIndex,
+					enableJob);
 			// notify prior jobs that are in all enable jobs
 			if (enableJobsPrior != null && enableJobsPrior.contains(enableJob)) {
 				jobShardContent.put(enableJob, lastShardingItems);
 				continue;
 			}
-			Map<String, List<Integer>> oldShardingItems = namespaceShardingContentService
-					.getShardingItems(oldOnlineExecutorList, enableJob);
+			Map<String, List<Integer>> oldShardingItems = getShardingItemsFromIndex(oldShardingItemsIndex,
+					enableJob);
 			// just compare whether or not contains the same executorName, and it's shardList
 			boolean isChanged = false;
 			Iterator<Entry<String, List<Integer>>> oldIterator = oldShardingItems.entrySet().iterator();
@@ -323,6 +486,12 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		return jobShardContent;
 	}
 
+	private Map<String, List<Integer>> getShardingItemsFromIndex(
+			Map<String, Map<String, List<Integer>>> shardingItemsIndex, String jobName) {
+		Map<String, List<Integer>> shardingItems = shardingItemsIndex.get(jobName);
+		return shardingItems == null ? new HashMap<String, List<Integer>>() : shardingItems;
+	}
+
 	private boolean hasShardChanged(List<Integer> shards, List<Integer> oldShard) {
 		for (Integer shard : shards) {
 			if (!oldShard.contains(shard)) {
@@ -333,31 +502,22 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 	}
 
 	protected boolean isLocalMode(String jobName) throws Exception {
-		String localNodePath = SaturnExecutorsNode.getJobConfigLocalModeNodePath(jobName);
-		if (curatorFramework.checkExists().forPath(localNodePath) != null) {
-			byte[] data = curatorFramework.getData().forPath(localNodePath);
-			if (data != null) {
-				return Boolean.parseBoolean(new String(data, StandardCharsets.UTF_8.name()));
-			}
+		byte[] data = getData(SaturnExecutorsNode.getJobConfigLocalModeNodePath(jobName));
+		if (data != null) {
+			return Boolean.parseBoolean(new String(data, StandardCharsets.UTF_8.name()));
 		}
 		return false;
 	}
 
 	protected int getShardingTotalCount(String jobName) throws Exception {
 		int shardingTotalCount = 0;
-		String jobConfigShardingTotalCountNodePath = SaturnExecutorsNode
-				.getJobConfigShardingTotalCountNodePath(jobName);
-		if (curatorFramework.checkExists().forPath(jobConfigShardingTotalCountNodePath)
-				!= null) {
-			byte[] shardingTotalCountData = curatorFramework.getData()
-					.forPath(jobConfigShardingTotalCountNodePath);
-			if (shardingTotalCountData != null) {
-				try {
-					shardingTotalCount = Integer
-							.parseInt(new String(shardingTotalCountData, StandardCharsets.UTF_8.name()));
-				} catch (NumberFormatException e) {
-					log.error("parse shardingTotalCount error, will use the default value", e);
-				}
+		byte[] shardingTotalCountData = getData(SaturnExecutorsNode.getJobConfigShardingTotalCountNodePath(jobName));
+		if (shardingTotalCountData != null) {
+			try {
+				shardingTotalCount = Integer
+						.parseInt(new String(shardingTotalCountData, StandardCharsets.UTF_8.name()));
+			} catch (NumberFormatException e) {
+				log.error("parse shardingTotalCount error, will use the default value", e);
 			}
 		}
 		return shardingTotalCount;
@@ -365,25 +525,25 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 
 	protected int getLoadLevel(String jobName) throws Exception {
 		int loadLevel = LOAD_LEVEL_DEFAULT;
-		String jobConfigLoadLevelNodePath = SaturnExecutorsNode.getJobConfigLoadLevelNodePath(jobName);
-		if (curatorFramework.checkExists().forPath(jobConfigLoadLevelNodePath) != null) {
-			byte[] loadLevelData = curatorFramework.getData()
-					.forPath(jobConfigLoadLevelNodePath);
-			try {
-				if (loadLevelData != null) {
-					loadLevel = Integer.parseInt(new String(loadLevelData, StandardCharsets.UTF_8.name()));
-				}
-			} catch (NumberFormatException e) {
-				log.error("parse loadLevel error, will use the default value", e);
+		byte[] loadLevelData = getData(SaturnExecutorsNode.getJobConfigLoadLevelNodePath(jobName));
+		try {
+			if (loadLevelData != null) {
+				loadLevel = Integer.parseInt(new String(loadLevelData, StandardCharsets.UTF_8.name()));
 			}
+		} catch (NumberFormatException e) {
+			log.error("parse loadLevel error, will use the default value", e);
 		}
 		return loadLevel;
 	}
 
 	/**
-	 * 获取Executor集合，默认从sharding/content获取
+	 * 获取Executor集合，默认从内存模型获取；如果内存模型不存在，或者是全量分片，则从sharding/content获取
 	 */
 	private List<Executor> getLastOnlineExecutorList() throws Exception {
+		List<Executor> shardingContentModel = namespaceShardingService.getShardingContentModel();
+		if (!isAllShardingTask && shardingContentModel != null) {
+			return shardingContentModel;
+		}
 		return namespaceShardingContentService.getExecutorList();
 	}
 
@@ -417,6 +577,21 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 	protected abstract boolean pick(List<String> allJobs, List<String> allEnableJobs, List<Shard> shardList,
 			List<Executor> lastOnlineExecutorList, List<Executor> lastOnlineTrafficExecutorList) throws Exception;
 
+	/**
+	 * 摘取，如果摘取成功，则放回
+	 *
+	 * @return true摘取成功；false摘取失败，不需要持久化等后续逻辑
+	 */
+	protected boolean pickAndPutBack(List<String> allJobs, List<String> allEnableJobs,
+			List<Executor> lastOnlineExecutorList, List<Executor> lastOnlineTrafficExecutorList) throws Exception {
+		List<Shard> shardList = new ArrayList<>();
+		if (pick(allJobs, allEnableJobs, shardList, lastOnlineExecutorList, lastOnlineTrafficExecutorList)) {
+			putBackBalancing(allEnableJobs, shardList, lastOnlineExecutorList, lastOnlineTrafficExecutorList);
+			return true;
+		}
+		return false;
+	}
+
 	/**
 	 * 按照loadLevel降序排序，如果loadLevel相同，按照作业名降序排序
 	 */
@@ -440,8 +615,7 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		for (int i = 0; i < lastOnlineExecutorList.size(); i++) {
 			Executor executor = lastOnlineExecutorList.get(i);
 			String executorName = executor.getExecutorName();
-			if (curatorFramework.checkExists()
-					.forPath(SaturnExecutorsNode.getExecutorTaskNodePath(executorName)) == null) {
+			if (!checkExists(SaturnExecutorsNode.getExecutorTaskNodePath(executorName))) {
 				nonDockerExecutors.add(executor);
 			}
 		}
@@ -462,34 +636,41 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		List<Executor> notDockerExecutors = getNotDockerExecutors(lastOnlineTrafficExecutorList);
 
 		// 获取shardList中的作业能够被接管的executors
-		Map<String, List<Executor>> noDockerTrafficExecutorsMapByJob = new HashMap<>();
-		Map<String, List<Executor>> lastOnlineTrafficExecutorListMapByJob = new HashMap<>();
+		Map<String, List<Executor>> notDockerExecutorsByJob = PutBackBalancingIndex.groupByJob(notDockerExecutors);
+		Map<String, List<Executor>> lastOnlineTrafficExecutorsByJob = PutBackBalancingIndex
+				.groupByJob(lastOnlineTrafficExecutorList);
+		// 作业能够被接管的executors的负荷最小堆的映射
+		Map<String, PutBackBalancingIndex.LoadLevelQueue> noDockerTrafficExecutorsMapByJob = new HashMap<>();
+		// 作业在线的优先节点的负荷最小堆的映射
+		Map<String, PutBackBalancingIndex.LoadLevelQueue> preferExecutorsMapByJob = new HashMap<>();
 		// 是否为本地模式作业的映射
 		Map<String, Boolean> localModeMap = new HashMap<>();
 		// 是否配置优先节点的作业的映射
 		Map<String, Boolean> preferListIsConfiguredMap = new HashMap<>();
-		// 优先节点的作业的映射
-		Map<String, List<String>> preferListConfiguredMap = new HashMap<>();
 		// 是否使用非优先节点的作业的映射
 		Map<String, Boolean> useDispreferListMap = new HashMap<>();
 
+		PutBackBalancingIndex index = new PutBackBalancingIndex(lastOnlineTrafficExecutorList);
 		Iterator<Shard> iterator = shardList.iterator();
 		while (iterator.hasNext()) {
 			String jobName = iterator.next().getJobName();
+			// the config of the job has been got by the previous shard of the same job
+			if (localModeMap.containsKey(jobName)) {
+				continue;
+			}
 
-			checkAndPutIntoMap(jobName,
-					filterExecutorsByJob(notDockerExecutors, jobName), noDockerTrafficExecutorsMapByJob);
-
-			checkAndPutIntoMap(jobName, filterExecutorsByJob(lastOnlineTrafficExecutorList, jobName),
-					lastOnlineTrafficExecutorListMapByJob);
+			noDockerTrafficExecutorsMapByJob.put(jobName, index.newQueue(getExecutorsByJob(notDockerExecutorsByJob,
+					jobName)));
 
-			checkAndPutIntoMap(jobName, isLocalMode(jobName), localModeMap);
+			localModeMap.put(jobName, isLocalMode(jobName));
 
-			checkAndPutIntoMap(jobName, preferListIsConfigured(jobName), preferListIsConfiguredMap);
+			preferListIsConfiguredMap.put(jobName, preferListIsConfigured(jobName));
 
-			checkAndPutIntoMap(jobName, getPreferListConfigured(jobName), preferListConfiguredMap);
+			List<Executor> preferExecutorList = getPreferExecutors(
+					getExecutorsByJob(lastOnlineTrafficExecutorsByJob, jobName), getPreferListConfigured(jobName));
+			preferExecutorsMapByJob.put(jobName, index.newQueue(preferExecutorList));
 
-			checkAndPutIntoMap(jobName, useDispreferList(jobName), useDispreferListMap);
+			useDispreferListMap.put(jobName, useDispreferList(jobName));
 
 		}
 
@@ -499,54 +680,47 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		// 如果配置了preferList，则选取preferList中的executor。
 		// 如果preferList中的executor都挂了，则不转移；否则，选取没有接管该作业的executor列表的loadLevel最小的一个。
 		// 如果没有配置preferList，则选取没有接管该作业的executor列表的loadLevel最小的一个。
-		putBackShardWithLocalMode(shardList, noDockerTrafficExecutorsMapByJob,
-				lastOnlineTrafficExecutorListMapByJob,
-				localModeMap, preferListIsConfiguredMap, preferListConfiguredMap);
+		putBackShardWithLocalMode(index, shardList, noDockerTrafficExecutorsMapByJob, preferExecutorsMapByJob,
+				localModeMap, preferListIsConfiguredMap);
 
 		// 2、放回配置了preferList的Shard
-		putBackShardWithPreferList(shardList, lastOnlineTrafficExecutorListMapByJob, preferListIsConfiguredMap,
-				preferListConfiguredMap, useDispreferListMap);
+		putBackShardWithPreferList(index, shardList, preferExecutorsMapByJob, preferListIsConfiguredMap,
+				useDispreferListMap);
 
 		// 3、放回没有配置preferList的Shard
-		putBackShardWithoutPreferlist(shardList, noDockerTrafficExecutorsMapByJob);
+		putBackShardWithoutPreferlist(index, shardList, noDockerTrafficExecutorsMapByJob);
 	}
 
-	private <T> void checkAndPutIntoMap(String key, T value, Map<String, T> targetMap) {
-		if (!targetMap.containsKey(key)) {
-			targetMap.put(key, value);
-		}
+	private List<Executor> getExecutorsByJob(Map<String, List<Executor>> executorsByJob, String jobName) {
+		List<Executor> executors = executorsByJob.get(jobName);
+		return executors == null ? new ArrayList<Executor>() : executors;
 	}
 
-	private void putBackShardWithoutPreferlist(List<Shard> shardList,
-			Map<String, List<Executor>> noDockerTrafficExecutorsMapByJob) {
+	private void putBackShardWithoutPreferlist(PutBackBalancingIndex index, List<Shard> shardList,
+			Map<String, PutBackBalancingIndex.LoadLevelQueue> noDockerTrafficExecutorsMapByJob) {
 		Iterator<Shard> iterator = shardList.iterator();
 		while (iterator.hasNext()) {
 			Shard shard = iterator.next();
-			Executor executor = getExecutorWithMinLoadLevel(
-					noDockerTrafficExecutorsMapByJob.get(shard.getJobName()));
-			putShardIntoExecutor(shard, executor);
+			Executor executor = noDockerTrafficExecutorsMapByJob.get(shard.getJobName()).peekMin();
+			putShardIntoExecutor(index, shard, executor);
 			iterator.remove();
 		}
 	}
 
-	private void putBackShardWithPreferList(List<Shard> shardList,
-			Map<String, List<Executor>> lastOnlineTrafficExecutorListMapByJob,
-			Map<String, Boolean> preferListIsConfiguredMap, Map<String, List<String>> preferListConfiguredMap,
-			Map<String, Boolean> useDispreferListMap) {
+	private void putBackShardWithPreferList(PutBackBalancingIndex index, List<Shard> shardList,
+			Map<String, PutBackBalancingIndex.LoadLevelQueue> preferExecutorsMapByJob,
+			Map<String, Boolean> preferListIsConfiguredMap, Map<String, Boolean> useDispreferListMap) {
 		Iterator<Shard> iterator = shardList.iterator();
 		while (iterator.hasNext()) {
 			Shard shard = iterator.next();
 			String jobName = shard.getJobName();
 			if (preferListIsConfiguredMap.get(jobName)) { // fix,
 				// preferList为空不能作为判断是否配置preferList的依据，比如说配置了容器资源，但是全部下线了。
-				List<String> preferList = preferListConfiguredMap.get(jobName);
-				List<Executor> preferExecutorList = getPreferExecutors(
-						lastOnlineTrafficExecutorListMapByJob, jobName, preferList);
 				// 如果preferList的Executor都offline，则放回到全部online的Executor中某一个。如果是这种情况，则后续再操作，避免不均衡的情况
 				// 如果存在preferExecutor，择优放回
-				if (!preferExecutorList.isEmpty()) {
-					Executor executor = getExecutorWithMinLoadLevel(preferExecutorList);
-					putShardIntoExecutor(shard, executor);
+				Executor executor = preferExecutorsMapByJob.get(jobName).peekMin();
+				if (executor != null) {
+					putShardIntoExecutor(index, shard, executor);
 					iterator.remove();
 				} else { // 如果不存在preferExecutor
 					// 如果“只使用preferExecutor”，则丢弃；否则，等到后续（在第3步）进行放回操作，避免不均衡的情况
@@ -558,10 +732,10 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		}
 	}
 
-	private void putBackShardWithLocalMode(List<Shard> shardList,
-			Map<String, List<Executor>> noDockerTrafficExecutorsMapByJob,
-			Map<String, List<Executor>> lastOnlineTrafficExecutorListMapByJob, Map<String, Boolean> localModeMap,
-			Map<String, Boolean> preferListIsConfiguredMap, Map<String, List<String>> preferListConfiguredMap) {
+	private void putBackShardWithLocalMode(PutBackBalancingIndex index, List<Shard> shardList,
+			Map<String, PutBackBalancingIndex.LoadLevelQueue> noDockerTrafficExecutorsMapByJob,
+			Map<String, PutBackBalancingIndex.LoadLevelQueue> preferExecutorsMapByJob,
+			Map<String, Boolean> localModeMap, Map<String, Boolean> preferListIsConfiguredMap) {
 		Iterator<Shard> iterator = shardList.iterator();
 		while (iterator.hasNext()) {
 			Shard shard = iterator.next();
@@ -571,102 +745,54 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 			}
 
 			if (preferListIsConfiguredMap.get(jobName)) {
-				List<String> preferListConfigured = preferListConfiguredMap.get(jobName);
-				if (!preferListConfigured.isEmpty()) {
-					List<Executor> preferExecutorList = getPreferExecutors(lastOnlineTrafficExecutorListMapByJob,
-							jobName, preferListConfigured);
-					if (!preferExecutorList.isEmpty()) {
-						Executor executor = getExecutorWithMinLoadLevelAndNoThisJob(preferExecutorList,
-								jobName);
-						putShardIntoExecutor(shard, executor);
-					}
+				PutBackBalancingIndex.LoadLevelQueue preferExecutors = preferExecutorsMapByJob.get(jobName);
+				if (!preferExecutors.isEmpty()) {
+					Executor executor = preferExecutors.peekMinWithoutJob(jobName);
+					putShardIntoExecutor(index, shard, executor);
 				}
 			} else {
-				Executor executor = getExecutorWithMinLoadLevelAndNoThisJob(
-						noDockerTrafficExecutorsMapByJob.get(jobName),
-						jobName);
-				putShardIntoExecutor(shard, executor);
+				Executor executor = noDockerTrafficExecutorsMapByJob.get(jobName).peekMinWithoutJob(jobName);
+				putShardIntoExecutor(index, shard, executor);
 			}
 			iterator.remove();
 		}
 	}
 
-	private List<Executor> getPreferExecutors(Map<String, List<Executor>> lastOnlineTrafficExecutorListMapByJob,
-			String jobName, List<String> preferListConfigured) {
+	private List<Executor> getPreferExecutors(List<Executor> lastOnlineTrafficExecutorListByJob,
+			List<String> preferListConfigured) {
 		List<Executor> preferExecutorList = new ArrayList<>();
-		List<Executor> lastOnlineTrafficExecutorListByJob = lastOnlineTrafficExecutorListMapByJob
-				.get(jobName);
+		if (preferListConfigured.isEmpty()) {
+			return preferExecutorList;
+		}
+		Set<String> preferListConfiguredSet = new HashSet<>(preferListConfigured);
 		for (int i = 0; i < lastOnlineTrafficExecutorListByJob.size(); i++) {
 			Executor executor = lastOnlineTrafficExecutorListByJob.get(i);
-			if (preferListConfigured.contains(executor.getExecutorName())) {
+			if (preferListConfiguredSet.contains(executor.getExecutorName())) {
 				preferExecutorList.add(executor);
 			}
 		}
 		return preferExecutorList;
 	}
 
-
 	/**
 	 * 是否使用非preferList:
 	 * 1、存在结点，并且该结点值为false，返回false；
 	 * 2、其他情况，返回true
 	 */
 	protected boolean useDispreferList(String jobName) throws Exception {
-		String jobConfigUseDispreferListNodePath = SaturnExecutorsNode
-				.getJobConfigUseDispreferListNodePath(jobName);
-		if (curatorFramework.checkExists().forPath(jobConfigUseDispreferListNodePath)
-				!= null) {
-			byte[] useDispreferListData = curatorFramework.getData()
-					.forPath(jobConfigUseDispreferListNodePath);
-			if (useDispreferListData != null && !Boolean
-					.parseBoolean(new String(useDispreferListData, StandardCharsets.UTF_8.name()))) {
-				return false;
-			}
+		byte[] useDispreferListData = getData(SaturnExecutorsNode.getJobConfigUseDispreferListNodePath(jobName));
+		if (useDispreferListData != null && !Boolean
+				.parseBoolean(new String(useDispreferListData, StandardCharsets.UTF_8.name()))) {
+			return false;
 		}
 		return true;
 	}
 
-	private Executor getExecutorWithMinLoadLevel(List<Executor> executorList) {
-		Executor minLoadLevelExecutor = null;
-		for (int i = 0; i < executorList.size(); i++) {
-			Executor executor = executorList.get(i);
-			if (minLoadLevelExecutor == null
-					|| minLoadLevelExecutor.getTotalLoadLevel() > executor.getTotalLoadLevel()) {
-				minLoadLevelExecutor = executor;
-			}
-		}
-		return minLoadLevelExecutor;
-	}
-
-	private Executor getExecutorWithMinLoadLevelAndNoThisJob(List<Executor> executorList, String jobName) {
-		Executor minLoadLevelExecutor = null;
-		for (int i = 0; i < executorList.size(); i++) {
-			Executor executor = executorList.get(i);
-			List<Shard> shardList = executor.getShardList();
-			boolean containThisJob = false;
-			for (int j = 0; j < shardList.size(); j++) {
-				Shard shard = shardList.get(j);
-				if (shard.getJobName().equals(jobName)) {
-					containThisJob = true;
-					break;
-				}
-			}
-			if (!containThisJob && (minLoadLevelExecutor == null
-					|| minLoadLevelExecutor.getTotalLoadLevel() > executor.getTotalLoadLevel())) {
-				minLoadLevelExecutor = executor;
-			}
-		}
-		return minLoadLevelExecutor;
-	}
-
-	private void putShardIntoExecutor(Shard shard, Executor executor) {
+	private void putShardIntoExecutor(PutBackBalancingIndex index, Shard shard, Executor executor) {
 		if (executor != null) {
-			if (isIn(shard, executor.getShardList())) {
+			if (!index.putShardIntoExecutor(shard, executor)) {
 				log.error("The shard({}-{}) is running in the executor of {}, cannot be put again",
 						shard.getJobName(), shard.getItem(), executor.getExecutorName());
-			} else {
-				executor.getShardList().add(shard);
-				executor.setTotalLoadLevel(executor.getTotalLoadLevel() + shard.getLoadLevel());
 			}
 		} else {
 			log.info("No executor to take over the shard: {}-{}", shard.getJobName(), shard.getItem());
@@ -678,13 +804,14 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 	 */
 	private List<String> getAllJobs() throws Exception {
 		List<String> allJob = new ArrayList<>();
-		if (curatorFramework.checkExists().forPath(SaturnExecutorsNode.JOBSNODE_PATH)
-				== null) {
-			curatorFramework.create().creatingParentsIfNeeded()
-					.forPath(SaturnExecutorsNode.JOBSNODE_PATH);
+		List<String> tmp = getChildren(SaturnExecutorsNode.JOBSNODE_PATH);
+		if (tmp == null) {
+			if (curatorFramework.checkExists().forPath(SaturnExecutorsNode.JOBSNODE_PATH) == null) {
+				curatorFramework.create().creatingParentsIfNeeded()
+						.forPath(SaturnExecutorsNode.JOBSNODE_PATH);
+			}
+			tmp = curatorFramework.getChildren().forPath(SaturnExecutorsNode.JOBSNODE_PATH);
 		}
-		List<String> tmp = curatorFramework.getChildren()
-				.forPath(SaturnExecutorsNode.JOBSNODE_PATH);
 		if (tmp != null) {
 			allJob.addAll(tmp);
 		}
@@ -698,36 +825,18 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		List<String> allEnableJob = new ArrayList<>();
 		for (int i = 0; i < allJob.size(); i++) {
 			String job = allJob.get(i);
-			if (curatorFramework.checkExists()
-					.forPath(SaturnExecutorsNode.getJobConfigEnableNodePath(job)) != null) {
-				byte[] enableData = curatorFramework.getData()
-						.forPath(SaturnExecutorsNode.getJobConfigEnableNodePath(job));
-				if (enableData != null && Boolean.parseBoolean(new String(enableData, StandardCharsets.UTF_8.name()))) {
-					allEnableJob.add(job);
-				}
+			byte[] enableData = getData(SaturnExecutorsNode.getJobConfigEnableNodePath(job));
+			if (enableData != null && Boolean.parseBoolean(new String(enableData, StandardCharsets.UTF_8.name()))) {
+				allEnableJob.add(job);
 			}
 		}
 		return allEnableJob;
 	}
 
-	protected boolean isIn(Shard shard, List<Shard> shardList) {
-		for (int i = 0; i < shardList.size(); i++) {
-			Shard tmp = shardList.get(i);
-			if (tmp.getJobName().equals(shard.getJobName()) && tmp.getItem() == shard.getItem()) {
-				return true;
-			}
-		}
-		return false;
-	}
-
 	protected boolean preferListIsConfigured(String jobName) throws Exception {
-		if (curatorFramework.checkExists()
-				.forPath(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName)) != null) {
-			byte[] preferListData = curatorFramework.getData()
-					.forPath(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
-			if (preferListData != null) {
-				return new String(preferListData, StandardCharsets.UTF_8.name()).trim().length() > 0;
-			}
+		byte[] preferListData = getData(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
+		if (preferListData != null) {
+			return new String(preferListData, StandardCharsets.UTF_8.name()).trim().length() > 0;
 		}
 		return false;
 	}
@@ -737,18 +846,14 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 	 */
 	protected List<String> getPreferListConfigured(String jobName) throws Exception {
 		List<String> preferList = new ArrayList<>();
-		if (curatorFramework.checkExists()
-				.forPath(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName)) != null) {
-			byte[] preferListData = curatorFramework.getData()
-					.forPath(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
-			if (preferListData != null) {
-				List<String> allExistsExecutors = getAllExistingExecutors();
-				String[] split = new String(preferListData, StandardCharsets.UTF_8.name()).split(",");
-				for (String tmp : split) {
-					String tmpTrim = tmp.trim();
-					if (!"".equals(tmpTrim)) {
-						fillRealPreferListIfIsDockerOrNot(preferList, tmpTrim, allExistsExecutors);
-					}
+		byte[] preferListData = getData(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
+		if (preferListData != null) {
+			List<String> allExistsExecutors = getAllExistingExecutors();
+			String[] split = new String(preferListData, StandardCharsets.UTF_8.name()).split(",");
+			for (String tmp : split) {
+				String tmpTrim = tmp.trim();
+				if (!"".equals(tmpTrim)) {
+					fillRealPreferListIfIsDockerOrNot(preferList, tmpTrim, allExistsExecutors);
 				}
 			}
 		}
@@ -757,13 +862,9 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 
 	private List<String> getAllExistingExecutors() throws Exception {
 		List<String> allExistsExecutors = new ArrayList<>();
-		if (curatorFramework.checkExists().forPath(SaturnExecutorsNode.getExecutorsNodePath())
-				!= null) {
-			List<String> executors = curatorFramework.getChildren()
-					.forPath(SaturnExecutorsNode.getExecutorsNodePath());
-			if (executors != null) {
-				allExistsExecutors.addAll(executors);
-			}
+		List<String> executors = getChildren(SaturnExecutorsNode.getExecutorsNodePath());
+		if (executors != null) {
+			allExistsExecutors.addAll(executors);
 		}
 		return allExistsExecutors;
 	}
@@ -783,30 +884,19 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 		}
 
 		String task = prefer.substring(1);
+		List<String> taskPaths = new ArrayList<>();
+		for (String executor : allExistsExecutors) {
+			taskPaths.add(SaturnExecutorsNode.getExecutorTaskNodePath(executor));
+		}
+		prefetchData(taskPaths);
 		for (int i = 0; i < allExistsExecutors.size(); i++) {
 			String executor = allExistsExecutors.get(i);
-			if (curatorFramework.checkExists()
-					.forPath(SaturnExecutorsNode.getExecutorTaskNodePath(executor)) != null) {
-				byte[] taskData = curatorFramework.getData()
-						.forPath(SaturnExecutorsNode.getExecutorTaskNodePath(executor));
-				if (taskData != null && task.equals(new String(taskData, StandardCharsets.UTF_8.name())) && !preferList
-						.contains(executor)) {
-					preferList.add(executor);
-				}
-			}
-		}
-	}
-
-	protected List<Executor> filterExecutorsByJob(List<Executor> executorList, String jobName) {
-		List<Executor> executorListByJob = new ArrayList<>();
-		for (int i = 0; i < executorList.size(); i++) {
-			Executor executor = executorList.get(i);
-			List<String> jobNameList = executor.getJobNameList();
-			if (jobNameList != null && jobNameList.contains(jobName)) {
-				executorListByJob.add(executor);
+			byte[] taskData = getData(SaturnExecutorsNode.getExecutorTaskNodePath(executor));
+			if (taskData != null && task.equals(new String(taskData, StandardCharsets.UTF_8.name())) && !preferList
+					.contains(executor)) {
+				preferList.add(executor);
 			}
 		}
-		return executorListByJob;
 	}
 
 	private List<Executor> getPreferListOnlineByJob(String jobName, List<String> preferListConfigured,
@@ -862,8 +952,7 @@ public abstract class AbstractAsyncShardingTask implements Runnable {
 	}
 
 	protected boolean getExecutorNoTraffic(String executorName) throws Exception {
-		return curatorFramework.checkExists()
-				.forPath(SaturnExecutorsNode.getExecutorNoTrafficNodePath(executorName)) != null;
+		return checkExists(SaturnExecutorsNode.getExecutorNoTrafficNodePath(executorName));
 	}
 
 }
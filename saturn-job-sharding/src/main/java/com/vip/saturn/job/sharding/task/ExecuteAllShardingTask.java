@@ -29,6 +29,7 @@ public class ExecuteAllShardingTask extends AbstractAsyncShardingTask {
 	protected boolean pick(List<String> allJobs, List<String> allEnableJob, List<Shard> shardList,
 			List<Executor> lastOnlineExecutorList, List<Executor> lastOnlineTrafficExecutorList) throws Exception {
 		// 修正所有executor对所有作业的jobNameList
+		prefetchJobServers(allJobs, lastOnlineExecutorList);
 		for (int j = 0; j < allJobs.size(); j++) {
 			fixJobNameList(lastOnlineExecutorList, allJobs.get(j));
 		}
@@ -53,21 +54,28 @@ public class ExecuteAllShardingTask extends AbstractAsyncShardingTask {
 			return new ArrayList<>();
 		}
 
+		// 并行读取所有Executor的ip、noTraffic节点
+		List<String> ipPaths = new ArrayList<>();
+		List<String> noTrafficPaths = new ArrayList<>();
+		for (String zkExecutor : zkExecutors) {
+			ipPaths.add(SaturnExecutorsNode.getExecutorIpNodePath(zkExecutor));
+			noTrafficPaths.add(SaturnExecutorsNode.getExecutorNoTrafficNodePath(zkExecutor));
+		}
+		prefetchData(ipPaths);
+		prefetchExists(noTrafficPaths);
+
 		List<Executor> lastOnlineExecutorList = new ArrayList<>();
 		for (int i = 0; i < zkExecutors.size(); i++) {
 			String zkExecutor = zkExecutors.get(i);
-			if (isNodeExisted(SaturnExecutorsNode.getExecutorIpNodePath(zkExecutor))) {
-				byte[] ipData = curatorFramework.getData()
-						.forPath(SaturnExecutorsNode.getExecutorIpNodePath(zkExecutor));
-				if (ipData != null) {
-					Executor executor = new Executor();
-					executor.setExecutorName(zkExecutor);
-					executor.setIp(new String(ipData, "UTF-8"));
-					executor.setNoTraffic(getExecutorNoTraffic(zkExecutor));
-					executor.setShardList(new ArrayList<Shard>());
-					executor.setJobNameList(new ArrayList<String>());
-					lastOnlineExecutorList.add(executor);
-				}
+			byte[] ipData = getData(SaturnExecutorsNode.getExecutorIpNodePath(zkExecutor));
+			if (ipData != null) {
+				Executor executor = new Executor();
+				executor.setExecutorName(zkExecutor);
+				executor.setIp(new String(ipData, "UTF-8"));
+				executor.setNoTraffic(getExecutorNoTraffic(zkExecutor));
+				executor.setShardList(new ArrayList<Shard>());
+				executor.setJobNameList(new ArrayList<String>());
+				lastOnlineExecutorList.add(executor);
 			}
 		}
 		return lastOnlineExecutorList;
@@ -0,0 +1,89 @@
+package com.vip.saturn.job.sharding.task;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+import com.vip.saturn.job.sharding.service.NamespaceShardingService;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 合并多个分片事件为一次分片：按事件顺序在内存中依次摘取、放回，然后只做一次持久化sharding/content、通知作业分片变化、更新sharding/count
+ */
+public class ExecuteCoalescedShardingTask extends AbstractAsyncShardingTask {
+
+	private static final Logger log = LoggerFactory.getLogger(ExecuteCoalescedShardingTask.class);
+
+	private List<AbstractAsyncShardingTask> tasks;
+
+	public ExecuteCoalescedShardingTask(NamespaceShardingService namespaceShardingService,
+			List<AbstractAsyncShardingTask> tasks) {
+		super(namespaceShardingService);
+		this.tasks = tasks;
+	}
+
+	@Override
+	public void run() {
+		try {
+			super.run();
+		} finally {
+			// 被合并的任务不再单独执行run()，由这里完成它们的清理，比如删除forceShard结点
+			for (AbstractAsyncShardingTask task : tasks) {
+				try {
+					task.cleanup();
+				} catch (Throwable t) {
+					log.error(t.getMessage(), t);
+				}
+			}
+			// 每个事件提交时都增加了分片计数，而run()只减少一次
+			for (int i = 1; i < tasks.size(); i++) {
+				namespaceShardingService.shardingCountDecrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	protected void logStartInfo() {
+		log.info("Execute the {} with {} sharding events", this.getClass().getSimpleName(), tasks.size());
+	}
+
+	@Override
+	protected List<String> notifyEnableJobsPrior() {
+		List<String> notifyEnableJobsPrior = new ArrayList<>();
+		for (AbstractAsyncShardingTask task : tasks) {
+			List<String> jobs = task.notifyEnableJobsPrior();
+			if (jobs != null) {
+				notifyEnableJobsPrior.addAll(jobs);
+			}
+		}
+		return notifyEnableJobsPrior.isEmpty() ? null : notifyEnableJobsPrior;
+	}
+
+	@Override
+	protected boolean pickAndPutBack(List<String> allJobs, List<String> allEnableJobs,
+			List<Executor> lastOnlineExecutorList, List<Executor> lastOnlineTrafficExecutorList) throws Exception {
+		boolean picked = false;
+		for (AbstractAsyncShardingTask task : tasks) {
+			task.logStartInfo();
+			if (task.pickAndPutBack(allJobs, allEnableJobs, lastOnlineExecutorList, lastOnlineTrafficExecutorList)) {
+				picked = true;
+			}
+			// 摘取时发现需要全量分片，则由全量分片来完成
+			if (namespaceShardingService.isNeedAllSharding()) {
+				log.info("the left events of {} will be ignored, because there will be {}",
+						this.getClass().getSimpleName(), ExecuteAllShardingTask.class.getSimpleName());
+				return false;
+			}
+		}
+		return picked;
+	}
+
+	@Override
+	protected boolean pick(List<String> allJobs, List<String> allEnableJobs, List<Shard> shardList,
+			List<Executor> lastOnlineExecutorList, List<Executor> lastOnlineTrafficExecutorList) {
+		// 由每个事件的分片任务摘取，见pickAndPutBack
+		return false;
+	}
+
+}
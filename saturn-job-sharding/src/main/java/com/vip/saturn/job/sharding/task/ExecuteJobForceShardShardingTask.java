@@ -32,11 +32,15 @@ public class ExecuteJobForceShardShardingTask extends AbstractAsyncShardingTask
 		try {
 			super.run();
 		} finally {
-			deleteForceShardNode();
+			cleanup();
 		}
 	}
 
-	private void deleteForceShardNode() {
+	/**
+	 * 删除forceShard结点，否则该作业之后的全排都不会被监听到
+	 */
+	@Override
+	protected void cleanup() {
 		try {
 			String jobConfigForceShardNodePath = SaturnExecutorsNode.getJobConfigForceShardNodePath(jobName);
 			if (curatorFramework.checkExists().forPath(jobConfigForceShardNodePath) != null) {
@@ -37,12 +37,9 @@ public class ExecuteJobServerOnlineShardingTask extends AbstractAsyncShardingTas
 
 	private String getExecutorIp() throws Exception {
 		String ip = null;
-		String executorIpNodePath = SaturnExecutorsNode.getExecutorIpNodePath(executorName);
-		if (curatorFramework.checkExists().forPath(SaturnExecutorsNode.getExecutorIpNodePath(executorName)) != null) {
-			byte[] ipBytes = curatorFramework.getData().forPath(executorIpNodePath);
-			if (ipBytes != null) {
-				ip = new String(ipBytes, "UTF-8");
-			}
+		byte[] ipBytes = getData(SaturnExecutorsNode.getExecutorIpNodePath(executorName));
+		if (ipBytes != null) {
+			ip = new String(ipBytes, "UTF-8");
 		}
 		return ip;
 	}
@@ -0,0 +1,213 @@
+package com.vip.saturn.job.sharding.task;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The index used to put shards back to executors balanced, instead of scanning all executors for every shard.
+ *
+ * <p>The executors are ordered by the totalLoadLevel, if the totalLoadLevel is the same, ordered by the position in the
+ * traffic executor list, so the chosen executor is the same as scanning the list linearly.
+ *
+ * <p>Attention, the totalLoadLevel of the executors can only be increased when putting back, that is, by
+ * {@link #putShardIntoExecutor(Shard, Executor)}.
+ */
+class PutBackBalancingIndex {
+
+	private final Map<Executor, Integer> ordinalMap = new IdentityHashMap<>();
+
+	private final Map<Executor, Map<String, Set<Integer>>> itemsMap = new IdentityHashMap<>();
+
+	PutBackBalancingIndex(List<Executor> lastOnlineTrafficExecutorList) {
+		for (int i = 0; i < lastOnlineTrafficExecutorList.size(); i++) {
+			Executor executor = lastOnlineTrafficExecutorList.get(i);
+			ordinalMap.put(executor, i);
+			Map<String, Set<Integer>> items = new HashMap<>();
+			for (Shard shard : executor.getShardList()) {
+				getOrCreateItems(items, shard.getJobName()).add(shard.getItem());
+			}
+			itemsMap.put(executor, items);
+		}
+	}
+
+	private static Set<Integer> getOrCreateItems(Map<String, Set<Integer>> items, String jobName) {
+		Set<Integer> jobItems = items.get(jobName);
+		if (jobItems == null) {
+			jobItems = new HashSet<>();
+			items.put(jobName, jobItems);
+		}
+		return jobItems;
+	}
+
+	/**
+	 * Group the executors by the jobs they support, keep the order of the executor list
+	 */
+	static Map<String, List<Executor>> groupByJob(List<Executor> executorList) {
+		Map<String, List<Executor>> executorsByJob = new HashMap<>();
+		for (int i = 0; i < executorList.size(); i++) {
+			Executor executor = executorList.get(i);
+			List<String> jobNameList = executor.getJobNameList();
+			if (jobNameList == null) {
+				continue;
+			}
+			Set<String> added = new HashSet<>();
+			for (String jobName : jobNameList) {
+				if (!added.add(jobName)) {
+					continue;
+				}
+				List<Executor> executors = executorsByJob.get(jobName);
+				if (executors == null) {
+					executors = new ArrayList<>();
+					executorsByJob.put(jobName, executors);
+				}
+				executors.add(executor);
+			}
+		}
+		return executorsByJob;
+	}
+
+	boolean containsJob(Executor executor, String jobName) {
+		Map<String, Set<Integer>> items = itemsMap.get(executor);
+		if (items == null) { // not a traffic executor, scan its shards
+			for (Shard shard : executor.getShardList()) {
+				if (shard.getJobName().equals(jobName)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		Set<Integer> jobItems = items.get(jobName);
+		return jobItems != null && !jobItems.isEmpty();
+	}
+
+	boolean contains(Executor executor, Shard shard) {
+		Map<String, Set<Integer>> items = itemsMap.get(executor);
+		if (items == null) { // not a traffic executor, scan its shards
+			for (Shard tmp : executor.getShardList()) {
+				if (tmp.getJobName().equals(shard.getJobName()) && tmp.getItem() == shard.getItem()) {
+					return true;
+				}
+			}
+			return false;
+		}
+		Set<Integer> jobItems = items.get(shard.getJobName());
+		return jobItems != null && jobItems.contains(shard.getItem());
+	}
+
+	/**
+	 * Put the shard into the executor, increase its totalLoadLevel
+	 *
+	 * @return false if the shard is already in the executor
+	 */
+	boolean putShardIntoExecutor(Shard shard, Executor executor) {
+		if (contains(executor, shard)) {
+			return false;
+		}
+		executor.getShardList().add(shard);
+		executor.setTotalLoadLevel(executor.getTotalLoadLevel() + shard.getLoadLevel());
+		Map<String, Set<Integer>> items = itemsMap.get(executor);
+		if (items != null) {
+			getOrCreateItems(items, shard.getJobName()).add(shard.getItem());
+		}
+		return true;
+	}
+
+	LoadLevelQueue newQueue(List<Executor> executorList) {
+		return new LoadLevelQueue(executorList);
+	}
+
+	private int getOrdinal(Executor executor) {
+		Integer ordinal = ordinalMap.get(executor);
+		return ordinal == null ? Integer.MAX_VALUE : ordinal;
+	}
+
+	/**
+	 * The min-heap of the executors keyed by totalLoadLevel. An executor could be in multiple queues, when its
+	 * totalLoadLevel is increased, the node in other queues will be stale, it will be refreshed lazily when it reaches
+	 * the top.
+	 */
+	class LoadLevelQueue {
+
+		private final PriorityQueue<Node> queue;
+
+		private LoadLevelQueue(List<Executor> executorList) {
+			queue = new PriorityQueue<>(Math.max(1, executorList.size()), new Comparator<Node>() {
+				@Override
+				public int compare(Node o1, Node o2) {
+					if (o1.totalLoadLevel != o2.totalLoadLevel) {
+						return o1.totalLoadLevel < o2.totalLoadLevel ? -1 : 1;
+					}
+					return o1.ordinal < o2.ordinal ? -1 : (o1.ordinal == o2.ordinal ? 0 : 1);
+				}
+			});
+			for (Executor executor : executorList) {
+				queue.add(new Node(executor));
+			}
+		}
+
+		private void refreshTop() {
+			Node top = queue.peek();
+			while (top != null && top.totalLoadLevel != top.executor.getTotalLoadLevel()) {
+				queue.poll();
+				queue.add(new Node(top.executor));
+				top = queue.peek();
+			}
+		}
+
+		boolean isEmpty() {
+			return queue.isEmpty();
+		}
+
+		/**
+		 * @return the executor with min totalLoadLevel, null if the queue is empty
+		 */
+		Executor peekMin() {
+			refreshTop();
+			Node top = queue.peek();
+			return top == null ? null : top.executor;
+		}
+
+		/**
+		 * @return the executor with min totalLoadLevel and without any shard of the job, null if not found
+		 */
+		Executor peekMinWithoutJob(String jobName) {
+			List<Node> skipped = new ArrayList<>();
+			Executor found = null;
+			refreshTop();
+			Node top = queue.peek();
+			while (top != null) {
+				if (!containsJob(top.executor, jobName)) {
+					found = top.executor;
+					break;
+				}
+				skipped.add(queue.poll());
+				refreshTop();
+				top = queue.peek();
+			}
+			queue.addAll(skipped);
+			return found;
+		}
+	}
+
+	private class Node {
+
+		private final Executor executor;
+		private final int totalLoadLevel;
+		private final int ordinal;
+
+		private Node(Executor executor) {
+			this.executor = executor;
+			this.totalLoadLevel = executor.getTotalLoadLevel();
+			this.ordinal = getOrdinal(executor);
+		}
+	}
+}
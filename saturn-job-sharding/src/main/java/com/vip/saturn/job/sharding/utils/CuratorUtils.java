@@ -1,7 +1,16 @@
 package com.vip.saturn.job.sharding.utils;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
 import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,9 +22,180 @@ public class CuratorUtils {
 
 	private static final Logger log = LoggerFactory.getLogger(CuratorUtils.class);
 
+	/**
+	 * The max count of the background requests in flight of a batch read
+	 */
+	private static final int BATCH_MAX_IN_FLIGHT = 1000;
+
+	/**
+	 * The max time to wait for a background request of a batch read
+	 */
+	private static final long BATCH_TIMEOUT_MS = 60000L;
+
 	private CuratorUtils() {
 	}
 
+	/**
+	 * Get the data of the node, return null if the node is not existing
+	 */
+	public static byte[] getDataIfExists(final CuratorFramework curatorFramework, final String path)
+			throws Exception {
+		try {
+			if (curatorFramework.checkExists().forPath(path) != null) {
+				return curatorFramework.getData().forPath(path);
+			}
+		} catch (KeeperException.NoNodeException e) {
+			log.debug("no node exception throws during get data of path:" + path, e);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the children of the node, return null if the node is not existing
+	 */
+	public static List<String> getChildrenIfExists(final CuratorFramework curatorFramework, final String path)
+			throws Exception {
+		try {
+			if (curatorFramework.checkExists().forPath(path) != null) {
+				return curatorFramework.getChildren().forPath(path);
+			}
+		} catch (KeeperException.NoNodeException e) {
+			log.debug("no node exception throws during get children of path:" + path, e);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the data of the nodes by background requests in parallel, instead of checkExists and getData one by one.
+	 *
+	 * @return the map of path and data, the data is null if the node is not existing
+	 */
+	public static Map<String, byte[]> getDataInBatch(final CuratorFramework curatorFramework,
+			final Collection<String> paths) throws Exception {
+		final Map<String, byte[]> result = new HashMap<>();
+		readInBatch(curatorFramework, paths, new BatchRead() {
+			@Override
+			public void inBackground(BackgroundCallback callback, String path) throws Exception {
+				curatorFramework.getData().inBackground(callback, path).forPath(path);
+			}
+
+			@Override
+			public void onResult(String path, CuratorEvent event) {
+				result.put(path, event.getResultCode() == KeeperException.Code.OK.intValue() ? event.getData() : null);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Check the nodes exist or not by background requests in parallel
+	 *
+	 * @return the map of path and whether the node is existing
+	 */
+	public static Map<String, Boolean> checkExistsInBatch(final CuratorFramework curatorFramework,
+			final Collection<String> paths) throws Exception {
+		final Map<String, Boolean> result = new HashMap<>();
+		readInBatch(curatorFramework, paths, new BatchRead() {
+			@Override
+			public void inBackground(BackgroundCallback callback, String path) throws Exception {
+				curatorFramework.checkExists().inBackground(callback, path).forPath(path);
+			}
+
+			@Override
+			public void onResult(String path, CuratorEvent event) {
+				result.put(path, event.getResultCode() == KeeperException.Code.OK.intValue());
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Get the children of the nodes by background requests in parallel
+	 *
+	 * @return the map of path and children, the children is null if the node is not existing
+	 */
+	public static Map<String, List<String>> getChildrenInBatch(final CuratorFramework curatorFramework,
+			final Collection<String> paths) throws Exception {
+		final Map<String, List<String>> result = new HashMap<>();
+		readInBatch(curatorFramework, paths, new BatchRead() {
+			@Override
+			public void inBackground(BackgroundCallback callback, String path) throws Exception {
+				curatorFramework.getChildren().inBackground(callback, path).forPath(path);
+			}
+
+			@Override
+			public void onResult(String path, CuratorEvent event) {
+				result.put(path,
+						event.getResultCode() == KeeperException.Code.OK.intValue() ? event.getChildren() : null);
+			}
+		});
+		return result;
+	}
+
+	private interface BatchRead {
+
+		void inBackground(BackgroundCallback callback, String path) throws Exception;
+
+		/**
+		 * Called in the event thread, with the result OK or NONODE
+		 */
+		void onResult(String path, CuratorEvent event);
+	}
+
+	/**
+	 * Issue the background requests, at most {@link #BATCH_MAX_IN_FLIGHT} in flight, and wait for all of them. The
+	 * first error except NONODE is thrown, after all the requests are completed.
+	 */
+	private static void readInBatch(CuratorFramework curatorFramework, Collection<String> paths,
+			final BatchRead batchRead) throws Exception {
+		if (paths.isEmpty()) {
+			return;
+		}
+		final Object lock = new Object();
+		final KeeperException[] error = new KeeperException[1];
+		final CountDownLatch latch = new CountDownLatch(paths.size());
+		final Semaphore inFlight = new Semaphore(BATCH_MAX_IN_FLIGHT);
+		BackgroundCallback callback = new BackgroundCallback() {
+			@Override
+			public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
+				try {
+					String path = (String) event.getContext();
+					int resultCode = event.getResultCode();
+					synchronized (lock) {
+						if (resultCode == KeeperException.Code.OK.intValue()
+								|| resultCode == KeeperException.Code.NONODE.intValue()) {
+							batchRead.onResult(path, event);
+						} else if (error[0] == null) {
+							error[0] = KeeperException.create(KeeperException.Code.get(resultCode), path);
+						}
+					}
+				} finally {
+					inFlight.release();
+					latch.countDown();
+				}
+			}
+		};
+		for (String path : paths) {
+			if (!inFlight.tryAcquire(BATCH_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				throw new TimeoutException("timeout to wait for the background requests of batch read");
+			}
+			try {
+				batchRead.inBackground(callback, path);
+			} catch (Exception e) {
+				inFlight.release();
+				throw e;
+			}
+		}
+		if (!latch.await(BATCH_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+			throw new TimeoutException("timeout to wait for the background requests of batch read");
+		}
+		synchronized (lock) {
+			if (error[0] != null) {
+				throw error[0];
+			}
+		}
+	}
+
 	/**
 	 * Not use curator's deletingChildrenIfNeeded, to avoid this bug https://github.com/apache/curator/pull/235
 	 */
@@ -3,6 +3,7 @@ package com.vip.saturn.job.sharding;
 import ch.qos.logback.classic.Level;
 import com.vip.saturn.job.sharding.entity.Executor;
 import com.vip.saturn.job.sharding.entity.Shard;
+import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
 import com.vip.saturn.job.sharding.service.NamespaceShardingContentService;
 import com.vip.saturn.job.utils.NestedZkUtils;
 import org.apache.curator.framework.CuratorFramework;
@@ -13,7 +14,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -75,4 +82,279 @@ public class NamespaceShardingContentServiceTest {
 		}
 	}
 
+	@Test
+	public void testPersistOnlyChangedExecutors() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(
+				framework);
+		List<Executor> executorList = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			executorList.add(createExecutor("e" + i, "job" + i, 2));
+		}
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH))
+				.containsOnly("e0@1", "e1@1", "e2@1");
+		int version0 = framework.checkExists()
+				.forPath(SaturnExecutorsNode.getShardingContentV2ElementNodePath("e0@1")).getVersion();
+		int headerVersion = framework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH)
+				.getVersion();
+
+		// nothing changed, nothing written
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(framework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH).getVersion())
+				.isEqualTo(headerVersion);
+
+		// e1 changed, e2 removed, e3 added
+		executorList.set(1, createExecutor("e1", "job1", 3));
+		executorList.remove(2);
+		executorList.add(createExecutor("e3", "job3", 1));
+		namespaceShardingContentService.persistDirectly(executorList);
+		// the changed content is written to the new nodes, the unchanged one is not touched
+		assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH))
+				.containsOnly("e0@1", "e1@2", "e3@2");
+		assertThat(framework.checkExists().forPath(SaturnExecutorsNode.getShardingContentV2ElementNodePath("e0@1"))
+				.getVersion()).isEqualTo(version0);
+
+		// read by another service, like the new leader
+		List<Executor> executorList1 = new NamespaceShardingContentService(framework).getExecutorList();
+		assertThat(executorList1).hasSize(3);
+		assertThat(executorList1.get(0).getExecutorName()).isEqualTo("e0");
+		assertThat(executorList1.get(1).getShardList()).hasSize(3);
+		assertThat(executorList1.get(2).getExecutorName()).isEqualTo("e3");
+	}
+
+	@Test
+	public void testReadAndRewriteSlices() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(
+				framework);
+		List<Executor> executorList = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			executorList.add(createExecutor("e" + i, "job" + i, 2));
+		}
+		// the content written by the old version
+		writeSlices(framework, namespaceShardingContentService.toShardingContent(executorList));
+
+		assertThat(namespaceShardingContentService.getExecutorList()).hasSize(2);
+
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH))
+				.containsOnly("e0@1", "e1@1");
+		assertThat(namespaceShardingContentService.getShardingItems("job1").get("e1")).containsExactly(0, 1);
+	}
+
+	@Test
+	public void testIgnoreNodesOfUncommittedVersion() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(
+				framework);
+		List<Executor> executorList = new ArrayList<>();
+		executorList.add(createExecutor("e0", "job0", 2));
+		executorList.add(createExecutor("e1", "job1", 2));
+		namespaceShardingContentService.persistDirectly(executorList);
+
+		// the nodes left by the failed persisting of the next version, which is split into several transactions
+		framework.create().forPath(SaturnExecutorsNode.getShardingContentV2ElementNodePath("e1@2"),
+				"broken".getBytes("UTF-8"));
+		framework.create().forPath(SaturnExecutorsNode.getShardingContentV2ElementNodePath("e2@2"),
+				"broken".getBytes("UTF-8"));
+		List<Executor> executorList1 = new NamespaceShardingContentService(framework).getExecutorList();
+		assertThat(executorList1).hasSize(2);
+		assertThat(executorList1.get(1).getShardList()).hasSize(2);
+
+		// the left nodes are overwritten or deleted by the next persisting
+		executorList.set(1, createExecutor("e1", "job1", 3));
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENT_V2_NODE_PATH))
+				.containsOnly("e0@1", "e1@2");
+		List<Executor> executorList2 = new NamespaceShardingContentService(framework).getExecutorList();
+		assertThat(executorList2).hasSize(2);
+		assertThat(executorList2.get(1).getShardList()).hasSize(3);
+	}
+
+	@Test
+	public void testKeepLegacySlicesInSync() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(
+				framework, true);
+		List<Executor> executorList = new ArrayList<>();
+		// the numeric executor name should not be mistaken for a slice
+		executorList.add(createExecutor("0", "job0", 2));
+		executorList.add(createExecutor("e1", "job1", 1));
+		namespaceShardingContentService.persistDirectly(executorList);
+
+		// sharding/content only contains the slices, which can be read by the old version
+		List<String> slices = framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
+		assertThat(slices).containsOnly("0");
+		String sliceContent = new String(
+				framework.getData().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("0")), "UTF-8");
+		assertThat(sliceContent).isEqualTo(namespaceShardingContentService.toShardingContent(executorList));
+
+		// the old leader rewrites the slices only, then the new format is out of date
+		List<Executor> executorListOfOldLeader = new ArrayList<>();
+		executorListOfOldLeader.add(createExecutor("e2", "job0", 3));
+		framework.delete().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("0"));
+		writeSlices(framework, namespaceShardingContentService.toShardingContent(executorListOfOldLeader));
+		List<Executor> executorList1 = new NamespaceShardingContentService(framework).getExecutorList();
+		assertThat(executorList1).hasSize(1);
+		assertThat(executorList1.get(0).getExecutorName()).isEqualTo("e2");
+
+		// the new leader rewrites both, although its sharding result is not changed
+		namespaceShardingContentService.persistDirectly(executorList);
+		List<Executor> executorList2 = new NamespaceShardingContentService(framework).getExecutorList();
+		assertThat(executorList2).hasSize(2);
+		assertThat(executorList2.get(0).getExecutorName()).isEqualTo("0");
+		assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH))
+				.containsOnly("0");
+	}
+
+	@Test
+	public void testDetectLegacySlicesRewrittenWithoutCompatible() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(
+				framework);
+		List<Executor> executorListOfOldLeader = new ArrayList<>();
+		executorListOfOldLeader.add(createExecutor("e2", "job0", 3));
+		writeSlices(framework, namespaceShardingContentService.toShardingContent(executorListOfOldLeader));
+
+		// the slices are not rewritten by default
+		List<Executor> executorList = new ArrayList<>();
+		executorList.add(createExecutor("e0", "job0", 2));
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH))
+				.containsOnly("0", "1");
+		assertThat(new NamespaceShardingContentService(framework).getExecutorList().get(0).getExecutorName())
+				.isEqualTo("e0");
+
+		// the old leader rewrites the slices
+		framework.delete().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("0"));
+		framework.delete().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("1"));
+		writeSlices(framework, namespaceShardingContentService.toShardingContent(executorListOfOldLeader));
+		assertThat(new NamespaceShardingContentService(framework).getExecutorList().get(0).getExecutorName())
+				.isEqualTo("e2");
+
+		// the new leader persists again, although its sharding result is not changed
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(new NamespaceShardingContentService(framework).getExecutorList().get(0).getExecutorName())
+				.isEqualTo("e0");
+	}
+
+	@Test
+	public void testGetShardingItemsCachedUntilInvalidated() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(
+				framework);
+		namespaceShardingContentService.enableShardingItemsCache();
+		List<Executor> executorList = new ArrayList<>();
+		executorList.add(createExecutor("e0", "job0", 2));
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(namespaceShardingContentService.getShardingItems("job0").get("e0")).containsExactly(0, 1);
+
+		// the cache is used until invalidated
+		executorList.set(0, createExecutor("e0", "job0", 3));
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(namespaceShardingContentService.getShardingItems("job0").get("e0")).containsExactly(0, 1);
+		assertThat(namespaceShardingContentService.getShardingItems("job1")).isEmpty();
+
+		namespaceShardingContentService.invalidateShardingItemsCache();
+		assertThat(namespaceShardingContentService.getShardingItems("job0").get("e0")).containsExactly(0, 1, 2);
+
+		// without cache, always read from zk
+		NamespaceShardingContentService uncachedService = new NamespaceShardingContentService(framework);
+		assertThat(uncachedService.getShardingItems("job0").get("e0")).containsExactly(0, 1, 2);
+		executorList.set(0, createExecutor("e0", "job0", 1));
+		namespaceShardingContentService.persistDirectly(executorList);
+		assertThat(uncachedService.getShardingItems("job0").get("e0")).containsExactly(0);
+	}
+
+	@Test
+	public void testPersistJobsNecessaryInBatches() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(
+				framework);
+		// the necessary node of job0 is existing, the others are not
+		framework.create().creatingParentsIfNeeded()
+				.forPath(SaturnExecutorsNode.getJobLeaderShardingNecessaryNodePath("job0"), new byte[0]);
+		Map<String, Map<String, List<Integer>>> jobShardContent = new LinkedHashMap<>();
+		List<Integer> items = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			items.add(i);
+		}
+		for (int i = 0; i < 300; i++) {
+			Map<String, List<Integer>> shardContent = new HashMap<>();
+			shardContent.put("e" + i, items);
+			jobShardContent.put("job" + i, shardContent);
+		}
+		namespaceShardingContentService.persistJobsNecessaryInTransaction(jobShardContent);
+		// about 4k bytes per job, split into 3 transactions of at most 512k bytes
+		assertThat(countNecessaryTransactions(framework, 300)).isEqualTo(3);
+
+		// all the nodes are existing now
+		jobShardContent.get("job0").put("e0", Arrays.asList(1));
+		namespaceShardingContentService.persistJobsNecessaryInTransaction(jobShardContent);
+		for (int i = 0; i < 300; i++) {
+			String data = new String(
+					framework.getData().forPath(SaturnExecutorsNode.getJobLeaderShardingNecessaryNodePath("job" + i)),
+					"UTF-8");
+			assertThat(namespaceShardingContentService.getShardContent("job" + i, data))
+					.isEqualTo(jobShardContent.get("job" + i));
+		}
+	}
+
+	@Test
+	public void testPersistJobsNecessaryInBatchesOfLimitedOps() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(
+				framework);
+		Map<String, Map<String, List<Integer>>> jobShardContent = new LinkedHashMap<>();
+		for (int i = 0; i < 2100; i++) {
+			Map<String, List<Integer>> shardContent = new HashMap<>();
+			shardContent.put("e0", Arrays.asList(0));
+			jobShardContent.put("job" + i, shardContent);
+		}
+		namespaceShardingContentService.persistJobsNecessaryInTransaction(jobShardContent);
+		// small contents, split into 3 transactions of at most 1000 jobs
+		assertThat(countNecessaryTransactions(framework, 2100)).isEqualTo(3);
+	}
+
+	/**
+	 * 同一个事务中修改的节点的mzxid相同，不同mzxid的数量就是事务数
+	 */
+	private int countNecessaryTransactions(CuratorFramework framework, int jobCount) throws Exception {
+		Set<Long> mzxids = new HashSet<>();
+		for (int i = 0; i < jobCount; i++) {
+			mzxids.add(framework.checkExists()
+					.forPath(SaturnExecutorsNode.getJobLeaderShardingNecessaryNodePath("job" + i)).getMzxid());
+		}
+		return mzxids.size();
+	}
+
+	private void writeSlices(CuratorFramework framework, String shardingContent) throws Exception {
+		byte[] content = shardingContent.getBytes("UTF-8");
+		if (framework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH) == null) {
+			framework.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
+		}
+		framework.create().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("0"),
+				Arrays.copyOfRange(content, 0, 10));
+		framework.create().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("1"),
+				Arrays.copyOfRange(content, 10, content.length));
+	}
+
+	private Executor createExecutor(String executorName, String jobName, int itemCount) {
+		Executor executor = new Executor();
+		executor.setExecutorName(executorName);
+		executor.setIp("ip");
+		executor.setJobNameList(new ArrayList<>(Arrays.asList(jobName)));
+		List<Shard> shardList = new ArrayList<>();
+		for (int i = 0; i < itemCount; i++) {
+			Shard shard = new Shard();
+			shard.setJobName(jobName);
+			shard.setItem(i);
+			shard.setLoadLevel(1);
+			shardList.add(shard);
+		}
+		executor.setShardList(shardList);
+		return executor;
+	}
+
 }
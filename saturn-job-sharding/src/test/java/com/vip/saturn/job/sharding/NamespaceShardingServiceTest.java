@@ -3,13 +3,16 @@ package com.vip.saturn.job.sharding;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vip.saturn.job.sharding.entity.Executor;
 import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
+import com.vip.saturn.job.sharding.service.NamespaceShardingService;
 import com.vip.saturn.job.utils.NestedZkUtils;
 
 /**
@@ -96,4 +99,106 @@ public class NamespaceShardingServiceTest {
 				.isEqualTo(ip3);
 	}
 
+	@Test
+	public void coalesceShardingEventsTest() throws Exception {
+		CuratorFramework curatorFramework = nestedZkUtils.createClient("MyNamespace");
+		curatorFramework.create().creatingParentsIfNeeded()
+				.forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor0"), "ip0".getBytes("UTF-8"));
+		NamespaceShardingService namespaceShardingService = new NamespaceShardingService(curatorFramework,
+				"127.0.0.1", null, null);
+		namespaceShardingService.setShardingCoalescingWindowMs(500L);
+		try {
+			namespaceShardingService.leaderElection();
+			waitShardingFinished(namespaceShardingService);
+
+			for (int i = 1; i < 5; i++) {
+				curatorFramework.create().creatingParentsIfNeeded()
+						.forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor" + i), ("ip" + i).getBytes("UTF-8"));
+				namespaceShardingService.asyncShardingWhenExecutorOnline("executor" + i, "ip" + i);
+			}
+			waitShardingFinished(namespaceShardingService);
+
+			assertThat(namespaceShardingService.getShardingPassCount()).isEqualTo(1L);
+			assertThat(namespaceShardingService.getLastShardingPassEventCount()).isEqualTo(4);
+			List<Executor> executorList = namespaceShardingService.getNamespaceShardingContentService()
+					.getExecutorList();
+			assertThat(executorList).hasSize(5);
+		} finally {
+			namespaceShardingService.shutdown();
+		}
+	}
+
+	@Test
+	public void coalesceRequestedShardingEventsTest() throws Exception {
+		CuratorFramework curatorFramework = nestedZkUtils.createClient("MyNamespace");
+		curatorFramework.create().creatingParentsIfNeeded()
+				.forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor0"), "ip0".getBytes("UTF-8"));
+		NamespaceShardingService namespaceShardingService = new NamespaceShardingService(curatorFramework,
+				"127.0.0.1", null, null);
+		namespaceShardingService.setShardingCoalescingWindowMs(0L);
+		try {
+			namespaceShardingService.leaderElection();
+			waitShardingFinished(namespaceShardingService);
+			long passCount = namespaceShardingService.getShardingPassCount();
+
+			// 批量操作请求了合并窗口，窗口内陆续到达的事件合并为一次分片
+			namespaceShardingService.coalesceShardingEvents(1000L);
+			for (int i = 1; i < 5; i++) {
+				curatorFramework.create().creatingParentsIfNeeded().forPath(
+						SaturnExecutorsNode.getExecutorIpNodePath("executor" + i), ("ip" + i).getBytes("UTF-8"));
+				namespaceShardingService.asyncShardingWhenExecutorOnline("executor" + i, "ip" + i);
+				Thread.sleep(100L);
+			}
+			waitShardingFinished(namespaceShardingService);
+
+			assertThat(namespaceShardingService.getShardingPassCount()).isEqualTo(passCount + 1);
+			assertThat(namespaceShardingService.getLastShardingPassEventCount()).isEqualTo(4);
+			assertThat(namespaceShardingService.getNamespaceShardingContentService().getExecutorList()).hasSize(5);
+		} finally {
+			namespaceShardingService.shutdown();
+		}
+	}
+
+	@Test
+	public void coalesceForceShardEventTest() throws Exception {
+		CuratorFramework curatorFramework = nestedZkUtils.createClient("MyNamespace");
+		curatorFramework.create().creatingParentsIfNeeded()
+				.forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor0"), "ip0".getBytes("UTF-8"));
+		String forceShardNodePath = SaturnExecutorsNode.getJobConfigForceShardNodePath("job1");
+		curatorFramework.create().creatingParentsIfNeeded().forPath(forceShardNodePath);
+		NamespaceShardingService namespaceShardingService = new NamespaceShardingService(curatorFramework,
+				"127.0.0.1", null, null);
+		namespaceShardingService.setShardingCoalescingWindowMs(500L);
+		try {
+			namespaceShardingService.leaderElection();
+			waitShardingFinished(namespaceShardingService);
+
+			namespaceShardingService.asyncShardingWhenJobForceShard("job1");
+			curatorFramework.create().creatingParentsIfNeeded()
+					.forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor1"), "ip1".getBytes("UTF-8"));
+			namespaceShardingService.asyncShardingWhenExecutorOnline("executor1", "ip1");
+			waitShardingFinished(namespaceShardingService);
+
+			// 全排事件被合并执行，forceShard结点仍然要删除
+			assertThat(namespaceShardingService.getLastShardingPassEventCount()).isEqualTo(2);
+			assertThat(curatorFramework.checkExists().forPath(forceShardNodePath)).isNull();
+
+			// 丢弃等待执行的事件时，分片计数也要减少
+			namespaceShardingService.setShardingCoalescingWindowMs(60 * 1000L);
+			namespaceShardingService.asyncShardingWhenJobForceShard("job1");
+			assertThat(namespaceShardingService.getShardingCount()).isEqualTo(1);
+			namespaceShardingService.shutdownInner(true);
+			assertThat(namespaceShardingService.getShardingCount()).isEqualTo(0);
+		} finally {
+			namespaceShardingService.shutdown();
+		}
+	}
+
+	private void waitShardingFinished(NamespaceShardingService namespaceShardingService) throws Exception {
+		for (int i = 0; i < 100 && namespaceShardingService.getShardingCount() > 0; i++) {
+			Thread.sleep(100L);
+		}
+		assertThat(namespaceShardingService.getShardingCount()).isEqualTo(0);
+	}
+
 }
@@ -0,0 +1,51 @@
+package com.vip.saturn.job.sharding.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.Test;
+
+public class ShardingTreeCacheTest {
+
+	/**
+	 * TreeCache没有启动，不会连接zk
+	 */
+	private final CuratorFramework curatorFramework = CuratorFrameworkFactory
+			.newClient("127.0.0.1:2181", new RetryOneTime(1000));
+
+	@Test
+	public void testOnlyInitializedTreeCacheCovers() {
+		ShardingTreeCache shardingTreeCache = new ShardingTreeCache();
+		TreeCache configTreeCache = new TreeCache(curatorFramework, "/$Jobs/job1/config");
+		shardingTreeCache.putTreeCacheIfAbsent("/$Jobs/job1/config", 1, configTreeCache);
+
+		assertThat(shardingTreeCache.getInitializedTreeCacheCovering("/$Jobs/job1/config/enabled")).isNull();
+		shardingTreeCache.markTreeCacheInitialized(configTreeCache);
+		assertThat(shardingTreeCache.isTreeCacheInitialized("/$Jobs/job1/config", 1)).isTrue();
+		assertThat(shardingTreeCache.getInitializedTreeCacheCovering("/$Jobs/job1/config")).isSameAs(configTreeCache);
+		assertThat(shardingTreeCache.getInitializedTreeCacheCovering("/$Jobs/job1/config/enabled"))
+				.isSameAs(configTreeCache);
+		// 超出TreeCache的深度
+		assertThat(shardingTreeCache.getInitializedTreeCacheCovering("/$Jobs/job1/config/enabled/x")).isNull();
+		assertThat(shardingTreeCache.getInitializedTreeCacheCovering("/$Jobs/job1/servers")).isNull();
+		assertThat(shardingTreeCache.getInitializedTreeCacheCovering("/$Jobs/job2/config/enabled")).isNull();
+	}
+
+	@Test
+	public void testNotRegisteredTreeCacheIsNotMarkedInitialized() {
+		ShardingTreeCache shardingTreeCache = new ShardingTreeCache();
+		TreeCache treeCache = new TreeCache(curatorFramework, "/$Jobs/job1/config");
+		shardingTreeCache.markTreeCacheInitialized(treeCache);
+		shardingTreeCache.putTreeCacheIfAbsent("/$Jobs/job1/config", 1, treeCache);
+		assertThat(shardingTreeCache.isTreeCacheInitialized("/$Jobs/job1/config", 1)).isFalse();
+
+		shardingTreeCache.markTreeCacheInitialized(treeCache);
+		shardingTreeCache.removeTreeCache("/$Jobs/job1/config", 1);
+		assertThat(shardingTreeCache.isTreeCacheInitialized("/$Jobs/job1/config", 1)).isFalse();
+		assertThat(shardingTreeCache.getInitializedTreeCacheCovering("/$Jobs/job1/config/enabled")).isNull();
+	}
+
+}
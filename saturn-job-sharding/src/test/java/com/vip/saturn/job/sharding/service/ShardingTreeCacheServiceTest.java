@@ -0,0 +1,93 @@
+package com.vip.saturn.job.sharding.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vip.saturn.job.utils.NestedZkUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardingTreeCacheServiceTest {
+
+	private static final String NAMESPACE = "MyNamespace";
+
+	private static final String CONFIG_PATH = "/$Jobs/job1/config";
+
+	private NestedZkUtils nestedZkUtils;
+
+	private ShardingTreeCacheService shardingTreeCacheService;
+
+	@Before
+	public void setUp() throws Exception {
+		nestedZkUtils = new NestedZkUtils();
+		nestedZkUtils.startServer();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (shardingTreeCacheService != null) {
+			shardingTreeCacheService.shutdown();
+		}
+		if (nestedZkUtils != null) {
+			nestedZkUtils.stopServer();
+		}
+	}
+
+	@Test
+	public void testReadFromZkUntilTreeCacheInitialized() throws Exception {
+		CuratorFramework curatorFramework = nestedZkUtils.createClient(NAMESPACE);
+		curatorFramework.create().creatingParentsIfNeeded()
+				.forPath(CONFIG_PATH + "/enabled", "true".getBytes(StandardCharsets.UTF_8));
+		shardingTreeCacheService = new ShardingTreeCacheService(NAMESPACE, curatorFramework);
+		shardingTreeCacheService.start();
+
+		// 没有TreeCache覆盖，直接读zk
+		assertThat(shardingTreeCacheService.isTreeCacheInitialized(CONFIG_PATH, 1)).isFalse();
+		assertThat(new String(shardingTreeCacheService.getData(CONFIG_PATH + "/enabled"), StandardCharsets.UTF_8))
+				.isEqualTo("true");
+		assertThat(shardingTreeCacheService.getData(CONFIG_PATH + "/forceShard")).isNull();
+
+		shardingTreeCacheService.addTreeCacheIfAbsent(CONFIG_PATH, 1);
+		waitTreeCacheInitialized(CONFIG_PATH, 1);
+		// 重复添加不会替换已初始化的TreeCache
+		shardingTreeCacheService.addTreeCacheIfAbsent(CONFIG_PATH, 1);
+		assertThat(shardingTreeCacheService.isTreeCacheInitialized(CONFIG_PATH, 1)).isTrue();
+
+		// zk停止后，TreeCache覆盖的节点仍然能读到
+		nestedZkUtils.stopServer();
+		assertThat(new String(shardingTreeCacheService.getData(CONFIG_PATH + "/enabled"), StandardCharsets.UTF_8))
+				.isEqualTo("true");
+		assertThat(shardingTreeCacheService.checkExists(CONFIG_PATH + "/enabled")).isTrue();
+		assertThat(shardingTreeCacheService.checkExists(CONFIG_PATH + "/forceShard")).isFalse();
+		assertThat(shardingTreeCacheService.getChildren(CONFIG_PATH)).containsExactly("enabled");
+	}
+
+	@Test
+	public void testRemoveTreeCache() throws Exception {
+		CuratorFramework curatorFramework = nestedZkUtils.createClient(NAMESPACE);
+		curatorFramework.create().creatingParentsIfNeeded().forPath(CONFIG_PATH);
+		shardingTreeCacheService = new ShardingTreeCacheService(NAMESPACE, curatorFramework);
+		shardingTreeCacheService.start();
+
+		shardingTreeCacheService.addTreeCacheIfAbsent(CONFIG_PATH, 1);
+		waitTreeCacheInitialized(CONFIG_PATH, 1);
+		shardingTreeCacheService.removeTreeCacheWithPrefix("/$Jobs/job1");
+		assertThat(shardingTreeCacheService.isTreeCacheInitialized(CONFIG_PATH, 1)).isFalse();
+
+		// 移除后回退到直接读zk
+		curatorFramework.create().forPath(CONFIG_PATH + "/enabled", "false".getBytes(StandardCharsets.UTF_8));
+		assertThat(new String(shardingTreeCacheService.getData(CONFIG_PATH + "/enabled"), StandardCharsets.UTF_8))
+				.isEqualTo("false");
+	}
+
+	private void waitTreeCacheInitialized(String path, int depth) throws InterruptedException {
+		for (int i = 0; i < 100 && !shardingTreeCacheService.isTreeCacheInitialized(path, depth); i++) {
+			Thread.sleep(100);
+		}
+		assertThat(shardingTreeCacheService.isTreeCacheInitialized(path, depth)).isTrue();
+	}
+
+}
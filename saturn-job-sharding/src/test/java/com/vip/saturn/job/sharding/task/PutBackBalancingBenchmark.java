@@ -0,0 +1,182 @@
+package com.vip.saturn.job.sharding.task;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+import com.vip.saturn.job.sharding.service.NamespaceShardingService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark of {@link AbstractAsyncShardingTask#putBackBalancing(List, List, List, List)}, putting 10k shards back to 1k
+ * executors, like the all sharding of a large namespace.
+ *
+ * <p>Generate it by: mvn -Pbenchmark clean test-compile, then run it by the main method, it's not run by the unit
+ * tests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PutBackBalancingBenchmark {
+
+	@Param({"10000"})
+	private int shardCount;
+
+	@Param({"1000"})
+	private int executorCount;
+
+	@Param({"100"})
+	private int jobCount;
+
+	private CuratorFramework curatorFramework;
+
+	private NamespaceShardingService namespaceShardingService;
+
+	private BenchmarkShardingTask task;
+
+	private List<String> allEnableJobs;
+
+	private List<Shard> shardList;
+
+	private List<Executor> executorList;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		// the client is not started, the config is not read from zk
+		curatorFramework = CuratorFrameworkFactory.newClient("127.0.0.1:2181", new RetryOneTime(1000));
+		namespaceShardingService = new NamespaceShardingService(curatorFramework, "benchmark", null, null);
+		task = new BenchmarkShardingTask(namespaceShardingService, executorCount);
+		allEnableJobs = new ArrayList<>();
+		for (int i = 0; i < jobCount; i++) {
+			allEnableJobs.add("job" + i);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		executorList = new ArrayList<>();
+		for (int i = 0; i < executorCount; i++) {
+			Executor executor = new Executor();
+			executor.setExecutorName("executor" + i);
+			executor.setIp("ip" + i);
+			executor.setShardList(new ArrayList<Shard>());
+			executor.setJobNameList(new ArrayList<>(allEnableJobs));
+			executorList.add(executor);
+		}
+		shardList = new ArrayList<>();
+		int itemsPerJob = shardCount / jobCount;
+		for (int i = 0; i < jobCount; i++) {
+			for (int j = 0; j < itemsPerJob; j++) {
+				Shard shard = new Shard();
+				shard.setJobName(allEnableJobs.get(i));
+				shard.setItem(j);
+				shard.setLoadLevel(i % 3 + 1);
+				shardList.add(shard);
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownTrial() {
+		namespaceShardingService.getExecutorService().shutdownNow();
+		curatorFramework.close();
+	}
+
+	@Benchmark
+	public List<Executor> putBackBalancing() throws Exception {
+		task.putBackBalancing(allEnableJobs, shardList, executorList, executorList);
+		return executorList;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder().include(PutBackBalancingBenchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+
+	/**
+	 * Every tenth job has a preferList of 50 executors, every fifth job is in local mode, the config is not read from
+	 * zk.
+	 */
+	private static class BenchmarkShardingTask extends AbstractAsyncShardingTask {
+
+		private final List<String> preferList = new ArrayList<>();
+
+		BenchmarkShardingTask(NamespaceShardingService namespaceShardingService, int executorCount) {
+			super(namespaceShardingService);
+			for (int i = 0; i < executorCount; i += executorCount / 50) {
+				preferList.add("executor" + i);
+			}
+		}
+
+		private int jobIndex(String jobName) {
+			return Integer.parseInt(jobName.substring("job".length()));
+		}
+
+		@Override
+		protected void logStartInfo() {
+		}
+
+		@Override
+		protected boolean pick(List<String> allJobs, List<String> allEnableJobs, List<Shard> shardList,
+				List<Executor> lastOnlineExecutorList, List<Executor> lastOnlineTrafficExecutorList) {
+			return true;
+		}
+
+		@Override
+		protected byte[] getData(String path) {
+			return null;
+		}
+
+		@Override
+		protected boolean checkExists(String path) {
+			return false;
+		}
+
+		@Override
+		protected List<String> getChildren(String path) {
+			return null;
+		}
+
+		@Override
+		protected boolean isLocalMode(String jobName) {
+			return jobIndex(jobName) % 5 == 4;
+		}
+
+		@Override
+		protected boolean preferListIsConfigured(String jobName) {
+			return jobIndex(jobName) % 10 == 0;
+		}
+
+		@Override
+		protected List<String> getPreferListConfigured(String jobName) {
+			return preferListIsConfigured(jobName) ? preferList : new ArrayList<String>();
+		}
+
+		@Override
+		protected boolean useDispreferList(String jobName) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.vip.saturn.job.sharding.task;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PutBackBalancingIndexTest {
+
+	@Test
+	public void testPeekMinIsSameAsLinearScan() {
+		Random random = new Random(2018);
+		List<Executor> executorList = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Executor executor = new Executor();
+			executor.setExecutorName("executor" + i);
+			executor.setJobNameList(Arrays.asList("job1", "job2"));
+			executor.setShardList(new ArrayList<Shard>());
+			executor.setTotalLoadLevel(random.nextInt(3));
+			executorList.add(executor);
+		}
+
+		PutBackBalancingIndex index = new PutBackBalancingIndex(executorList);
+		PutBackBalancingIndex.LoadLevelQueue queue = index.newQueue(executorList);
+		for (int i = 0; i < 200; i++) {
+			Shard shard = new Shard();
+			shard.setJobName("job" + (i % 2 + 1));
+			shard.setItem(i);
+			shard.setLoadLevel(random.nextInt(3) + 1);
+
+			Executor expected = null;
+			for (Executor executor : executorList) {
+				if (expected == null || expected.getTotalLoadLevel() > executor.getTotalLoadLevel()) {
+					expected = executor;
+				}
+			}
+			Executor executor = queue.peekMin();
+			assertThat(executor).isSameAs(expected);
+			assertThat(index.putShardIntoExecutor(shard, executor)).isTrue();
+			assertThat(index.putShardIntoExecutor(shard, executor)).isFalse();
+		}
+	}
+
+	@Test
+	public void testPeekMinWithoutJob() {
+		List<Executor> executorList = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Executor executor = new Executor();
+			executor.setExecutorName("executor" + i);
+			executor.setJobNameList(Arrays.asList("job1"));
+			executor.setShardList(new ArrayList<Shard>());
+			executorList.add(executor);
+		}
+
+		PutBackBalancingIndex index = new PutBackBalancingIndex(executorList);
+		PutBackBalancingIndex.LoadLevelQueue queue = index.newQueue(executorList);
+		for (int i = 0; i < 3; i++) {
+			Shard shard = new Shard();
+			shard.setJobName("job1");
+			shard.setItem(i);
+			shard.setLoadLevel(1);
+			Executor executor = queue.peekMinWithoutJob("job1");
+			assertThat(executor).isSameAs(executorList.get(i));
+			index.putShardIntoExecutor(shard, executor);
+		}
+		assertThat(queue.peekMinWithoutJob("job1")).isNull();
+		assertThat(queue.peekMin()).isSameAs(executorList.get(0));
+	}
+}
@@ -0,0 +1,67 @@
+package com.vip.saturn.job.sharding.utils;
+
+import com.vip.saturn.job.utils.NestedZkUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CuratorUtilsTest {
+
+	private NestedZkUtils nestedZkUtils;
+
+	@Before
+	public void setUp() throws Exception {
+		nestedZkUtils = new NestedZkUtils();
+		nestedZkUtils.startServer();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (nestedZkUtils != null) {
+			nestedZkUtils.stopServer();
+		}
+	}
+
+	@Test
+	public void testReadInBatch() throws Exception {
+		CuratorFramework framework = nestedZkUtils.createClient("namespace");
+		List<String> paths = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			String path = "/test/node" + i;
+			paths.add(path);
+			if (i % 2 == 0) {
+				framework.create().creatingParentsIfNeeded()
+						.forPath(path, String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+			}
+		}
+
+		Map<String, byte[]> dataMap = CuratorUtils.getDataInBatch(framework, paths);
+		Map<String, Boolean> existsMap = CuratorUtils.checkExistsInBatch(framework, paths);
+		assertThat(dataMap).hasSize(2000);
+		assertThat(existsMap).hasSize(2000);
+		for (int i = 0; i < 2000; i++) {
+			String path = "/test/node" + i;
+			if (i % 2 == 0) {
+				assertThat(new String(dataMap.get(path), StandardCharsets.UTF_8)).isEqualTo(String.valueOf(i));
+				assertThat(existsMap.get(path)).isTrue();
+			} else {
+				assertThat(dataMap.get(path)).isNull();
+				assertThat(existsMap.get(path)).isFalse();
+			}
+		}
+
+		Map<String, List<String>> childrenMap = CuratorUtils.getChildrenInBatch(framework,
+				Arrays.asList("/test", "/notExisting"));
+		assertThat(childrenMap.get("/test")).hasSize(1000);
+		assertThat(childrenMap.get("/notExisting")).isNull();
+	}
+}